@@ -27,7 +27,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javafx.geometry.Bounds;
@@ -41,6 +41,8 @@ import com.shootoff.camera.arenamask.ArenaMaskManager;
 import com.shootoff.camera.autocalibration.AutoCalibrationManager;
 import com.shootoff.camera.shotdetection.ShotDetectionManager;
 import com.shootoff.config.Configuration;
+import com.shootoff.gui.UpdateCoalescer;
+import com.shootoff.util.HashedWheelTimer.Timeout;
 import com.shootoff.util.TimerPool;
 import com.xuggle.mediatool.IMediaWriter;
 import com.xuggle.mediatool.MediaListenerAdapter;
@@ -107,11 +109,28 @@ public class CameraManager {
 
 	protected int frameCount = 0;
 	protected long currentFrameTimestamp = -1;
+	protected long projectorDelay = 0;
+	private final Object backgroundUpdateKey = new Object();
+
+	// Frames are only shown when the feed can be seen, detection and
+	// recording continue either way
+	private volatile boolean isFeedVisible = true;
+	private volatile long minDisplayIntervalNs = 0;
+	private long lastDisplayedFrameTime = 0;
 
 	public long getCurrentFrameTimestamp() {
 		return currentFrameTimestamp;
 	}
 
+	/**
+	 * @return the time in milliseconds between the projector being told to
+	 *         show something and this camera seeing it, as measured during
+	 *         auto-calibration, or 0 if it hasn't been measured
+	 */
+	public long getProjectorDelay() {
+		return projectorDelay;
+	}
+
 	private double webcamFPS = DEFAULT_FPS;
 	private boolean showedFPSWarning = false;
 
@@ -207,7 +226,7 @@ public class CameraManager {
 	}
 
 	public void close() {
-		if (arenaMaskManager != null) arenaMaskManager.isStreaming.set(false);
+		if (arenaMaskManager != null) arenaMaskManager.stop();
 
 		getCameraView().close();
 		setDetecting(false);
@@ -265,6 +284,44 @@ public class CameraManager {
 		return limitDetectProjection;
 	}
 
+	/**
+	 * Set whether or not this camera's feed can currently be seen, e.g. because
+	 * its tab is selected and the main window isn't minimized. Frames are not
+	 * shown for hidden feeds.
+	 */
+	public void setFeedVisible(final boolean isFeedVisible) {
+		this.isFeedVisible = isFeedVisible;
+	}
+
+	public boolean isFeedVisible() {
+		return isFeedVisible;
+	}
+
+	/**
+	 * Limit how often frames are shown for this camera's feed, for example to
+	 * the refresh rate of the monitor showing it.
+	 * 
+	 * @param maxRate
+	 *            the maximum number of frames to show per second, or 0 to show
+	 *            every frame
+	 */
+	public void setMaxDisplayRate(final int maxRate) {
+		minDisplayIntervalNs = maxRate > 0 ? TimeUnit.SECONDS.toNanos(1) / maxRate : 0;
+	}
+
+	private boolean shouldDisplayFrame() {
+		if (!isFeedVisible) return false;
+
+		final long minInterval = minDisplayIntervalNs;
+		if (minInterval == 0) return true;
+
+		final long now = System.nanoTime();
+		if (now - lastDisplayedFrameTime < minInterval) return false;
+
+		lastDisplayedFrameTime = now;
+		return true;
+	}
+
 	public Optional<Bounds> getProjectionBounds() {
 		return projectionBounds;
 	}
@@ -377,8 +434,8 @@ public class CameraManager {
 		return webcamFPS;
 	}
 
-	private ScheduledFuture<?> brightnessDiagnosticFuture = null;
-	private ScheduledFuture<?> motionDiagnosticFuture = null;
+	private Timeout brightnessDiagnosticFuture = null;
+	private Timeout motionDiagnosticFuture = null;
 
 	public Mat curFrameMask = null;
 
@@ -490,8 +547,11 @@ public class CameraManager {
 				videoWriterStream.encodeVideo(0, frame);
 			}
 
+			if (!shouldDisplayFrame()) continue;
+
+			// Only the latest frame is shown if the UI falls behind
 			final BufferedImage frame = currentFrame;
-			Platform.runLater(() -> {
+			UpdateCoalescer.post(backgroundUpdateKey, () -> {
 				if (cropFeedToProjection && projectionBounds.isPresent()) {
 					cameraView.updateBackground(frame, projectionBounds);
 				} else {
@@ -601,24 +661,30 @@ public class CameraManager {
 	}
 
 	private Label brightnessDiagnosticWarning = null;
+	private volatile boolean brightnessWarningWanted = false;
+	private final Object brightnessDiagnosticKey = new Object();
+
+	// Shows or hides the warning to match brightnessWarningWanted, so a
+	// pending update can safely be replaced by a newer one
+	private void updateBrightnessWarning() {
+		if (brightnessWarningWanted && brightnessDiagnosticWarning == null) {
+			brightnessDiagnosticWarning = cameraView.addDiagnosticMessage("Warning: Excessive brightness", Color.RED);
+		} else if (!brightnessWarningWanted && brightnessDiagnosticWarning != null) {
+			cameraView.removeDiagnosticMessage(brightnessDiagnosticWarning);
+			brightnessDiagnosticWarning = null;
+		}
+	}
 
 	public void showBrightnessWarning() {
-		if (!TimerPool.isWaiting(brightnessDiagnosticFuture)) {
-			Platform.runLater(() -> {
-				brightnessDiagnosticWarning = cameraView.addDiagnosticMessage("Warning: Excessive brightness",
-						Color.RED);
-			});
-		} else {
-			// Stop the existing timer and start a new one
-			TimerPool.cancelTimer(brightnessDiagnosticFuture);
-		}
+		brightnessWarningWanted = true;
+		UpdateCoalescer.post(brightnessDiagnosticKey, this::updateBrightnessWarning);
+
+		// Stop the existing timer and start a new one
+		if (TimerPool.isWaiting(brightnessDiagnosticFuture)) TimerPool.cancelTimer(brightnessDiagnosticFuture);
+
 		brightnessDiagnosticFuture = TimerPool.schedule(() -> {
-			Platform.runLater(() -> {
-				if (brightnessDiagnosticWarning != null) {
-					cameraView.removeDiagnosticMessage(brightnessDiagnosticWarning);
-					brightnessDiagnosticWarning = null;
-				}
-			});
+			brightnessWarningWanted = false;
+			UpdateCoalescer.post(brightnessDiagnosticKey, this::updateBrightnessWarning);
 		}, DIAGNOSTIC_MESSAGE_DURATION);
 
 		if (!webcam.isPresent() || shownBrightnessWarning) return;
@@ -628,23 +694,28 @@ public class CameraManager {
 	}
 
 	private Label motionDiagnosticWarning = null;
+	private volatile boolean motionWarningWanted = false;
+	private final Object motionDiagnosticKey = new Object();
+
+	private void updateMotionWarning() {
+		if (motionWarningWanted && motionDiagnosticWarning == null) {
+			motionDiagnosticWarning = cameraView.addDiagnosticMessage("Warning: Excessive motion", Color.RED);
+		} else if (!motionWarningWanted && motionDiagnosticWarning != null) {
+			cameraView.removeDiagnosticMessage(motionDiagnosticWarning);
+			motionDiagnosticWarning = null;
+		}
+	}
 
 	public void showMotionWarning() {
-		if (!TimerPool.isWaiting(motionDiagnosticFuture)) {
-			Platform.runLater(() -> {
-				motionDiagnosticWarning = cameraView.addDiagnosticMessage("Warning: Excessive motion", Color.RED);
-			});
-		} else {
-			// Stop the existing timer and start a new one
-			TimerPool.cancelTimer(motionDiagnosticFuture);
-		}
+		motionWarningWanted = true;
+		UpdateCoalescer.post(motionDiagnosticKey, this::updateMotionWarning);
+
+		// Stop the existing timer and start a new one
+		if (TimerPool.isWaiting(motionDiagnosticFuture)) TimerPool.cancelTimer(motionDiagnosticFuture);
+
 		motionDiagnosticFuture = TimerPool.schedule(() -> {
-			Platform.runLater(() -> {
-				if (motionDiagnosticWarning != null) {
-					cameraView.removeDiagnosticMessage(motionDiagnosticWarning);
-					motionDiagnosticWarning = null;
-				}
-			});
+			motionWarningWanted = false;
+			UpdateCoalescer.post(motionDiagnosticKey, this::updateMotionWarning);
 		}, DIAGNOSTIC_MESSAGE_DURATION);
 	}
 
@@ -668,6 +739,7 @@ public class CameraManager {
 					(int) bounds.getWidth(), (int) bounds.getHeight());
 
 			cameraAutoCalibrated = true;
+			projectorDelay = Math.max(0, delay);
 
 			Platform.runLater(() -> {
 				cameraCalibrationListener.calibrate(bounds, false);
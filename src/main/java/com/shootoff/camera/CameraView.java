@@ -14,7 +14,11 @@ import javafx.scene.paint.Color;
 public interface CameraView {
 	public boolean addChild(Node c);
 
-	public void addShot(Color color, double x, double y);
+	/**
+	 * Add a shot found in a camera frame. The shot's capture time is the time
+	 * the frame was captured, not when the shot finished processing.
+	 */
+	public void addShot(Shot shot);
 
 	public Optional<Target> addTarget(File targetFile);
 
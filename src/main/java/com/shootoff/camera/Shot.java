@@ -22,43 +22,47 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Ellipse;
 
 /**
- * This class encapsulates the operations to show a shot of a specific color and
- * size on a canvas.
+ * An immutable record of a single shot: where it landed, its laser color,
+ * when it was taken, when the camera frame it was found in was captured and
+ * how large its marker should be drawn. Shots are
+ * created on shot detection threads for every suspected shot, so they don't
+ * hold any scene graph nodes. Views create markers for the shots they
+ * display.
  * 
  * @author phrack
  */
 public class Shot {
 	private static final Logger logger = LoggerFactory.getLogger(Shot.class);
 	private final Color color;
-	private double x;
-	private double y;
+	private final double x;
+	private final double y;
 	private final long timestamp;
-
 	private final int frame;
+	private final int markerRadius;
+	private final long captureTime;
 
-	private Ellipse marker;
-
-	public Shot(Color color, double x, double y, long timestamp, int frame, int markerRadius) {
+	public Shot(Color color, double x, double y, long timestamp, int frame, int markerRadius, long captureTime) {
 		this.color = color;
 		this.x = x;
 		this.y = y;
 		this.timestamp = timestamp;
 		this.frame = frame;
-		this.marker = new Ellipse(x, y, markerRadius, markerRadius);
-		this.marker.setFill(color);
+		this.markerRadius = markerRadius;
+		this.captureTime = captureTime;
+	}
+
+	/**
+	 * Create a shot that wasn't found in a camera frame, e.g. one that was
+	 * clicked or loaded from a session, which is captured now.
+	 */
+	public Shot(Color color, double x, double y, long timestamp, int frame, int markerRadius) {
+		this(color, x, y, timestamp, frame, markerRadius, System.currentTimeMillis());
 	}
 
 	public Shot(Color color, double x, double y, long timestamp, int markerRadius) {
-		this.color = color;
-		this.x = x;
-		this.y = y;
-		this.timestamp = timestamp;
-		this.marker = new Ellipse(x, y, markerRadius, markerRadius);
-		this.marker.setFill(color);
-		this.frame = 0;
+		this(color, x, y, timestamp, 0, markerRadius);
 	}
 
 	public Color getColor() {
@@ -81,11 +85,24 @@ public class Shot {
 		return frame;
 	}
 
-	public Ellipse getMarker() {
-		return marker;
+	public int getMarkerRadius() {
+		return markerRadius;
 	}
 
-	public void setTranslation(int displayWidth, int displayHeight, int feedWidth, int feedHeight) {
+	/**
+	 * @return the time in milliseconds since the epoch that the camera frame
+	 *         this shot was found in was captured
+	 */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+
+	/**
+	 * Translate this shot from camera feed coordinates to display coordinates.
+	 * 
+	 * @return a new shot at the translated coordinates
+	 */
+	public Shot translate(int displayWidth, int displayHeight, int feedWidth, int feedHeight) {
 		final double scaleX = (double) displayWidth / (double) feedWidth;
 		final double scaleY = (double) displayHeight / (double) feedHeight;
 
@@ -93,13 +110,9 @@ public class Shot {
 		final double scaledY = y * scaleY;
 
 		if (logger.isTraceEnabled()) {
-			logger.trace("setTranslation {} {} - {} {} to {} {}", scaleX, scaleY, x, y, scaledX, scaledY);
+			logger.trace("translate {} {} - {} {} to {} {}", scaleX, scaleY, x, y, scaledX, scaledY);
 		}
 
-		marker = new Ellipse(scaledX, scaledY, marker.radiusXProperty().get(), marker.radiusYProperty().get());
-		marker.setFill(color);
-
-		x = scaledX;
-		y = scaledY;
+		return new Shot(color, scaledX, scaledY, timestamp, frame, markerRadius, captureTime);
 	}
 }
@@ -20,8 +20,8 @@ package com.shootoff.camera.arenamask;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -37,113 +37,107 @@ import com.xuggle.xuggler.IVideoPicture;
 import com.xuggle.xuggler.video.ConverterFactory;
 import com.xuggle.xuggler.video.IConverter;
 
-public class ArenaMaskManager implements Runnable {
+public class ArenaMaskManager {
 	private static final Logger logger = LoggerFactory.getLogger(ArenaMaskManager.class);
 
-	private long delay = 0;
+	private volatile long delay = 0;
 
 	private Mat mask = new Mat();
-	private Size dsize = null;
+	private int[] maskPixels = null;
+	private volatile Size dsize = null;
 
 	private int avgLums = 0;
 	private int minLums;
 	private int maxLums;
 
 	private int[][] lumsMovingAverage;
+	private byte[] framePixels = null;
 
-	public volatile Mask maskFromArena = null;
-
-	public Semaphore sem = new Semaphore(1);
-
-	public AtomicBoolean isStreaming = new AtomicBoolean(true);
+	private volatile MaskHistory history = new MaskHistory();
+	private Mask currentMask = null;
 
 	private boolean recordMask = false;
 
-	@Override
-	public void run() {
-		if (logger.isDebugEnabled()) logger.debug("Starting arenaMaskManager thread");
-
-		if (recordMask) startRecordingStream(new File("testingArenaMask.mp4"));
-
-		while (isStreaming.get()) {
-			try {
-				sem.acquire();
-			} catch (InterruptedException e) {
-				continue;
-			}
-			if (maskFromArena == null) {
-				sem.release();
-				continue;
-			}
+	private Optional<Consumer<Size>> sizeListener = Optional.empty();
 
-			Mask nextMask = maskFromArena;
-			long curDelay = System.currentTimeMillis() - nextMask.getTimestamp();
+	/**
+	 * Add a newly rendered arena mask. This never blocks, the mask's
+	 * luminance is calculated here so that it is ready by the time a camera
+	 * frame needs it.
+	 */
+	public void insert(Mask mask) {
+		if (dsize != null) mask.calculateLum(dsize, recordMask);
 
-			if (curDelay > delay) {
-				sem.release();
-				continue;
-			}
+		history.insert(mask);
+	}
 
-			handleMask(nextMask);
+	/**
+	 * Get the mask for a camera frame, which is built from the newest arena
+	 * mask that was rendered at least the projector delay before the frame
+	 * was captured.
+	 * 
+	 * @param frameTimestamp
+	 *            the time the camera frame was captured
+	 * @return the mask to compare the frame to, which stays the same as the
+	 *         last one returned when there is no newer matching arena mask
+	 */
+	public Mat getMask(long frameTimestamp) {
+		final Optional<Mask> nextMask = history.get(frameTimestamp - delay);
+
+		if (nextMask.isPresent() && nextMask.get() != currentMask) {
+			currentMask = nextMask.get();
+			handleMask(currentMask);
 		}
 
-		if (recordMask) stopRecordingStream();
+		return mask;
 	}
 
 	public void handleMask(Mask nextMask) {
-		Mat nextMat = nextMask.getLumMask(dsize);
+		nextMask.calculateLum(dsize, recordMask);
+		final int[][] nextLums = nextMask.getLumRows();
+
+		final int width = mask.cols();
+		final int height = mask.rows();
+
+		// A mask rendered before the mask size changed is skipped, the
+		// renderer replaces it with one of the new size
+		if (nextLums.length != height || (height > 0 && nextLums[0].length != width)) {
+			if (logger.isDebugEnabled()) logger.debug("Skipping arena mask that is not {}x{}", width, height);
+			return;
+		}
 
 		if (recordMask) recordMask(nextMask);
 
 		int nextMaskAvgLum = nextMask.getAvgMaskLum();
 
-		maskFromArena = null;
-		sem.release();
-
-		double scaledMaskAvgLum = (((double) (nextMaskAvgLum - 0) / (double) (255 * 255 - 0))
-				* (double) (maxLums - minLums) + minLums);
-
-		for (int y = 0; y < nextMat.rows(); y++) {
-			for (int x = 0; x < nextMat.cols(); x++) {
-				int[] maskpx = { 0 };
-				mask.get(y, x, maskpx);
-
-				int[] nextmatpx = { 0 };
-				nextMat.get(y, x, nextmatpx);
-
-				double scaler = (double) lumsMovingAverage[x][y] / scaledMaskAvgLum;
-
-				// int newLum = (int) ((double) nextmatpx[0] * ((double)
-				// lumsMovingAverage[x][y] / (double) nextMaskAvgLum));
-				int scaledValue = (int) (((double) (nextmatpx[0] - 0) / (double) (255 * 255 - 0))
-						* (double) (maxLums - minLums) + minLums);
-				scaledValue *= scaler;
-
-				// int normalized = (int)
-				// ((double)(Math.min(Math.max(nextmatpx[0], minLums), maxLums)
-				// - minLums) / (double)(maxLums - minLums));
-				// int newLum = (int) ((double) normalized * ((double) avgLums /
-				// (double) nextMaskAvgLum));
-
-				// maskpx[0] = (((maskpx[0]) + scaledValue) / 2);
-				maskpx[0] = scaledValue;
-
-				/*
-				 * if (scaledValue > lumsMovingAverage[x][y]) maskpx[0] =
-				 * scaledValue; else maskpx[0] = (int) (.95 * maskpx[0]);
-				 */
-				/*
-				 * if (x == 200 && y == 200 && nextmatpx[0] > 0) logger.warn(
-				 * "pixel {} {} - min {} max {} - maskg {} scaledMaskAvgLum {} scaler {} scaledValue {} lumsMovingAverage[x][y] {} nmpx {} avgLums {} nmAvgLum {} mpx {}"
-				 * , x, y, minLums, maxLums, mask.get(y, x)[0],
-				 * scaledMaskAvgLum, scaler, scaledValue,
-				 * lumsMovingAverage[x][y], nextmatpx[0], avgLums,
-				 * nextMaskAvgLum, maskpx[0]);
-				 */
-
-				mask.put(y, x, maskpx);
+		final double lumRange = (double) (maxLums - minLums);
+		double scaledMaskAvgLum = (((double) (nextMaskAvgLum - 0) / (double) (255 * 255 - 0)) * lumRange + minLums);
+
+		// Divisions are hoisted out of the loop, it runs for every pixel of
+		// every projector frame
+		final double lumScale = lumRange / (double) (255 * 255);
+		final double inverseMaskAvgLum = 1.0 / scaledMaskAvgLum;
+
+		// The new mask is built in Java and copied into the Mat in one go,
+		// each JNI call costs more than the math for a pixel
+		if (maskPixels == null || maskPixels.length != width * height) maskPixels = new int[width * height];
+
+		for (int x = 0; x < width; x++) {
+			// Columns are walked in the outer loop to match the layout of the
+			// moving averages
+			final int[] columnAverages = lumsMovingAverage[x];
+
+			for (int y = 0; y < height; y++) {
+				final int i = y * width + x;
+
+				final double scaler = (double) columnAverages[y] * inverseMaskAvgLum;
+				final int scaledValue = (int) ((double) nextLums[y][x] * lumScale + minLums);
+
+				maskPixels[i] = (int) (scaledValue * scaler);
 			}
 		}
+
+		mask.put(0, 0, maskPixels);
 	}
 
 	public void setDelay(long delay) {
@@ -151,12 +145,34 @@ public class ArenaMaskManager implements Runnable {
 	}
 
 	public void start(int width, int height) {
-		mask = new Mat(height, width, CvType.CV_32S);
+		mask = Mat.zeros(height, width, CvType.CV_32S);
 		dsize = new Size(width, height);
+		history = MaskHistory.forMaskSize(width, height);
+
+		if (sizeListener.isPresent()) sizeListener.get().accept(dsize);
 
-		(new Thread(this)).start();
+		if (recordMask) startRecordingStream(new File("testingArenaMask.mp4"));
 	}
 
+	/**
+	 * Tell whatever renders arena masks what size they are compared to camera
+	 * frames at, so masks can be rendered at that size to begin with. The
+	 * listener is called right away if the size is already known.
+	 */
+	public void setSizeListener(Consumer<Size> sizeListener) {
+		this.sizeListener = Optional.ofNullable(sizeListener);
+
+		final Size size = dsize;
+		if (sizeListener != null && size != null) sizeListener.accept(size);
+	}
+
+	public void stop() {
+		if (recordMask) stopRecordingStream();
+	}
+
+	/**
+	 * @return the mask that was most recently returned for a camera frame
+	 */
 	public Mat getMask() {
 		return mask;
 	}
@@ -167,7 +183,7 @@ public class ArenaMaskManager implements Runnable {
 	private long recordingStartTime;
 
 	private void recordMask(Mask mask) {
-		if (recordingStream) {
+		if (recordingStream && mask.getMaskImage() != null) {
 			BufferedImage image = ConverterFactory.convertToType(mask.getMaskImage(), BufferedImage.TYPE_3BYTE_BGR);
 			IConverter converter = ConverterFactory.createConverter(image, IPixelFormat.Type.YUV420P);
 
@@ -207,26 +223,25 @@ public class ArenaMaskManager implements Runnable {
 		long lumsMinimumAcrossFrame = 255 * 255;
 		long lumsMaximumAcrossFrame = 0;
 
-		for (int y = 0; y < frame.rows(); y++) {
-			for (int x = 0; x < frame.cols(); x++) {
-				byte[] px = { 0, 0, 0 };
-				frame.get(y, x, px);
-				int matS = px[1] & 0xFF;
-				int matV = px[2] & 0xFF;
+		final int channels = frame.channels();
+		final int pixelCount = frame.rows() * frame.cols();
+		if (framePixels == null || framePixels.length != pixelCount * channels)
+			framePixels = new byte[pixelCount * channels];
+		frame.get(0, 0, framePixels);
 
-				int curLum = ((255 - matS) * matV);
+		for (int i = 0; i < pixelCount; i++) {
+			int matS = framePixels[i * channels + 1] & 0xFF;
+			int matV = framePixels[i * channels + 2] & 0xFF;
 
-				lumsCurrentAcrossFrame += curLum;
+			int curLum = ((255 - matS) * matV);
 
-				if (curLum > lumsMaximumAcrossFrame) {
-					lumsMaximumAcrossFrame = curLum;
-				} else if (curLum < lumsMinimumAcrossFrame) {
-					lumsMinimumAcrossFrame = curLum;
-				}
-			}
+			lumsCurrentAcrossFrame += curLum;
+
+			if (curLum > lumsMaximumAcrossFrame) lumsMaximumAcrossFrame = curLum;
+			if (curLum < lumsMinimumAcrossFrame) lumsMinimumAcrossFrame = curLum;
 		}
 
-		lumsCurrentAcrossFrame /= frame.rows() * frame.cols();
+		lumsCurrentAcrossFrame /= pixelCount;
 		minLums = (int) lumsMinimumAcrossFrame;
 		maxLums = (int) lumsMaximumAcrossFrame;
 		avgLums = ((avgLums * 4) + (int) lumsCurrentAcrossFrame) / 5;
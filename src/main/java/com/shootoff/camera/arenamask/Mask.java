@@ -18,7 +18,9 @@
 
 package com.shootoff.camera.arenamask;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -29,21 +31,37 @@ import com.shootoff.camera.Camera;
 
 public class Mask {
 	private BufferedImage bImage;
-	private Mat mask;
 	private final long timestamp;
 
 	public Mask(BufferedImage bImage, long timestamp) {
 		this.bImage = bImage;
 		this.timestamp = timestamp;
-		this.mask = new Mat();
+	}
+
+	/**
+	 * Create a mask whose luminance was already calculated at the size the
+	 * mask is used at, e.g. by updating only the part of the previous mask
+	 * that changed. Rows that didn't change may be shared with other masks, so
+	 * rows must never be modified once they are in a mask.
+	 */
+	public Mask(int[][] lumRows, int avgMaskLum, long timestamp) {
+		this.bImage = null;
+		this.timestamp = timestamp;
+		this.lumRows = lumRows;
+		this.avgMaskLum = avgMaskLum;
 	}
 
 	private int avgMaskLum = 0;
+	private int[][] lumRows = null;
 
 	public int getAvgMaskLum() {
 		return avgMaskLum;
 	}
 
+	/**
+	 * @return the rendered mask, which is dropped once the luminance has been
+	 *         calculated unless it was kept for recording
+	 */
 	public BufferedImage getMaskImage() {
 		return bImage;
 	}
@@ -52,39 +70,114 @@ public class Mask {
 		return timestamp;
 	}
 
-	public Mat getLumMask(Size targetSize) {
-		// Indicates it is already initialized
-		if (mask != null && mask.rows() > 0) return mask;
+	/**
+	 * @return the luminance of each pixel in the mask, one array per row. Only
+	 *         set once it has been calculated.
+	 */
+	public int[][] getLumRows() {
+		return lumRows;
+	}
 
-		mask = new Mat((int) targetSize.height, (int) targetSize.width, CvType.CV_32S);
+	/**
+	 * Calculate the luminance of each pixel of the mask scaled to
+	 * <code>targetSize</code>. Masks are kept around while camera frames may
+	 * still need them, so afterwards only the luminance is held on to and the
+	 * image and the Mats used to calculate it are released.
+	 * 
+	 * @param keepImage
+	 *            keep the image scaled to <code>targetSize</code>, e.g. because
+	 *            the masks are being recorded
+	 */
+	public void calculateLum(Size targetSize, boolean keepImage) {
+		// Indicates it is already calculated
+		if (lumRows != null) return;
+
+		final Mat src = Camera.bufferedImageToMat(bImage);
+
+		try {
+			if (src.cols() != (int) targetSize.width || src.rows() != (int) targetSize.height) {
+				Imgproc.resize(src, src, targetSize);
+				if (keepImage) bImage = Camera.matToBufferedImage(src);
+			}
 
-		Mat src = Camera.bufferedImageToMat(bImage);
-		Imgproc.resize(src, src, targetSize);
+			final int[][] rows = new int[src.rows()][src.cols()];
+			final long totalLum = calculateLum(src, rows, 0, 0);
 
-		bImage = Camera.matToBufferedImage(src);
+			avgMaskLum = (int) (totalLum / (src.rows() * src.cols()));
+			lumRows = rows;
+		} finally {
+			src.release();
+		}
+
+		if (!keepImage) bImage = null;
+	}
 
+	/**
+	 * Calculate the luminance of the pixels in <code>area</code> of a BGR
+	 * image that is the size of the mask, e.g. the part of a rendered arena
+	 * that changed.
+	 * 
+	 * @param lumRows
+	 *            receives the luminance of each pixel in <code>area</code>
+	 * @return how much the luminance of the area changed in total
+	 */
+	public static long updateLum(BufferedImage image, Rectangle area, int[][] lumRows) {
+		final int imageWidth = image.getWidth();
+		final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+		long previousLum = 0;
+		final byte[] areaPixels = new byte[area.width * area.height * 3];
+		for (int y = 0; y < area.height; y++) {
+			System.arraycopy(pixels, ((area.y + y) * imageWidth + area.x) * 3, areaPixels, y * area.width * 3,
+					area.width * 3);
+
+			final int[] row = lumRows[area.y + y];
+			for (int x = area.x; x < area.x + area.width; x++)
+				previousLum += row[x];
+		}
+
+		final Mat src = new Mat(area.height, area.width, CvType.CV_8UC3);
+
+		try {
+			src.put(0, 0, areaPixels);
+			return calculateLum(src, lumRows, area.x, area.y) - previousLum;
+		} finally {
+			src.release();
+		}
+	}
+
+	/**
+	 * Convert a BGR Mat to HSV in place and store the luminance of each of its
+	 * pixels in <code>lumRows</code> starting at <code>(x, y)</code>.
+	 * 
+	 * @return the luminance of every pixel added together
+	 */
+	private static long calculateLum(Mat src, int[][] lumRows, int x, int y) {
 		Imgproc.cvtColor(src, src, Imgproc.COLOR_BGR2HSV);
 
-		long tmpAvgMaskLum = 0;
-		for (int y = 0; y < src.rows(); y++) {
-			for (int x = 0; x < src.cols(); x++) {
-				byte[] px = { 0, 0, 0 };
-				src.get(y, x, px);
-				int pxS = px[1] & 0xFF;
-				int pxV = px[2] & 0xFF;
+		// Copy the whole frame out in one go, going through JNI for every
+		// pixel is far too slow
+		final int width = src.cols();
+		final int height = src.rows();
+		final byte[] hsv = new byte[width * height * 3];
+		src.get(0, 0, hsv);
 
-				int pxLum = ((255 - pxS) * pxV);
+		long totalLum = 0;
+		for (int row = 0; row < height; row++) {
+			final int[] lums = lumRows[y + row];
 
-				tmpAvgMaskLum += pxLum;
+			for (int col = 0; col < width; col++) {
+				final int i = (row * width + col) * 3;
+				int pxS = hsv[i + 1] & 0xFF;
+				int pxV = hsv[i + 2] & 0xFF;
 
-				int[] dstLum = { pxLum };
+				int pxLum = ((255 - pxS) * pxV);
 
-				mask.put(y, x, dstLum);
+				totalLum += pxLum;
+				lums[x + col] = pxLum;
 			}
 		}
 
-		avgMaskLum = (int) (tmpAvgMaskLum / (mask.rows() * mask.cols()));
-
-		return mask;
+		return totalLum;
 	}
 }
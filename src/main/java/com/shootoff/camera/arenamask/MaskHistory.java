@@ -0,0 +1,132 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.camera.arenamask;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A time-indexed ring buffer of the masks rendered for the arena so that a
+ * camera frame can be compared to the mask that was on the projector when the
+ * frame was captured. Masks are inserted by a single producer that never
+ * waits on readers, readers never take a lock either and instead retry a
+ * lookup if the producer wrapped around over the masks they were reading.
+ * 
+ * Every mask holds the luminance of each of its pixels, so how many masks are
+ * kept depends on how large they are.
+ * 
+ * @author phrack
+ */
+class MaskHistory {
+	private static final int MAX_CAPACITY = 64;
+	private static final int MIN_CAPACITY = 8;
+	private static final long MAX_BYTES = 64L * 1024 * 1024;
+
+	private final int capacity;
+	private final AtomicLongArray times;
+	private final AtomicReferenceArray<Mask> masks;
+
+	// The number of masks ever inserted, a mask's position is the value this
+	// had when it was inserted
+	private volatile long inserted = 0;
+
+	// Only used by the producer
+	private long newestTime = Long.MIN_VALUE;
+
+	public MaskHistory() {
+		this(MAX_CAPACITY);
+	}
+
+	MaskHistory(int capacity) {
+		this.capacity = capacity;
+		times = new AtomicLongArray(capacity);
+		masks = new AtomicReferenceArray<Mask>(capacity);
+	}
+
+	/**
+	 * @return a history that keeps as many masks of the given size as fit in
+	 *         its memory budget, but always at least a few
+	 */
+	public static MaskHistory forMaskSize(int width, int height) {
+		final long maskBytes = Math.max(1, (long) width * height * Integer.BYTES);
+		final long capacity = Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, MAX_BYTES / maskBytes));
+
+		return new MaskHistory((int) capacity);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Add a mask to the history, overwriting the oldest one if the history is
+	 * full. Must only be called from one thread at a time.
+	 */
+	public void insert(Mask mask) {
+		// Clocks may step backwards, never let the buffer become unsorted
+		newestTime = Math.max(newestTime, mask.getTimestamp());
+
+		final long position = inserted;
+		final int slot = slot(position);
+		times.set(slot, newestTime);
+		masks.set(slot, mask);
+
+		inserted = position + 1;
+	}
+
+	private int slot(long position) {
+		return (int) (position % capacity);
+	}
+
+	/**
+	 * @return the newest mask rendered at or before <code>time</code>, or
+	 *         <tt>Optional.empty()</tt> if every mask in the history is newer
+	 *         than that
+	 */
+	public Optional<Mask> get(long time) {
+		while (true) {
+			final long end = inserted;
+			if (end == 0) return Optional.empty();
+
+			// The slot after the newest mask may be getting overwritten by the
+			// producer, so it is never read
+			final long start = Math.max(0, end - capacity + 1);
+
+			long low = start;
+			long high = end - 1;
+			long found = -1;
+
+			while (low <= high) {
+				final long mid = (low + high) >>> 1;
+
+				if (times.get(slot(mid)) <= time) {
+					found = mid;
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+
+			final Mask mask = found == -1 ? null : masks.get(slot(found));
+
+			// Retry if the producer lapped the slots that were searched
+			if (inserted - capacity < start) return Optional.ofNullable(mask);
+		}
+	}
+}
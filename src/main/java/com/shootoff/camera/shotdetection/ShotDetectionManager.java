@@ -99,6 +99,9 @@ public final class ShotDetectionManager {
 	private ArenaMaskManager arenaMaskManager = null;
 	private boolean usingArenaMask = false;
 
+	// When the frame being processed was captured
+	private long frameTimestamp = -1;
+
 	public ShotDetectionManager(final CameraManager cameraManager, final Configuration config,
 			final CameraView canvasManager) {
 		this.cameraView = canvasManager;
@@ -200,6 +203,8 @@ public final class ShotDetectionManager {
 	}
 
 	public void processFrame(final Mat frame, final boolean detectShots) {
+		frameTimestamp = cameraManager.getCurrentFrameTimestamp();
+
 		if (cameraManager.getFrameCount() % 5 == 0)
 			movingAveragePeriod = Math.max((int) (cameraManager.getFPS() / 5.0), INIT_FRAME_COUNT);
 
@@ -348,7 +353,7 @@ public final class ShotDetectionManager {
 
 		final int[] maskPrimitive = new int[workingFrame.cols() * workingFrame.rows()];
 		if (usingArenaMask) {
-			final Mat mask = arenaMaskManager.getMask();
+			final Mat mask = arenaMaskManager.getMask(frameTimestamp);
 			mask.get(0, 0, maskPrimitive);
 		}
 
@@ -422,7 +427,8 @@ public final class ShotDetectionManager {
 		final double x = pc.centerPixelX;
 		final double y = pc.centerPixelY;
 
-		final Shot shot = new Shot(color.get(), x, y, 0, cameraManager.getFrameCount(), config.getMarkerRadius());
+		final Shot shot = new Shot(color.get(), x, y, 0, cameraManager.getFrameCount(), config.getMarkerRadius(),
+				frameTimestamp);
 
 		if (!cameraManager.getDeduplicationProcessor().processShot(shot)) {
 			if (logger.isDebugEnabled()) logger.debug("Processing Shot: Shot Rejected By {}",
@@ -465,12 +471,7 @@ public final class ShotDetectionManager {
 			if (usingArenaMask) {
 				final Mat mask = arenaMaskManager.getMask();
 				final Mat maskGrayscale = new Mat(mask.rows(), mask.cols(), CvType.CV_8UC1);
-
-				for (int a = 0; a < mask.cols(); a++) {
-					for (int b = 0; b < mask.rows(); b++) {
-						maskGrayscale.put(b, a, mask.get(b, a)[0] / 255);
-					}
-				}
+				mask.convertTo(maskGrayscale, CvType.CV_8UC1, 1.0 / 255);
 
 				outputfile = new File(String.format("mask-%d-%d.png", (int) pc.centerPixelX, (int) pc.centerPixelY));
 				filename = outputfile.toString();
@@ -483,9 +484,10 @@ public final class ShotDetectionManager {
 
 			final Bounds b = cameraManager.getProjectionBounds().get();
 
-			cameraView.addShot(color.get(), x + b.getMinX(), y + b.getMinY());
+			cameraView.addShot(new Shot(shot.getColor(), x + b.getMinX(), y + b.getMinY(), shot.getTimestamp(),
+					shot.getFrame(), shot.getMarkerRadius(), shot.getCaptureTime()));
 		} else {
-			cameraView.addShot(color.get(), x, y);
+			cameraView.addShot(shot);
 		}
 
 	}
@@ -125,6 +125,7 @@ public class Configuration {
 	private boolean useMalfunctions = false;
 	private float malfunctionsProbability = (float) 10.0;
 	private boolean debugMode = false;
+	private boolean limitFeedToRefreshRate = false;
 	private Set<Camera> recordingCameras = new HashSet<Camera>();
 	private Set<CameraManager> recordingManagers = new HashSet<CameraManager>();
 	private Set<VideoPlayerController> videoPlayers = new HashSet<VideoPlayerController>();
@@ -433,6 +434,8 @@ public class Configuration {
 				"turns on the virtual magazine and sets the number rounds it holds [1,45]");
 		options.addOption("f", "use-malfunctions", true,
 				"turns on malfunctions and sets the probability of them happening");
+		options.addOption("r", "limit-feed-rate", false,
+				"only show camera frames as often as the monitor showing them refreshes");
 
 		try {
 			CommandLineParser parser = new DefaultParser();
@@ -456,6 +459,8 @@ public class Configuration {
 				setMalfunctions(true);
 				setMalfunctionsProbability(Float.parseFloat(cmd.getOptionValue("f")));
 			}
+
+			if (cmd.hasOption("r")) setLimitFeedToRefreshRate(true);
 		} catch (ParseException e) {
 			System.err.println(e.getMessage());
 			HelpFormatter formatter = new HelpFormatter();
@@ -843,6 +848,14 @@ public class Configuration {
 		return malfunctionsProbability;
 	}
 
+	public void setLimitFeedToRefreshRate(boolean limitFeedToRefreshRate) {
+		this.limitFeedToRefreshRate = limitFeedToRefreshRate;
+	}
+
+	public boolean isLimitingFeedToRefreshRate() {
+		return limitFeedToRefreshRate;
+	}
+
 	public boolean inDebugMode() {
 		return debugMode;
 	}
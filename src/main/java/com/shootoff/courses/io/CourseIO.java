@@ -67,4 +67,19 @@ public class CourseIO {
 
 		return new XMLCourseReader(arenaController, courseFile).load();
 	}
+
+	/**
+	 * Load a course in the background, see
+	 * {@link XMLCourseReader#loadAsync(CourseLoadListener)}.
+	 */
+	public static void loadCourseAsync(ProjectorArenaController arenaController, final File courseFile,
+			CourseLoadListener listener) {
+		if (!courseFile.getName().endsWith("course")) {
+			logger.error("Unknown course file type.");
+			listener.courseLoaded(Optional.empty());
+			return;
+		}
+
+		new XMLCourseReader(arenaController, courseFile).loadAsync(listener);
+	}
 }
@@ -0,0 +1,45 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.courses.io;
+
+import java.util.Optional;
+
+import com.shootoff.courses.Course;
+
+/**
+ * Receives progress while a course loads in the background. Both methods are
+ * called on the JavaFX thread.
+ */
+public interface CourseLoadListener {
+	/**
+	 * A target was loaded, or failed to load.
+	 * 
+	 * @param loadedCount
+	 *            the number of targets that have finished loading
+	 * @param targetCount
+	 *            the number of targets in the course
+	 */
+	void targetLoaded(int loadedCount, int targetCount);
+
+	/**
+	 * @param course
+	 *            the loaded course or <tt>Optional.empty()</tt> if the course
+	 *            file couldn't be read
+	 */
+	void courseLoaded(Optional<Course> course);
+}
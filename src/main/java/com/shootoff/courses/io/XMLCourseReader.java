@@ -25,6 +25,11 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -37,10 +42,12 @@ import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import com.shootoff.courses.Course;
+import com.shootoff.gui.ImageCache;
 import com.shootoff.gui.LocatedImage;
 import com.shootoff.gui.Target;
 import com.shootoff.gui.controller.ProjectorArenaController;
 import com.shootoff.targets.io.TargetIO;
+import com.shootoff.util.NamedThreadFactory;
 
 import javafx.application.Platform;
 import javafx.geometry.Dimension2D;
@@ -51,6 +58,12 @@ import javafx.scene.control.Alert.AlertType;
 public class XMLCourseReader {
 	private static final Logger logger = LoggerFactory.getLogger(XMLCourseReader.class);
 
+	private static final ExecutorService courseExecutor = Executors.newSingleThreadExecutor((r) -> {
+		final Thread t = new NamedThreadFactory("CourseLoader").newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+
 	private final ProjectorArenaController arenaController;
 	private final File courseFile;
 
@@ -59,7 +72,93 @@ public class XMLCourseReader {
 		this.courseFile = courseFile;
 	}
 
+	/**
+	 * Load the course, waiting for its targets to load. The targets are still
+	 * read in parallel.
+	 */
 	public Optional<Course> load() {
+		final Optional<CourseXMLHandler> handler = parse();
+		if (!handler.isPresent()) return Optional.empty();
+
+		final List<TargetEntry> entries = handler.get().getTargets();
+		final List<Future<Optional<Group>>> groups = new ArrayList<Future<Optional<Group>>>(entries.size());
+
+		for (TargetEntry entry : entries)
+			groups.add(TargetIO.loadTargetAsync(entry.targetFile));
+
+		final List<Target> targets = new ArrayList<Target>();
+		for (int i = 0; i < entries.size(); i++) {
+			Optional<Group> targetGroup = Optional.empty();
+
+			try {
+				targetGroup = groups.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.error("Interrupted while loading course targets", e);
+				return Optional.empty();
+			} catch (ExecutionException e) {
+				logger.error("Error loading course target", e);
+			}
+
+			final Optional<Target> t = createTarget(entries.get(i), targetGroup);
+			if (t.isPresent()) targets.add(t.get());
+		}
+
+		return Optional.of(createCourse(handler.get(), targets));
+	}
+
+	/**
+	 * Load the course without blocking the calling thread. The course file is
+	 * read and its targets are parsed in parallel on background threads, then
+	 * each loaded target is handed to the JavaFX thread, which builds the
+	 * course once all targets are in.
+	 */
+	public void loadAsync(CourseLoadListener listener) {
+		courseExecutor.execute(() -> {
+			final Optional<CourseXMLHandler> handler = parse();
+
+			if (!handler.isPresent()) {
+				Platform.runLater(() -> listener.courseLoaded(Optional.empty()));
+				return;
+			}
+
+			final List<TargetEntry> entries = handler.get().getTargets();
+
+			if (entries.isEmpty()) {
+				Platform.runLater(() -> listener.courseLoaded(
+						Optional.of(createCourse(handler.get(), new ArrayList<Target>()))));
+				return;
+			}
+
+			// Only touched on the JavaFX thread, slots keep the course's target
+			// order no matter which target finishes first
+			final Target[] targets = new Target[entries.size()];
+			final AtomicInteger loadedCount = new AtomicInteger();
+
+			for (int i = 0; i < entries.size(); i++) {
+				final int index = i;
+				final TargetEntry entry = entries.get(i);
+
+				TargetIO.loadTargetAsync(entry.targetFile, (targetGroup) -> Platform.runLater(() -> {
+					final Optional<Target> t = createTarget(entry, targetGroup);
+					if (t.isPresent()) targets[index] = t.get();
+
+					final int loaded = loadedCount.incrementAndGet();
+					listener.targetLoaded(loaded, targets.length);
+
+					if (loaded == targets.length) {
+						final List<Target> loadedTargets = new ArrayList<Target>(targets.length);
+						for (Target target : targets)
+							if (target != null) loadedTargets.add(target);
+
+						listener.courseLoaded(Optional.of(createCourse(handler.get(), loadedTargets)));
+					}
+				}));
+			}
+		});
+	}
+
+	private Optional<CourseXMLHandler> parse() {
 		InputStream xmlInput = null;
 		try {
 			xmlInput = new FileInputStream(courseFile);
@@ -67,17 +166,7 @@ public class XMLCourseReader {
 			CourseXMLHandler handler = new CourseXMLHandler();
 			saxParser.parse(xmlInput, handler);
 
-			Course c;
-
-			if (handler.getResolution().isPresent()) {
-				c = new Course(handler.getBackground(), handler.getTargets(), handler.getResolution().get());
-			} else if (handler.getBackground().isPresent()) {
-				c = new Course(handler.getBackground().get(), handler.getTargets());
-			} else {
-				c = new Course(handler.getTargets());
-			}
-
-			return Optional.of(c);
+			return Optional.of(handler);
 		} catch (IOException | ParserConfigurationException | SAXException e) {
 			logger.error("Error reading XML course", e);
 		} finally {
@@ -93,16 +182,77 @@ public class XMLCourseReader {
 		return Optional.empty();
 	}
 
+	private Optional<Target> createTarget(TargetEntry entry, Optional<Group> targetNodes) {
+		if (!targetNodes.isPresent()) {
+			showTargetError(entry.targetFile.getPath());
+			return Optional.empty();
+		}
+
+		// Targets are loaded in the background without starting animations
+		TargetIO.playAnimations(targetNodes.get());
+
+		Target t = new Target(entry.targetFile, targetNodes.get(), arenaController.getConfiguration(),
+				arenaController.getCanvasManager(), true);
+
+		t.setPosition(entry.x, entry.y);
+		t.setDimensions(entry.width, entry.height);
+
+		return Optional.of(t);
+	}
+
+	private Course createCourse(CourseXMLHandler handler, List<Target> targets) {
+		if (handler.getResolution().isPresent()) {
+			return new Course(handler.getBackground(), targets, handler.getResolution().get());
+		} else if (handler.getBackground().isPresent()) {
+			return new Course(handler.getBackground().get(), targets);
+		} else {
+			return new Course(targets);
+		}
+	}
+
+	private void showTargetError(String targetPath) {
+		Platform.runLater(() -> {
+			Alert targetAlert = new Alert(AlertType.ERROR);
+
+			String message = String.format(
+					"The course %s requires the target %s, but the "
+							+ "target file is missing. This target will not appear in your projector arena.",
+					courseFile.getName(), targetPath);
+
+			targetAlert.setTitle("Missing Target");
+			targetAlert.setHeaderText("Missing Required Target File");
+			targetAlert.setResizable(true);
+			targetAlert.setContentText(message);
+			targetAlert.show();
+		});
+	}
+
+	private static class TargetEntry {
+		private final File targetFile;
+		private final double x;
+		private final double y;
+		private final double width;
+		private final double height;
+
+		public TargetEntry(File targetFile, double x, double y, double width, double height) {
+			this.targetFile = targetFile;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
 	private class CourseXMLHandler extends DefaultHandler {
 		private Optional<LocatedImage> background = Optional.empty();
-		private final List<Target> targets = new ArrayList<Target>();
+		private final List<TargetEntry> targets = new ArrayList<TargetEntry>();
 		private Optional<Dimension2D> resolution = Optional.empty();
 
 		public Optional<LocatedImage> getBackground() {
 			return background;
 		}
 
-		public List<Target> getTargets() {
+		public List<TargetEntry> getTargets() {
 			return targets;
 		}
 
@@ -117,37 +267,15 @@ public class XMLCourseReader {
 			case "background": {
 				boolean isResource = Boolean.parseBoolean(attributes.getValue("isResource"));
 
-				LocatedImage background;
-
-				if (isResource) {
-					InputStream is = this.getClass().getResourceAsStream(attributes.getValue("url"));
-					background = new LocatedImage(is, attributes.getValue("url"));
-				} else {
-					background = new LocatedImage(attributes.getValue("url"));
-				}
-
-				this.background = Optional.of(background);
+				this.background = Optional.of(ImageCache.getLocatedImage(attributes.getValue("url"), isResource));
 			}
 				break;
 
 			case "target": {
-				File targetFile = new File(attributes.getValue("file"));
-				Optional<Group> targetNodes = TargetIO.loadTarget(targetFile);
-
-				if (targetNodes.isPresent()) {
-					Target t = new Target(targetFile, targetNodes.get(), arenaController.getConfiguration(),
-							arenaController.getCanvasManager(), true);
-
-					t.setPosition(Double.parseDouble(attributes.getValue("x")),
-							Double.parseDouble(attributes.getValue("y")));
-
-					t.setDimensions(Double.parseDouble(attributes.getValue("width")),
-							Double.parseDouble(attributes.getValue("height")));
-
-					targets.add(t);
-				} else {
-					showTargetError(targetFile.getPath());
-				}
+				targets.add(new TargetEntry(new File(attributes.getValue("file")),
+						Double.parseDouble(attributes.getValue("x")), Double.parseDouble(attributes.getValue("y")),
+						Double.parseDouble(attributes.getValue("width")),
+						Double.parseDouble(attributes.getValue("height"))));
 			}
 				break;
 
@@ -158,22 +286,5 @@ public class XMLCourseReader {
 				break;
 			}
 		}
-
-		private void showTargetError(String targetPath) {
-			Platform.runLater(() -> {
-				Alert targetAlert = new Alert(AlertType.ERROR);
-
-				String message = String.format(
-						"The course %s requires the target %s, but the "
-								+ "target file is missing. This target will not appear in your projector arena.",
-						courseFile.getName(), targetPath);
-
-				targetAlert.setTitle("Missing Target");
-				targetAlert.setHeaderText("Missing Required Target File");
-				targetAlert.setResizable(true);
-				targetAlert.setContentText(message);
-				targetAlert.show();
-			});
-		}
 	}
 }
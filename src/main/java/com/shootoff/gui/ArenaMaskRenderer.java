@@ -0,0 +1,675 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.camera.arenamask.Mask;
+import com.shootoff.targets.TargetRegion;
+import com.shootoff.util.NamedThreadFactory;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+
+/**
+ * Renders what the projector is expected to be showing from the arena's
+ * model, its background, the published geometry of its targets, its shots,
+ * and snapshots of anything else on the arena such as labels, instead of
+ * taking snapshots of the arena's whole scene. Everything is drawn in the
+ * order it is stacked in on the arena.
+ * 
+ * Rendering happens on a background thread at the size masks are compared to
+ * camera frames at, and only the parts of the arena that changed since the
+ * last render are redrawn. Each render is handed off as a new {@link Mask}
+ * whose luminance is only recalculated for the rows that changed, the rest
+ * are shared with the previous mask.
+ * 
+ * @author phrack
+ */
+public class ArenaMaskRenderer {
+	private static final Logger logger = LoggerFactory.getLogger(ArenaMaskRenderer.class);
+
+	// Matches the arena's background color when it has no background image
+	private static final Color ARENA_COLOR = new Color(0x33, 0x33, 0x33);
+
+	// Stands in for the arena's shot marker layer in its stacking order
+	private static final Object SHOT_MARKERS = new Object();
+
+	private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor((r) -> {
+		Thread t = new NamedThreadFactory("ArenaMaskRenderer").newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final Consumer<Mask> maskConsumer;
+	private final List<Target> targets = new CopyOnWriteArrayList<Target>();
+	private final Consumer<Target> geometryListener = this::targetChanged;
+	private final AtomicBoolean renderPending = new AtomicBoolean(false);
+
+	// Guarded by this
+	private final Map<Target, Rectangle> renderedBounds = new IdentityHashMap<Target, Rectangle>();
+	private final Map<Node, Overlay> overlays = new IdentityHashMap<Node, Overlay>();
+	private final List<Shot> shots = new ArrayList<Shot>();
+	private final Set<Shot> selectedShots = Collections.newSetFromMap(new IdentityHashMap<Shot, Boolean>());
+	private List<Object> stack = Collections.emptyList();
+	private Rectangle shotBounds = null;
+	private boolean showShots = true;
+	private Rectangle dirty = null;
+	private int width;
+	private int height;
+	private int maskWidth = 0;
+	private int maskHeight = 0;
+	private Optional<Image> background = Optional.empty();
+	private boolean backgroundChanged = true;
+
+	// Only used on the JavaFX application thread
+	private final Map<Node, OverlayWatcher> overlayWatchers = new HashMap<Node, OverlayWatcher>();
+
+	// Only used on the render thread
+	private BufferedImage canvas;
+	private BufferedImage scaledBackground;
+	private int[][] lumRows;
+	private long lumSum;
+
+	/**
+	 * A snapshot of a node on the arena that isn't a target or the shot
+	 * markers, e.g. a label shown by an exercise.
+	 */
+	private static final class Overlay {
+		private final BufferedImage image;
+		private final Bounds bounds;
+		private final Rectangle pixelBounds;
+
+		public Overlay(BufferedImage image, Bounds bounds) {
+			this.image = image;
+			this.bounds = bounds;
+			this.pixelBounds = getBounds(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+		}
+	}
+
+	/**
+	 * Takes a new snapshot of an overlay whenever it moves, is shown or
+	 * hidden, or is laid out again, e.g. because a label's text changed.
+	 */
+	private final class OverlayWatcher implements ChangeListener<Object> {
+		private final Node node;
+		private boolean watching = true;
+
+		public OverlayWatcher(Node node) {
+			this.node = node;
+
+			node.boundsInParentProperty().addListener(this);
+			node.visibleProperty().addListener(this);
+			if (node instanceof Parent) ((Parent) node).needsLayoutProperty().addListener(this);
+		}
+
+		@Override
+		public void changed(ObservableValue<? extends Object> observable, Object oldValue, Object newValue) {
+			// Wait for layout to finish before taking a snapshot
+			if (Boolean.TRUE.equals(newValue) && node instanceof Parent
+					&& observable == ((Parent) node).needsLayoutProperty())
+				return;
+
+			// Several changes in one pulse only need one snapshot
+			UpdateCoalescer.post(this, this::snapshot);
+		}
+
+		public void snapshot() {
+			if (watching) overlayChanged(node, snapshotOverlay(node));
+		}
+
+		public void stop() {
+			watching = false;
+
+			node.boundsInParentProperty().removeListener(this);
+			node.visibleProperty().removeListener(this);
+			if (node instanceof Parent) ((Parent) node).needsLayoutProperty().removeListener(this);
+		}
+	}
+
+	public ArenaMaskRenderer(int width, int height, Consumer<Mask> maskConsumer) {
+		this.width = width;
+		this.height = height;
+		this.maskConsumer = maskConsumer;
+
+		markAllDirty();
+		scheduleRender();
+	}
+
+	public void setSize(int width, int height) {
+		synchronized (this) {
+			if (width == this.width && height == this.height) return;
+
+			this.width = width;
+			this.height = height;
+			backgroundChanged = true;
+			markAllDirty();
+		}
+
+		scheduleRender();
+	}
+
+	/**
+	 * Render masks at the size they are compared to camera frames at instead
+	 * of the arena's size. Until this is set masks are rendered at the
+	 * arena's size.
+	 */
+	public void setMaskSize(int maskWidth, int maskHeight) {
+		synchronized (this) {
+			if (maskWidth == this.maskWidth && maskHeight == this.maskHeight) return;
+
+			this.maskWidth = maskWidth;
+			this.maskHeight = maskHeight;
+			backgroundChanged = true;
+			markAllDirty();
+		}
+
+		scheduleRender();
+	}
+
+	public void setBackground(Optional<Image> background) {
+		synchronized (this) {
+			this.background = background;
+			backgroundChanged = true;
+			markAllDirty();
+		}
+
+		scheduleRender();
+	}
+
+	public void addTarget(Target target) {
+		targets.add(target);
+		target.addGeometryListener(geometryListener);
+
+		targetChanged(target);
+	}
+
+	public void removeTarget(Target target) {
+		target.removeGeometryListener(geometryListener);
+		targets.remove(target);
+
+		synchronized (this) {
+			markDirty(renderedBounds.remove(target));
+		}
+
+		scheduleRender();
+	}
+
+	/**
+	 * Set what is on the arena in the order it is stacked in, bottom first.
+	 * Targets are matched to the renderer's targets by their group, every
+	 * other node except the shot markers is rendered from a snapshot that is
+	 * kept up to date while the node is on the arena. Targets that aren't on
+	 * the arena yet are drawn on top of everything in the order they were
+	 * added. Must be called on the JavaFX application thread.
+	 * 
+	 * @param children
+	 *            the arena's nodes, not including its background
+	 * @param shotMarkerNode
+	 *            the node the arena draws its shot markers on
+	 */
+	public void setArenaChildren(List<Node> children, Node shotMarkerNode) {
+		final Map<Group, Target> targetsByGroup = new IdentityHashMap<Group, Target>();
+		for (Target target : targets)
+			targetsByGroup.put(target.getTargetGroup(), target);
+
+		final List<Object> layers = new ArrayList<Object>(children.size());
+		final Set<Node> overlayNodes = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		for (Node child : children) {
+			if (child == shotMarkerNode) {
+				layers.add(SHOT_MARKERS);
+			} else if (targetsByGroup.containsKey(child)) {
+				layers.add(targetsByGroup.get(child));
+			} else {
+				layers.add(child);
+				overlayNodes.add(child);
+			}
+		}
+
+		synchronized (this) {
+			// Layers that were added, removed, or moved in the stack need
+			// redrawing where they are
+			final List<Object> previous = stack;
+			for (int i = 0; i < layers.size(); i++) {
+				if (i >= previous.size() || previous.get(i) != layers.get(i)) markDirty(getLayerBounds(layers.get(i)));
+			}
+			for (int i = 0; i < previous.size(); i++) {
+				if (i >= layers.size() || layers.get(i) != previous.get(i)) markDirty(getLayerBounds(previous.get(i)));
+			}
+
+			stack = layers;
+		}
+
+		overlayWatchers.entrySet().removeIf((entry) -> {
+			if (overlayNodes.contains(entry.getKey())) return false;
+
+			entry.getValue().stop();
+			overlayChanged(entry.getKey(), null);
+			return true;
+		});
+
+		for (Node node : overlayNodes) {
+			if (overlayWatchers.containsKey(node)) continue;
+
+			final OverlayWatcher watcher = new OverlayWatcher(node);
+			overlayWatchers.put(node, watcher);
+			watcher.snapshot();
+		}
+
+		scheduleRender();
+	}
+
+	public void addShot(Shot shot) {
+		synchronized (this) {
+			if (shots.contains(shot)) return;
+
+			shots.add(shot);
+
+			final Rectangle bounds = getBounds(shot);
+			if (shotBounds == null) {
+				shotBounds = new Rectangle(bounds);
+			} else {
+				shotBounds.add(bounds);
+			}
+
+			if (showShots) markDirty(bounds);
+		}
+
+		scheduleRender();
+	}
+
+	public void clearShots() {
+		synchronized (this) {
+			if (showShots) markDirty(shotBounds);
+
+			shots.clear();
+			selectedShots.clear();
+			shotBounds = null;
+		}
+
+		scheduleRender();
+	}
+
+	public void setShowShots(boolean showShots) {
+		synchronized (this) {
+			if (this.showShots == showShots) return;
+
+			this.showShots = showShots;
+			markDirty(shotBounds);
+		}
+
+		scheduleRender();
+	}
+
+	public void setShotSelected(Shot shot, boolean isSelected) {
+		synchronized (this) {
+			if (!shots.contains(shot)) return;
+
+			final boolean changed = isSelected ? selectedShots.add(shot) : selectedShots.remove(shot);
+			if (!changed || !showShots) return;
+
+			markDirty(getBounds(shot));
+		}
+
+		scheduleRender();
+	}
+
+	public void close() {
+		for (Target target : targets)
+			target.removeGeometryListener(geometryListener);
+		targets.clear();
+
+		renderExecutor.shutdownNow();
+	}
+
+	private void targetChanged(Target target) {
+		final TargetGeometry geometry = target.getGeometry();
+		final Rectangle bounds = getBounds(geometry.getMinX(), geometry.getMinY(), geometry.getMaxX(),
+				geometry.getMaxY());
+
+		synchronized (this) {
+			// Both where the target was and where it is now need redrawing
+			markDirty(renderedBounds.put(target, bounds));
+			markDirty(bounds);
+		}
+
+		scheduleRender();
+	}
+
+	private void overlayChanged(Node node, Overlay overlay) {
+		synchronized (this) {
+			final Overlay previous = overlay == null ? overlays.remove(node) : overlays.put(node, overlay);
+
+			if (previous != null) markDirty(previous.pixelBounds);
+			if (overlay != null) markDirty(overlay.pixelBounds);
+		}
+
+		scheduleRender();
+	}
+
+	private static Overlay snapshotOverlay(Node node) {
+		final Bounds bounds = node.getBoundsInParent();
+		if (!node.isVisible() || bounds.getWidth() < 1 || bounds.getHeight() < 1) return null;
+
+		final SnapshotParameters params = new SnapshotParameters();
+		params.setFill(javafx.scene.paint.Color.TRANSPARENT);
+
+		final BufferedImage image = SwingFXUtils.fromFXImage(node.snapshot(params, null), null);
+		if (image == null) return null;
+
+		return new Overlay(image, bounds);
+	}
+
+	private static Rectangle getBounds(double minX, double minY, double maxX, double maxY) {
+		final int x = (int) Math.floor(minX);
+		final int y = (int) Math.floor(minY);
+
+		return new Rectangle(x, y, (int) Math.ceil(maxX) - x, (int) Math.ceil(maxY) - y);
+	}
+
+	private static Rectangle getBounds(Shot shot) {
+		final int radius = shot.getMarkerRadius();
+		return getBounds(shot.getX() - radius, shot.getY() - radius, shot.getX() + radius, shot.getY() + radius);
+	}
+
+	private Rectangle getLayerBounds(Object layer) {
+		if (layer == SHOT_MARKERS) {
+			return showShots ? shotBounds : null;
+		} else if (layer instanceof Target) {
+			return renderedBounds.get(layer);
+		} else {
+			final Overlay overlay = overlays.get(layer);
+			return overlay == null ? null : overlay.pixelBounds;
+		}
+	}
+
+	private void markDirty(Rectangle area) {
+		if (area == null) return;
+
+		if (dirty == null) {
+			dirty = new Rectangle(area);
+		} else {
+			dirty.add(area);
+		}
+	}
+
+	private void markAllDirty() {
+		dirty = new Rectangle(0, 0, width, height);
+	}
+
+	private void scheduleRender() {
+		// Changes made while a render is queued are picked up by that render
+		if (!renderPending.compareAndSet(false, true)) return;
+
+		try {
+			renderExecutor.execute(this::render);
+		} catch (RejectedExecutionException e) {
+			renderPending.set(false);
+		}
+	}
+
+	private void render() {
+		renderPending.set(false);
+
+		final Rectangle redrawArea;
+		final int arenaWidth, arenaHeight, renderWidth, renderHeight;
+		final boolean resized;
+		final Optional<Image> renderBackground;
+		final boolean rescaleBackground;
+		final List<Object> renderStack;
+		final Map<Node, Overlay> renderOverlays;
+		final List<Shot> renderShots;
+		final Set<Shot> renderSelectedShots;
+		synchronized (this) {
+			if (dirty == null) return;
+
+			arenaWidth = width;
+			arenaHeight = height;
+			renderWidth = maskWidth > 0 ? maskWidth : width;
+			renderHeight = maskHeight > 0 ? maskHeight : height;
+
+			if (arenaWidth <= 0 || arenaHeight <= 0 || renderWidth <= 0 || renderHeight <= 0) {
+				dirty = null;
+				return;
+			}
+
+			resized = canvas == null || canvas.getWidth() != renderWidth || canvas.getHeight() != renderHeight;
+
+			final Rectangle maskArea = new Rectangle(0, 0, renderWidth, renderHeight);
+			if (resized) {
+				redrawArea = maskArea;
+			} else {
+				final double scaleX = (double) renderWidth / (double) arenaWidth;
+				final double scaleY = (double) renderHeight / (double) arenaHeight;
+				redrawArea = getBounds(dirty.getMinX() * scaleX, dirty.getMinY() * scaleY, dirty.getMaxX() * scaleX,
+						dirty.getMaxY() * scaleY).intersection(maskArea);
+			}
+			dirty = null;
+
+			// The change was entirely off of the arena
+			if (redrawArea.isEmpty()) return;
+
+			renderBackground = background;
+			rescaleBackground = backgroundChanged;
+			backgroundChanged = false;
+			renderStack = stack;
+			renderOverlays = new IdentityHashMap<Node, Overlay>(overlays);
+
+			// Only the shots in the area being redrawn are needed
+			final Rectangle2D area = toArena(redrawArea, arenaWidth, arenaHeight, renderWidth, renderHeight);
+			renderShots = new ArrayList<Shot>();
+			renderSelectedShots = Collections.newSetFromMap(new IdentityHashMap<Shot, Boolean>());
+			if (showShots) {
+				for (Shot shot : shots) {
+					if (!area.intersects(getBounds(shot))) continue;
+
+					renderShots.add(shot);
+					if (selectedShots.contains(shot)) renderSelectedShots.add(shot);
+				}
+			}
+		}
+
+		try {
+			if (resized) {
+				canvas = new BufferedImage(renderWidth, renderHeight, BufferedImage.TYPE_3BYTE_BGR);
+				lumRows = new int[renderHeight][renderWidth];
+				lumSum = 0;
+			}
+
+			if (rescaleBackground || resized) {
+				scaledBackground = scaleBackground(renderBackground, renderWidth, renderHeight);
+			}
+
+			draw(redrawArea, toArena(redrawArea, arenaWidth, arenaHeight, renderWidth, renderHeight),
+					(double) renderWidth / (double) arenaWidth, (double) renderHeight / (double) arenaHeight,
+					renderStack, renderOverlays, renderShots, renderSelectedShots);
+
+			// Only rows that changed are copied, the rest are shared with
+			// masks that were already handed off and must not be modified
+			final int[][] rows = lumRows.clone();
+			for (int y = redrawArea.y; y < redrawArea.y + redrawArea.height; y++)
+				rows[y] = rows[y].clone();
+
+			lumSum += Mask.updateLum(canvas, redrawArea, rows);
+			lumRows = rows;
+
+			final int avgLum = (int) (lumSum / ((long) renderWidth * (long) renderHeight));
+			maskConsumer.accept(new Mask(rows, avgLum, System.currentTimeMillis()));
+		} catch (RuntimeException e) {
+			logger.error("Failed to render arena mask", e);
+		}
+	}
+
+	private static Rectangle2D toArena(Rectangle maskArea, int arenaWidth, int arenaHeight, int renderWidth,
+			int renderHeight) {
+		final double scaleX = (double) arenaWidth / (double) renderWidth;
+		final double scaleY = (double) arenaHeight / (double) renderHeight;
+
+		return new Rectangle2D.Double(maskArea.getX() * scaleX, maskArea.getY() * scaleY,
+				maskArea.getWidth() * scaleX, maskArea.getHeight() * scaleY);
+	}
+
+	private static BufferedImage scaleBackground(Optional<Image> background, int width, int height) {
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = scaled.createGraphics();
+
+		try {
+			g.setColor(ARENA_COLOR);
+			g.fillRect(0, 0, width, height);
+
+			if (background.isPresent()) {
+				// The arena stretches its background to fill the window
+				BufferedImage image = SwingFXUtils.fromFXImage(background.get(), null);
+				if (image != null) g.drawImage(image, 0, 0, width, height, null);
+			}
+		} finally {
+			g.dispose();
+		}
+
+		return scaled;
+	}
+
+	private void draw(Rectangle redrawArea, Rectangle2D area, double scaleX, double scaleY,
+			List<Object> renderStack, Map<Node, Overlay> renderOverlays, List<Shot> renderShots,
+			Set<Shot> renderSelectedShots) {
+		final Graphics2D g = canvas.createGraphics();
+
+		try {
+			g.setClip(redrawArea);
+			g.drawImage(scaledBackground, 0, 0, null);
+
+			// Everything else is drawn in the arena's coordinates
+			g.scale(scaleX, scaleY);
+
+			final Set<Object> stacked = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+			for (Object layer : renderStack) {
+				stacked.add(layer);
+
+				if (layer == SHOT_MARKERS) {
+					drawShots(g, area, renderShots, renderSelectedShots);
+				} else if (layer instanceof Target) {
+					drawTarget(g, area, (Target) layer);
+				} else {
+					final Overlay overlay = renderOverlays.get(layer);
+					if (overlay != null && area.intersects(overlay.pixelBounds)) drawOverlay(g, overlay);
+				}
+			}
+
+			// Targets and shots the arena hasn't stacked yet go on top
+			for (Target target : targets) {
+				if (!stacked.contains(target)) drawTarget(g, area, target);
+			}
+
+			if (!stacked.contains(SHOT_MARKERS)) drawShots(g, area, renderShots, renderSelectedShots);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	private static void drawTarget(Graphics2D g, Rectangle2D area, Target target) {
+		final TargetGeometry geometry = target.getGeometry();
+		if (!area.intersects(geometry.getMinX(), geometry.getMinY(), geometry.getWidth(), geometry.getHeight())) {
+			return;
+		}
+
+		geometry.paint(g);
+	}
+
+	private static void drawOverlay(Graphics2D g, Overlay overlay) {
+		final AffineTransform transform = AffineTransform.getTranslateInstance(overlay.bounds.getMinX(),
+				overlay.bounds.getMinY());
+		transform.scale(overlay.bounds.getWidth() / overlay.image.getWidth(),
+				overlay.bounds.getHeight() / overlay.image.getHeight());
+
+		g.drawImage(overlay.image, transform, null);
+	}
+
+	private static void drawShots(Graphics2D g, Rectangle2D area, List<Shot> renderShots,
+			Set<Shot> renderSelectedShots) {
+		// Selected shots are drawn last so they are always visible, the same
+		// as on the arena
+		for (Shot shot : renderShots) {
+			if (!renderSelectedShots.contains(shot)) drawShot(g, area, shot, false);
+		}
+
+		for (Shot shot : renderShots) {
+			if (renderSelectedShots.contains(shot)) drawShot(g, area, shot, true);
+		}
+	}
+
+	private static void drawShot(Graphics2D g, Rectangle2D area, Shot shot, boolean isSelected) {
+		final int radius = shot.getMarkerRadius();
+		final Ellipse2D marker = new Ellipse2D.Double(shot.getX() - radius, shot.getY() - radius, radius * 2,
+				radius * 2);
+		if (!marker.intersects(area)) return;
+
+		final javafx.scene.paint.Color color = isSelected ? TargetRegion.SELECTED_STROKE_COLOR : shot.getColor();
+		g.setColor(new Color((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue(),
+				(float) color.getOpacity()));
+		g.fill(marker);
+	}
+
+	/**
+	 * @return the most recent render. Only meant for tests, must not be used
+	 *         while a render may be running.
+	 */
+	protected BufferedImage getCanvas() {
+		return canvas;
+	}
+
+	/**
+	 * Wait for any queued render to finish. Only meant for tests.
+	 */
+	protected void awaitRender() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		renderExecutor.execute(latch::countDown);
+		latch.await();
+	}
+}
@@ -2,7 +2,6 @@ package com.shootoff.gui;
 
 import java.io.InputStream;
 import java.util.Optional;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
@@ -14,6 +13,7 @@ import com.shootoff.camera.arenamask.ArenaMaskManager;
 import com.shootoff.gui.controller.ProjectorArenaController;
 import com.shootoff.targets.RectangleRegion;
 import com.shootoff.targets.io.TargetIO;
+import com.shootoff.util.HashedWheelTimer.Timeout;
 import com.shootoff.util.TimerPool;
 
 import javafx.application.Platform;
@@ -32,7 +32,7 @@ public class CalibrationManager implements CameraCalibrationListener {
 	private final CalibrationListener calibrationListener;
 	private final ProjectorArenaController arenaController;
 
-	private ScheduledFuture<?> autoCalibrationFuture = null;
+	private Timeout autoCalibrationFuture = null;
 
 	private Optional<Target> calibrationTarget = Optional.empty();
 
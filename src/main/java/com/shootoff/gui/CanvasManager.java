@@ -18,8 +18,6 @@
 
 package com.shootoff.gui;
 
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
@@ -27,14 +25,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,22 +50,22 @@ import com.shootoff.targets.ImageRegion;
 import com.shootoff.targets.RegionType;
 import com.shootoff.targets.TargetRegion;
 import com.shootoff.targets.io.TargetIO;
+import com.shootoff.util.HashedWheelTimer.Timeout;
+import com.shootoff.util.NamedThreadFactory;
+import com.shootoff.util.TimerPool;
 
 import javafx.application.Platform;
-import javafx.collections.ObservableList;
+import javafx.collections.ListChangeListener;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
-import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.Node;
-import javafx.scene.control.Alert;
 import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
-import javafx.scene.control.Alert.AlertType;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
@@ -85,26 +80,35 @@ public class CanvasManager implements CameraView {
 	protected CameraManager cameraManager;
 
 	private final VBox diagnosticsVBox = new VBox();
-	private static final int DIAGNOSTIC_POOL_SIZE = 10;
 	private static final int DIAGNOSTIC_CHIME_DELAY = 5000; // ms
-	private final ScheduledExecutorService diagnosticExecutorService = Executors
-			.newScheduledThreadPool(DIAGNOSTIC_POOL_SIZE);
-	private final Map<Label, ScheduledFuture<Void>> diagnosticFutures = new HashMap<Label, ScheduledFuture<Void>>();
+
+	// Opening a sound blocks, so chimes are played on their own thread
+	// instead of the shared timer thread or the JavaFX thread
+	private static final ExecutorService chimePlayer = Executors.newSingleThreadExecutor((r) -> {
+		Thread t = new NamedThreadFactory("DiagnosticChime").newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+	private final Map<Label, Timeout> diagnosticFutures = new HashMap<Label, Timeout>();
 	private final Image muteImage = new Image(CanvasManager.class.getResourceAsStream("/images/mute.png"));
 	private final Image soundImage = new Image(CanvasManager.class.getResourceAsStream("/images/sound.png"));
 
 	protected final CamerasSupervisor camerasSupervisor;
 	private final String cameraName;
-	private final ObservableList<ShotEntry> shotEntries;
+	private final ShotTimerLog shotEntries;
 	private final ImageView background = new ImageView();
+	private final FeedImage feedImage = new FeedImage();
 	private final List<Shot> shots;
+	private final ShotMarkerLayer shotMarkers = new ShotMarkerLayer();
 	private final List<Target> targets = new ArrayList<Target>();
+	private final TargetIndex targetIndex = new TargetIndex();
+	private Optional<ArenaMaskRenderer> arenaMaskRenderer = Optional.empty();
+	private final Object arenaChildrenUpdateKey = new Object();
 
 	private ProgressIndicator progress;
 	private Optional<ContextMenu> contextMenu = Optional.empty();
 	private Optional<Group> selectedTarget = Optional.empty();
 	private long startTime = 0;
-	private boolean showShots = true;
 	private boolean hadMalfunction = false;
 	private boolean hadReload = false;
 
@@ -112,7 +116,7 @@ public class CanvasManager implements CameraView {
 	private Optional<Bounds> projectionBounds = Optional.empty();
 
 	public CanvasManager(Group canvasGroup, Configuration config, CamerasSupervisor camerasSupervisor,
-			String cameraName, ObservableList<ShotEntry> shotEntries) {
+			String cameraName, ShotTimerLog shotEntries) {
 		this.canvasGroup = canvasGroup;
 		this.config = config;
 		this.camerasSupervisor = camerasSupervisor;
@@ -153,7 +157,9 @@ public class CanvasManager implements CameraView {
 
 	@Override
 	public void close() {
-		diagnosticExecutorService.shutdownNow();
+		for (Timeout chimeFuture : diagnosticFutures.values())
+			TimerPool.cancelTimer(chimeFuture);
+		diagnosticFutures.clear();
 	}
 
 	@Override
@@ -175,6 +181,20 @@ public class CanvasManager implements CameraView {
 		return getCanvasGroup().getChildren().remove(c);
 	}
 
+	/**
+	 * Show a status message, such as progress, with the diagnostic messages.
+	 * Unlike a diagnostic message it is not a warning, so it never chimes.
+	 * Remove it with {@link #removeDiagnosticMessage(Label)}.
+	 */
+	public Label addStatusMessage(final String message, final Color backgroundColor) {
+		final Label statusLabel = new Label(message);
+		statusLabel.setStyle("-fx-background-color: " + colorToWebCode(backgroundColor));
+
+		diagnosticsVBox.getChildren().add(statusLabel);
+
+		return statusLabel;
+	}
+
 	public Label addDiagnosticMessage(final String message, final long chimeDelay, final Color backgroundColor) {
 		final Label diagnosticLabel = new Label(message);
 		diagnosticLabel.setStyle("-fx-background-color: " + colorToWebCode(backgroundColor));
@@ -209,9 +229,8 @@ public class CanvasManager implements CameraView {
 		diagnosticsVBox.getChildren().add(diagnosticLabel);
 
 		if (!config.isChimeMuted(message)) {
-			@SuppressWarnings("unchecked")
-			ScheduledFuture<Void> chimeFuture = (ScheduledFuture<Void>) diagnosticExecutorService.schedule(
-					() -> TrainingExerciseBase.playSound("sounds/chime.wav"), chimeDelay, TimeUnit.MILLISECONDS);
+			Timeout chimeFuture = TimerPool.schedule(
+					() -> chimePlayer.execute(() -> TrainingExerciseBase.playSound("sounds/chime.wav")), chimeDelay);
 			diagnosticFutures.put(diagnosticLabel, chimeFuture);
 		}
 
@@ -226,7 +245,7 @@ public class CanvasManager implements CameraView {
 	@Override
 	public void removeDiagnosticMessage(Label diagnosticLabel) {
 		if (diagnosticFutures.containsKey(diagnosticLabel)) {
-			diagnosticFutures.get(diagnosticLabel).cancel(false);
+			TimerPool.cancelTimer(diagnosticFutures.get(diagnosticLabel));
 			diagnosticFutures.remove(diagnosticLabel);
 		}
 
@@ -238,24 +257,6 @@ public class CanvasManager implements CameraView {
 				(int) (color.getBlue() * 255));
 	}
 
-	private void jdk8094135Warning() {
-		Platform.runLater(() -> {
-			Alert cameraAlert = new Alert(AlertType.ERROR);
-			cameraAlert.setTitle("Internal Error");
-			cameraAlert.setHeaderText("Internal Error -- Likely Too Many false Shots");
-			cameraAlert.setResizable(true);
-			cameraAlert.setContentText("An internal error due to JDK bug 8094135 occured in Java that will cause all "
-					+ "of your shots to be lost. This error is most likely to occur when you are getting a lot of false "
-					+ "shots due to poor lighting conditions and/or a poor camera setup. Please put the camera in front "
-					+ "of the shooter and turn off any bright lights in front of the camera that are the same height as "
-					+ "the shooter. If problems persist you may need to restart ShootOFF.");
-			cameraAlert.show();
-
-			shots.clear();
-			shotEntries.clear();
-		});
-	}
-
 	public String getCameraName() {
 		return cameraName;
 	}
@@ -280,23 +281,19 @@ public class CanvasManager implements CameraView {
 			return;
 		}
 
-		Image img;
+		// The view scales the frame to fit, so the frame is never resized here
 		if (projectionBounds.isPresent()) {
 			Bounds translatedBounds = translateCameraToCanvas(projectionBounds.get());
 			background.setX(translatedBounds.getMinX());
 			background.setY(translatedBounds.getMinY());
-
-			img = SwingFXUtils.toFXImage(
-					resize(frame, (int) translatedBounds.getWidth(), (int) translatedBounds.getHeight()), null);
+			setBackgroundFit(translatedBounds.getWidth(), translatedBounds.getHeight());
 		} else {
 			background.setX(0);
 			background.setY(0);
-
-			img = SwingFXUtils.toFXImage(resize(frame, (int) config.getDisplayWidth(), (int) config.getDisplayHeight()),
-					null);
+			setBackgroundFit(config.getDisplayWidth(), config.getDisplayHeight());
 		}
 
-		background.setImage(img);
+		background.setImage(feedImage.update(frame));
 	}
 
 	public void updateBackground(Image img) {
@@ -309,8 +306,8 @@ public class CanvasManager implements CameraView {
 	private void updateCanvasGroup() {
 		if (!canvasGroup.getChildren().contains(background)) {
 			Platform.runLater(() -> {
-				if (canvasGroup.getChildren().isEmpty()) {
-					canvasGroup.getChildren().add(background);
+				if (canvasGroup.getChildren().isEmpty() || canvasGroup.getChildren().get(0) != progress) {
+					canvasGroup.getChildren().add(0, background);
 				} else {
 					// Remove the wait spinner and replace it
 					// with the background
@@ -320,18 +317,6 @@ public class CanvasManager implements CameraView {
 		}
 	}
 
-	private BufferedImage resize(BufferedImage source, int width, int height) {
-		if (source.getWidth() == width && source.getHeight() == height) return source;
-
-		BufferedImage tmp = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-		Graphics2D g2 = tmp.createGraphics();
-		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-		g2.drawImage(source, 0, 0, width, height, null);
-		g2.dispose();
-
-		return tmp;
-	}
-
 	public BufferedImage getBufferedImage() {
 		BufferedImage projectedScene = SwingFXUtils.fromFXImage(canvasGroup.getScene().snapshot(null), null);
 		return projectedScene;
@@ -381,18 +366,13 @@ public class CanvasManager implements CameraView {
 
 	@Override
 	public void clearShots() {
-		Platform.runLater(() -> {
-			for (Shot shot : shots) {
-				canvasGroup.getChildren().remove(shot.getMarker());
-			}
+		if (shotEntries != null) shotEntries.clear();
+
+		UpdateCoalescer.append(() -> {
+			shotMarkers.clear();
+			if (arenaMaskRenderer.isPresent()) arenaMaskRenderer.get().clearShots();
 
 			shots.clear();
-			try {
-				if (shotEntries != null) shotEntries.clear();
-			} catch (NullPointerException npe) {
-				logger.error("JDK 8094135 exception", npe);
-				jdk8094135Warning();
-			}
 			if (arenaController.isPresent()) arenaController.get().getCanvasManager().clearShots();
 		});
 	}
@@ -424,12 +404,17 @@ public class CanvasManager implements CameraView {
 	}
 
 	public void setShowShots(boolean showShots) {
-		if (this.showShots != showShots) {
-			for (Shot shot : shots)
-				shot.getMarker().setVisible(showShots);
-		}
+		shotMarkers.setShowShots(showShots);
+		if (arenaMaskRenderer.isPresent()) arenaMaskRenderer.get().setShowShots(showShots);
+	}
 
-		this.showShots = showShots;
+	/**
+	 * Highlight a shot's marker, for example when the shot is selected in the
+	 * shot timer. Shots that aren't on this canvas are ignored.
+	 */
+	public void setShotSelected(Shot shot, boolean isSelected) {
+		shotMarkers.setSelected(shot, isSelected);
+		if (arenaMaskRenderer.isPresent()) arenaMaskRenderer.get().setShotSelected(shot, isSelected);
 	}
 
 	private void notifyShot(Shot shot) {
@@ -505,22 +490,32 @@ public class CanvasManager implements CameraView {
 		return shots;
 	}
 
-	@Override
 	public void addShot(Color color, double x, double y) {
 		addShot(color, x, y, false);
 	}
 
+	@Override
+	public void addShot(Shot shot) {
+		addShot(shot.getColor(), shot.getX(), shot.getY(), false, shot.getFrame(), shot.getCaptureTime());
+	}
+
 	public void addShot(Color color, double x, double y, boolean cameFromCanvas) {
+		addShot(color, x, y, cameFromCanvas, cameraManager.getFrameCount(), System.currentTimeMillis());
+	}
+
+	private void addShot(Color color, double x, double y, boolean cameFromCanvas, int frame, long captureTime) {
 		if (startTime == 0) startTime = System.currentTimeMillis();
 
-		Shot shot = new Shot(color, x, y, System.currentTimeMillis() - startTime, cameraManager.getFrameCount(),
-				config.getMarkerRadius());
+		// Shots are tested against targets as they were when the shot's frame
+		// was captured rather than when the shot has finished processing
+		Shot shot = new Shot(color, x, y, System.currentTimeMillis() - startTime, frame, config.getMarkerRadius(),
+				captureTime);
 
 		// If the shot didn't come from click to shoot (cameFromCanvas) and the
 		// resolution of the display and feed differ, translate shot coordinates
 		if (!cameFromCanvas && (config.getDisplayWidth() != cameraManager.getFeedWidth()
 				|| config.getDisplayHeight() != cameraManager.getFeedHeight())) {
-			shot.setTranslation(config.getDisplayWidth(), config.getDisplayHeight(), cameraManager.getFeedWidth(),
+			shot = shot.translate(config.getDisplayWidth(), config.getDisplayHeight(), cameraManager.getFeedWidth(),
 					cameraManager.getFeedHeight());
 		}
 
@@ -532,8 +527,7 @@ public class CanvasManager implements CameraView {
 			notifyShot(shot);
 		}
 
-		Optional<Shot> lastShot = Optional.empty();
-		if (shotEntries.size() > 0) lastShot = Optional.of(shotEntries.get(shotEntries.size() - 1).getShot());
+		Optional<Shot> lastShot = shotEntries.getLastShot();
 
 		ShotEntry shotEntry;
 		if (hadMalfunction || hadReload) {
@@ -544,12 +538,7 @@ public class CanvasManager implements CameraView {
 			shotEntry = new ShotEntry(shot, lastShot, config.getShotTimerRowColor(), false, false);
 		}
 
-		try {
-			shotEntries.add(shotEntry);
-		} catch (NullPointerException npe) {
-			logger.error("JDK 8094135 exception", npe);
-			jdk8094135Warning();
-		}
+		shotEntries.add(shotEntry);
 
 		shots.add(shot);
 		drawShot(shot);
@@ -562,7 +551,7 @@ public class CanvasManager implements CameraView {
 
 		Optional<String> videoString = createVideoString(shot);
 		Optional<TrainingExercise> currentExercise = config.getExercise();
-		Optional<Hit> hit = checkHit(shot, videoString);
+		Optional<Hit> hit = checkHit(shot, videoString, captureTime);
 		if (hit.isPresent() && hit.get().getHitRegion().tagExists("command")) executeRegionCommands(hit.get());
 
 		boolean processedShot = false;
@@ -577,9 +566,15 @@ public class CanvasManager implements CameraView {
 				Shot arenaShot = new Shot(shot.getColor(), (shot.getX() - b.getMinX()) * x_scale,
 						(shot.getY() - b.getMinY()) * y_scale,
 
-						shot.getTimestamp(), shot.getFrame(), config.getMarkerRadius());
+						shot.getTimestamp(), shot.getFrame(), config.getMarkerRadius(), shot.getCaptureTime());
 
-				processedShot = arenaController.get().getCanvasManager().addArenaShot(arenaShot, videoString);
+				// The camera saw what the projector was showing a calibrated
+				// delay ago
+				long sceneTime = captureTime;
+				if (!cameFromCanvas) sceneTime -= cameraManager.getProjectorDelay();
+
+				processedShot = arenaController.get().getCanvasManager().addArenaShot(arenaShot, videoString,
+						sceneTime);
 			}
 		}
 
@@ -589,11 +584,24 @@ public class CanvasManager implements CameraView {
 	}
 
 	public boolean addArenaShot(Shot shot, Optional<String> videoString) {
+		return addArenaShot(shot, videoString, System.currentTimeMillis());
+	}
+
+	/**
+	 * Add a shot to the arena.
+	 * 
+	 * @param sceneTime
+	 *            the time the arena looked the way the shooter saw it when
+	 *            they fired, as returned by
+	 *            <tt>System.currentTimeMillis()</tt>
+	 * @return <tt>true</tt> if the shot was passed to the current exercise
+	 */
+	public boolean addArenaShot(Shot shot, Optional<String> videoString, long sceneTime) {
 		shots.add(shot);
 		drawShot(shot);
 
 		Optional<TrainingExercise> currentExercise = config.getExercise();
-		Optional<Hit> hit = checkHit(shot, videoString);
+		Optional<Hit> hit = checkHit(shot, videoString, sceneTime);
 		if (hit.isPresent() && hit.get().getHitRegion().tagExists("command")) {
 			executeRegionCommands(hit.get());
 		}
@@ -607,123 +615,74 @@ public class CanvasManager implements CameraView {
 	}
 
 	private void drawShot(Shot shot) {
-		Platform.runLater(() -> {
-			canvasGroup.getChildren().add(shot.getMarker());
-			shot.getMarker().setVisible(showShots);
+		UpdateCoalescer.append(() -> {
+			keepShotMarkersOnTop();
+			shotMarkers.addShot(shot);
+			if (arenaMaskRenderer.isPresent()) arenaMaskRenderer.get().addShot(shot);
 		});
 	}
 
+	private void keepShotMarkersOnTop() {
+		List<Node> children = canvasGroup.getChildren();
+		Node markerCanvas = shotMarkers.getCanvas();
+
+		if (!children.contains(markerCanvas)) {
+			children.add(markerCanvas);
+		} else if (children.get(children.size() - 1) != markerCanvas) {
+			markerCanvas.toFront();
+		}
+	}
+
 	protected Optional<Hit> checkHit(Shot shot, Optional<String> videoString) {
-		// Targets are in order of when they were added, thus we must search in
-		// reverse to ensure shots register for the top target when targets
-		// overlap
-		for (ListIterator<Target> li = targets.listIterator(targets.size()); li.hasPrevious();) {
-			Target target = li.previous();
-			Group targetGroup = target.getTargetGroup();
-
-			if (targetGroup.getBoundsInParent().contains(shot.getX(), shot.getY())) {
-				// Target was hit, see if a specific region was hit
-				for (int i = targetGroup.getChildren().size() - 1; i >= 0; i--) {
-					Node node = targetGroup.getChildren().get(i);
-
-					Bounds nodeBounds = targetGroup.getLocalToParentTransform().transform(node.getBoundsInParent());
-
-					int adjustedX = (int) (shot.getX() - nodeBounds.getMinX());
-					int adjustedY = (int) (shot.getY() - nodeBounds.getMinY());
-
-					if (nodeBounds.contains(shot.getX(), shot.getY())) {
-						// If we hit an image region on a transparent pixel,
-						// ignore it
-						TargetRegion region = (TargetRegion) node;
-						if (region.getType() == RegionType.IMAGE) {
-							// The image you get from the image view is its
-							// original size. We need to resize it if it has
-							// changed size to accurately determine if a pixel
-							// is transparent
-							Image currentImage = ((ImageRegion) region).getImage();
-
-							if (adjustedX < 0 || adjustedY < 0) {
-								logger.debug(
-										"An adjusted pixel is negative: Adjusted ({}, {}), Original ({}, {}), "
-												+ " nodeBounds.getMin ({}, {})",
-										adjustedX, adjustedY, shot.getX(), shot.getY(), nodeBounds.getMaxX(),
-										nodeBounds.getMinY());
-								return Optional.empty();
-							}
-
-							if (Math.abs(currentImage.getWidth() - nodeBounds.getWidth()) > .0000001
-									|| Math.abs(currentImage.getHeight() - nodeBounds.getHeight()) > .0000001) {
-
-								BufferedImage bufferedOriginal = SwingFXUtils.fromFXImage(currentImage, null);
-
-								java.awt.Image tmp = bufferedOriginal.getScaledInstance((int) nodeBounds.getWidth(),
-										(int) nodeBounds.getHeight(), java.awt.Image.SCALE_SMOOTH);
-								BufferedImage bufferedResized = new BufferedImage((int) nodeBounds.getWidth(),
-										(int) nodeBounds.getHeight(), BufferedImage.TYPE_INT_ARGB);
-
-								Graphics2D g2d = bufferedResized.createGraphics();
-								g2d.drawImage(tmp, 0, 0, null);
-								g2d.dispose();
-
-								try {
-									if (adjustedX >= bufferedResized.getWidth()
-											|| adjustedY >= bufferedResized.getHeight()
-											|| bufferedResized.getRGB(adjustedX, adjustedY) >> 24 == 0) {
-										continue;
-									}
-								} catch (ArrayIndexOutOfBoundsException e) {
-									String message = String.format(
-											"Index out of bounds while trying to find adjusted coordinate (%d, %d) "
-													+ "from original (%.2f, %.2f) in adjusted BufferedImage for target %s "
-													+ "with width = %d, height = %d",
-											adjustedX, adjustedY, shot.getX(), shot.getY(),
-											target.getTargetFile().getPath(), bufferedResized.getWidth(),
-											bufferedResized.getHeight());
-									logger.error(message, e);
-									return Optional.empty();
-								}
-							} else {
-								if (adjustedX >= currentImage.getWidth() || adjustedY >= currentImage.getHeight()
-										|| currentImage.getPixelReader().getArgb(adjustedX, adjustedY) >> 24 == 0) {
-									continue;
-								}
-							}
-						} else {
-							// The shot is in the bounding box but make sure it
-							// is in the shape's
-							// fill otherwise we can get a shot detected where
-							// there isn't actually
-							// a region showing
-							Point2D localCoords = target.getTargetGroup().parentToLocal(shot.getX(), shot.getY());
-							if (!node.contains(localCoords)) continue;
-						}
-
-						if (config.inDebugMode()) {
-							Map<String, String> tags = region.getAllTags();
-
-							StringBuilder tagList = new StringBuilder();
-							for (Iterator<Entry<String, String>> it = tags.entrySet().iterator(); it.hasNext();) {
-								Entry<String, String> entry = it.next();
-								tagList.append(entry.getKey());
-								tagList.append(":");
-								tagList.append(entry.getValue());
-								if (it.hasNext()) tagList.append(", ");
-							}
-
-							logger.debug("Processing Shot: Found Hit Region For Shot ({}, {}), Type ({}), Tags ({})",
-									shot.getX(), shot.getY(), region.getType(), tagList.toString());
-						}
-
-						if (config.getSessionRecorder().isPresent()) {
-							config.getSessionRecorder().get().recordShot(cameraName, shot, false, false,
-									Optional.of(target), Optional.of(targetGroup.getChildren().indexOf(node)),
-									videoString);
-						}
-
-						return Optional.of(new Hit(target, (TargetRegion) node, adjustedX, adjustedY));
-					}
+		return checkHit(shot, videoString, System.currentTimeMillis());
+	}
+
+	/**
+	 * Find the target region hit by a shot as targets were at
+	 * <code>sceneTime</code>, which lets shots hit moving targets where the
+	 * shooter saw them instead of where they moved to while the shot was
+	 * being detected.
+	 */
+	protected Optional<Hit> checkHit(Shot shot, Optional<String> videoString, long sceneTime) {
+		// Candidates come back top most first to ensure shots register for the
+		// top target when targets overlap
+		for (Target target : targetIndex.getCandidates(shot.getX(), shot.getY(), sceneTime)) {
+			// Only use the target's published geometry because this is called
+			// from shot detection threads while targets may be moving
+			Optional<TargetGeometry> recorded = target.getGeometry(sceneTime);
+			if (!recorded.isPresent()) continue;
+
+			TargetGeometry geometry = recorded.get();
+			if (!geometry.contains(shot.getX(), shot.getY())) continue;
+
+			// Target was hit, see if a specific region was hit
+			Optional<Hit> hit = geometry.getHit(shot.getX(), shot.getY());
+			if (!hit.isPresent()) continue;
+
+			TargetRegion region = hit.get().getHitRegion();
+
+			if (config.inDebugMode()) {
+				Map<String, String> tags = region.getAllTags();
+
+				StringBuilder tagList = new StringBuilder();
+				for (Iterator<Entry<String, String>> it = tags.entrySet().iterator(); it.hasNext();) {
+					Entry<String, String> entry = it.next();
+					tagList.append(entry.getKey());
+					tagList.append(":");
+					tagList.append(entry.getValue());
+					if (it.hasNext()) tagList.append(", ");
 				}
+
+				logger.debug("Processing Shot: Found Hit Region For Shot ({}, {}), Type ({}), Tags ({})", shot.getX(),
+						shot.getY(), region.getType(), tagList.toString());
 			}
+
+			if (config.getSessionRecorder().isPresent()) {
+				config.getSessionRecorder().get().recordShot(cameraName, shot, false, false, Optional.of(geometry),
+						Optional.of(geometry.indexOf(region)), videoString);
+			}
+
+			return hit;
 		}
 
 		logger.debug("Processing Shot: Did Not Find Hit For Shot ({}, {})", shot.getX(), shot.getY());
@@ -798,12 +757,53 @@ public class CanvasManager implements CameraView {
 	public Target addTarget(Target newTarget) {
 		Platform.runLater(() -> {
 			canvasGroup.getChildren().add(newTarget.getTargetGroup());
+			if (canvasGroup.getChildren().contains(shotMarkers.getCanvas())) keepShotMarkersOnTop();
 		});
-		targets.add(newTarget);
+		registerTarget(newTarget);
 
 		return newTarget;
 	}
 
+	protected void registerTarget(Target target) {
+		targets.add(target);
+		publishTargetIndices();
+		targetIndex.add(target);
+		if (arenaMaskRenderer.isPresent()) arenaMaskRenderer.get().addTarget(target);
+	}
+
+	/**
+	 * Keep an arena mask renderer in sync with the targets, shots, and other
+	 * nodes on this canvas. Whatever is already on the canvas is added to the
+	 * renderer.
+	 */
+	public void setArenaMaskRenderer(ArenaMaskRenderer renderer) {
+		arenaMaskRenderer = Optional.of(renderer);
+
+		for (Target target : targets)
+			renderer.addTarget(target);
+
+		canvasGroup.getChildren().addListener((ListChangeListener<Node>) (change) -> publishArenaChildren());
+
+		UpdateCoalescer.append(() -> {
+			for (Shot shot : shotMarkers.getShots())
+				renderer.addShot(shot);
+			renderer.setShowShots(shotMarkers.isShowingShots());
+		});
+		publishArenaChildren();
+	}
+
+	private void publishArenaChildren() {
+		// Nodes are often added and removed in batches, the renderer only
+		// needs to see where things ended up
+		UpdateCoalescer.post(arenaChildrenUpdateKey, () -> {
+			if (!arenaMaskRenderer.isPresent()) return;
+
+			final List<Node> children = new ArrayList<Node>(canvasGroup.getChildren());
+			children.remove(background);
+			arenaMaskRenderer.get().setArenaChildren(children, shotMarkers.getCanvas());
+		});
+	}
+
 	public void removeTarget(Target target) {
 		Platform.runLater(() -> {
 			canvasGroup.getChildren().remove(target.getTargetGroup());
@@ -814,6 +814,14 @@ public class CanvasManager implements CameraView {
 		}
 
 		targets.remove(target);
+		publishTargetIndices();
+		targetIndex.remove(target);
+		if (arenaMaskRenderer.isPresent()) arenaMaskRenderer.get().removeTarget(target);
+	}
+
+	private void publishTargetIndices() {
+		for (int i = 0; i < targets.size(); i++)
+			targets.get(i).publishTargetIndex(i);
 	}
 
 	public void clearTargets() {
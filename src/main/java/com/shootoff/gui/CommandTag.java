@@ -0,0 +1,81 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A region's parsed <tt>command</tt> tag. Each region holds on to its parsed
+ * tag, so a shot on a region doesn't split and substring its command tag
+ * again.
+ */
+public final class CommandTag {
+	private final String commandsSource;
+	private final List<String> commands;
+	private final List<String> names = new ArrayList<String>();
+	private final List<List<String>> args = new ArrayList<List<String>>();
+
+	private CommandTag(String commandsSource) {
+		this.commandsSource = commandsSource;
+		commands = Collections.unmodifiableList(Arrays.asList(commandsSource.split(";")));
+
+		for (String command : commands) {
+			int openParen = command.indexOf('(');
+
+			if (openParen > 0) {
+				names.add(command.substring(0, openParen));
+				args.add(Collections.unmodifiableList(
+						Arrays.asList(command.substring(openParen + 1, command.indexOf(')')).split(","))));
+			} else {
+				names.add(command);
+				args.add(Collections.<String> emptyList());
+			}
+		}
+	}
+
+	public static CommandTag parse(String commandsSource) {
+		return new CommandTag(commandsSource);
+	}
+
+	/**
+	 * @return <code>previous</code> if it was parsed from
+	 *         <code>commandsSource</code>, otherwise <code>commandsSource</code>
+	 *         parsed again
+	 */
+	public static CommandTag parseIfChanged(CommandTag previous, String commandsSource) {
+		if (previous != null && previous.commandsSource.equals(commandsSource)) return previous;
+
+		return parse(commandsSource);
+	}
+
+	/**
+	 * Pass each command in the tag to <code>commandProcessor</code> in the
+	 * order they appear in the tag.
+	 */
+	public void process(CommandProcessor commandProcessor) {
+		for (int i = 0; i < names.size(); i++)
+			commandProcessor.process(commands, names.get(i), args.get(i));
+	}
+
+	public List<String> getCommands() {
+		return commands;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Shows camera frames using a single <tt>WritableImage</tt> that is
+ * overwritten with each new frame instead of allocating a new image for
+ * every frame. Frames are copied at their native resolution, scaling them to
+ * the display is left to the <tt>ImageView</tt> showing the image.
+ * 
+ * Frames are always shown fully opaque. A new image is only allocated when
+ * the frame size changes. Must be used on the JavaFX application thread
+ * because the image may be on screen.
+ * 
+ * @author phrack
+ */
+public class FeedImage {
+	private static final int OPAQUE = 0xFF000000;
+
+	private WritableImage image;
+	private int[] pixels;
+	private int width = 0;
+	private int height = 0;
+
+	/**
+	 * Copy a frame into the feed image.
+	 * 
+	 * @param frame
+	 *            the frame to show
+	 * @return the image holding the frame. This is the same instance for
+	 *         every frame of the same size.
+	 */
+	public Image update(BufferedImage frame) {
+		final int frameWidth = frame.getWidth();
+		final int frameHeight = frame.getHeight();
+
+		if (image == null || frameWidth != width || frameHeight != height) {
+			width = frameWidth;
+			height = frameHeight;
+			image = new WritableImage(width, height);
+			pixels = new int[width * height];
+		}
+
+		copyPixels(frame);
+
+		image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+
+		return image;
+	}
+
+	public Image getImage() {
+		return image;
+	}
+
+	private void copyPixels(BufferedImage frame) {
+		final Raster raster = frame.getRaster();
+		final SampleModel sampleModel = raster.getSampleModel();
+		final DataBuffer dataBuffer = raster.getDataBuffer();
+
+		// Frames from cameras and videos are normally 3 byte BGR and
+		// occasionally packed ints, those are read directly from their
+		// buffers. Everything else goes through the image's color model.
+		if (frame.getType() == BufferedImage.TYPE_3BYTE_BGR && dataBuffer instanceof DataBufferByte
+				&& sampleModel instanceof ComponentSampleModel) {
+			copyBgrPixels(raster, (ComponentSampleModel) sampleModel, ((DataBufferByte) dataBuffer).getData());
+		} else if ((frame.getType() == BufferedImage.TYPE_INT_RGB || frame.getType() == BufferedImage.TYPE_INT_ARGB)
+				&& dataBuffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel) {
+			copyIntPixels(raster, (SinglePixelPackedSampleModel) sampleModel, ((DataBufferInt) dataBuffer).getData());
+		} else {
+			frame.getRGB(0, 0, width, height, pixels, 0, width);
+			for (int i = 0; i < pixels.length; i++)
+				pixels[i] |= OPAQUE;
+		}
+	}
+
+	private void copyBgrPixels(Raster raster, ComponentSampleModel sampleModel, byte[] data) {
+		final int scanlineStride = sampleModel.getScanlineStride();
+		final int pixelStride = sampleModel.getPixelStride();
+		final int[] bandOffsets = sampleModel.getBandOffsets();
+		final int redOffset = bandOffsets[0];
+		final int greenOffset = bandOffsets[1];
+		final int blueOffset = bandOffsets[2];
+
+		// Sub-images share their parent's buffer at an offset
+		final int startX = raster.getMinX() - raster.getSampleModelTranslateX();
+		final int startY = raster.getMinY() - raster.getSampleModelTranslateY();
+		final int bufferOffset = raster.getDataBuffer().getOffset();
+
+		int p = 0;
+		for (int y = 0; y < height; y++) {
+			int i = bufferOffset + (startY + y) * scanlineStride + startX * pixelStride;
+
+			for (int x = 0; x < width; x++) {
+				pixels[p++] = OPAQUE | (data[i + redOffset] & 0xFF) << 16 | (data[i + greenOffset] & 0xFF) << 8
+						| (data[i + blueOffset] & 0xFF);
+				i += pixelStride;
+			}
+		}
+	}
+
+	private void copyIntPixels(Raster raster, SinglePixelPackedSampleModel sampleModel, int[] data) {
+		final int scanlineStride = sampleModel.getScanlineStride();
+		final int startX = raster.getMinX() - raster.getSampleModelTranslateX();
+		final int startY = raster.getMinY() - raster.getSampleModelTranslateY();
+		final int bufferOffset = raster.getDataBuffer().getOffset();
+
+		int p = 0;
+		for (int y = 0; y < height; y++) {
+			final int rowStart = bufferOffset + (startY + y) * scanlineStride + startX;
+
+			for (int x = 0; x < width; x++)
+				pixels[p++] = OPAQUE | data[rowStart + x];
+		}
+	}
+}
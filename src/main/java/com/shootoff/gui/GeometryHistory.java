@@ -0,0 +1,97 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A time-indexed ring buffer of the geometry snapshots a target has published
+ * so that a shot can be tested against where the target was when the shooter
+ * saw it rather than where it is by the time the shot is processed.
+ * 
+ * @author phrack
+ */
+class GeometryHistory {
+	private static final int CAPACITY = 256;
+
+	private final long[] times = new long[CAPACITY];
+	private final TargetGeometry[] geometries = new TargetGeometry[CAPACITY];
+	private int head = 0; // index of the next slot to write
+	private int count = 0;
+	private boolean hasOverwritten = false;
+
+	public synchronized void record(long time, TargetGeometry geometry) {
+		// Clocks may step backwards, never let the buffer become unsorted
+		if (count > 0) time = Math.max(time, times[index(count - 1)]);
+
+		times[head] = time;
+		geometries[head] = geometry;
+		head = (head + 1) % CAPACITY;
+		if (count < CAPACITY) {
+			count++;
+		} else {
+			hasOverwritten = true;
+		}
+	}
+
+	/**
+	 * Replace every recorded snapshot with the result of an update, used to
+	 * give older snapshots a raster that was compiled after they were
+	 * recorded.
+	 */
+	public synchronized void update(UnaryOperator<TargetGeometry> updater) {
+		for (int i = 0; i < count; i++) {
+			int slot = index(i);
+			geometries[slot] = updater.apply(geometries[slot]);
+		}
+	}
+
+	// Maps an age ordered position (0 is the oldest) to a slot
+	private int index(int position) {
+		return (head - count + position + CAPACITY) % CAPACITY;
+	}
+
+	/**
+	 * @return the snapshot that was current at <code>time</code>, the oldest
+	 *         snapshot if the history no longer goes back that far, or
+	 *         <code>null</code> if nothing had been recorded yet at
+	 *         <code>time</code>
+	 */
+	public synchronized TargetGeometry get(long time) {
+		if (count == 0) return null;
+		if (!hasOverwritten && time < times[index(0)]) return null;
+
+		// Find the newest snapshot recorded at or before time
+		int low = 0;
+		int high = count - 1;
+		int found = 0;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if (times[index(mid)] <= time) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		return geometries[index(found)];
+	}
+}
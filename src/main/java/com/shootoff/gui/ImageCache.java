@@ -0,0 +1,174 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javafx.scene.image.Image;
+
+/**
+ * Decoded target images and arena backgrounds shared across the process, so
+ * adding twenty copies of a target reads and decodes its images once.
+ * Entries are keyed by location and modification time so edited files are
+ * read again. Images are softly referenced: they stay cached while any
+ * target uses them and until memory runs low after that.
+ * 
+ * @author phrack
+ */
+public final class ImageCache {
+	private static final Logger logger = LoggerFactory.getLogger(ImageCache.class);
+
+	private interface ImageLoader<T extends Image> {
+		T load() throws IOException;
+	}
+
+	private static final Map<Key, CachedImage> images = new ConcurrentHashMap<Key, CachedImage>();
+
+	private ImageCache() {}
+
+	public static Image getImage(File imageFile) throws IOException {
+		return get(new Key(imageFile.getAbsolutePath(), imageFile.lastModified()), () -> {
+			try (InputStream is = new FileInputStream(imageFile)) {
+				return new Image(is);
+			}
+		});
+	}
+
+	/**
+	 * @param url
+	 *            the resource name if <code>isResource</code> is
+	 *            <tt>true</tt>, otherwise the image's URL
+	 */
+	public static LocatedImage getLocatedImage(String url, boolean isResource) {
+		final Key key = new Key((isResource ? "resource:" : "") + url, isResource ? 0 : lastModified(url));
+
+		try {
+			return get(key, () -> {
+				if (isResource) {
+					try (InputStream is = ImageCache.class.getResourceAsStream(url)) {
+						if (is == null) throw new IOException("Missing image resource " + url);
+						return new LocatedImage(is, url);
+					}
+				} else {
+					return new LocatedImage(url);
+				}
+			});
+		} catch (IOException e) {
+			logger.error("Error loading image {}", url, e);
+
+			// Let the caller deal with the broken image like it would
+			// without the cache
+			return isResource ? new LocatedImage(ImageCache.class.getResourceAsStream(url), url)
+					: new LocatedImage(url);
+		}
+	}
+
+	private static long lastModified(String url) {
+		try {
+			final URI uri = new URI(url);
+			if ("file".equals(uri.getScheme())) return new File(uri).lastModified();
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			logger.debug("Cannot find modification time for {}", url, e);
+		}
+
+		return 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Image> T get(Key key, ImageLoader<T> loader) throws IOException {
+		CachedImage cached = images.get(key);
+
+		if (cached == null) {
+			// New entries are a good time to drop the ones whose images were
+			// collected
+			images.values().removeIf(CachedImage::isCleared);
+			cached = images.computeIfAbsent(key, (k) -> new CachedImage());
+		}
+
+		// Only one thread loads a given image, others wait for it and share
+		// the result
+		synchronized (cached) {
+			Image image = cached.image.get();
+
+			if (image == null) {
+				try {
+					image = loader.load();
+
+					// Don't hold on to broken images, the file might be fixed
+					if (!image.isError()) cached.image = new SoftReference<Image>(image);
+				} finally {
+					cached.loaded = true;
+				}
+			}
+
+			return (T) image;
+		}
+	}
+
+	public static int size() {
+		return images.size();
+	}
+
+	public static void clear() {
+		images.clear();
+	}
+
+	private static final class CachedImage {
+		private volatile SoftReference<Image> image = new SoftReference<Image>(null);
+		private volatile boolean loaded = false;
+
+		// Entries that are still loading aren't cleared
+		public boolean isCleared() {
+			return loaded && image.get() == null;
+		}
+	}
+
+	private static final class Key {
+		private final String location;
+		private final long lastModified;
+
+		private Key(String location, long lastModified) {
+			this.location = location;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+
+			final Key other = (Key) o;
+			return location.equals(other.location) && lastModified == other.lastModified;
+		}
+
+		@Override
+		public int hashCode() {
+			return location.hashCode() * 31 + Long.hashCode(lastModified);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.gui;
+
+/**
+ * A single timeline shared by every video of a shot so that all camera angles
+ * are presented at the same playback position. The clock only tracks time, it
+ * is up to its users to decode and present frames for the current position.
+ * 
+ * @author phrack
+ */
+public class PlaybackClock {
+	private final long duration; // ms
+
+	private long position = 0; // ms
+	private long startNanos = 0;
+	private boolean isRunning = false;
+
+	public PlaybackClock(long duration) {
+		this.duration = duration;
+	}
+
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Get the current playback position, clamped to the clock's duration.
+	 * 
+	 * @return the playback position in milliseconds
+	 */
+	public synchronized long getTime() {
+		if (!isRunning) return position;
+
+		long time = position + ((System.nanoTime() - startNanos) / 1000000);
+
+		if (time >= duration) {
+			position = duration;
+			isRunning = false;
+			return duration;
+		}
+
+		return time;
+	}
+
+	public synchronized void start() {
+		if (isRunning) return;
+
+		if (position >= duration) position = 0;
+
+		startNanos = System.nanoTime();
+		isRunning = true;
+	}
+
+	public synchronized void pause() {
+		if (!isRunning) return;
+
+		position = getTime();
+		isRunning = false;
+	}
+
+	public synchronized void seek(long time) {
+		position = Math.max(0, Math.min(time, duration));
+		startNanos = System.nanoTime();
+	}
+
+	public synchronized boolean isRunning() {
+		// getTime stops the clock once the end is reached
+		getTime();
+		return isRunning;
+	}
+
+	public synchronized boolean isFinished() {
+		return getTime() >= duration;
+	}
+}
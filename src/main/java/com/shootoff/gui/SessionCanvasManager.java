@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import com.shootoff.camera.Shot;
 import com.shootoff.config.Configuration;
 import com.shootoff.gui.controller.VideoPlayerController;
 import com.shootoff.session.Event;
@@ -47,6 +48,7 @@ import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Ellipse;
 import javafx.stage.Stage;
 
 public class SessionCanvasManager {
@@ -56,6 +58,7 @@ public class SessionCanvasManager {
 	private final Map<Event, Point2D> eventToPosition = new HashMap<Event, Point2D>();
 	private final Map<Event, String> eventToExerciseMessage = new HashMap<Event, String>();
 	private final Map<Event, Dimension2D> eventToDimension = new HashMap<Event, Dimension2D>();
+	private final Map<ShotEvent, Ellipse> shotMarkers = new HashMap<ShotEvent, Ellipse>();
 	private final List<Target> targets = new ArrayList<Target>();
 	private final Configuration config;
 
@@ -73,43 +76,7 @@ public class SessionCanvasManager {
 			}
 
 			ShotEvent se = (ShotEvent) e;
-			canvas.getChildren().add(se.getShot().getMarker());
-
-			if (se.isMalfunction()) {
-				se.getShot().getMarker().setFill(Color.ORANGE);
-			} else if (se.isReload()) {
-				se.getShot().getMarker().setFill(Color.LIGHTSKYBLUE);
-			}
-
-			se.getShot().getMarker().setVisible(true);
-
-			if (se.getVideoString().isPresent()) {
-				se.getShot().getMarker().setOnMouseClicked((event) -> {
-					if (event.getClickCount() < 2) return;
-
-					FXMLLoader loader = new FXMLLoader(
-							getClass().getClassLoader().getResource("com/shootoff/gui/VideoPlayer.fxml"));
-					try {
-						loader.load();
-					} catch (IOException ioe) {
-						ioe.printStackTrace();
-					}
-
-					Stage videoPlayerStage = new Stage();
-
-					VideoPlayerController controller = (VideoPlayerController) loader.getController();
-					controller.init(se.getVideos());
-
-					videoPlayerStage.setTitle("Video Player");
-					videoPlayerStage.setScene(new Scene(loader.getRoot()));
-					videoPlayerStage.show();
-
-					config.registerVideoPlayer(controller);
-					controller.getStage().setOnCloseRequest((closeEvent) -> {
-						config.unregisterVideoPlayer(controller);
-					});
-				});
-			}
+			canvas.getChildren().add(getMarker(se));
 
 			if (se.getTargetIndex().isPresent() && se.getHitRegionIndex().isPresent()) {
 				animateTarget(se, false);
@@ -169,6 +136,56 @@ public class SessionCanvasManager {
 		}
 	}
 
+	// Markers are only created for shots that are actually shown
+	private Ellipse getMarker(ShotEvent se) {
+		Ellipse marker = shotMarkers.get(se);
+		if (marker != null) return marker;
+
+		Shot shot = se.getShot();
+		marker = new Ellipse(shot.getX(), shot.getY(), shot.getMarkerRadius(), shot.getMarkerRadius());
+
+		if (se.isMalfunction()) {
+			marker.setFill(Color.ORANGE);
+		} else if (se.isReload()) {
+			marker.setFill(Color.LIGHTSKYBLUE);
+		} else {
+			marker.setFill(shot.getColor());
+		}
+
+		if (se.getVideoString().isPresent()) {
+			marker.setOnMouseClicked((event) -> {
+				if (event.getClickCount() < 2) return;
+
+				FXMLLoader loader = new FXMLLoader(
+						getClass().getClassLoader().getResource("com/shootoff/gui/VideoPlayer.fxml"));
+				try {
+					loader.load();
+				} catch (IOException ioe) {
+					ioe.printStackTrace();
+				}
+
+				Stage videoPlayerStage = new Stage();
+
+				VideoPlayerController controller = (VideoPlayerController) loader.getController();
+				controller.init(se.getVideos());
+
+				videoPlayerStage.setTitle("Video Player");
+				videoPlayerStage.setScene(new Scene(loader.getRoot()));
+				videoPlayerStage.show();
+
+				config.registerVideoPlayer(controller);
+				controller.getStage().setOnCloseRequest((closeEvent) -> {
+					config.unregisterVideoPlayer(controller);
+					controller.close();
+				});
+			});
+		}
+
+		shotMarkers.put(se, marker);
+
+		return marker;
+	}
+
 	public void undoEvent(Event e) {
 		switch (e.getType()) {
 		case SHOT:
@@ -177,7 +194,7 @@ public class SessionCanvasManager {
 			}
 
 			ShotEvent se = (ShotEvent) e;
-			canvas.getChildren().remove(se.getShot().getMarker());
+			canvas.getChildren().remove(getMarker(se));
 
 			if (se.getTargetIndex().isPresent() && se.getHitRegionIndex().isPresent()) {
 				animateTarget(se, true);
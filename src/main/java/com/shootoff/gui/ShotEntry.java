@@ -36,6 +36,15 @@ public class ShotEntry {
 
 	public ShotEntry(Shot shot, Optional<Shot> lastShot, Optional<Color> rowColor, boolean hadMalfunction,
 			boolean hadReload) {
+		this(shot, formatSplit(shot, lastShot), rowColor, hadMalfunction, hadReload);
+	}
+
+	/**
+	 * Recreate an entry whose split was already calculated, e.g. when it is
+	 * read back from a {@link ShotTimerLog}'s spill file.
+	 */
+	protected ShotEntry(Shot shot, String split, Optional<Color> rowColor, boolean hadMalfunction,
+			boolean hadReload) {
 		this.shot = shot;
 
 		if (shot.getColor().equals(Color.RED)) {
@@ -49,16 +58,16 @@ public class ShotEntry {
 		float timestampS = ((float) shot.getTimestamp()) / (float) 1000;
 		timestamp = String.format("%.2f", timestampS);
 
-		String split;
-		if (lastShot.isPresent()) {
-			split = String.format("%.2f", timestampS - ((float) lastShot.get().getTimestamp() / (float) 1000));
-		} else {
-			split = "-";
-		}
-
 		this.split = new SplitData(split, rowColor, hadMalfunction, hadReload);
 	}
 
+	private static String formatSplit(Shot shot, Optional<Shot> lastShot) {
+		if (!lastShot.isPresent()) return "-";
+
+		float timestampS = ((float) shot.getTimestamp()) / (float) 1000;
+		return String.format("%.2f", timestampS - ((float) lastShot.get().getTimestamp() / (float) 1000));
+	}
+
 	public static class SplitData {
 		private final String split;
 		private final Optional<Color> rowColor;
@@ -120,6 +129,10 @@ public class ShotEntry {
 			return "";
 	}
 
+	protected Map<String, String> getExerciseData() {
+		return exerciseData;
+	}
+
 	public void clearExerciseData() {
 		exerciseData.clear();
 	}
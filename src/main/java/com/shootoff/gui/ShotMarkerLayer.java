@@ -0,0 +1,164 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.targets.TargetRegion;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Draws the markers for every shot on a canvas onto a single
+ * <tt>Canvas</tt> node instead of adding a node per shot to the scene graph.
+ * New shots are drawn incrementally, everything is only redrawn when the
+ * layer has to grow, is cleared, or when shot visibility or selection
+ * changes.
+ * 
+ * The layer grows to fit the shots drawn on it, it is never sized to the
+ * view. All methods must be called on the JavaFX application thread.
+ * 
+ * @author phrack
+ */
+public class ShotMarkerLayer {
+	// Growing the canvas for every shot near its edge would force a redraw
+	// each time, so it grows in chunks
+	private static final int GROWTH_INCREMENT = 256; // px
+	private static final int MAX_SIZE = 8192; // px
+
+	private final Canvas canvas = new Canvas();
+	private final List<Shot> shots = new ArrayList<Shot>();
+	private final Set<Shot> selectedShots = Collections.newSetFromMap(new IdentityHashMap<Shot, Boolean>());
+	private boolean showShots = true;
+
+	public ShotMarkerLayer() {
+		// Shots are drawn over targets but must not stop them from being
+		// clicked on
+		canvas.setMouseTransparent(true);
+	}
+
+	public Canvas getCanvas() {
+		return canvas;
+	}
+
+	public List<Shot> getShots() {
+		return Collections.unmodifiableList(shots);
+	}
+
+	public void addShot(Shot shot) {
+		shots.add(shot);
+
+		if (!showShots) return;
+
+		if (fit(shot)) {
+			redraw();
+		} else {
+			drawShot(canvas.getGraphicsContext2D(), shot);
+		}
+	}
+
+	public void clear() {
+		shots.clear();
+		selectedShots.clear();
+		canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+	}
+
+	public void setShowShots(boolean showShots) {
+		if (this.showShots == showShots) return;
+
+		this.showShots = showShots;
+		redraw();
+	}
+
+	public boolean isShowingShots() {
+		return showShots;
+	}
+
+	public void setSelected(Shot shot, boolean isSelected) {
+		if (!shots.contains(shot)) return;
+
+		boolean changed = isSelected ? selectedShots.add(shot) : selectedShots.remove(shot);
+		if (changed) redraw();
+	}
+
+	public boolean isSelected(Shot shot) {
+		return selectedShots.contains(shot);
+	}
+
+	/**
+	 * Grow the canvas if a shot would be drawn off of it.
+	 * 
+	 * @return <tt>true</tt> if the canvas was resized and needs to be redrawn
+	 */
+	private boolean fit(Shot shot) {
+		double requiredWidth = Math.min(MAX_SIZE, shot.getX() + shot.getMarkerRadius());
+		double requiredHeight = Math.min(MAX_SIZE, shot.getY() + shot.getMarkerRadius());
+
+		boolean resized = false;
+
+		if (requiredWidth > canvas.getWidth()) {
+			canvas.setWidth(roundUp(requiredWidth));
+			resized = true;
+		}
+
+		if (requiredHeight > canvas.getHeight()) {
+			canvas.setHeight(roundUp(requiredHeight));
+			resized = true;
+		}
+
+		return resized;
+	}
+
+	private static double roundUp(double size) {
+		return Math.min(MAX_SIZE, Math.ceil(size / GROWTH_INCREMENT) * GROWTH_INCREMENT);
+	}
+
+	public void redraw() {
+		if (showShots) {
+			for (Shot shot : shots)
+				fit(shot);
+		}
+
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+		if (!showShots) return;
+
+		// Selected shots are drawn last so they are always visible
+		for (Shot shot : shots) {
+			if (!selectedShots.contains(shot)) drawShot(gc, shot);
+		}
+
+		for (Shot shot : shots) {
+			if (selectedShots.contains(shot)) drawShot(gc, shot);
+		}
+	}
+
+	private void drawShot(GraphicsContext gc, Shot shot) {
+		int radius = shot.getMarkerRadius();
+
+		gc.setFill(selectedShots.contains(shot) ? TargetRegion.SELECTED_STROKE_COLOR : shot.getColor());
+		gc.fillOval(shot.getX() - radius, shot.getY() - radius, radius * 2, radius * 2);
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+/**
+ * The entries shown in the shot timer. Only the most recent entries are kept
+ * in memory, once there are too many the oldest are written to a spill file
+ * and are only read back if the user scrolls up to them. Spilled entries keep
+ * their original shots, which are still drawn on the canvas, so an entry read
+ * back selects the same shot marker it did before it was spilled.
+ * 
+ * Shots may be added from any thread, but the list of entries is only changed
+ * on the JavaFX application thread in the order shots were added. The last
+ * shot used to calculate splits is tracked separately, so splits stay correct
+ * no matter how many entries are in memory.
+ * 
+ * @author phrack
+ */
+public class ShotTimerLog {
+	private static final Logger logger = LoggerFactory.getLogger(ShotTimerLog.class);
+
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+	public static final int DEFAULT_PAGE_SIZE = 250;
+
+	private final ObservableList<ShotEntry> entries = FXCollections.observableArrayList();
+	private final int maxEntries;
+	private final int pageSize;
+
+	// The pages in the spill file, the most recently spilled page is always
+	// at the end of the file
+	private final Deque<SpilledPage> spilledPages = new ArrayDeque<SpilledPage>();
+	private int spilledCount = 0;
+	private Optional<File> spillFile = Optional.empty();
+	private RandomAccessFile spill;
+
+	private volatile Optional<Shot> lastShot = Optional.empty();
+
+	public ShotTimerLog() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the number of entries to keep in memory before older entries
+	 *            are spilled
+	 * @param pageSize
+	 *            the number of entries that are spilled or read back at a
+	 *            time
+	 */
+	public ShotTimerLog(int maxEntries, int pageSize) {
+		if (pageSize < 1 || pageSize > maxEntries)
+			throw new IllegalArgumentException("The page size must be between 1 and maxEntries");
+
+		this.maxEntries = maxEntries;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @return the entries that are in memory, oldest first. Must only be used
+	 *         on the JavaFX application thread.
+	 */
+	public ObservableList<ShotEntry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return the most recently added shot, even if its entry was spilled or
+	 *         hasn't been added to the list of entries yet
+	 */
+	public Optional<Shot> getLastShot() {
+		return lastShot;
+	}
+
+	public void add(ShotEntry entry) {
+		lastShot = Optional.of(entry.getShot());
+
+		UpdateCoalescer.append(() -> {
+			entries.add(entry);
+			while (entries.size() > maxEntries) {
+				if (!spillOldest()) break;
+			}
+		});
+	}
+
+	public void clear() {
+		lastShot = Optional.empty();
+
+		UpdateCoalescer.append(() -> {
+			entries.clear();
+			clearSpill();
+		});
+	}
+
+	/**
+	 * @return the number of entries that are only in the spill file
+	 */
+	public int getSpilledCount() {
+		return spilledCount;
+	}
+
+	public boolean hasOlderEntries() {
+		return !spilledPages.isEmpty();
+	}
+
+	/**
+	 * Read the most recently spilled page of entries back into memory. Must be
+	 * called on the JavaFX application thread.
+	 * 
+	 * @return the number of entries added to the front of the list
+	 */
+	public int loadOlderEntries() {
+		if (spilledPages.isEmpty()) return 0;
+
+		final SpilledPage page = spilledPages.peekLast();
+		final long offset = page.offset;
+		final int count = page.shots.size();
+
+		final List<ShotEntry> older = new ArrayList<ShotEntry>(count);
+		try {
+			final byte[] data = new byte[(int) (spill.length() - offset)];
+			spill.seek(offset);
+			spill.readFully(data);
+
+			final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			for (int i = 0; i < count; i++)
+				older.add(readEntry(in, page.shots.get(i)));
+
+			// Pages are read back in the reverse order they were written, so
+			// the file never holds entries that are also in memory
+			spill.setLength(offset);
+		} catch (IOException e) {
+			logger.error("Failed to read spilled shot timer entries", e);
+			return 0;
+		}
+
+		spilledPages.removeLast();
+		spilledCount -= count;
+		entries.addAll(0, older);
+
+		return count;
+	}
+
+	private boolean spillOldest() {
+		final List<ShotEntry> oldest = entries.subList(0, pageSize);
+		final List<Shot> oldestShots = new ArrayList<Shot>(pageSize);
+
+		try {
+			if (spill == null) {
+				final File file = File.createTempFile("shootoff-shots", ".log");
+				file.deleteOnExit();
+				spill = new RandomAccessFile(file, "rw");
+				spillFile = Optional.of(file);
+			}
+
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(bytes);
+			for (ShotEntry entry : oldest) {
+				writeEntry(out, entry);
+				oldestShots.add(entry.getShot());
+			}
+			out.flush();
+
+			final long offset = spill.length();
+			spill.seek(offset);
+			spill.write(bytes.toByteArray());
+
+			spilledPages.addLast(new SpilledPage(offset, oldestShots));
+			spilledCount += pageSize;
+		} catch (IOException e) {
+			// Better to use more memory than to lose shots
+			logger.error("Failed to spill shot timer entries, keeping them in memory", e);
+			return false;
+		}
+
+		oldest.clear();
+		return true;
+	}
+
+	private void clearSpill() {
+		spilledPages.clear();
+		spilledCount = 0;
+
+		if (spill == null) return;
+
+		try {
+			spill.setLength(0);
+		} catch (IOException e) {
+			logger.error("Failed to clear spilled shot timer entries", e);
+		}
+	}
+
+	/**
+	 * Release the spill file. The log can still be used afterwards.
+	 */
+	public void close() {
+		clearSpill();
+
+		if (spill == null) return;
+
+		try {
+			spill.close();
+		} catch (IOException e) {
+			logger.error("Failed to close shot timer spill file", e);
+		}
+
+		spill = null;
+		if (spillFile.isPresent() && !spillFile.get().delete())
+			logger.warn("Failed to delete shot timer spill file {}", spillFile.get().getPath());
+		spillFile = Optional.empty();
+	}
+
+	private static class SpilledPage {
+		private final long offset;
+		private final List<Shot> shots;
+
+		public SpilledPage(long offset, List<Shot> shots) {
+			this.offset = offset;
+			this.shots = shots;
+		}
+	}
+
+	private static void writeEntry(DataOutputStream out, ShotEntry entry) throws IOException {
+		out.writeUTF(entry.getSplit().getSplit());
+		out.writeBoolean(entry.getRowColor().isPresent());
+		if (entry.getRowColor().isPresent()) out.writeUTF(entry.getRowColor().get().toString());
+		out.writeBoolean(entry.getSplit().hadMalfunction());
+		out.writeBoolean(entry.getSplit().hadReload());
+
+		final Map<String, String> exerciseData = entry.getExerciseData();
+		out.writeInt(exerciseData.size());
+		for (Map.Entry<String, String> value : exerciseData.entrySet()) {
+			out.writeUTF(value.getKey());
+			out.writeUTF(value.getValue());
+		}
+	}
+
+	private static ShotEntry readEntry(DataInputStream in, Shot shot) throws IOException {
+		final String split = in.readUTF();
+		final Optional<Color> rowColor = in.readBoolean() ? Optional.of(Color.web(in.readUTF())) : Optional.empty();
+		final boolean hadMalfunction = in.readBoolean();
+		final boolean hadReload = in.readBoolean();
+		final ShotEntry entry = new ShotEntry(shot, split, rowColor, hadMalfunction, hadReload);
+
+		final int exerciseValues = in.readInt();
+		for (int i = 0; i < exerciseValues; i++)
+			entry.setExerciseValue(in.readUTF(), in.readUTF());
+
+		return entry;
+	}
+}
@@ -19,18 +19,24 @@
 package com.shootoff.gui;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 import com.shootoff.config.Configuration;
+import com.shootoff.targets.HitRaster;
 import com.shootoff.targets.ImageRegion;
 import com.shootoff.targets.RegionType;
 import com.shootoff.targets.TargetRegion;
 import com.shootoff.targets.animation.SpriteAnimation;
 
 import javafx.animation.Animation.Status;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
@@ -69,6 +75,13 @@ public class Target {
 	private double x;
 	private double y;
 
+	private final AtomicLong geometryVersion = new AtomicLong();
+	private final AtomicReference<TargetGeometry> geometry = new AtomicReference<TargetGeometry>();
+	private final GeometryHistory geometryHistory = new GeometryHistory();
+	private final List<Consumer<Target>> geometryListeners = new CopyOnWriteArrayList<Consumer<Target>>();
+	private final InvalidationListener geometryListener = (observable) -> invalidateGeometry();
+	private final InvalidationListener positionListener = (observable) -> publishPosition();
+
 	public Target(File targetFile, Group target, Configuration config, CanvasManager parent, boolean userDeletable) {
 		this.targetFile = targetFile;
 		this.targetGroup = target;
@@ -88,6 +101,7 @@ public class Target {
 		mouseMoved();
 		mouseReleased();
 		keyPressed();
+		watchGeometry();
 	}
 
 	public Target(Group target, List<Target> targets) {
@@ -104,6 +118,7 @@ public class Target {
 		mouseMoved();
 		mouseReleased();
 		keyPressed();
+		watchGeometry();
 	}
 
 	public File getTargetFile() {
@@ -151,6 +166,148 @@ public class Target {
 		}
 	}
 
+	private void watchGeometry() {
+		targetGroup.layoutXProperty().addListener(positionListener);
+		targetGroup.layoutYProperty().addListener(positionListener);
+		targetGroup.translateXProperty().addListener(positionListener);
+		targetGroup.translateYProperty().addListener(positionListener);
+
+		targetGroup.scaleXProperty().addListener(geometryListener);
+		targetGroup.scaleYProperty().addListener(geometryListener);
+		targetGroup.rotateProperty().addListener(geometryListener);
+		targetGroup.visibleProperty().addListener(geometryListener);
+
+		for (Node node : targetGroup.getChildren())
+			watchRegion(node);
+
+		targetGroup.getChildren().addListener((ListChangeListener<Node>) (change) -> {
+			while (change.next()) {
+				for (Node node : change.getAddedSubList())
+					watchRegion(node);
+			}
+
+			invalidateGeometry();
+		});
+
+		invalidateGeometry();
+	}
+
+	private void watchRegion(Node node) {
+		node.boundsInParentProperty().addListener(geometryListener);
+
+		// Animations swap frames without necessarily changing bounds
+		if (node instanceof ImageRegion) {
+			((ImageRegion) node).imageProperty().addListener(geometryListener);
+			((ImageRegion) node).viewportProperty().addListener(geometryListener);
+		}
+	}
+
+	/**
+	 * Publish a snapshot of the target's current geometry and compile a new
+	 * hit raster for it in the background. Until the new raster is ready hits
+	 * are found by testing the snapshot's regions directly.
+	 */
+	private void invalidateGeometry() {
+		long version = geometryVersion.incrementAndGet();
+		HitRaster.Source source = HitRaster.capture(targetGroup, version);
+
+		publishGeometry((current) -> new TargetGeometry(this, source, current == null ? -1 : current.getTargetIndex()));
+
+		HitRaster.compileAsync(source, geometryVersion::get, (raster) -> {
+			synchronized (geometryHistory) {
+				geometry.updateAndGet((current) -> current.withRaster(raster));
+				geometryHistory.update((recorded) -> recorded.withRaster(raster));
+			}
+		});
+	}
+
+	/**
+	 * Update the target index carried by this target's geometry, including
+	 * the snapshots already recorded, so that threads that only read the
+	 * geometry never need the canvas's list of targets. Called by the canvas
+	 * whenever its targets change.
+	 */
+	void publishTargetIndex(int targetIndex) {
+		synchronized (geometryHistory) {
+			geometry.updateAndGet((current) -> current.withTargetIndex(targetIndex));
+			geometryHistory.update((recorded) -> recorded.withTargetIndex(targetIndex));
+		}
+	}
+
+	private void publishPosition() {
+		double originX = targetGroup.getLayoutX() + targetGroup.getTranslateX();
+		double originY = targetGroup.getLayoutY() + targetGroup.getTranslateY();
+
+		publishGeometry((current) -> current.withOrigin(originX, originY));
+	}
+
+	private void publishGeometry(UnaryOperator<TargetGeometry> updater) {
+		synchronized (geometryHistory) {
+			TargetGeometry current = geometry.get();
+			TargetGeometry updated = updater.apply(current);
+
+			if (updated == current) return;
+
+			geometry.set(updated);
+			geometryHistory.record(System.currentTimeMillis(), updated);
+		}
+
+		for (Consumer<Target> listener : geometryListeners)
+			listener.accept(this);
+	}
+
+	/**
+	 * Register a listener that is called on the publishing thread after this
+	 * target publishes new geometry.
+	 */
+	public void addGeometryListener(Consumer<Target> listener) {
+		geometryListeners.add(listener);
+	}
+
+	public void removeGeometryListener(Consumer<Target> listener) {
+		geometryListeners.remove(listener);
+	}
+
+	/**
+	 * @return the most recently published snapshot of this target's geometry,
+	 *         which can be read from any thread
+	 */
+	public TargetGeometry getGeometry() {
+		return geometry.get();
+	}
+
+	/**
+	 * @param time
+	 *            a time as returned by <tt>System.currentTimeMillis()</tt>
+	 * @return the snapshot of this target's geometry that was current at
+	 *         <code>time</code>, the oldest snapshot that is still kept if
+	 *         <code>time</code> is further back than that, or
+	 *         <tt>Optional.empty()</tt> if the target didn't exist yet
+	 */
+	public Optional<TargetGeometry> getGeometry(long time) {
+		return Optional.ofNullable(geometryHistory.get(time));
+	}
+
+	// For testing
+	protected Optional<HitRaster> getHitRaster() {
+		return geometry.get().getRaster();
+	}
+
+	/**
+	 * Find the region of this target that was hit by a shot using its most
+	 * recently published geometry.
+	 * 
+	 * @param x
+	 *            the x coordinate of the shot in the target group's parent
+	 * @param y
+	 *            the y coordinate of the shot in the target group's parent
+	 * @return the hit region or <tt>Optional.empty()</tt> if the shot did not
+	 *         hit any region of this target
+	 */
+	public Optional<Hit> getHit(double x, double y) {
+		return geometry.get().getHit(x, y);
+	}
+
 	public Dimension2D getDimension() {
 		return new Dimension2D(targetGroup.getBoundsInParent().getWidth(), targetGroup.getBoundsInParent().getHeight());
 	}
@@ -171,26 +328,7 @@ public class Target {
 	}
 
 	protected static void parseCommandTag(TargetRegion region, CommandProcessor commandProcessor) {
-		if (!region.tagExists("command")) return;
-
-		String commandsSource = region.getTag("command");
-		List<String> commands = Arrays.asList(commandsSource.split(";"));
-
-		for (String command : commands) {
-			int openParen = command.indexOf('(');
-			String commandName;
-			List<String> args;
-
-			if (openParen > 0) {
-				commandName = command.substring(0, openParen);
-				args = Arrays.asList(command.substring(openParen + 1, command.indexOf(')')).split(","));
-			} else {
-				commandName = command;
-				args = new ArrayList<String>();
-			}
-
-			commandProcessor.process(commands, commandName, args);
-		}
+		region.getCommandTag().ifPresent((commandTag) -> commandTag.process(commandProcessor));
 	}
 
 	protected static Optional<TargetRegion> getTargetRegionByName(List<Target> targets, TargetRegion region,
@@ -0,0 +1,201 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.awt.Graphics2D;
+import java.util.Optional;
+
+import com.shootoff.targets.HitRaster;
+import com.shootoff.targets.TargetRegion;
+
+/**
+ * An immutable snapshot of where a target is and what its regions look like.
+ * A target publishes a new snapshot from the thread that changes it whenever
+ * it is moved, resized or animated, so shot detection threads can find hits
+ * without reading the live scene graph.
+ * 
+ * @author phrack
+ */
+public final class TargetGeometry {
+	private final Target target;
+	private final HitRaster.Source source;
+	private final HitRaster raster;
+	private final double originX, originY;
+	private final int targetIndex;
+
+	public TargetGeometry(Target target, HitRaster.Source source) {
+		this(target, source, -1);
+	}
+
+	/**
+	 * @param targetIndex
+	 *            the target's index in its canvas's targets or -1 if it
+	 *            isn't on a canvas
+	 */
+	public TargetGeometry(Target target, HitRaster.Source source, int targetIndex) {
+		this(target, source, null, source.getOriginX(), source.getOriginY(), targetIndex);
+	}
+
+	private TargetGeometry(Target target, HitRaster.Source source, HitRaster raster, double originX, double originY,
+			int targetIndex) {
+		this.target = target;
+		this.source = source;
+		this.raster = raster;
+		this.originX = originX;
+		this.originY = originY;
+		this.targetIndex = targetIndex;
+	}
+
+	public TargetGeometry withOrigin(double originX, double originY) {
+		if (originX == this.originX && originY == this.originY) return this;
+
+		return new TargetGeometry(target, source, raster, originX, originY, targetIndex);
+	}
+
+	public TargetGeometry withTargetIndex(int targetIndex) {
+		if (targetIndex == this.targetIndex) return this;
+
+		return new TargetGeometry(target, source, raster, originX, originY, targetIndex);
+	}
+
+	/**
+	 * @return this geometry using a raster compiled from its source, or this
+	 *         geometry unchanged if the raster was compiled from a different
+	 *         source
+	 */
+	public TargetGeometry withRaster(HitRaster raster) {
+		if (raster.getVersion() != source.getVersion()) return this;
+
+		return new TargetGeometry(target, source, raster, originX, originY, targetIndex);
+	}
+
+	public Target getTarget() {
+		return target;
+	}
+
+	/**
+	 * @return the target's index in its canvas's targets as of when this
+	 *         geometry was last updated, or -1 if it isn't on a canvas
+	 */
+	public int getTargetIndex() {
+		return targetIndex;
+	}
+
+	/**
+	 * @return the x coordinate the target was placed at
+	 */
+	public double getX() {
+		return originX;
+	}
+
+	/**
+	 * @return the y coordinate the target was placed at
+	 */
+	public double getY() {
+		return originY;
+	}
+
+	public double getWidth() {
+		return getMaxX() - getMinX();
+	}
+
+	public double getHeight() {
+		return getMaxY() - getMinY();
+	}
+
+	public long getVersion() {
+		return source.getVersion();
+	}
+
+	public Optional<HitRaster> getRaster() {
+		return Optional.ofNullable(raster);
+	}
+
+	public double getMinX() {
+		return source.getMinX(originX);
+	}
+
+	public double getMinY() {
+		return source.getMinY(originY);
+	}
+
+	public double getMaxX() {
+		return source.getMaxX(originX);
+	}
+
+	public double getMaxY() {
+		return source.getMaxY(originY);
+	}
+
+	/**
+	 * Draw the target as it looked when this geometry was captured.
+	 * 
+	 * @see HitRaster.Source#paint(Graphics2D, double, double)
+	 */
+	public void paint(Graphics2D g) {
+		source.paint(g, originX, originY);
+	}
+
+	public boolean contains(double x, double y) {
+		return x >= getMinX() && x <= getMaxX() && y >= getMinY() && y <= getMaxY();
+	}
+
+	/**
+	 * @return the index of a region in the target's children as of when this
+	 *         geometry was captured or -1 if the region is not part of it
+	 */
+	public int indexOf(TargetRegion region) {
+		for (int i = 0; i < source.getRegionCount(); i++) {
+			if (source.getRegion(i) == region) return i;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Find the region of the target that was hit by a shot. This only reads
+	 * this snapshot and is safe to call from any thread.
+	 * 
+	 * @param x
+	 *            the x coordinate of the shot in the target group's parent
+	 * @param y
+	 *            the y coordinate of the shot in the target group's parent
+	 * @return the hit region or <tt>Optional.empty()</tt> if the shot did not
+	 *         hit any region of the target
+	 */
+	public Optional<Hit> getHit(double x, double y) {
+		if (!contains(x, y)) return Optional.empty();
+
+		int regionIndex;
+		if (raster != null) {
+			regionIndex = raster.getRegionIndex(x, y, originX, originY);
+		} else {
+			regionIndex = source.getRegionIndex(x, y, originX, originY);
+		}
+
+		if (regionIndex == HitRaster.NO_REGION) return Optional.empty();
+
+		TargetRegion region = source.getRegion(regionIndex);
+		if (region == null) return Optional.empty();
+
+		int adjustedX = (int) (x - source.getRegionMinX(regionIndex, originX));
+		int adjustedY = (int) (y - source.getRegionMinY(regionIndex, originY));
+
+		return Optional.of(new Hit(target, region, adjustedX, adjustedY));
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A uniform grid over the bounds of the targets on a canvas so that a shot
+ * only has to be checked against the targets that are near it. Each target's
+ * cells are updated whenever it publishes new geometry, which covers moves and
+ * resizes from exercises as well as from the mouse and keyboard.
+ * 
+ * Targets that changed recently are also tracked separately so that a shot
+ * tested against an earlier point in time still finds targets that have
+ * since moved away from it.
+ * 
+ * Targets are returned in z-order (the order they were added in, top most
+ * first) so that overlapping targets are resolved the same way they always
+ * have been.
+ * 
+ * Updates are serialized but cells are replaced rather than modified, so shot
+ * detection threads can query the index without locking.
+ * 
+ * @author phrack
+ */
+public class TargetIndex {
+	protected static final int CELL_SIZE = 128; // px
+
+	// Targets covering more cells than this are checked for every shot
+	// instead of being gridded
+	private static final int MAX_TARGET_CELLS = 1024;
+
+	// How long changed targets are tracked for, which is how far back shots
+	// can be compensated for
+	protected static final long MAX_COMPENSATION_MS = 1000;
+
+	private static final Entry[] EMPTY_CELL = new Entry[0];
+
+	private final Map<Long, Entry[]> cells = new ConcurrentHashMap<Long, Entry[]>();
+	private final Map<Target, Entry> entries = new IdentityHashMap<Target, Entry>();
+	private volatile Entry[] oversized = EMPTY_CELL;
+	private volatile Entry[] recentlyChanged = EMPTY_CELL;
+	private long lastRecentPurge = 0;
+	private long nextOrder = 0;
+
+	private static class Entry {
+		private final Target target;
+		private final long order;
+		private final Consumer<Target> geometryListener;
+
+		private volatile long lastChanged = 0;
+		private boolean isOversized = false;
+		private boolean isRecent = false;
+		private int minCellX = 0;
+		private int minCellY = 0;
+		private int maxCellX = -1;
+		private int maxCellY = -1;
+
+		public Entry(Target target, long order, Consumer<Target> geometryListener) {
+			this.target = target;
+			this.order = order;
+			this.geometryListener = geometryListener;
+		}
+	}
+
+	public synchronized void add(Target target) {
+		if (entries.containsKey(target)) return;
+
+		Entry entry = new Entry(target, nextOrder++, this::update);
+		entries.put(target, entry);
+
+		place(entry, target.getGeometry());
+		target.addGeometryListener(entry.geometryListener);
+	}
+
+	public synchronized void remove(Target target) {
+		Entry entry = entries.remove(target);
+
+		if (entry == null) return;
+
+		target.removeGeometryListener(entry.geometryListener);
+		unplace(entry);
+
+		if (entry.isRecent) recentlyChanged = removeEntry(recentlyChanged, entry);
+	}
+
+	public synchronized void clear() {
+		for (Target target : new ArrayList<Target>(entries.keySet()))
+			remove(target);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private synchronized void update(Target target) {
+		Entry entry = entries.get(target);
+
+		if (entry == null) return;
+
+		markChanged(entry, System.currentTimeMillis());
+
+		TargetGeometry geometry = target.getGeometry();
+
+		int minCellX = toCell(geometry.getMinX());
+		int minCellY = toCell(geometry.getMinY());
+		int maxCellX = toCell(geometry.getMaxX());
+		int maxCellY = toCell(geometry.getMaxY());
+
+		// Most moves stay within the same cells
+		if (!entry.isOversized && isPlaceable(geometry) && minCellX == entry.minCellX
+				&& minCellY == entry.minCellY && maxCellX == entry.maxCellX && maxCellY == entry.maxCellY) {
+			return;
+		}
+
+		unplace(entry);
+		place(entry, geometry);
+	}
+
+	private void markChanged(Entry entry, long now) {
+		entry.lastChanged = now;
+
+		if (!entry.isRecent) {
+			entry.isRecent = true;
+			recentlyChanged = insertOrdered(recentlyChanged, entry);
+		}
+
+		// Queries skip stale entries, so they only need to be dropped once
+		// in a while
+		if (now - lastRecentPurge < MAX_COMPENSATION_MS) return;
+		lastRecentPurge = now;
+
+		Entry[] recent = recentlyChanged;
+		for (Entry e : recent) {
+			if (e.lastChanged < now - MAX_COMPENSATION_MS) {
+				e.isRecent = false;
+				recentlyChanged = removeEntry(recentlyChanged, e);
+			}
+		}
+	}
+
+	private static boolean isPlaceable(TargetGeometry geometry) {
+		return geometry.getMaxX() > geometry.getMinX() && geometry.getMaxY() > geometry.getMinY()
+				&& !Double.isNaN(geometry.getMinX()) && !Double.isNaN(geometry.getMinY());
+	}
+
+	private void place(Entry entry, TargetGeometry geometry) {
+		if (!isPlaceable(geometry)) {
+			entry.maxCellX = entry.minCellX - 1;
+			return;
+		}
+
+		entry.minCellX = toCell(geometry.getMinX());
+		entry.minCellY = toCell(geometry.getMinY());
+		entry.maxCellX = toCell(geometry.getMaxX());
+		entry.maxCellY = toCell(geometry.getMaxY());
+
+		long cellCount = ((long) entry.maxCellX - entry.minCellX + 1) * ((long) entry.maxCellY - entry.minCellY + 1);
+
+		if (cellCount > MAX_TARGET_CELLS) {
+			entry.isOversized = true;
+			oversized = insertOrdered(oversized, entry);
+			return;
+		}
+
+		for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+			for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+				long key = cellKey(cellX, cellY);
+				Entry[] cell = cells.get(key);
+
+				cells.put(key, insertOrdered(cell == null ? EMPTY_CELL : cell, entry));
+			}
+		}
+	}
+
+	private void unplace(Entry entry) {
+		if (entry.isOversized) {
+			oversized = removeEntry(oversized, entry);
+			entry.isOversized = false;
+			return;
+		}
+
+		for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+			for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+				long key = cellKey(cellX, cellY);
+				Entry[] cell = cells.get(key);
+
+				if (cell == null) continue;
+
+				cell = removeEntry(cell, entry);
+				if (cell.length == 0) {
+					cells.remove(key);
+				} else {
+					cells.put(key, cell);
+				}
+			}
+		}
+	}
+
+	// Cells are kept sorted from the top most target to the bottom most
+	private static Entry[] insertOrdered(Entry[] cell, Entry entry) {
+		int i = 0;
+		while (i < cell.length && cell[i].order > entry.order)
+			i++;
+
+		Entry[] newCell = new Entry[cell.length + 1];
+		System.arraycopy(cell, 0, newCell, 0, i);
+		newCell[i] = entry;
+		System.arraycopy(cell, i, newCell, i + 1, cell.length - i);
+
+		return newCell;
+	}
+
+	private static Entry[] removeEntry(Entry[] cell, Entry entry) {
+		int i = Arrays.asList(cell).indexOf(entry);
+		if (i < 0) return cell;
+
+		Entry[] newCell = new Entry[cell.length - 1];
+		System.arraycopy(cell, 0, newCell, 0, i);
+		System.arraycopy(cell, i + 1, newCell, i, cell.length - i - 1);
+
+		return newCell;
+	}
+
+	/**
+	 * Get the targets whose bounds may contain a point.
+	 * 
+	 * @param x
+	 *            the x coordinate in the canvas
+	 * @param y
+	 *            the y coordinate in the canvas
+	 * @return the candidate targets, top most first. Callers must still check
+	 *         whether the point is actually on each target.
+	 */
+	public List<Target> getCandidates(double x, double y) {
+		return getCandidates(x, y, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Get the targets whose bounds may have contained a point at some time.
+	 * This includes every target that has changed since <code>time</code>
+	 * because the index only knows where targets are now.
+	 * 
+	 * @param time
+	 *            a time as returned by <tt>System.currentTimeMillis()</tt>
+	 * @see #getCandidates(double, double)
+	 */
+	public List<Target> getCandidates(double x, double y, long time) {
+		Entry[] cell = cells.get(cellKey(toCell(x), toCell(y)));
+		Entry[] oversized = this.oversized;
+		Entry[] recent = this.recentlyChanged;
+
+		if (cell == null) cell = EMPTY_CELL;
+		if (cell.length == 0 && oversized.length == 0 && recent.length == 0) return Collections.emptyList();
+
+		List<Target> candidates = new ArrayList<Target>(cell.length + oversized.length);
+
+		int i = 0;
+		int j = 0;
+		int k = 0;
+
+		// Merge the cell with the oversized and recently changed targets,
+		// preserving z-order. A target can be in more than one of these, in
+		// which case all of its entries are consumed together.
+		while (true) {
+			Entry next = null;
+
+			while (k < recent.length && recent[k].lastChanged < time)
+				k++;
+
+			if (i < cell.length) next = cell[i];
+			if (j < oversized.length && (next == null || oversized[j].order > next.order)) next = oversized[j];
+			if (k < recent.length && (next == null || recent[k].order > next.order)) next = recent[k];
+
+			if (next == null) break;
+
+			if (i < cell.length && cell[i] == next) i++;
+			if (j < oversized.length && oversized[j] == next) j++;
+			if (k < recent.length && recent[k] == next) k++;
+
+			candidates.add(next.target);
+		}
+
+		return candidates;
+	}
+
+	private static int toCell(double coordinate) {
+		return (int) Math.floor(coordinate / CELL_SIZE);
+	}
+
+	private static long cellKey(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.gui;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Collects UI updates posted from camera and exercise threads and applies
+ * them on the JavaFX application thread once per pulse, instead of each
+ * producer calling <tt>Platform.runLater</tt> on its own.
+ * 
+ * Updates posted with a key replace any update with the same key that hasn't
+ * been applied yet, so if the FX thread falls behind only the latest camera
+ * frame or label text is shown. Updates posted without a key, such as new
+ * shots, are all applied. Either way updates are applied in the order they
+ * were first posted. Each pulse only spends a bounded amount of time applying
+ * updates, whatever is left over is applied on the next pulse.
+ * 
+ * @author phrack
+ */
+public final class UpdateCoalescer {
+	private static final Logger logger = LoggerFactory.getLogger(UpdateCoalescer.class);
+
+	private static final long MAX_PULSE_WORK_NS = 8 * 1000 * 1000;
+	private static final int QUEUE_DEPTH_WARNING = 500;
+
+	private static final Queue<Update> updates = new ConcurrentLinkedQueue<Update>();
+	private static final Map<Object, Update> pendingByKey = new ConcurrentHashMap<Object, Update>();
+	private static final AtomicInteger queueDepth = new AtomicInteger();
+	private static final AtomicBoolean isStarted = new AtomicBoolean(false);
+
+	private static volatile int maxQueueDepth = 0;
+	private static volatile boolean warnedAboutDepth = false;
+
+	private static final class Update {
+		private final Object key;
+		private volatile Runnable action;
+
+		public Update(Object key, Runnable action) {
+			this.key = key;
+			this.action = action;
+		}
+	}
+
+	private UpdateCoalescer() {}
+
+	/**
+	 * Apply an update on the FX thread, replacing the pending update with the
+	 * same key if there is one.
+	 * 
+	 * @param key
+	 *            identifies what is being updated, e.g. a specific camera
+	 *            view's background. Keys are compared using
+	 *            <tt>equals</tt>.
+	 * @param action
+	 *            the update to apply
+	 */
+	public static void post(Object key, Runnable action) {
+		pendingByKey.compute(key, (k, existing) -> {
+			if (existing != null) {
+				existing.action = action;
+				return existing;
+			}
+
+			Update update = new Update(key, action);
+			enqueue(update);
+			return update;
+		});
+
+		ensureStarted();
+	}
+
+	/**
+	 * Apply an update on the FX thread after every update that was posted
+	 * before it. Appended updates are never dropped.
+	 */
+	public static void append(Runnable action) {
+		enqueue(new Update(null, action));
+
+		ensureStarted();
+	}
+
+	private static void enqueue(Update update) {
+		updates.add(update);
+
+		int depth = queueDepth.incrementAndGet();
+
+		if (depth >= QUEUE_DEPTH_WARNING && !warnedAboutDepth) {
+			warnedAboutDepth = true;
+			logger.warn("The UI has fallen behind, {} updates are waiting to be shown", depth);
+		}
+	}
+
+	private static void ensureStarted() {
+		if (isStarted.compareAndSet(false, true)) {
+			if (Platform.isFxApplicationThread()) {
+				startDrainTimer();
+			} else {
+				Platform.runLater(UpdateCoalescer::startDrainTimer);
+			}
+		}
+	}
+
+	private static void startDrainTimer() {
+		new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				drain(MAX_PULSE_WORK_NS);
+			}
+		}.start();
+	}
+
+	/**
+	 * @return the number of updates waiting to be applied
+	 */
+	public static int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * @return the largest number of updates that have been waiting at the
+	 *         start of a pulse
+	 */
+	public static int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * Apply pending updates until there are none left or a time budget is
+	 * used up. Must be called on the FX thread.
+	 * 
+	 * @param maxWorkNanos
+	 *            how long to spend applying updates
+	 * @return the number of updates applied
+	 */
+	protected static int drain(long maxWorkNanos) {
+		int depth = queueDepth.get();
+		if (depth > maxQueueDepth) maxQueueDepth = depth;
+		if (depth < QUEUE_DEPTH_WARNING / 2) warnedAboutDepth = false;
+
+		long start = System.nanoTime();
+		int applied = 0;
+
+		Update update;
+		while ((update = updates.poll()) != null) {
+			queueDepth.decrementAndGet();
+
+			// Once removed, newer updates for the same key are queued again
+			// instead of replacing this one
+			if (update.key != null) pendingByKey.remove(update.key, update);
+
+			try {
+				update.action.run();
+			} catch (RuntimeException e) {
+				logger.error("Error applying UI update", e);
+			}
+
+			applied++;
+
+			if (System.nanoTime() - start >= maxWorkNanos) break;
+		}
+
+		return applied;
+	}
+}
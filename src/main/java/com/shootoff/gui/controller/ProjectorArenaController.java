@@ -21,24 +21,22 @@ package com.shootoff.gui.controller;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ScheduledFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.shootoff.camera.CamerasSupervisor;
 import com.shootoff.camera.arenamask.ArenaMaskManager;
-import com.shootoff.camera.arenamask.Mask;
 import com.shootoff.config.Configuration;
 import com.shootoff.config.ConfigurationException;
 import com.shootoff.courses.Course;
+import com.shootoff.gui.ArenaMaskRenderer;
 import com.shootoff.gui.CalibrationListener;
 import com.shootoff.gui.CalibrationManager;
 import com.shootoff.gui.CanvasManager;
 import com.shootoff.gui.LocatedImage;
 import com.shootoff.gui.Target;
+import com.shootoff.util.HashedWheelTimer.Timeout;
 import com.shootoff.util.TimerPool;
 
 import javafx.application.Platform;
@@ -48,6 +46,7 @@ import javafx.geometry.Point2D;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
+import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
@@ -100,10 +99,12 @@ public class ProjectorArenaController implements CalibrationListener {
 
 		arenaAnchor.widthProperty().addListener((e) -> {
 			canvasManager.setBackgroundFit(getWidth(), getHeight());
+			if (maskRenderer != null) maskRenderer.setSize((int) getWidth(), (int) getHeight());
 		});
 
 		arenaAnchor.heightProperty().addListener((e) -> {
 			canvasManager.setBackgroundFit(getWidth(), getHeight());
+			if (maskRenderer != null) maskRenderer.setSize((int) getWidth(), (int) getHeight());
 		});
 
 		arenaAnchor.setStyle("-fx-background-color: #333333;");
@@ -266,12 +267,13 @@ public class ProjectorArenaController implements CalibrationListener {
 	public void close() {
 		arenaStage.close();
 		TimerPool.cancelTimer(mouseExitedFuture);
-		if (updateMaskTimer != null) updateMaskTimer.cancel();
+		if (maskRenderer != null) maskRenderer.close();
 	}
 
 	public void setBackground(LocatedImage img) {
 		background = Optional.ofNullable(img);
 		canvasManager.updateBackground(img);
+		if (maskRenderer != null) maskRenderer.setBackground(Optional.ofNullable(img));
 	}
 
 	/**
@@ -407,7 +409,7 @@ public class ProjectorArenaController implements CalibrationListener {
 
 	private volatile boolean mouseInWindow = false;
 	private volatile boolean showingCursorWarning = false;
-	private ScheduledFuture<?> mouseExitedFuture = null;
+	private Timeout mouseExitedFuture = null;
 
 	private CanvasManager feedCanvasManager;
 
@@ -473,46 +475,24 @@ public class ProjectorArenaController implements CalibrationListener {
 		}
 	}
 
-	@SuppressWarnings("unused") private ArenaMaskManager arenaMaskManager = null;
-	private Timer updateMaskTimer = null;
+	private ArenaMaskRenderer maskRenderer = null;
 
 	public void setArenaMaskManager(ArenaMaskManager arenaMaskManager) {
-		this.arenaMaskManager = arenaMaskManager;
-
-		if (updateMaskTimer != null) return;
-
-		updateMaskTimer = new Timer();
-		TimerTask newTask = new TimerTask() {
-			@Override
-			public void run() {
-
-				// final CountDownLatch latch = new CountDownLatch(1);
-				Platform.runLater(new Runnable() {
-					@Override
-					public void run() {
-						try {
-							arenaMaskManager.sem.acquire();
-						} catch (InterruptedException e) {
-							return;
-						}
-
-						try {
-							arenaMaskManager.maskFromArena = new Mask(getCanvasManager().getBufferedImage(),
-									System.currentTimeMillis());
-						} finally {
-							arenaMaskManager.sem.release();
-						}
-					}
-				});
-				/*
-				 * try { latch.await(); } catch (InterruptedException e) { //
-				 * TODO Auto-generated catch block e.printStackTrace(); }
-				 */
-				// arenaMaskManager.insert(bImage, System.currentTimeMillis());
-			}
-		};
+		if (maskRenderer != null) return;
+
+		// The mask is rendered from the arena's background and target
+		// geometry off of the FX thread whenever either changes instead of
+		// snapshotting the arena's scene on a timer
+		maskRenderer = new ArenaMaskRenderer((int) getWidth(), (int) getHeight(), arenaMaskManager::insert);
+
+		maskRenderer.setBackground(background.map((img) -> (Image) img));
+		canvasManager.setArenaMaskRenderer(maskRenderer);
+
+		// Masks are rendered at the size they are compared to camera frames
+		// at so they don't have to be scaled down again
+		final ArenaMaskRenderer renderer = maskRenderer;
+		arenaMaskManager.setSizeListener((size) -> renderer.setMaskSize((int) size.width, (int) size.height));
 
-		logger.debug("Scheduling updateMask");
-		updateMaskTimer.schedule(newTask, 0, 50);
+		logger.debug("Rendering arena masks from the arena model");
 	}
 }
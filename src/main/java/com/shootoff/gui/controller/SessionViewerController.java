@@ -29,10 +29,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,8 +38,10 @@ import com.shootoff.gui.SessionCanvasManager;
 import com.shootoff.session.Event;
 import com.shootoff.session.SessionRecorder;
 import com.shootoff.session.ShotEvent;
+import com.shootoff.session.ThumbnailService;
 import com.shootoff.session.io.SessionIO;
-import com.shootoff.util.NamedThreadFactory;
+import com.shootoff.util.HashedWheelTimer.Timeout;
+import com.shootoff.util.TimerPool;
 
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
@@ -63,8 +61,10 @@ import javafx.scene.control.ScrollPane.ScrollBarPolicy;
 import javafx.scene.control.Slider;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
+import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 import marytts.util.io.FileFilter;
 
@@ -75,18 +75,19 @@ public class SessionViewerController {
 	@FXML private Slider timeSlider;
 	@FXML private Label timeLabel;
 	@FXML private ListView<Event> eventsListView;
+	@FXML private HBox thumbnailStrip;
 
 	private static final int STEP_INTERVAL = 100; // ms
-	private static final int CORE_POOL_SIZE = 2;
+	private static final int THUMBNAIL_STRIP_HEIGHT = 60;
 
 	private final Logger logger = LoggerFactory.getLogger(SessionViewerController.class);
-	private ScheduledExecutorService executorService;
+	private Timeout advanceSliderFuture = null;
 	private final ObservableList<File> sessionEntries = FXCollections.observableArrayList();
 	private final ObservableList<Event> eventEntries = FXCollections.observableArrayList();
 	private final Map<String, SessionCanvasManager> cameraGroups = new HashMap<String, SessionCanvasManager>();
 	private final Map<Tab, Integer> eventSelectionsPerTab = new HashMap<Tab, Integer>();
 
-	private boolean isPlaying = false;
+	private volatile boolean isPlaying = false;
 	private boolean refreshFromSlider = true;
 	private boolean refreshFromSelection = true;
 	private SessionRecorder currentSession;
@@ -202,6 +203,7 @@ public class SessionViewerController {
 				config.registerVideoPlayer(controller);
 				controller.getStage().setOnCloseRequest((closeEvent) -> {
 					config.unregisterVideoPlayer(controller);
+					controller.close();
 				});
 			}
 		});
@@ -288,6 +290,31 @@ public class SessionViewerController {
 	private void listCameraEvents(String cameraName) {
 		eventEntries.clear();
 		eventEntries.addAll(currentSession.getCameraEvents(cameraName));
+		updateThumbnailStrip(cameraName);
+	}
+
+	private void updateThumbnailStrip(String cameraName) {
+		thumbnailStrip.getChildren().clear();
+
+		for (Event e : eventEntries) {
+			if (!(e instanceof ShotEvent)) continue;
+
+			ShotEvent se = (ShotEvent) e;
+			if (se.getVideos().isEmpty()) continue;
+
+			ImageView thumbnailView = new ImageView();
+			thumbnailView.setFitHeight(THUMBNAIL_STRIP_HEIGHT);
+			thumbnailView.setFitWidth(THUMBNAIL_STRIP_HEIGHT * ThumbnailService.FRAMES_PER_CLIP
+					* ThumbnailService.THUMBNAIL_WIDTH / ThumbnailService.THUMBNAIL_HEIGHT);
+			thumbnailView.setPreserveRatio(true);
+			Tooltip.install(thumbnailView, new Tooltip(se.toString()));
+			thumbnailView.setOnMouseClicked((event) -> eventsListView.getSelectionModel().select(se));
+			thumbnailStrip.getChildren().add(thumbnailView);
+
+			// Decoding happens in the thumbnail service, we only get called
+			// back with an image that is ready to show
+			ThumbnailService.requestThumbnails(se.getVideos(), cameraName, thumbnailView::setImage);
+		}
 	}
 
 	private enum EventsUpdate {
@@ -350,9 +377,9 @@ public class SessionViewerController {
 		}
 	}
 
-	private class AdvanceSlider implements Callable<Void> {
+	private class AdvanceSlider implements Runnable {
 		@Override
-		public Void call() throws Exception {
+		public void run() {
 			if (isPlaying) {
 				double currentTime = timeSlider.getValue();
 
@@ -362,10 +389,8 @@ public class SessionViewerController {
 					timeSlider.setValue(currentTime + STEP_INTERVAL);
 				});
 
-				executorService.schedule(new AdvanceSlider(), STEP_INTERVAL, TimeUnit.MILLISECONDS);
+				advanceSliderFuture = TimerPool.schedule(new AdvanceSlider(), STEP_INTERVAL);
 			}
-
-			return null;
 		}
 	}
 
@@ -377,14 +402,12 @@ public class SessionViewerController {
 			togglePlaybackButton.setGraphic(new ImageView(new Image(
 					SessionViewerController.class.getResourceAsStream("/images/gnome_media_playback_pause.png"))));
 
-			executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-					new NamedThreadFactory("SessionPlayback"));
-			executorService.schedule(new AdvanceSlider(), STEP_INTERVAL, TimeUnit.MILLISECONDS);
+			advanceSliderFuture = TimerPool.schedule(new AdvanceSlider(), STEP_INTERVAL);
 		} else {
 			togglePlaybackButton.setGraphic(new ImageView(new Image(
 					SessionViewerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
 
-			executorService.shutdownNow();
+			TimerPool.cancelTimer(advanceSliderFuture);
 		}
 	}
 }
\ No newline at end of file
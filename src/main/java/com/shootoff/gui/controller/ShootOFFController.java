@@ -18,17 +18,22 @@
 
 package com.shootoff.gui.controller;
 
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
 import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.imageio.ImageIO;
 
@@ -46,46 +51,52 @@ import com.shootoff.camera.arenamask.ArenaMaskManager;
 import com.shootoff.config.Configuration;
 import com.shootoff.courses.Course;
 import com.shootoff.courses.io.CourseIO;
+import com.shootoff.courses.io.CourseLoadListener;
 import com.shootoff.gui.CalibrationConfigurator;
 import com.shootoff.gui.CalibrationManager;
 import com.shootoff.gui.CalibrationOption;
 import com.shootoff.gui.CameraConfigListener;
 import com.shootoff.gui.CanvasManager;
-import com.shootoff.gui.LocatedImage;
+import com.shootoff.gui.ImageCache;
 import com.shootoff.gui.ShotEntry;
 import com.shootoff.gui.ShotSectorPane;
+import com.shootoff.gui.ShotTimerLog;
 import com.shootoff.gui.TargetListener;
+import com.shootoff.plugins.ExerciseRuntime;
 import com.shootoff.plugins.ProjectorTrainingExerciseBase;
 import com.shootoff.plugins.TrainingExercise;
 import com.shootoff.plugins.TrainingExerciseBase;
 import com.shootoff.plugins.engine.PluginEngine;
 import com.shootoff.plugins.engine.PluginListener;
+import com.shootoff.session.Event;
 import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ThumbnailService;
 import com.shootoff.session.io.SessionIO;
 import com.shootoff.targets.TargetManager;
-import com.shootoff.targets.TargetRegion;
+import com.shootoff.util.NamedThreadFactory;
 import com.shootoff.util.TimerPool;
 
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
-import javafx.collections.ObservableList;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Orientation;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.RadioMenuItem;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.SelectionMode;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
@@ -99,7 +110,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.GridPane;
-import javafx.scene.shape.Shape;
+import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -134,7 +145,14 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 	private Configuration config;
 	private PluginEngine pluginEngine;
 	private static final Logger logger = LoggerFactory.getLogger(ShootOFFController.class);
-	private final ObservableList<ShotEntry> shotEntries = FXCollections.observableArrayList();
+
+	private static final long SESSION_SAVE_TIMEOUT = 10000; // ms
+	private final ExecutorService sessionSaver = Executors.newSingleThreadExecutor((r) -> {
+		Thread t = new NamedThreadFactory("SessionSaver").newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+	private final ShotTimerLog shotTimerLog = new ShotTimerLog();
 	private final List<Stage> streamDebuggerStages = new ArrayList<Stage>();
 
 	private ProjectorArenaController arenaController;
@@ -148,8 +166,18 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		this.camerasSupervisor = new CamerasSupervisor(config);
 		this.pluginEngine = pluginEngine;
 
+		ExerciseRuntime.setRefreshRate(getMonitorRefreshRate());
+		ExerciseRuntime.trackPulses();
+
 		findTargets();
 		initDefaultBackgrounds();
+
+		// Journals are listed now, before a new recording can start one, but
+		// recovering them reads and rewrites whole sessions
+		final File sessionsFolder = new File(System.getProperty("shootoff.sessions"));
+		final List<File> journals = SessionIO.findJournals(sessionsFolder);
+		if (!journals.isEmpty()) sessionSaver.execute(() -> SessionIO.recoverJournals(sessionsFolder, journals));
+
 		pluginEngine.startWatching();
 
 		shootOFFStage = (Stage) mainMenu.getScene().getWindow();
@@ -189,15 +217,13 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		laserCol.setMinWidth(85);
 		laserCol.setCellValueFactory(new PropertyValueFactory<ShotEntry, String>("color"));
 
-		shotEntries.addListener(new ListChangeListener<ShotEntry>() {
+		shotTimerLog.getEntries().addListener(new ListChangeListener<ShotEntry>() {
 			@Override
 			public void onChanged(Change<? extends ShotEntry> change) {
 				change.next();
-				if (change.getAddedSize() < 1) return;
-				Platform.runLater(() -> {
-					final int size = shotTimerTable.getItems().size();
-					if (size > 0) shotTimerTable.scrollTo(size - 1);
-				});
+				// Older entries being paged back in are added to the front
+				if (change.getAddedSize() < 1 || change.getTo() != change.getList().size()) return;
+				shotTimerTable.scrollTo(change.getList().size() - 1);
 			}
 		});
 
@@ -214,25 +240,16 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 			@Override
 			public void onChanged(Change<? extends ShotEntry> change) {
 				while (change.next()) {
-					for (ShotEntry unselected : change.getRemoved()) {
-						unselected.getShot().getMarker().setFill(unselected.getShot().getColor());
-					}
+					for (CameraView cv : camerasSupervisor.getCameraViews()) {
+						CanvasManager cm = (CanvasManager) cv;
+
+						for (ShotEntry unselected : change.getRemoved())
+							cm.setShotSelected(unselected.getShot(), false);
 
-					for (ShotEntry selected : change.getAddedSubList()) {
-						selected.getShot().getMarker().setFill(TargetRegion.SELECTED_STROKE_COLOR);
-
-						// Move all selected shots to top the of their z-stack
-						// to ensure visibility
-						for (CameraView cv : camerasSupervisor.getCameraViews()) {
-							CanvasManager cm = (CanvasManager) cv;
-
-							Shape marker = selected.getShot().getMarker();
-							if (cm.getCanvasGroup().getChildren()
-									.indexOf(marker) < cm.getCanvasGroup().getChildren().size() - 1) {
-								cm.getCanvasGroup().getChildren().remove(marker);
-								cm.getCanvasGroup().getChildren().add(cm.getCanvasGroup().getChildren().size(), marker);
-							}
-						}
+						// Selected shots are drawn above the others to ensure
+						// visibility
+						for (ShotEntry selected : change.getAddedSubList())
+							cm.setShotSelected(selected.getShot(), true);
 					}
 				}
 			}
@@ -286,14 +303,31 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		shotTimerTable.getColumns().add(timeCol);
 		shotTimerTable.getColumns().add(splitCol);
 		shotTimerTable.getColumns().add(laserCol);
-		shotTimerTable.setItems(shotEntries);
+		shotTimerTable.setItems(shotTimerLog.getEntries());
 		shotTimerTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+		shotTimerTable.skinProperty().addListener((observable, oldSkin, newSkin) -> pageOlderShotsOnScroll());
+	}
+
+	private void pageOlderShotsOnScroll() {
+		for (Node node : shotTimerTable.lookupAll(".scroll-bar")) {
+			if (!(node instanceof ScrollBar) || ((ScrollBar) node).getOrientation() != Orientation.VERTICAL) continue;
+
+			final ScrollBar scrollBar = (ScrollBar) node;
+			scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> {
+				if (newValue.doubleValue() > scrollBar.getMin() || !shotTimerLog.hasOlderEntries()) return;
+
+				// Keep the row that was at the top in view
+				final int loaded = shotTimerLog.loadOlderEntries();
+				if (loaded > 0) Platform.runLater(() -> shotTimerTable.scrollTo(loaded));
+			});
+		}
 	}
 
 	private void close() {
 		shootOFFStage.close();
 		camerasSupervisor.closeAll();
 		pluginEngine.stopWatching();
+		shotTimerLog.close();
 
 		if (config.getExercise().isPresent()) config.getExercise().get().destroy();
 
@@ -314,11 +348,22 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 			sessionViewerStage.close();
 		}
 
+		// Let the recording that was just stopped finish saving, if it doesn't
+		// its journal is recovered the next time ShootOFF starts
+		sessionSaver.shutdown();
+		try {
+			if (!sessionSaver.awaitTermination(SESSION_SAVE_TIMEOUT, TimeUnit.MILLISECONDS))
+				logger.warn("Timed out saving the recorded session, it will be recovered on the next start");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
 		TimerPool.close();
 		GlobalExecutorPool.getPool().shutdownNow();
 
 		if (!config.getVideoPlayers().isEmpty()) {
 			for (VideoPlayerController videoPlayer : config.getVideoPlayers()) {
+				videoPlayer.close();
 				videoPlayer.getStage().close();
 			}
 		}
@@ -456,7 +501,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		cameraTab.setContent(new AnchorPane(cameraCanvasGroup));
 
 		CanvasManager canvasManager = new CanvasManager(cameraCanvasGroup, config, camerasSupervisor, webcamName,
-				shotEntries);
+				shotTimerLog);
 		CameraManager cameraManager = camerasSupervisor.addCameraManager(webcam, this, canvasManager);
 
 		if (config.getRecordingCameras().contains(webcam)) {
@@ -465,6 +510,18 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 
 		canvasManager.setContextMenu(createContextMenu());
 
+		// Stop showing frames when nobody can see them
+		final ChangeListener<Boolean> feedVisibilityListener = (observable, oldValue, newValue) -> {
+			cameraManager.setFeedVisible(cameraTab.isSelected() && !shootOFFStage.isIconified());
+		};
+		cameraTab.selectedProperty().addListener(feedVisibilityListener);
+		shootOFFStage.iconifiedProperty().addListener(feedVisibilityListener);
+		cameraTab.tabPaneProperty().addListener((observable, oldPane, newPane) -> {
+			if (newPane == null) shootOFFStage.iconifiedProperty().removeListener(feedVisibilityListener);
+		});
+
+		if (config.isLimitingFeedToRefreshRate()) cameraManager.setMaxDisplayRate(getMonitorRefreshRate());
+
 		// Show coords of mouse when in canvas during debug mode
 		if (config.inDebugMode()) {
 			canvasManager.getCanvasGroup().setOnMouseMoved((event) -> {
@@ -476,7 +533,23 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 			});
 		}
 
-		return cameraTabPane.getTabs().add(cameraTab);
+		final boolean added = cameraTabPane.getTabs().add(cameraTab);
+		cameraManager.setFeedVisible(cameraTab.isSelected() && !shootOFFStage.isIconified());
+
+		return added;
+	}
+
+	private int getMonitorRefreshRate() {
+		final int defaultRefreshRate = 60; // Hz
+
+		if (GraphicsEnvironment.isHeadless()) return defaultRefreshRate;
+
+		final int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDisplayMode().getRefreshRate();
+
+		if (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN) return defaultRefreshRate;
+
+		return refreshRate;
 	}
 
 	private ContextMenu createContextMenu() {
@@ -689,14 +762,42 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 				cm.stopRecordingShots();
 			}
 
-			SessionIO.saveSession(config.getSessionRecorder().get(), new File(System.getProperty("shootoff.home")
-					+ File.separator + "sessions/" + config.getSessionRecorder().get().getSessionName() + ".xml"));
+			final SessionRecorder sessionRecorder = config.getSessionRecorder().get();
+			sessionRecorder.close();
+
+			final File sessionFile = new File(System.getProperty("shootoff.home") + File.separator + "sessions/"
+					+ sessionRecorder.getSessionName() + ".xml");
+
+			// Reading back a long session's journal is slow, so the session is
+			// read once and saved off the JavaFX thread. The journal is only
+			// deleted once the session is saved, otherwise it is recovered the
+			// next time ShootOFF starts.
+			sessionSaver.execute(() -> {
+				final Map<String, List<Event>> events = sessionRecorder.getEvents();
+
+				if (!SessionIO.saveSession(events, sessionFile)) {
+					logger.error("Failed to save session {}, keeping its journal", sessionRecorder.getSessionName());
+					return;
+				}
+
+				ThumbnailService.generateThumbnails(events);
+				sessionRecorder.deleteJournal();
+			});
 
 			config.setSessionRecorder(null);
 
 			toggleSessionRecordingMenuItem.setText("Record Session");
 		} else {
-			config.setSessionRecorder(new SessionRecorder());
+			SessionRecorder sessionRecorder;
+
+			try {
+				sessionRecorder = new SessionRecorder(new File(System.getProperty("shootoff.sessions")));
+			} catch (IOException e) {
+				logger.error("Failed to create session journal, recording the session in memory instead", e);
+				sessionRecorder = new SessionRecorder();
+			}
+
+			config.setSessionRecorder(sessionRecorder);
 
 			for (CameraManager cm : config.getRecordingManagers()) {
 				cm.startRecordingShots();
@@ -826,9 +927,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		MenuItem backgroundMenuItem = new MenuItem(menuName);
 
 		backgroundMenuItem.setOnAction((e) -> {
-			InputStream is = this.getClass().getResourceAsStream(resourceName);
-			LocatedImage img = new LocatedImage(is, resourceName);
-			arenaController.setBackground(img);
+			arenaController.setBackground(ImageCache.getLocatedImage(resourceName, true));
 		});
 
 		arenaBackgroundMenu.getItems().add(backgroundMenuItem);
@@ -855,8 +954,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		File backgroundFile = fileChooser.showOpenDialog(shootOFFStage);
 
 		if (backgroundFile != null) {
-			LocatedImage img = new LocatedImage(backgroundFile.toURI().toString());
-			arenaController.setBackground(img);
+			arenaController.setBackground(ImageCache.getLocatedImage(backgroundFile.toURI().toString(), false));
 		}
 	}
 
@@ -905,11 +1003,24 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		File courseFile = fileChooser.showOpenDialog(shootOFFStage);
 
 		if (courseFile != null) {
-			Optional<Course> course = CourseIO.loadCourse(arenaController, courseFile);
+			final Label loadingLabel = arenaController.getCanvasManager().addStatusMessage("Loading course",
+					Color.LIGHTGRAY);
 
-			if (course.isPresent()) {
-				arenaController.setCourse(course.get());
-			}
+			CourseIO.loadCourseAsync(arenaController, courseFile, new CourseLoadListener() {
+				@Override
+				public void targetLoaded(int loadedCount, int targetCount) {
+					loadingLabel.setText(String.format("Loading course: %d/%d targets", loadedCount, targetCount));
+				}
+
+				@Override
+				public void courseLoaded(Optional<Course> course) {
+					arenaController.getCanvasManager().removeDiagnosticMessage(loadingLabel);
+
+					if (course.isPresent()) {
+						arenaController.setCourse(course.get());
+					}
+				}
+			});
 		}
 	}
 
@@ -26,12 +26,18 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shootoff.gui.PlaybackClock;
 import com.shootoff.gui.PlaybackListener;
+import com.shootoff.util.NamedThreadFactory;
 import com.xuggle.mediatool.IMediaReader;
 import com.xuggle.mediatool.MediaListenerAdapter;
 import com.xuggle.mediatool.ToolFactory;
@@ -39,7 +45,7 @@ import com.xuggle.mediatool.event.IVideoPictureEvent;
 import com.xuggle.xuggler.IContainer;
 import com.xuggle.xuggler.IError;
 
-import javafx.application.Platform;
+import javafx.animation.AnimationTimer;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.embed.swing.SwingFXUtils;
@@ -52,8 +58,16 @@ import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
 import javafx.stage.Stage;
 
+/**
+ * Plays back every camera's video of a shot from one shared
+ * {@link PlaybackClock}. Frames are decoded on a pool with at most one thread
+ * per core and all videos are presented together on the JavaFX pulse, thus
+ * switching between tabs shows the same moment from another angle instead of
+ * restarting playback.
+ */
 public class VideoPlayerController implements PlaybackListener {
 	@FXML private TabPane videoTabPane;
 	@FXML private Slider timeSlider;
@@ -64,13 +78,28 @@ public class VideoPlayerController implements PlaybackListener {
 
 	private final Map<String, PlaybackContext> contexts = new HashMap<String, PlaybackContext>();
 	private PlaybackContext currentContext;
+	private PlaybackClock clock;
+	private ExecutorService decoderExecutor;
+	private AnimationTimer frameTimer;
+	private long lastPresentedTime = -1;
+	private boolean wasRunning = false;
 
 	public void init(Map<String, File> videos) {
 		togglePlaybackButton.setGraphic(new ImageView(
 				new Image(VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
+
+		int decoderThreads = Math.max(1, Math.min(videos.size(), Runtime.getRuntime().availableProcessors()));
+		decoderExecutor = Executors.newFixedThreadPool(decoderThreads, new NamedThreadFactory("VideoDecoder"));
+
 		createTabs(videos);
 		currentContext = contexts.get(videoTabPane.getSelectionModel().getSelectedItem().getText());
-		timeSlider.setMax(currentContext.getDuration());
+
+		long duration = 0;
+		for (PlaybackContext context : contexts.values())
+			duration = Math.max(duration, context.getDuration());
+
+		clock = new PlaybackClock(duration);
+		timeSlider.setMax(duration);
 
 		timeSlider.valueProperty().addListener(new ChangeListener<Number>() {
 			@Override
@@ -87,16 +116,37 @@ public class VideoPlayerController implements PlaybackListener {
 		videoTabPane.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Tab>() {
 			@Override
 			public void changed(ObservableValue<? extends Tab> observable, Tab oldValue, Tab newValue) {
-				togglePlaybackButton.setGraphic(new ImageView(new Image(
-						VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
-
-				currentContext.pausePlayback();
+				// Every video follows the same clock, so switching tabs only
+				// changes which angle is being shown
 				currentContext = contexts.get(newValue.getText());
-
-				timeSlider.setMax(currentContext.getDuration());
-				timeSlider.setValue(currentContext.getTimestamp());
 			}
 		});
+
+		frameTimer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				presentFrames();
+			}
+		};
+		frameTimer.start();
+	}
+
+	private void presentFrames() {
+		long time = clock.getTime();
+
+		for (PlaybackContext context : contexts.values()) {
+			context.requestDecode(decoderExecutor, time);
+			context.present();
+		}
+
+		if (time != lastPresentedTime) {
+			lastPresentedTime = time;
+			frameUpdated(time);
+		}
+
+		boolean isRunning = clock.isRunning();
+		if (wasRunning && !isRunning) setPlaybackGraphic(false);
+		wasRunning = isRunning;
 	}
 
 	private void setTime(long timestamp /* ms */) {
@@ -105,28 +155,42 @@ public class VideoPlayerController implements PlaybackListener {
 		timeLabel.setText(formatter.format(date));
 	}
 
+	private void setPlaybackGraphic(boolean isPlaying) {
+		if (isPlaying) {
+			togglePlaybackButton.setGraphic(new ImageView(new Image(
+					VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_pause.png"))));
+		} else {
+			togglePlaybackButton.setGraphic(new ImageView(new Image(
+					VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
+		}
+	}
+
 	@Override
 	public void frameUpdated(long timestamp) {
 		timeSlider.setValue(timestamp);
+	}
 
-		if (timestamp == currentContext.getDuration()) {
-			togglePlaybackButton.setGraphic(new ImageView(new Image(
-					VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
+	private static class DecodedFrame {
+		private final BufferedImage image;
+		private final long timestamp;
+
+		public DecodedFrame(BufferedImage image, long timestamp) {
+			this.image = image;
+			this.timestamp = timestamp;
 		}
 	}
 
 	private static class PlaybackContext extends MediaListenerAdapter {
 		private final IMediaReader mediaReader;
-		private final PlaybackListener listener;
 		private final long duration;
-		private boolean isPlaying = false;
 		private final ImageView imageView = new ImageView();
-		private boolean doDelay = true;
-		private long lastTimestamp = 0;
-
-		public PlaybackContext(File videoFile, PlaybackListener listener) {
-			this.listener = listener;
+		private final AtomicBoolean isDecoding = new AtomicBoolean(false);
+		private volatile DecodedFrame latestFrame = null;
+		private volatile boolean isEndOfStream = false;
+		private WritableImage displayedImage = null;
+		private long presentedTimestamp = -1;
 
+		public PlaybackContext(File videoFile) {
 			mediaReader = ToolFactory.makeReader(videoFile.getPath());
 			mediaReader.setBufferedImageTypeToGenerate(BufferedImage.TYPE_3BYTE_BGR);
 			mediaReader.open();
@@ -140,74 +204,102 @@ public class VideoPlayerController implements PlaybackListener {
 			return duration;
 		}
 
-		public long getTimestamp() {
-			return lastTimestamp;
+		@Override
+		public void onVideoPicture(IVideoPictureEvent event) {
+			latestFrame = new DecodedFrame(event.getImage(), event.getTimeStamp(TimeUnit.MILLISECONDS));
 		}
 
-		public void onVideoPicture(IVideoPictureEvent event) {
-			long currentTimestamp = event.getTimeStamp(TimeUnit.MILLISECONDS);
+		private long getDecodedTimestamp() {
+			DecodedFrame frame = latestFrame;
+			return frame == null ? -1 : frame.timestamp;
+		}
 
-			if (doDelay) {
+		/**
+		 * Decode frames on the decoder pool until the latest decoded frame is
+		 * at or past <code>time</code>. Only one decode task per video is ever
+		 * queued, if one is already running this call does nothing.
+		 */
+		public void requestDecode(ExecutorService decoderExecutor, long time) {
+			if (isEndOfStream || getDecodedTimestamp() >= time) return;
+			if (!isDecoding.compareAndSet(false, true)) return;
+
+			submit(decoderExecutor, () -> {
 				try {
-					long delay = currentTimestamp - lastTimestamp;
-					Thread.sleep(delay);
-				} catch (InterruptedException e) {
-					logger.error("Error while reading video frames", e);
+					synchronized (mediaReader) {
+						while (!isEndOfStream && getDecodedTimestamp() < time) {
+							readPacket();
+						}
+					}
+				} finally {
+					isDecoding.set(false);
 				}
-			}
-
-			lastTimestamp = currentTimestamp;
-			imageView.setImage(SwingFXUtils.toFXImage(event.getImage(), null));
-			if (isPlaying || !doDelay) Platform.runLater(() -> listener.frameUpdated(currentTimestamp));
+			});
 		}
 
-		private void playVideo() {
-			new Thread(() -> {
-				IError ret = mediaReader.readPacket();
-				while (isPlaying && ret == null) {
-					ret = mediaReader.readPacket();
-				}
+		/**
+		 * Decode exactly one more frame and report its timestamp.
+		 */
+		public void requestStep(ExecutorService decoderExecutor, PlaybackListener listener) {
+			submit(decoderExecutor, () -> {
+				synchronized (mediaReader) {
+					long lastTimestamp = getDecodedTimestamp();
 
-				// ret is null if movie was paused
-				if (ret != null && ret.getType() == IError.Type.ERROR_EOF) {
-					isPlaying = false;
-					lastTimestamp = getDuration();
-					Platform.runLater(() -> listener.frameUpdated(getDuration()));
+					while (!isEndOfStream && getDecodedTimestamp() == lastTimestamp) {
+						readPacket();
+					}
+
+					listener.frameUpdated(getDecodedTimestamp());
 				}
-			} , "PlayVideo").start();
+			});
 		}
 
-		private void playFromBeginning() {
-			lastTimestamp = 0;
-			mediaReader.open();
-			mediaReader.getContainer().seekKeyFrame(0, 0, 0, 0, IContainer.SEEK_FLAG_ANY);
-			playVideo();
+		public void requestRewind(ExecutorService decoderExecutor) {
+			submit(decoderExecutor, () -> {
+				synchronized (mediaReader) {
+					if (!mediaReader.isOpen()) mediaReader.open();
+					mediaReader.getContainer().seekKeyFrame(0, 0, 0, 0, IContainer.SEEK_FLAG_ANY);
+					latestFrame = null;
+					isEndOfStream = false;
+				}
+			});
 		}
 
-		public void nextFrame() {
-			doDelay = false;
-			mediaReader.readPacket();
-			doDelay = true;
-		}
+		private void readPacket() {
+			IError ret = mediaReader.readPacket();
 
-		public void pausePlayback() {
-			isPlaying = false;
-		}
+			if (ret != null) {
+				if (ret.getType() != IError.Type.ERROR_EOF) {
+					logger.error("Error while reading video frames: {}", ret);
+				}
 
-		public void togglePlayback() {
-			isPlaying = !isPlaying;
+				isEndOfStream = true;
+			}
+		}
 
-			if (isPlaying) {
-				if (lastTimestamp != getDuration()) {
-					playVideo();
-				} else {
-					playFromBeginning();
-				}
+		private void submit(ExecutorService decoderExecutor, Runnable task) {
+			try {
+				decoderExecutor.execute(task);
+			} catch (RejectedExecutionException e) {
+				// The player was closed
+				isDecoding.set(false);
 			}
 		}
 
-		public boolean isPlaying() {
-			return isPlaying;
+		/**
+		 * Show the most recently decoded frame. Must be called on the JavaFX
+		 * thread.
+		 */
+		public void present() {
+			DecodedFrame frame = latestFrame;
+
+			if (frame == null || frame.timestamp == presentedTimestamp) return;
+
+			presentedTimestamp = frame.timestamp;
+			WritableImage image = SwingFXUtils.toFXImage(frame.image, displayedImage);
+			if (image != displayedImage) {
+				displayedImage = image;
+				imageView.setImage(displayedImage);
+			}
 		}
 
 		public ImageView getImageView() {
@@ -220,7 +312,7 @@ public class VideoPlayerController implements PlaybackListener {
 			Tab videoTab = new Tab(video.getKey());
 			videoTabPane.getTabs().add(videoTab);
 
-			PlaybackContext context = new PlaybackContext(video.getValue(), this);
+			PlaybackContext context = new PlaybackContext(video.getValue());
 			videoTab.setContent(context.getImageView());
 			contexts.put(video.getKey(), context);
 		}
@@ -228,20 +320,35 @@ public class VideoPlayerController implements PlaybackListener {
 
 	@FXML
 	public void nextButtonClicked(ActionEvent event) {
-		currentContext.nextFrame();
+		if (clock.isRunning()) {
+			clock.pause();
+			setPlaybackGraphic(false);
+		}
+
+		// Step the selected angle and move the shared clock to its new frame
+		// so the other angles follow
+		currentContext.requestStep(decoderExecutor, (timestamp) -> clock.seek(timestamp));
 	}
 
 	@FXML
 	public void togglePlaybackButtonClicked(ActionEvent event) {
-		currentContext.togglePlayback();
-
-		if (currentContext.isPlaying()) {
-			togglePlaybackButton.setGraphic(new ImageView(new Image(
-					VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_pause.png"))));
+		if (clock.isRunning()) {
+			clock.pause();
 		} else {
-			togglePlaybackButton.setGraphic(new ImageView(new Image(
-					VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
+			if (clock.isFinished()) {
+				for (PlaybackContext context : contexts.values())
+					context.requestRewind(decoderExecutor);
+			}
+
+			clock.start();
 		}
+
+		setPlaybackGraphic(clock.isRunning());
+	}
+
+	public void close() {
+		if (frameTimer != null) frameTimer.stop();
+		if (decoderExecutor != null) decoderExecutor.shutdownNow();
 	}
 
 	public Stage getStage() {
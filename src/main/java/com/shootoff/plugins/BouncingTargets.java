@@ -24,14 +24,9 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.geometry.Bounds;
-import javafx.geometry.Dimension2D;
 import javafx.geometry.HPos;
-import javafx.geometry.Point2D;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -41,22 +36,28 @@ import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import com.shootoff.camera.Shot;
 import com.shootoff.gui.Hit;
 import com.shootoff.gui.Target;
+import com.shootoff.plugins.physics.Body;
+import com.shootoff.plugins.physics.PhysicsWorld;
 
 public class BouncingTargets extends ProjectorTrainingExerciseBase implements TrainingExercise {
 	private int shootCount = 4;
 	private int dontShootCount = 1;
 	private static int maxVelocity = 10;
 
+	// Speeds are picked in pixels per 20 ms, which is how often targets used
+	// to be moved
+	private static final double SPEED_TO_PIXELS_PER_SECOND = 50;
+
+	private static final String SHOOT_GROUP = "shoot";
+	private static final String DONT_SHOOT_GROUP = "dont_shoot";
+
 	private static final List<BouncingTarget> shootTargets = new ArrayList<BouncingTarget>();
 	private static final List<BouncingTarget> dontShootTargets = new ArrayList<BouncingTarget>();
 
-	private static ProjectorTrainingExerciseBase thisSuper;
-	private Timeline targetAnimation;
 	private int score = 0;
 
 	private boolean testing = false;
@@ -65,7 +66,6 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 
 	public BouncingTargets(List<Group> targets) {
 		super(targets);
-		setThisSuper(super.getInstance());
 	}
 
 	// For testing
@@ -82,10 +82,6 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 		startExercise();
 	}
 
-	private static void setThisSuper(ProjectorTrainingExerciseBase thisSuper) {
-		BouncingTargets.thisSuper = thisSuper;
-	}
-
 	private static void setMaxVelocity(int maxVelocity) {
 		BouncingTargets.maxVelocity = maxVelocity;
 	}
@@ -100,12 +96,9 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 	private void startExercise() {
 		super.showTextOnFeed("Score: 0");
 
-		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target", shootCount);
-		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target", dontShootCount);
-
-		targetAnimation = new Timeline(new KeyFrame(Duration.millis(20), e -> updateTargets()));
-		targetAnimation.setCycleCount(Timeline.INDEFINITE);
-		targetAnimation.play();
+		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target", SHOOT_GROUP, shootCount);
+		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target", DONT_SHOOT_GROUP,
+				dontShootCount);
 	}
 
 	private void collectSettings() {
@@ -176,99 +169,35 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 		return dontShootTargets;
 	}
 
-	private void updateTargets() {
-		for (BouncingTarget b : shootTargets)
-			b.moveTarget();
-		for (BouncingTarget b : dontShootTargets)
-			b.moveTarget();
-	}
-
 	protected static class BouncingTarget {
 		private final Target target;
-		private double dx;
-		private double dy;
+		private final Body body;
 
-		public BouncingTarget(Target target) {
+		public BouncingTarget(Target target, String collisionGroup) {
 			this.target = target;
 
 			Random r = new Random();
 
-			dx = r.nextInt(maxVelocity + 1) + 1;
-			dy = r.nextInt(maxVelocity + 1) + 1;
+			double dx = (r.nextInt(maxVelocity + 1) + 1) * SPEED_TO_PIXELS_PER_SECOND;
+			double dy = (r.nextInt(maxVelocity + 1) + 1) * SPEED_TO_PIXELS_PER_SECOND;
 
 			if (r.nextBoolean()) dx *= -1;
 			if (r.nextBoolean()) dy *= -1;
+
+			// Targets of the same type bounce off of each other
+			body = new Body(target, collisionGroup, dx, dy);
 		}
 
 		public Target getTarget() {
 			return target;
 		}
 
-		private enum CollisionType {
-			NONE, COLLISION_X, COLLISION_Y, COLLISION_BOTH;
-		}
-
-		private CollisionType checkCollision() {
-			final Bounds targetBounds = target.getTargetGroup().getBoundsInParent();
-			List<BouncingTarget> collisionList;
-
-			if (shootTargets.contains(this)) {
-				collisionList = shootTargets;
-			} else {
-				collisionList = dontShootTargets;
-			}
-
-			for (BouncingTarget b : collisionList) {
-				if (b.getTarget().equals(target)) continue;
-
-				final Bounds bBounds = b.getTarget().getTargetGroup().getBoundsInParent();
-
-				if (targetBounds.intersects(bBounds)) {
-					final boolean atRight = targetBounds.getMaxX() > bBounds.getMinX()
-							&& targetBounds.getMaxX() - bBounds.getMinX() < maxVelocity * 2;
-					final boolean atLeft = bBounds.getMaxX() > bBounds.getMinX()
-							&& bBounds.getMaxX() - bBounds.getMinX() < maxVelocity * 2;
-					final boolean atBottom = targetBounds.getMaxY() > bBounds.getMinY()
-							&& targetBounds.getMaxY() - bBounds.getMinY() < maxVelocity * 2;
-					final boolean atTop = bBounds.getMaxY() > targetBounds.getMinY()
-							&& bBounds.getMaxY() - targetBounds.getMinY() < maxVelocity * 2;
-
-					if ((atRight || atLeft) && (atBottom || atTop)) {
-						return CollisionType.COLLISION_BOTH;
-					} else if (atRight || atLeft) {
-						return CollisionType.COLLISION_X;
-					} else if (atBottom || atTop) {
-						return CollisionType.COLLISION_Y;
-					}
-				}
-			}
-
-			return CollisionType.NONE;
-		}
-
-		public void moveTarget() {
-			if (maxVelocity == 0) return;
-
-			Bounds b = target.getTargetGroup().getBoundsInParent();
-			Point2D p = target.getPosition();
-			Dimension2D d = target.getDimension();
-			CollisionType ct = checkCollision();
-
-			if (b.getMinX() <= 1 || b.getMinX() + d.getWidth() > thisSuper.getArenaWidth()
-					|| ct == CollisionType.COLLISION_X || ct == CollisionType.COLLISION_BOTH) {
-				dx *= -1;
-			}
-
-			if (b.getMinY() <= 1 || b.getMinY() + d.getHeight() > thisSuper.getArenaHeight()
-					|| ct == CollisionType.COLLISION_X || ct == CollisionType.COLLISION_BOTH) {
-				dy *= -1;
-			}
-
-			target.setPosition(p.getX() + dx, p.getY() + dy);
+		public Body getBody() {
+			return body;
 		}
 	}
 
-	private void addTargets(List<BouncingTarget> targets, String target, int count) {
+	private void addTargets(List<BouncingTarget> targets, String target, String collisionGroup, int count) {
 		for (int i = 0; i < count; i++) {
 			Optional<Target> newTarget = super.addTarget(new File(target), 0, 0);
 
@@ -282,7 +211,9 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 
 				newTarget.get().setPosition(x, y);
 
-				targets.add(new BouncingTarget(newTarget.get()));
+				BouncingTarget bouncingTarget = new BouncingTarget(newTarget.get(), collisionGroup);
+				targets.add(bouncingTarget);
+				if (maxVelocity > 0) super.getPhysicsWorld().addBody(bouncingTarget.getBody());
 			}
 		}
 	}
@@ -322,21 +253,24 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 
 	@Override
 	public void reset(List<Group> targets) {
-		targetAnimation.stop();
+		final PhysicsWorld physicsWorld = super.getPhysicsWorld();
 
-		for (BouncingTarget b : shootTargets)
+		for (BouncingTarget b : shootTargets) {
+			physicsWorld.removeBody(b.getBody());
 			super.removeTarget(b.getTarget());
+		}
 		shootTargets.clear();
-		for (BouncingTarget b : dontShootTargets)
+		for (BouncingTarget b : dontShootTargets) {
+			physicsWorld.removeBody(b.getBody());
 			super.removeTarget(b.getTarget());
+		}
 		dontShootTargets.clear();
 
 		if (!testing) collectSettings();
 
-		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target", shootCount);
-		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target", dontShootCount);
-
-		targetAnimation.play();
+		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target", SHOOT_GROUP, shootCount);
+		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target", DONT_SHOOT_GROUP,
+				dontShootCount);
 
 		score = 0;
 		super.showTextOnFeed("Score: 0");
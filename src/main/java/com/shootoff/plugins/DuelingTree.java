@@ -22,8 +22,6 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javafx.scene.Group;
@@ -32,16 +30,12 @@ import javafx.scene.Node;
 import com.shootoff.camera.Shot;
 import com.shootoff.gui.Hit;
 import com.shootoff.targets.TargetRegion;
-import com.shootoff.util.NamedThreadFactory;
 
 public class DuelingTree extends ProjectorTrainingExerciseBase implements TrainingExercise {
 	private final static String HIT_COL_NAME = "Hit By";
 	private final static int HIT_COL_WIDTH = 60;
 
 	private static final int NEW_ROUND_DELAY = 5; // s
-	private static final int CORE_POOL_SIZE = 2;
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("DuelingTreeExercise"));
 	private TrainingExerciseBase thisSuper;
 
 	private boolean continueExercise = true;
@@ -150,7 +144,7 @@ public class DuelingTree extends ProjectorTrainingExerciseBase implements Traini
 		if (continueExercise) {
 			thisSuper.showTextOnFeed(String.format("left score: %d%nright score: %d", leftScore, rightScore));
 			super.pauseShotDetection(true);
-			executorService.schedule(new NewRound(), NEW_ROUND_DELAY, TimeUnit.SECONDS);
+			getRuntime().schedule(new NewRound(), NEW_ROUND_DELAY, TimeUnit.SECONDS);
 		}
 	}
 
@@ -181,7 +175,6 @@ public class DuelingTree extends ProjectorTrainingExerciseBase implements Traini
 	@Override
 	public void destroy() {
 		continueExercise = false;
-		executorService.shutdownNow();
 		super.destroy();
 	}
 }
@@ -0,0 +1,357 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.plugins;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.util.NamedThreadFactory;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Runs the timed parts of training exercises, e.g. delays before a beep, par
+ * times, and per frame updates, on threads shared by every exercise instead
+ * of each exercise creating its own. Work is lined up with JavaFX's pulses
+ * once {@link #trackPulses()} has been called: while any exercise has ticks
+ * running the time of the latest pulse and the time between pulses are
+ * measured, a delay ends at the first predicted pulse after the delay has
+ * passed, and ticks are delivered once per pulse. Between ticks pulses are
+ * predicted from the last ones measured. Until pulses are tracked, e.g. in
+ * tests, frames are counted from when this class was loaded at the configured
+ * refresh rate and line up with nothing.
+ * 
+ * Each exercise has its own runtime that keeps track of the work it scheduled
+ * so that all of it can be cancelled at once when the exercise is reset or
+ * destroyed. How late work runs compared to the frame it was meant for is
+ * tracked across all exercises.
+ * 
+ * @author phrack
+ */
+public class ExerciseRuntime {
+	private static final Logger logger = LoggerFactory.getLogger(ExerciseRuntime.class);
+
+	private static final int DEFAULT_REFRESH_RATE = 60; // Hz
+
+	// Exercises do things like speak and play sounds that may take a while,
+	// a second thread keeps that from holding up everything else
+	private static final int CORE_POOL_SIZE = 2;
+
+	private static final ScheduledThreadPoolExecutor executorService = new ScheduledThreadPoolExecutor(CORE_POOL_SIZE,
+			(r) -> {
+				Thread t = new NamedThreadFactory("ExerciseRuntime").newThread(r);
+				t.setDaemon(true);
+				return t;
+			});
+
+	static {
+		// Cancelled delays shouldn't sit in the queue until they would have run
+		executorService.setRemoveOnCancelPolicy(true);
+	}
+
+	private static volatile long lastPulseNanos = System.nanoTime();
+	private static volatile long framePeriodNanos = TimeUnit.SECONDS.toNanos(1) / DEFAULT_REFRESH_RATE;
+
+	// How much of the difference between a measured pulse interval and the
+	// current frame period is applied, smooths out pulses that run late
+	private static final int PERIOD_SMOOTHING = 16;
+
+	private static volatile AnimationTimer pulseTracker;
+	private static final AtomicInteger runningTicks = new AtomicInteger();
+
+	private static final AtomicLong runCount = new AtomicLong();
+	private static final AtomicLong totalJitterNanos = new AtomicLong();
+	private static final AtomicLong maxJitterNanos = new AtomicLong();
+
+	private final Set<ScheduledFuture<?>> scheduled = ConcurrentHashMap.newKeySet();
+	private final Set<Ticks> ticking = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Measure JavaFX's pulses whenever ticks are running so that scheduled work
+	 * lines up with them. Must be called on the JavaFX thread.
+	 */
+	public static void trackPulses() {
+		if (pulseTracker != null) return;
+
+		pulseTracker = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				pulse(now);
+			}
+		};
+
+		if (runningTicks.get() > 0) pulseTracker.start();
+	}
+
+	private static void ticksStarted() {
+		if (runningTicks.getAndIncrement() == 0) updatePulseTracker();
+	}
+
+	private static void ticksStopped() {
+		if (runningTicks.decrementAndGet() == 0) updatePulseTracker();
+	}
+
+	private static void updatePulseTracker() {
+		final AnimationTimer tracker = pulseTracker;
+		if (tracker == null) return;
+
+		// Ticks start and stop on any thread, the count is checked again on the
+		// JavaFX thread so the last change always wins
+		Platform.runLater(() -> {
+			if (runningTicks.get() > 0) {
+				tracker.start();
+			} else {
+				tracker.stop();
+			}
+		});
+	}
+
+	/**
+	 * Record that a pulse started at <code>now</code>.
+	 * 
+	 * @param now
+	 *            the pulse's timestamp, which JavaFX takes from
+	 *            <tt>System.nanoTime()</tt>
+	 */
+	static void pulse(long now) {
+		final long period = framePeriodNanos;
+		final long interval = now - lastPulseNanos;
+
+		// Longer gaps are skipped pulses, e.g. while the JavaFX thread was busy
+		if (interval > period / 2 && interval < period * 3 / 2) {
+			framePeriodNanos = period + (interval - period) / PERIOD_SMOOTHING;
+		}
+
+		lastPulseNanos = now;
+	}
+
+	/**
+	 * Set the refresh rate of the display exercises are shown on, which sets
+	 * how long a frame is until pulses have been measured.
+	 * 
+	 * @param refreshRate
+	 *            the display's refresh rate in Hz
+	 */
+	public static void setRefreshRate(int refreshRate) {
+		if (refreshRate <= 0) refreshRate = DEFAULT_REFRESH_RATE;
+
+		framePeriodNanos = TimeUnit.SECONDS.toNanos(1) / refreshRate;
+	}
+
+	public static long getFramePeriodNanos() {
+		return framePeriodNanos;
+	}
+
+	/**
+	 * @param time
+	 *            a time as returned by <tt>System.nanoTime()</tt>
+	 * @return the start of the first frame at or after <code>time</code>,
+	 *         counting frames from the latest pulse
+	 */
+	protected static long nextFrameTime(long time) {
+		final long period = framePeriodNanos;
+		final long lastPulse = lastPulseNanos;
+		final long frames = Math.floorDiv(time - lastPulse + period - 1, period);
+
+		return lastPulse + frames * period;
+	}
+
+	/**
+	 * @return how late, on average, scheduled work started compared to the
+	 *         frame it was meant to start on
+	 */
+	public static long getAverageJitterNanos() {
+		final long runs = runCount.get();
+		return runs == 0 ? 0 : totalJitterNanos.get() / runs;
+	}
+
+	/**
+	 * @return the latest any scheduled work started compared to the frame it
+	 *         was meant to start on
+	 */
+	public static long getMaxJitterNanos() {
+		return maxJitterNanos.get();
+	}
+
+	public static void resetJitter() {
+		runCount.set(0);
+		totalJitterNanos.set(0);
+		maxJitterNanos.set(0);
+	}
+
+	private static void recordJitter(long dueTime) {
+		final long jitter = Math.max(0, System.nanoTime() - dueTime);
+
+		runCount.incrementAndGet();
+		totalJitterNanos.addAndGet(jitter);
+		maxJitterNanos.accumulateAndGet(jitter, Math::max);
+
+		if (jitter > framePeriodNanos && logger.isDebugEnabled()) {
+			logger.debug("Exercise work started {} frames late", jitter / framePeriodNanos);
+		}
+	}
+
+	private static Runnable guard(Runnable task) {
+		return () -> {
+			try {
+				task.run();
+			} catch (Exception e) {
+				// Uncaught exceptions would silently cancel repeating work
+				logger.error("Error running scheduled exercise work", e);
+			}
+		};
+	}
+
+	/**
+	 * Run <code>task</code> once at the start of the first frame after
+	 * <code>delay</code> has passed.
+	 */
+	public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		final long dueTime = nextFrameTime(System.nanoTime() + unit.toNanos(delay));
+		final Runnable guarded = guard(task);
+
+		return track(executorService.schedule(() -> {
+			recordJitter(dueTime);
+			guarded.run();
+		}, dueTime - System.nanoTime(), TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Start a par timer that calls <code>parEnded</code> on the first frame
+	 * after <code>parTime</code> seconds have passed.
+	 * 
+	 * @param parTime
+	 *            the par time in seconds, which may be fractional
+	 */
+	public ScheduledFuture<?> startParTimer(double parTime, Runnable parEnded) {
+		return schedule(parEnded, (long) (parTime * TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Call <code>tick</code> once per frame until it is cancelled, starting
+	 * with the next frame.
+	 * 
+	 * @param tick
+	 *            receives the number of ticks delivered before this one. If a
+	 *            tick runs longer than a frame the ticks that were missed are
+	 *            delivered right after it.
+	 * @return the running ticks, which are stopped by cancelling them
+	 */
+	public Ticks scheduleTicks(LongConsumer tick) {
+		final Ticks ticks = new Ticks(this, tick);
+
+		ticking.add(ticks);
+		ticksStarted();
+		ticks.scheduleNext(nextFrameTime(System.nanoTime() + 1));
+
+		return ticks;
+	}
+
+	/**
+	 * Ticks started by {@link ExerciseRuntime#scheduleTicks(LongConsumer)}.
+	 * Each tick is scheduled on its own so that every tick is lined up with the
+	 * pulses measured when the previous one ran.
+	 */
+	public static final class Ticks {
+		private final ExerciseRuntime runtime;
+		private final Runnable guarded;
+		private final AtomicLong frame = new AtomicLong();
+
+		private ScheduledFuture<?> next;
+		private boolean cancelled = false;
+
+		private Ticks(ExerciseRuntime runtime, LongConsumer tick) {
+			this.runtime = runtime;
+			guarded = guard(() -> tick.accept(frame.get()));
+		}
+
+		private synchronized void scheduleNext(long dueTime) {
+			if (cancelled) return;
+
+			next = executorService.schedule(() -> {
+				recordJitter(dueTime);
+				guarded.run();
+				frame.incrementAndGet();
+				scheduleNext(nextFrameTime(dueTime + 1));
+			}, dueTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Stop delivering ticks. A tick that is already running is allowed to
+		 * finish.
+		 * 
+		 * @return <tt>false</tt> if the ticks were already cancelled
+		 */
+		public synchronized boolean cancel() {
+			if (cancelled) return false;
+
+			cancelled = true;
+			next.cancel(false);
+
+			runtime.ticking.remove(this);
+			ticksStopped();
+
+			return true;
+		}
+
+		public synchronized boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	private ScheduledFuture<?> track(ScheduledFuture<?> future) {
+		scheduled.removeIf(ScheduledFuture::isDone);
+		scheduled.add(future);
+
+		return future;
+	}
+
+	/**
+	 * Cancel all of the work this runtime scheduled that hasn't run yet. Work
+	 * that is already running is allowed to finish.
+	 */
+	public void cancelAll() {
+		for (ScheduledFuture<?> future : scheduled)
+			future.cancel(false);
+
+		scheduled.clear();
+
+		for (Ticks ticks : ticking)
+			ticks.cancel();
+	}
+
+	/**
+	 * @return the number of delays, par timers, and ticks that are still
+	 *         waiting to run
+	 */
+	public int getPendingCount() {
+		scheduled.removeIf(ScheduledFuture::isDone);
+
+		return scheduled.size() + ticking.size();
+	}
+}
@@ -24,8 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -39,7 +37,6 @@ import com.shootoff.camera.Shot;
 import com.shootoff.gui.DelayedStartListener;
 import com.shootoff.gui.Hit;
 import com.shootoff.targets.TargetRegion;
-import com.shootoff.util.NamedThreadFactory;
 
 public class ISSFStandardPistol extends TrainingExerciseBase implements TrainingExercise, DelayedStartListener {
 	private static final Logger logger = LoggerFactory.getLogger(ISSFStandardPistol.class);
@@ -49,9 +46,6 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 	private final static String ROUND_COL_NAME = "Round";
 	private final static int ROUND_COL_WIDTH = 80;
 	private final static int START_DELAY = 10; // s
-	private static final int CORE_POOL_SIZE = 4;
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("ISSFStandardPistolExercise"));
 	private ScheduledFuture<?> endRound;
 	private TrainingExerciseBase thisSuper;
 	private static int[] ROUND_TIMES = { 150, 20, 10 };
@@ -108,7 +102,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 		super.addShotTimerColumn(ROUND_COL_NAME, ROUND_COL_WIDTH);
 
 		if (!testing) {
-			executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+			getRuntime().schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 		} else {
 			new SetupWait().run();
 		}
@@ -128,7 +122,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 			TrainingExerciseBase.playSound(new File("sounds/voice/shootoff-makeready.wav"));
 			final int randomDelay = new Random().nextInt((delayMax - delayMin) + 1) + delayMin;
 			if (!testing) {
-				executorService.schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
+				getRuntime().schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
 			} else {
 				new StartRound().run();
 			}
@@ -153,7 +147,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 
 			TrainingExerciseBase.playSound("sounds/beep.wav");
 			thisSuper.pauseShotDetection(false);
-			endRound = executorService.schedule(new EndRound(), ROUND_TIMES[roundTimeIndex], TimeUnit.SECONDS);
+			endRound = getRuntime().schedule(new EndRound(), ROUND_TIMES[roundTimeIndex], TimeUnit.SECONDS);
 		}
 
 	}
@@ -172,7 +166,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 				// Go to next round
 				round++;
 				if (!testing) {
-					executorService.schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
+					getRuntime().schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
 				} else {
 					new StartRound().run();
 				}
@@ -181,7 +175,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 				round = 1;
 				roundTimeIndex++;
 				if (!testing) {
-					executorService.schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
+					getRuntime().schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
 				} else {
 					new StartRound().run();
 				}
@@ -236,7 +230,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 		if (shotCount == 5 && !endRound.isDone()) {
 			try {
 				thisSuper.pauseShotDetection(true);
-				endRound.cancel(true);
+				endRound.cancel(false);
 				new EndRound().run();
 			} catch (Exception e) {
 				logger.error("Error ending current ISSF round (five shots detected)", e);
@@ -250,7 +244,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 		super.pauseShotDetection(true);
 
 		repeatExercise = false;
-		executorService.shutdownNow();
+		getRuntime().cancelAll();
 
 		setInitialValues();
 
@@ -258,15 +252,12 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 		super.showTextOnFeed("");
 
 		repeatExercise = true;
-		executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-				new NamedThreadFactory("ISSFStandardPistolExercise"));
-		executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+		getRuntime().schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 	}
 
 	@Override
 	public void destroy() {
 		repeatExercise = false;
-		executorService.shutdownNow();
 		super.destroy();
 	}
 }
\ No newline at end of file
@@ -84,14 +84,22 @@ public class ParForScore extends TimedHolsterDrill implements ParListener {
 	}
 
 	@Override
-	protected void doRound() throws Exception {
+	protected void doRound() {
 		super.doRound();
-		Thread.sleep((long) (parTime * 1000.));
+		getRuntime().startParTimer(parTime, this::endPar);
+	}
+
+	protected void endPar() {
 		TrainingExerciseBase.playSound("sounds/chime.wav");
 		pauseShotDetection(true);
 		countScore = false;
 	}
 
+	@Override
+	protected double getRoundLength() {
+		return parTime;
+	}
+
 	/*
 	 * This method merges shotListener for TimedHolsterDrill and ShootForScore.
 	 */
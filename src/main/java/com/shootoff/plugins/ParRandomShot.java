@@ -77,15 +77,12 @@ public class ParRandomShot extends ParForScore {
 	}
 
 	@Override
-	protected void doRound() throws Exception {
+	protected void doRound() {
 		pickSubtarget();
 		saySubtarget();
 		pauseShotDetection(false);
 		startRoundTimer();
-		Thread.sleep((long) (parTime * 1000.));
-		TrainingExerciseBase.playSound("sounds/chime.wav");
-		pauseShotDetection(true);
-		countScore = false;
+		getRuntime().startParTimer(parTime, this::endPar);
 	}
 
 	@Override
@@ -40,8 +40,10 @@ import com.shootoff.config.Configuration;
 import com.shootoff.gui.LocatedImage;
 import com.shootoff.gui.ShotEntry;
 import com.shootoff.gui.Target;
+import com.shootoff.gui.UpdateCoalescer;
 import com.shootoff.gui.controller.ProjectorArenaController;
 import com.shootoff.gui.controller.ShootOFFController;
+import com.shootoff.plugins.physics.PhysicsWorld;
 
 public class ProjectorTrainingExerciseBase extends TrainingExerciseBase {
 	private Configuration config;
@@ -49,6 +51,9 @@ public class ProjectorTrainingExerciseBase extends TrainingExerciseBase {
 	private ProjectorArenaController arenaController;
 	private final List<Target> targets = new ArrayList<Target>();
 	private final Label exerciseLabel = new Label();
+	private final Object exerciseLabelTextKey = new Object();
+	private final Object exerciseLabelStyleKey = new Object();
+	private PhysicsWorld physicsWorld = null;
 
 	// Only exists to make it easy to call getInfo without having
 	// to do a bunch of unnecessary setup
@@ -125,10 +130,26 @@ public class ProjectorTrainingExerciseBase extends TrainingExerciseBase {
 		return arenaController.getHeight();
 	}
 
+	/**
+	 * Get the physics world for this exercise, which is started the first
+	 * time it is asked for and stopped when the exercise is destroyed. Add
+	 * bodies to it to move targets around the arena.
+	 * 
+	 * @return the physics world that moves this exercise's targets
+	 */
+	public PhysicsWorld getPhysicsWorld() {
+		if (physicsWorld == null) {
+			physicsWorld = new PhysicsWorld(this::getArenaWidth, this::getArenaHeight);
+			physicsWorld.start();
+		}
+
+		return physicsWorld;
+	}
+
 	@Override
 	public void showTextOnFeed(String message) {
 		super.showTextOnFeed(message);
-		Platform.runLater(() -> exerciseLabel.setText(message));
+		UpdateCoalescer.post(exerciseLabelTextKey, () -> exerciseLabel.setText(message));
 	}
 
 	/**
@@ -167,7 +188,7 @@ public class ProjectorTrainingExerciseBase extends TrainingExerciseBase {
 	 */
 	public void showTextOnFeed(String message, int x, int y, Color backgroundColor, Color textColor, Font font) {
 		showTextOnFeed(message);
-		Platform.runLater(() -> {
+		UpdateCoalescer.post(exerciseLabelStyleKey, () -> {
 			exerciseLabel.setLayoutX(x);
 			exerciseLabel.setLayoutY(y);
 			exerciseLabel.setBackground(
@@ -201,6 +222,11 @@ public class ProjectorTrainingExerciseBase extends TrainingExerciseBase {
 
 	@Override
 	public void destroy() {
+		if (physicsWorld != null) {
+			physicsWorld.stop();
+			physicsWorld = null;
+		}
+
 		for (Target target : targets)
 			arenaController.getCanvasManager().removeTarget(target);
 
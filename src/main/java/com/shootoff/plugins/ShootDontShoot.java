@@ -24,8 +24,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -35,7 +33,6 @@ import com.shootoff.camera.Shot;
 import com.shootoff.gui.Hit;
 import com.shootoff.gui.Target;
 import com.shootoff.targets.TargetRegion;
-import com.shootoff.util.NamedThreadFactory;
 
 public class ShootDontShoot extends ProjectorTrainingExerciseBase implements TrainingExercise {
 	private final static String TARGET_COL_NAME = "TARGET";
@@ -45,10 +42,6 @@ public class ShootDontShoot extends ProjectorTrainingExerciseBase implements Tra
 	private final static int MAX_TARGETS_PER_ROUND = 6;
 	private final static int ROUND_DURATION = 10; // s
 
-	private static final int CORE_POOL_SIZE = 2;
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("ShootDontShootExercise"));
-
 	private AtomicBoolean continueExercise = new AtomicBoolean(true);
 	private boolean testRun = false;
 	private ProjectorTrainingExerciseBase thisSuper;
@@ -88,7 +81,7 @@ public class ShootDontShoot extends ProjectorTrainingExerciseBase implements Tra
 		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target");
 		super.showTextOnFeed("missed targets: 0\nbad hits: 0");
 
-		executorService.schedule(new NewRound(), ROUND_DURATION, TimeUnit.SECONDS);
+		getRuntime().schedule(new NewRound(), ROUND_DURATION, TimeUnit.SECONDS);
 	}
 
 	// Used to call NewRound from a test
@@ -131,7 +124,7 @@ public class ShootDontShoot extends ProjectorTrainingExerciseBase implements Tra
 			thisSuper.clearShots();
 
 			if (continueExercise.get() && !testRun)
-				executorService.schedule(new NewRound(), ROUND_DURATION, TimeUnit.SECONDS);
+				getRuntime().schedule(new NewRound(), ROUND_DURATION, TimeUnit.SECONDS);
 		}
 	}
 
@@ -201,7 +194,7 @@ public class ShootDontShoot extends ProjectorTrainingExerciseBase implements Tra
 	@Override
 	public void reset(List<Group> targets) {
 		continueExercise.set(false);
-		executorService.shutdownNow();
+		getRuntime().cancelAll();
 
 		missedTargets = 0;
 		badHits = 0;
@@ -220,15 +213,12 @@ public class ShootDontShoot extends ProjectorTrainingExerciseBase implements Tra
 
 		continueExercise.set(true);
 
-		executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-				new NamedThreadFactory("ShootDontShootExercise"));
-		executorService.schedule(new NewRound(), ROUND_DURATION, TimeUnit.SECONDS);
+		getRuntime().schedule(new NewRound(), ROUND_DURATION, TimeUnit.SECONDS);
 	}
 
 	@Override
 	public void destroy() {
 		continueExercise.set(false);
-		executorService.shutdownNow();
 		super.destroy();
 	}
 }
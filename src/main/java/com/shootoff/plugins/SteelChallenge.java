@@ -7,8 +7,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.shootoff.camera.Shot;
@@ -16,7 +14,6 @@ import com.shootoff.courses.Course;
 import com.shootoff.gui.Hit;
 import com.shootoff.gui.Target;
 import com.shootoff.targets.TargetRegion;
-import com.shootoff.util.NamedThreadFactory;
 
 import javafx.scene.Group;
 import javafx.scene.Node;
@@ -28,9 +25,6 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 	private final static int HIT_COL_WIDTH = 60;
 	private final static int START_DELAY = 4; // s
 	private final static int PAUSE_DELAY = 1; // s
-	private static final int CORE_POOL_SIZE = 2;
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("SteelChallengeExercise"));
 	private TrainingExerciseBase thisSuper;
 	private List<Group> targets;
 	private Set<Group> roundTargets;
@@ -106,7 +100,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 		if (testing) {
 			new AreYouReady().run();
 		} else {
-			executorService.schedule(new AreYouReady(), START_DELAY, TimeUnit.SECONDS);
+			getRuntime().schedule(new AreYouReady(), START_DELAY, TimeUnit.SECONDS);
 		}
 	}
 
@@ -118,7 +112,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 			TrainingExerciseBase.playSound("sounds/voice/shootoff-are-you-ready.wav");
 
 			if (!testing) {
-				executorService.schedule(new Standby(), PAUSE_DELAY, TimeUnit.SECONDS);
+				getRuntime().schedule(new Standby(), PAUSE_DELAY, TimeUnit.SECONDS);
 			} else {
 				new Standby().run();
 			}
@@ -136,7 +130,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 			if (testing) {
 				new BeginTimer().run();
 			} else {
-				executorService.schedule(new BeginTimer(), START_DELAY, TimeUnit.SECONDS);
+				getRuntime().schedule(new BeginTimer(), START_DELAY, TimeUnit.SECONDS);
 			}
 
 		}
@@ -215,7 +209,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 				if (testing) {
 					startRound();
 				} else {
-					executorService.schedule(() -> startRound(), START_DELAY, TimeUnit.SECONDS);
+					getRuntime().schedule(() -> startRound(), START_DELAY, TimeUnit.SECONDS);
 				}
 			}
 		} else {
@@ -228,11 +222,9 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 		super.pauseShotDetection(true);
 
 		repeatExercise = false;
-		executorService.shutdownNow();
+		getRuntime().cancelAll();
 
 		repeatExercise = true;
-		executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-				new NamedThreadFactory("SteelChallengeExercise"));
 
 		this.targets = targets;
 
@@ -242,7 +234,6 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 	@Override
 	public void destroy() {
 		repeatExercise = false;
-		executorService.shutdownNow();
 		super.destroy();
 	}
 }
@@ -22,9 +22,6 @@ import java.io.File;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javafx.scene.Group;
@@ -34,17 +31,13 @@ import javafx.scene.paint.Color;
 import com.shootoff.camera.Shot;
 import com.shootoff.gui.DelayedStartListener;
 import com.shootoff.gui.Hit;
-import com.shootoff.util.NamedThreadFactory;
 
 public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingExercise, DelayedStartListener {
 	private final static String LENGTH_COL_NAME = "Length";
 	private final static int LENGTH_COL_WIDTH = 60;
 	private final static int START_DELAY = 10; // s
 	private final static int RESUME_DELAY = 5; // s
-	private static final int CORE_POOL_SIZE = 2;
 	private static final String PAUSE = "Pause";
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("TimedHolsterDrillExercise"));
 	private int delayMin = 4;
 	private int delayMax = 8;
 	private boolean repeatExercise = true;
@@ -93,45 +86,42 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 	public void reset(List<Group> targets) {
 		repeatExercise = false;
 		pauseShotDetection(true);
-		executorService.shutdownNow();
+		getRuntime().cancelAll();
 		pauseResumeButton.setText(PAUSE);
 		resetValues();
 		repeatExercise = true;
-		executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-				new NamedThreadFactory("TimedHolsterDrillExercise"));
-		executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+		getRuntime().schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 	}
 
 	@Override
 	public void destroy() {
 		repeatExercise = false;
-		executorService.shutdownNow();
 		super.destroy();
 	}
 
-	protected class SetupWait implements Callable<Void> {
+	protected class SetupWait implements Runnable {
 		@Override
-		public Void call() {
+		public void run() {
 			pauseShotDetection(true);
 			playSound(new File("sounds/voice/shootoff-makeready.wav"));
 			int randomDelay = new Random().nextInt((delayMax - delayMin) + 1) + delayMin;
 
-			if (repeatExercise) executorService.schedule(new Round(), randomDelay, TimeUnit.SECONDS);
-
-			return null;
+			if (repeatExercise) getRuntime().schedule(new Round(), randomDelay, TimeUnit.SECONDS);
 		}
 	}
 
-	protected class Round implements Callable<Void> {
+	protected class Round implements Runnable {
 		@Override
-		public Void call() throws Exception {
+		public void run() {
 			if (repeatExercise) {
 				int randomDelay = setupRound();
 				doRound();
-				executorService.schedule(new Round(), randomDelay, TimeUnit.SECONDS);
-			}
 
-			return null;
+				// The delay before the next round starts once this round is
+				// over
+				long nextRoundDelay = (long) ((getRoundLength() + randomDelay) * 1000);
+				getRuntime().schedule(new Round(), nextRoundDelay, TimeUnit.MILLISECONDS);
+			}
 		}
 	}
 
@@ -145,7 +135,7 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 			} else {
 				pauseResumeButton.setText(PAUSE);
 				repeatExercise = true;
-				executorService.schedule(new SetupWait(), RESUME_DELAY, TimeUnit.SECONDS);
+				getRuntime().schedule(new SetupWait(), RESUME_DELAY, TimeUnit.SECONDS);
 			}
 		});
 		addShotTimerColumn(LENGTH_COL_NAME, LENGTH_COL_WIDTH);
@@ -155,7 +145,7 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 		pauseShotDetection(true);
 		resetValues();
 
-		executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+		getRuntime().schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 	}
 
 	protected int setupRound() {
@@ -171,12 +161,20 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 		return randomDelay;
 	}
 
-	protected void doRound() throws Exception {
+	protected void doRound() {
 		playSound("sounds/beep.wav");
 		pauseShotDetection(false);
 		startRoundTimer();
 	}
 
+	/**
+	 * @return how long a round lasts after it starts in seconds, the random
+	 *         delay before the next round only starts after this
+	 */
+	protected double getRoundLength() {
+		return 0;
+	}
+
 	protected void startRoundTimer() {
 		beepTime = System.currentTimeMillis();
 	}
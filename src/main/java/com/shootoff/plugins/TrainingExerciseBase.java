@@ -47,12 +47,12 @@ import com.shootoff.config.Configuration;
 import com.shootoff.gui.DelayedStartListener;
 import com.shootoff.gui.ParListener;
 import com.shootoff.gui.ShotEntry;
+import com.shootoff.gui.UpdateCoalescer;
 import com.shootoff.gui.controller.DelayedStartIntervalController;
 import com.shootoff.gui.controller.ParIntervalController;
 import com.shootoff.gui.controller.ShootOFFController;
 import com.shootoff.targets.TargetManager;
 
-import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
@@ -90,8 +90,10 @@ public class TrainingExerciseBase {
 	private GridPane buttonsPane;
 	private TableView<ShotEntry> shotTimerTable;
 	private boolean changedRowColor = false;
+	private final ExerciseRuntime runtime = new ExerciseRuntime();
 
 	private final static Map<CameraView, Label> exerciseLabels = new HashMap<CameraView, Label>();
+	private final static Object feedTextKey = new Object();
 	private final static Map<String, TableColumn<ShotEntry, String>> exerciseColumns = new HashMap<String, TableColumn<ShotEntry, String>>();
 	private final static List<Button> exerciseButtons = new ArrayList<Button>();
 
@@ -149,6 +151,18 @@ public class TrainingExerciseBase {
 		return this;
 	}
 
+	/**
+	 * Get the runtime to schedule this exercise's delays, par timers, and per
+	 * frame work on. Anything still scheduled is cancelled when the exercise
+	 * is destroyed, exercises should call <tt>cancelAll</tt> themselves when
+	 * they are reset.
+	 * 
+	 * @return this exercise's runtime
+	 */
+	public ExerciseRuntime getRuntime() {
+		return runtime;
+	}
+
 	public Stage getShootOFFStage() {
 		return (Stage) shotTimerTable.getScene().getWindow();
 	}
@@ -235,7 +249,7 @@ public class TrainingExerciseBase {
 	 */
 	public void setShotTimerColumnText(final String name, final String value) {
 		if (shotTimerTable != null) {
-			Platform.runLater(() -> {
+			UpdateCoalescer.append(() -> {
 				shotTimerTable.getItems().get(shotTimerTable.getItems().size() - 1).setExerciseValue(name, value);
 			});
 		}
@@ -267,7 +281,7 @@ public class TrainingExerciseBase {
 			config.getSessionRecorder().get().recordExerciseFeedMessage(message);
 		}
 
-		Platform.runLater(() -> {
+		UpdateCoalescer.post(feedTextKey, () -> {
 			for (Label exerciseLabel : exerciseLabels.values()) {
 				exerciseLabel.setText(message);
 			}
@@ -446,6 +460,8 @@ public class TrainingExerciseBase {
 	 * Removes all objects the training exercise has added to the GUI.
 	 */
 	public void destroy() {
+		runtime.cancelAll();
+
 		if (changedRowColor) {
 			config.setShotTimerRowColor(null);
 			changedRowColor = false;
@@ -0,0 +1,176 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.plugins.physics;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+
+import com.shootoff.gui.Target;
+
+/**
+ * A target that is moved by a {@link PhysicsWorld}. A body's position is the
+ * top left corner of its target's bounds. Bodies with the same collision
+ * group bounce off of each other, bodies without a group pass through
+ * everything.
+ * 
+ * Position and velocity are owned by the physics thread. Exercises should
+ * only change them from a {@link Mover} or a {@link CollisionListener}, which
+ * run on that thread.
+ * 
+ * @author phrack
+ */
+public class Body {
+	private final Target target;
+	private final Object collisionGroup;
+	private final double width;
+	private final double height;
+
+	// Where the target's layout position is relative to its bounds
+	private final double layoutOffsetX;
+	private final double layoutOffsetY;
+
+	private double x;
+	private double y;
+	private double velocityX;
+	private double velocityY;
+
+	// The positions at the end of the last two steps, rendering interpolates
+	// between them
+	private volatile Interval interval;
+
+	/**
+	 * Create a body for a target that is already on the arena, must be called
+	 * on the JavaFX thread.
+	 * 
+	 * @param target
+	 *            the target to move
+	 * @param collisionGroup
+	 *            bodies with the same collision group collide, may be
+	 *            <tt>null</tt> if this body should not collide with anything
+	 * @param velocityX
+	 *            the horizontal velocity in pixels per second
+	 * @param velocityY
+	 *            the vertical velocity in pixels per second
+	 */
+	public Body(Target target, Object collisionGroup, double velocityX, double velocityY) {
+		this.target = target;
+		this.collisionGroup = collisionGroup;
+		this.velocityX = velocityX;
+		this.velocityY = velocityY;
+
+		final Bounds bounds = target.getTargetGroup().getBoundsInParent();
+		final Point2D position = target.getPosition();
+
+		width = bounds.getWidth();
+		height = bounds.getHeight();
+		x = bounds.getMinX();
+		y = bounds.getMinY();
+		layoutOffsetX = position.getX() - x;
+		layoutOffsetY = position.getY() - y;
+
+		interval = new Interval(x, y, x, y);
+	}
+
+	public Target getTarget() {
+		return target;
+	}
+
+	public Object getCollisionGroup() {
+		return collisionGroup;
+	}
+
+	public double getX() {
+		return x;
+	}
+
+	public double getY() {
+		return y;
+	}
+
+	public void setPosition(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public double getWidth() {
+		return width;
+	}
+
+	public double getHeight() {
+		return height;
+	}
+
+	public double getVelocityX() {
+		return velocityX;
+	}
+
+	public double getVelocityY() {
+		return velocityY;
+	}
+
+	public void setVelocity(double velocityX, double velocityY) {
+		this.velocityX = velocityX;
+		this.velocityY = velocityY;
+	}
+
+	void integrate(double dt) {
+		x += velocityX * dt;
+		y += velocityY * dt;
+	}
+
+	boolean intersects(Body other) {
+		return x < other.x + other.width && other.x < x + width && y < other.y + other.height
+				&& other.y < y + height;
+	}
+
+	void endStep() {
+		final Interval last = interval;
+		interval = new Interval(last.x, last.y, x, y);
+	}
+
+	/**
+	 * Move the target to where this body is between the previous and latest
+	 * step, must be called on the JavaFX thread.
+	 * 
+	 * @param alpha
+	 *            how far between the steps to place the target, from 0 to 1
+	 */
+	void render(double alpha) {
+		final Interval current = interval;
+
+		final double renderX = current.previousX + (current.x - current.previousX) * alpha + layoutOffsetX;
+		final double renderY = current.previousY + (current.y - current.previousY) * alpha + layoutOffsetY;
+
+		final Point2D position = target.getPosition();
+		if (position.getX() != renderX || position.getY() != renderY) target.setPosition(renderX, renderY);
+	}
+
+	private static class Interval {
+		private final double previousX;
+		private final double previousY;
+		private final double x;
+		private final double y;
+
+		public Interval(double previousX, double previousY, double x, double y) {
+			this.previousX = previousX;
+			this.previousY = previousY;
+			this.x = x;
+			this.y = y;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.plugins.physics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A uniform grid that finds pairs of bodies that may be touching so that only
+ * those pairs need to be tested for collisions instead of every pair.
+ * 
+ * @author phrack
+ */
+class BroadphaseGrid {
+	private final double cellSize;
+	private final Map<Long, List<Body>> cells = new HashMap<Long, List<Body>>();
+
+	public BroadphaseGrid(double cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	private int cell(double coordinate) {
+		return (int) Math.floor(coordinate / cellSize);
+	}
+
+	private static long key(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Call <code>pairConsumer</code> once for every pair of bodies in the same
+	 * collision group whose bounds overlap.
+	 */
+	public void forEachCollidingPair(List<Body> bodies, BiConsumer<Body, Body> pairConsumer) {
+		for (List<Body> cellBodies : cells.values())
+			cellBodies.clear();
+
+		for (Body body : bodies) {
+			if (body.getCollisionGroup() == null) continue;
+
+			for (int cellX = cell(body.getX()); cellX <= cell(body.getX() + body.getWidth()); cellX++) {
+				for (int cellY = cell(body.getY()); cellY <= cell(body.getY() + body.getHeight()); cellY++) {
+					List<Body> cellBodies = cells.get(key(cellX, cellY));
+
+					if (cellBodies == null) {
+						cellBodies = new ArrayList<Body>();
+						cells.put(key(cellX, cellY), cellBodies);
+					}
+
+					cellBodies.add(body);
+				}
+			}
+		}
+
+		for (Map.Entry<Long, List<Body>> cell : cells.entrySet()) {
+			final List<Body> cellBodies = cell.getValue();
+			final int cellX = (int) (cell.getKey() >> 32);
+			final int cellY = (int) (long) cell.getKey();
+
+			for (int i = 0; i < cellBodies.size(); i++) {
+				final Body first = cellBodies.get(i);
+
+				for (int j = i + 1; j < cellBodies.size(); j++) {
+					final Body second = cellBodies.get(j);
+
+					if (!first.getCollisionGroup().equals(second.getCollisionGroup()) || !first.intersects(second))
+						continue;
+
+					// Bodies that share several cells are only paired in the
+					// first cell their bounds have in common
+					final int firstCellX = Math.max(cell(first.getX()), cell(second.getX()));
+					final int firstCellY = Math.max(cell(first.getY()), cell(second.getY()));
+					if (cellX != firstCellX || cellY != firstCellY) continue;
+
+					pairConsumer.accept(first, second);
+				}
+			}
+		}
+
+		// Don't hold on to cells bodies have moved out of
+		cells.values().removeIf(List::isEmpty);
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.plugins.physics;
+
+/**
+ * Custom motion that is applied on every physics step before bodies are
+ * moved by their velocity, e.g. to steer or accelerate bodies.
+ * 
+ * @author phrack
+ */
+public interface Mover {
+	/**
+	 * Called on the physics thread once per step.
+	 * 
+	 * @param dt
+	 *            the length of the step in seconds, which is always the same
+	 */
+	void step(double dt);
+}
@@ -0,0 +1,297 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.plugins.physics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.util.NamedThreadFactory;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Moves bodies around the projector arena. The simulation runs in fixed
+ * steps on its own thread so that motion doesn't depend on how often the
+ * JavaFX thread gets to run. On every JavaFX pulse targets are placed between
+ * their positions at the last two steps, which keeps motion smooth even though
+ * steps and pulses don't line up.
+ * 
+ * Bodies bounce off the edges of the arena and off of other bodies in their
+ * collision group. The arena's size is read on the JavaFX thread and handed to
+ * the physics thread, so bodies only start bouncing off of the arena's edges
+ * once the world was created or rendered on the JavaFX thread.
+ * 
+ * @author phrack
+ */
+public class PhysicsWorld {
+	private static final Logger logger = LoggerFactory.getLogger(PhysicsWorld.class);
+
+	public static final int DEFAULT_STEPS_PER_SECOND = 100;
+
+	// Don't try to catch up on more than this many steps at once, e.g. after
+	// the machine was suspended
+	private static final int MAX_STEPS_PER_TICK = 10;
+
+	private static final double GRID_CELL_SIZE = 128;
+
+	private final List<Body> bodies = new CopyOnWriteArrayList<Body>();
+	private final List<Mover> movers = new CopyOnWriteArrayList<Mover>();
+	private final List<CollisionListener> collisionListeners = new CopyOnWriteArrayList<CollisionListener>();
+	private final BroadphaseGrid grid = new BroadphaseGrid(GRID_CELL_SIZE);
+
+	private final DoubleSupplier arenaWidth;
+	private final DoubleSupplier arenaHeight;
+	private final double stepSeconds;
+	private final long stepNanos;
+
+	private ScheduledExecutorService stepExecutor;
+	private ScheduledFuture<?> stepFuture;
+	private final AnimationTimer renderTimer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			render(System.nanoTime());
+		}
+	};
+
+	// Only used on the physics thread
+	private long lastTickTime;
+	private long accumulatedNanos;
+
+	private volatile long lastStepTime;
+
+	// Sampled on the JavaFX thread, NaN until the size was first read
+	private volatile double sampledWidth = Double.NaN;
+	private volatile double sampledHeight = Double.NaN;
+
+	public PhysicsWorld(DoubleSupplier arenaWidth, DoubleSupplier arenaHeight) {
+		this(arenaWidth, arenaHeight, DEFAULT_STEPS_PER_SECOND);
+	}
+
+	/**
+	 * @param arenaWidth
+	 *            supplies the arena's width, only called on the JavaFX thread
+	 * @param arenaHeight
+	 *            supplies the arena's height, only called on the JavaFX thread
+	 */
+	public PhysicsWorld(DoubleSupplier arenaWidth, DoubleSupplier arenaHeight, int stepsPerSecond) {
+		this.arenaWidth = arenaWidth;
+		this.arenaHeight = arenaHeight;
+		this.stepSeconds = 1.0 / stepsPerSecond;
+		this.stepNanos = TimeUnit.SECONDS.toNanos(1) / stepsPerSecond;
+
+		if (Platform.isFxApplicationThread()) sampleArenaSize();
+	}
+
+	private void sampleArenaSize() {
+		sampledWidth = arenaWidth.getAsDouble();
+		sampledHeight = arenaHeight.getAsDouble();
+	}
+
+	public void addBody(Body body) {
+		bodies.add(body);
+	}
+
+	public void removeBody(Body body) {
+		bodies.remove(body);
+	}
+
+	public List<Body> getBodies() {
+		return bodies;
+	}
+
+	public void addMover(Mover mover) {
+		movers.add(mover);
+	}
+
+	public void removeMover(Mover mover) {
+		movers.remove(mover);
+	}
+
+	public void addCollisionListener(CollisionListener listener) {
+		collisionListeners.add(listener);
+	}
+
+	public void removeCollisionListener(CollisionListener listener) {
+		collisionListeners.remove(listener);
+	}
+
+	public synchronized void start() {
+		if (stepExecutor != null) return;
+
+		stepExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("PhysicsWorld"));
+		lastTickTime = System.nanoTime();
+		accumulatedNanos = 0;
+		stepFuture = stepExecutor.scheduleAtFixedRate(this::tick, 0, stepNanos, TimeUnit.NANOSECONDS);
+
+		if (Platform.isFxApplicationThread()) {
+			renderTimer.start();
+		} else {
+			Platform.runLater(renderTimer::start);
+		}
+	}
+
+	public synchronized void stop() {
+		if (stepExecutor == null) return;
+
+		stepFuture.cancel(false);
+		stepExecutor.shutdown();
+		stepExecutor = null;
+
+		if (Platform.isFxApplicationThread()) {
+			renderTimer.stop();
+		} else {
+			Platform.runLater(renderTimer::stop);
+		}
+	}
+
+	private void tick() {
+		try {
+			final long now = System.nanoTime();
+			accumulatedNanos += now - lastTickTime;
+			lastTickTime = now;
+
+			int steps = 0;
+			while (accumulatedNanos >= stepNanos) {
+				accumulatedNanos -= stepNanos;
+
+				if (steps++ < MAX_STEPS_PER_TICK) {
+					step();
+				} else {
+					accumulatedNanos = 0;
+					break;
+				}
+			}
+		} catch (RuntimeException e) {
+			// An exception would silently cancel future steps
+			logger.error("Failed to step physics", e);
+		}
+	}
+
+	/**
+	 * Advance the simulation by one fixed step.
+	 */
+	protected void step() {
+		for (Mover mover : movers)
+			mover.step(stepSeconds);
+
+		final double width = sampledWidth;
+		final double height = sampledHeight;
+		final boolean isArenaSized = !Double.isNaN(width) && !Double.isNaN(height);
+
+		for (Body body : bodies) {
+			body.integrate(stepSeconds);
+			if (isArenaSized) keepInArena(body, width, height);
+		}
+
+		grid.forEachCollidingPair(bodies, this::bounce);
+
+		for (Body body : bodies)
+			body.endStep();
+
+		lastStepTime = System.nanoTime();
+	}
+
+	private static void keepInArena(Body body, double width, double height) {
+		double x = body.getX();
+		double y = body.getY();
+		double velocityX = body.getVelocityX();
+		double velocityY = body.getVelocityY();
+
+		if (x < 0) {
+			x = 0;
+			velocityX = Math.abs(velocityX);
+		} else if (x + body.getWidth() > width) {
+			x = Math.max(0, width - body.getWidth());
+			velocityX = -Math.abs(velocityX);
+		}
+
+		if (y < 0) {
+			y = 0;
+			velocityY = Math.abs(velocityY);
+		} else if (y + body.getHeight() > height) {
+			y = Math.max(0, height - body.getHeight());
+			velocityY = -Math.abs(velocityY);
+		}
+
+		body.setPosition(x, y);
+		body.setVelocity(velocityX, velocityY);
+	}
+
+	private void bounce(Body first, Body second) {
+		final double overlapX = Math.min(first.getX() + first.getWidth(), second.getX() + second.getWidth())
+				- Math.max(first.getX(), second.getX());
+		final double overlapY = Math.min(first.getY() + first.getHeight(), second.getY() + second.getHeight())
+				- Math.max(first.getY(), second.getY());
+
+		// Push the bodies apart along the axis they overlap the least on and
+		// reverse their motion along it if they are moving towards each other
+		if (overlapX < overlapY) {
+			final double direction = Math.signum(
+					(second.getX() + second.getWidth() / 2) - (first.getX() + first.getWidth() / 2));
+			final double push = overlapX / 2 * (direction == 0 ? 1 : direction);
+
+			first.setPosition(first.getX() - push, first.getY());
+			second.setPosition(second.getX() + push, second.getY());
+
+			if ((first.getVelocityX() - second.getVelocityX()) * direction > 0) {
+				first.setVelocity(-first.getVelocityX(), first.getVelocityY());
+				second.setVelocity(-second.getVelocityX(), second.getVelocityY());
+			}
+		} else {
+			final double direction = Math.signum(
+					(second.getY() + second.getHeight() / 2) - (first.getY() + first.getHeight() / 2));
+			final double push = overlapY / 2 * (direction == 0 ? 1 : direction);
+
+			first.setPosition(first.getX(), first.getY() - push);
+			second.setPosition(second.getX(), second.getY() + push);
+
+			if ((first.getVelocityY() - second.getVelocityY()) * direction > 0) {
+				first.setVelocity(first.getVelocityX(), -first.getVelocityY());
+				second.setVelocity(second.getVelocityX(), -second.getVelocityY());
+			}
+		}
+
+		for (CollisionListener listener : collisionListeners)
+			listener.collided(first, second);
+	}
+
+	/**
+	 * Place every body's target where the body is as of <code>now</code>,
+	 * must be called on the JavaFX thread.
+	 * 
+	 * @param now
+	 *            the current time as returned by <tt>System.nanoTime()</tt>
+	 */
+	protected void render(long now) {
+		sampleArenaSize();
+
+		final double alpha = Math.min(1.0, Math.max(0.0, (double) (now - lastStepTime) / stepNanos));
+
+		for (Body body : bodies)
+			body.render(alpha);
+	}
+}
@@ -19,6 +19,7 @@
 package com.shootoff.session;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -29,163 +30,402 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.shootoff.camera.Shot;
 import com.shootoff.gui.Target;
+import com.shootoff.gui.TargetGeometry;
+import com.shootoff.session.io.SessionJournal;
+import com.shootoff.util.NamedThreadFactory;
 
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 
+/**
+ * Records the events of a session. Events are recorded from the camera
+ * detection threads and the JavaFX thread, so recording only timestamps the
+ * event and adds it to its camera's lock-free queue. A single consumer thread
+ * shared by all recorders drains the queues, adds missing target events,
+ * collapses moves and resizes and stores the events in memory or in the
+ * session's journal. Reading the events first drains whatever is still
+ * queued.
+ * 
+ * @author phrack
+ */
 public class SessionRecorder {
+	private static final Logger logger = LoggerFactory.getLogger(SessionRecorder.class);
+
+	private static final ExecutorService consumer = Executors.newSingleThreadExecutor((r) -> {
+		Thread t = new NamedThreadFactory("SessionRecorder").newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+
 	private final long startTime;
 	private final String sessionName;
+	private final Optional<SessionJournal> journal;
+
+	// Written by any thread
+	private final Map<String, Queue<RecordedEvent>> queues = new ConcurrentHashMap<String, Queue<RecordedEvent>>();
+	private final AtomicBoolean drainQueued = new AtomicBoolean(false);
+
+	// Only touched while holding consumerLock
+	private final Object consumerLock = new Object();
 	private final Map<String, List<Event>> events = new HashMap<String, List<Event>>();
 	private final Map<String, Set<Target>> seenTargets = new HashMap<String, Set<Target>>();
+	private boolean isClosed = false;
+	private Optional<Map<String, List<Event>>> closedEvents = Optional.empty();
+
+	// Where a target was and how big it was are taken from the target's
+	// published geometry when the event is recorded, the consumer may need
+	// them to add the target to the session
+	private static class RecordedEvent {
+		private final Event event;
+		private final Optional<Target> target;
+		private final String targetName;
+		private final int targetIndex;
+		private final Point2D position;
+		private final Dimension2D dimension;
+
+		public RecordedEvent(Event event) {
+			this.event = event;
+			this.target = Optional.empty();
+			this.targetName = null;
+			this.targetIndex = -1;
+			this.position = null;
+			this.dimension = null;
+		}
 
-	private AtomicBoolean ignoreTargetCheck = new AtomicBoolean(false);
+		public RecordedEvent(Event event, TargetGeometry geometry) {
+			this.event = event;
+			this.target = Optional.of(geometry.getTarget());
+			this.targetName = getTargetName(geometry.getTarget());
+			this.targetIndex = geometry.getTargetIndex();
+			this.position = new Point2D(geometry.getX(), geometry.getY());
+			this.dimension = new Dimension2D(geometry.getWidth(), geometry.getHeight());
+		}
+	}
 
 	public SessionRecorder() {
-		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH.mm.ss");
-		sessionName = dateFormat.format(new Date());
+		sessionName = createSessionName();
 		startTime = System.currentTimeMillis();
+		journal = Optional.empty();
+	}
+
+	/**
+	 * Creates a recorder that appends each event to a journal in journalFolder
+	 * as it happens instead of keeping the events in memory, so the session
+	 * survives a crash and memory use doesn't grow with its length.
+	 */
+	public SessionRecorder(File journalFolder) throws IOException {
+		sessionName = createSessionName();
+		startTime = System.currentTimeMillis();
+		journal = Optional.of(new SessionJournal(
+				new File(journalFolder, sessionName + "." + SessionJournal.FILE_EXTENSION)));
+	}
+
+	private static String createSessionName() {
+		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH.mm.ss");
+		return dateFormat.format(new Date());
 	}
 
 	public void addEvents(Map<String, List<Event>> events) {
-		this.events.putAll(events);
+		synchronized (consumerLock) {
+			drain();
+
+			for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+				if (journal.isPresent()) {
+					for (Event e : cameraEvents.getValue())
+						journal.get().append(e);
+				} else {
+					getCameraList(cameraEvents.getKey()).addAll(cameraEvents.getValue());
+				}
+			}
+		}
 	}
 
+	/**
+	 * Get every event recorded so far. The returned map is a copy.
+	 * 
+	 * For a journaled session the events are read back by replaying the whole
+	 * journal from disk, which is slow for a long session, so avoid calling
+	 * this on the JavaFX thread. Once the recorder is closed the journal can't
+	 * change, so it is only replayed once after that.
+	 */
 	public Map<String, List<Event>> getEvents() {
-		return events;
+		synchronized (consumerLock) {
+			drain();
+
+			if (!journal.isPresent()) return copyEvents(events);
+
+			if (closedEvents.isPresent()) return copyEvents(closedEvents.get());
+
+			journal.get().commit();
+
+			Map<String, List<Event>> replayed;
+
+			try {
+				replayed = SessionJournal.replay(journal.get().getJournalFile());
+			} catch (IOException e) {
+				logger.error("Error reading session journal", e);
+				return new HashMap<String, List<Event>>();
+			}
+
+			if (isClosed) closedEvents = Optional.of(copyEvents(replayed));
+
+			return replayed;
+		}
 	}
 
-	public String getSessionName() {
-		return sessionName;
+	private static Map<String, List<Event>> copyEvents(Map<String, List<Event>> events) {
+		Map<String, List<Event>> copy = new HashMap<String, List<Event>>();
+
+		for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet())
+			copy.put(cameraEvents.getKey(), new ArrayList<Event>(cameraEvents.getValue()));
+
+		return copy;
 	}
 
-	public List<Event> getCameraEvents(String cameraName) {
-		if (events.containsKey(cameraName)) {
-			return events.get(cameraName);
+	public Optional<File> getJournalFile() {
+		if (journal.isPresent()) {
+			return Optional.of(journal.get().getJournalFile());
 		} else {
-			List<Event> eventList = new ArrayList<Event>();
-			events.put(cameraName, eventList);
-			return eventList;
+			return Optional.empty();
 		}
 	}
 
-	// This method ensures we have an add event for a target that is being used,
-	// if not the user started recording after adding the target so we should
-	// artificially add the target add event then ensure it gets moved and
-	// resized
-	// to wherever it already is and to however big it already is.
-	private void checkTarget(String cameraName, Target target) {
-		if (!seenTargets.containsKey(cameraName)) {
-			seenTargets.put(cameraName, new HashSet<Target>());
+	/**
+	 * Stop journaling. Events recorded after this are dropped, but the
+	 * journal can still be read with {@link #getEvents()} until it is deleted.
+	 */
+	public void close() {
+		if (!journal.isPresent()) return;
+
+		synchronized (consumerLock) {
+			drain();
+			journal.get().close();
+			isClosed = true;
 		}
+	}
 
-		if (!seenTargets.get(cameraName).contains(target)) {
-			ignoreTargetCheck.set(true);
+	public void deleteJournal() {
+		if (!journal.isPresent()) return;
 
-			recordTargetAdded(cameraName, target);
-			Point2D p = target.getPosition();
-			recordTargetMoved(cameraName, target, (int) p.getX(), (int) p.getY());
-			Dimension2D d = target.getDimension();
-			recordTargetResized(cameraName, target, d.getWidth(), d.getHeight());
+		close();
 
-			ignoreTargetCheck.set(false);
+		File journalFile = journal.get().getJournalFile();
+		if (journalFile.exists() && !journalFile.delete()) {
+			logger.warn("Failed to delete session journal: {}", journalFile.getPath());
 		}
 	}
 
-	public void recordShot(String cameraName, Shot shot, boolean isMalfunction, boolean isReload,
-			Optional<Target> target, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
-		Optional<Integer> targetIndex = Optional.empty();
+	public String getSessionName() {
+		return sessionName;
+	}
 
-		if (target.isPresent()) {
-			targetIndex = Optional.of(target.get().getTargetIndex());
-			if (!ignoreTargetCheck.get()) checkTarget(cameraName, target.get());
-		}
+	public List<Event> getCameraEvents(String cameraName) {
+		List<Event> cameraEvents = getEvents().get(cameraName);
+		return cameraEvents != null ? cameraEvents : new ArrayList<Event>();
+	}
 
-		long timestamp = System.currentTimeMillis() - startTime;
+	private List<Event> getCameraList(String cameraName) {
+		List<Event> cameraEvents = events.get(cameraName);
 
-		getCameraEvents(cameraName).add(new ShotEvent(cameraName, timestamp, shot, isMalfunction, isReload, targetIndex,
-				hitRegionIndex, videoString));
+		if (cameraEvents == null) {
+			cameraEvents = new ArrayList<Event>();
+			events.put(cameraName, cameraEvents);
+		}
+
+		return cameraEvents;
 	}
 
-	public void recordTargetAdded(String cameraName, Target target) {
-		if (!seenTargets.containsKey(cameraName)) {
-			seenTargets.put(cameraName, new HashSet<Target>());
+	private Queue<RecordedEvent> getCameraQueue(String cameraName) {
+		Queue<RecordedEvent> queue = queues.get(cameraName);
+
+		if (queue == null) {
+			queue = new ConcurrentLinkedQueue<RecordedEvent>();
+			Queue<RecordedEvent> existing = queues.putIfAbsent(cameraName, queue);
+			if (existing != null) queue = existing;
 		}
 
-		seenTargets.get(cameraName).add(target);
+		return queue;
+	}
+
+	private long getTimestamp() {
+		return System.currentTimeMillis() - startTime;
+	}
 
-		String targetName;
+	private void enqueue(RecordedEvent recorded) {
+		getCameraQueue(recorded.event.getCameraName()).offer(recorded);
 
-		if (target.getTargetFile().isAbsolute()) {
-			targetName = target.getTargetFile().getPath()
-					.replace(System.getProperty("shootoff.home") + File.separator + "targets" + File.separator, "");
-		} else {
-			targetName = target.getTargetFile().getPath().replace("targets" + File.separator, "");
-		}
+		// Only one drain is queued at a time, it picks up everything recorded
+		// before it starts
+		if (drainQueued.compareAndSet(false, true)) consumer.execute(this::drainQueued);
+	}
 
-		getCameraEvents(cameraName)
-				.add(new TargetAddedEvent(cameraName, System.currentTimeMillis() - startTime, targetName));
+	private void drainQueued() {
+		synchronized (consumerLock) {
+			drain();
+		}
 	}
 
-	public void recordTargetRemoved(String cameraName, Target target) {
-		if (!ignoreTargetCheck.get()) checkTarget(cameraName, target);
+	// Must hold consumerLock
+	private void drain() {
+		drainQueued.set(false);
+
+		for (Queue<RecordedEvent> queue : queues.values()) {
+			RecordedEvent recorded;
 
-		getCameraEvents(cameraName).add(
-				new TargetRemovedEvent(cameraName, System.currentTimeMillis() - startTime, target.getTargetIndex()));
+			while ((recorded = queue.poll()) != null)
+				consume(recorded);
+		}
 	}
 
-	private void collapseTargetEvents(String cameraName, EventType type, Target target) {
-		ListIterator<Event> it = getCameraEvents(cameraName).listIterator(getCameraEvents(cameraName).size());
+	private void consume(RecordedEvent recorded) {
+		String cameraName = recorded.event.getCameraName();
 
-		while (it.hasPrevious()) {
-			Event e = it.previous();
+		if (recorded.event.getType() == EventType.EXERCISE_FEED_MESSAGE) {
+			// Messages only go to cameras that have targets
+			if (seenTargets.containsKey(cameraName)) store(recorded.event);
+			return;
+		}
+
+		if (recorded.target.isPresent()) {
+			Set<Target> cameraTargets = seenTargets.get(cameraName);
 
-			if (e.getType() != EventType.TARGET_RESIZED && e.getType() != EventType.TARGET_MOVED) {
-				break;
+			if (cameraTargets == null) {
+				cameraTargets = new HashSet<Target>();
+				seenTargets.put(cameraName, cameraTargets);
 			}
 
-			if (e.getType() == type) {
-				if (type == EventType.TARGET_RESIZED
-						&& ((TargetResizedEvent) e).getTargetIndex() == target.getTargetIndex()) {
-					it.remove();
-				} else if (type == EventType.TARGET_MOVED
-						&& ((TargetMovedEvent) e).getTargetIndex() == target.getTargetIndex()) {
-					it.remove();
+			Target target = recorded.target.get();
+
+			// If we haven't seen the target the user started recording after
+			// adding it, so we artificially add it then ensure it gets moved
+			// and resized to wherever it already is and to however big it
+			// already is.
+			if (cameraTargets.add(target) && recorded.event.getType() != EventType.TARGET_ADDED) {
+				long timestamp = recorded.event.getTimestamp();
+
+				store(new TargetAddedEvent(cameraName, timestamp, recorded.targetName));
+				store(new TargetMovedEvent(cameraName, timestamp, recorded.targetIndex, (int) recorded.position.getX(),
+						(int) recorded.position.getY()));
+				store(new TargetResizedEvent(cameraName, timestamp, recorded.targetIndex,
+						recorded.dimension.getWidth(), recorded.dimension.getHeight()));
+			}
+		}
+
+		store(recorded.event);
+	}
+
+	private void store(Event event) {
+		if (journal.isPresent()) {
+			// Replaying the journal collapses moves and resizes
+			journal.get().append(event);
+		} else {
+			appendEvent(getCameraList(event.getCameraName()), event);
+		}
+	}
+
+	/**
+	 * Append an event to a camera's events, first removing the moves or
+	 * resizes of the same target that it replaces. Those are the events of the
+	 * same type for the same target found before any event that isn't a move
+	 * or resize.
+	 */
+	public static void appendEvent(List<Event> cameraEvents, Event event) {
+		if (event.getType() == EventType.TARGET_RESIZED || event.getType() == EventType.TARGET_MOVED) {
+			int targetIndex = getTargetIndex(event);
+			ListIterator<Event> it = cameraEvents.listIterator(cameraEvents.size());
+
+			while (it.hasPrevious()) {
+				Event e = it.previous();
+
+				if (e.getType() != EventType.TARGET_RESIZED && e.getType() != EventType.TARGET_MOVED) {
+					break;
 				}
+
+				if (e.getType() == event.getType() && getTargetIndex(e) == targetIndex) it.remove();
 			}
 		}
+
+		cameraEvents.add(event);
 	}
 
-	public void recordTargetResized(String cameraName, Target target, double newWidth, double newHeight) {
-		if (!ignoreTargetCheck.get()) checkTarget(cameraName, target);
+	private static int getTargetIndex(Event event) {
+		if (event.getType() == EventType.TARGET_RESIZED) {
+			return ((TargetResizedEvent) event).getTargetIndex();
+		} else {
+			return ((TargetMovedEvent) event).getTargetIndex();
+		}
+	}
+
+	private static String getTargetName(Target target) {
+		if (target.getTargetFile().isAbsolute()) {
+			return target.getTargetFile().getPath()
+					.replace(System.getProperty("shootoff.home") + File.separator + "targets" + File.separator, "");
+		} else {
+			return target.getTargetFile().getPath().replace("targets" + File.separator, "");
+		}
+	}
 
-		// Remove all resize events immediately before this one
-		collapseTargetEvents(cameraName, EventType.TARGET_RESIZED, target);
+	/**
+	 * @param target
+	 *            the geometry of the target that was hit as of when the shot
+	 *            was checked, which can be read on shot detection threads
+	 */
+	public void recordShot(String cameraName, Shot shot, boolean isMalfunction, boolean isReload,
+			Optional<TargetGeometry> target, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
+		if (target.isPresent()) {
+			enqueue(new RecordedEvent(new ShotEvent(cameraName, getTimestamp(), shot, isMalfunction, isReload,
+					Optional.of(target.get().getTargetIndex()), hitRegionIndex, videoString), target.get()));
+		} else {
+			enqueue(new RecordedEvent(new ShotEvent(cameraName, getTimestamp(), shot, isMalfunction, isReload,
+					Optional.empty(), hitRegionIndex, videoString)));
+		}
+	}
 
-		getCameraEvents(cameraName).add(new TargetResizedEvent(cameraName, System.currentTimeMillis() - startTime,
-				target.getTargetIndex(), newWidth, newHeight));
+	public void recordTargetAdded(String cameraName, Target target) {
+		enqueue(new RecordedEvent(new TargetAddedEvent(cameraName, getTimestamp(), getTargetName(target)),
+				target.getGeometry()));
 	}
 
-	public void recordTargetMoved(String cameraName, Target target, int newX, int newY) {
-		if (!ignoreTargetCheck.get()) checkTarget(cameraName, target);
+	public void recordTargetRemoved(String cameraName, Target target) {
+		final TargetGeometry geometry = target.getGeometry();
+		enqueue(new RecordedEvent(new TargetRemovedEvent(cameraName, getTimestamp(), geometry.getTargetIndex()),
+				geometry));
+	}
 
-		// Remove all move events immediately before this one
-		collapseTargetEvents(cameraName, EventType.TARGET_MOVED, target);
+	public void recordTargetResized(String cameraName, Target target, double newWidth, double newHeight) {
+		// Replaces all resize events immediately before this one
+		final TargetGeometry geometry = target.getGeometry();
+		enqueue(new RecordedEvent(
+				new TargetResizedEvent(cameraName, getTimestamp(), geometry.getTargetIndex(), newWidth, newHeight),
+				geometry));
+	}
 
-		getCameraEvents(cameraName).add(new TargetMovedEvent(cameraName, System.currentTimeMillis() - startTime,
-				target.getTargetIndex(), newX, newY));
+	public void recordTargetMoved(String cameraName, Target target, int newX, int newY) {
+		// Replaces all move events immediately before this one
+		final TargetGeometry geometry = target.getGeometry();
+		enqueue(new RecordedEvent(
+				new TargetMovedEvent(cameraName, getTimestamp(), geometry.getTargetIndex(), newX, newY), geometry));
 	}
 
 	public void recordExerciseFeedMessage(String message) {
-		// Add an event for this message to each camera
-		for (String cameraName : seenTargets.keySet()) {
-			getCameraEvents(cameraName)
-					.add(new ExerciseFeedMessageEvent(cameraName, System.currentTimeMillis() - startTime, message));
-		}
+		// Add an event for this message to each camera, the consumer drops it
+		// for cameras that have no targets
+		long timestamp = getTimestamp();
+
+		for (String cameraName : queues.keySet())
+			enqueue(new RecordedEvent(new ExerciseFeedMessageEvent(cameraName, timestamp, message)));
 	}
 }
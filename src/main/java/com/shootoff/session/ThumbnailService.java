@@ -0,0 +1,237 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.ShotRecorder;
+import com.shootoff.util.NamedThreadFactory;
+import com.xuggle.mediatool.IMediaReader;
+import com.xuggle.mediatool.MediaListenerAdapter;
+import com.xuggle.mediatool.ToolFactory;
+import com.xuggle.mediatool.event.IVideoPictureEvent;
+
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+/**
+ * Extracts a few representative frames from each shot video into a single
+ * sprite image that is cached next to the video in the session's folder. All
+ * decoding and image loading happens on one low priority background thread,
+ * finished thumbnails are handed to the JavaFX thread ready to display.
+ * 
+ * @author phrack
+ */
+public final class ThumbnailService {
+	public static final int FRAMES_PER_CLIP = 4;
+	public static final int THUMBNAIL_WIDTH = 80;
+	public static final int THUMBNAIL_HEIGHT = 60;
+
+	private static final String SPRITE_SUFFIX = "_thumbnails.png";
+
+	private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+	private static final ThreadFactory threadFactory = new NamedThreadFactory("ThumbnailService");
+	private static final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = threadFactory.newThread(r);
+		t.setPriority(Thread.MIN_PRIORITY);
+		t.setDaemon(true);
+		return t;
+	});
+
+	private ThumbnailService() {}
+
+	public static File getSpriteFile(File videoFile) {
+		String videoName = videoFile.getName();
+		int extensionStart = videoName.lastIndexOf('.');
+		if (extensionStart > 0) videoName = videoName.substring(0, extensionStart);
+
+		return new File(videoFile.getParentFile(), videoName + SPRITE_SUFFIX);
+	}
+
+	/**
+	 * Queue sprite generation for every shot video recorded in a session that
+	 * doesn't already have one. Generation is delayed long enough for the
+	 * last shot's video to finish recording.
+	 */
+	public static void generateThumbnails(SessionRecorder session) {
+		generateThumbnails(session.getEvents());
+	}
+
+	public static void generateThumbnails(Map<String, List<Event>> events) {
+		Set<File> videos = new LinkedHashSet<File>();
+
+		for (List<Event> cameraEvents : events.values()) {
+			for (Event e : cameraEvents) {
+				if (e instanceof ShotEvent) videos.addAll(((ShotEvent) e).getVideos().values());
+			}
+		}
+
+		generateThumbnails(videos);
+	}
+
+	public static void generateThumbnails(Collection<File> videos) {
+		List<File> pending = new ArrayList<File>(videos);
+
+		executorService.schedule(() -> {
+			for (File video : pending) {
+				if (!getSpriteFile(video).exists()) createSprite(video);
+			}
+		} , ShotRecorder.RECORD_LENGTH, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Load the thumbnail sprite for a video, generating it first if necessary.
+	 * The callback is run on the JavaFX thread and is not called at all if no
+	 * sprite could be created.
+	 */
+	public static void requestThumbnails(File videoFile, Consumer<Image> callback) {
+		executorService.execute(() -> {
+			File spriteFile = getSpriteFile(videoFile);
+
+			Optional<BufferedImage> sprite = Optional.empty();
+
+			if (spriteFile.exists()) {
+				try {
+					sprite = Optional.ofNullable(ImageIO.read(spriteFile));
+				} catch (IOException e) {
+					logger.error("Failed to read thumbnail sprite " + spriteFile.getPath(), e);
+				}
+			}
+
+			if (!sprite.isPresent()) sprite = createSprite(videoFile);
+
+			if (sprite.isPresent()) {
+				Image thumbnails = SwingFXUtils.toFXImage(sprite.get(), null);
+				Platform.runLater(() -> callback.accept(thumbnails));
+			}
+		});
+	}
+
+	public static void requestThumbnails(Map<String, File> videos, String cameraName, Consumer<Image> callback) {
+		if (videos.containsKey(cameraName)) {
+			requestThumbnails(videos.get(cameraName), callback);
+		} else if (!videos.isEmpty()) {
+			requestThumbnails(videos.values().iterator().next(), callback);
+		}
+	}
+
+	private static Optional<BufferedImage> createSprite(File videoFile) {
+		if (!videoFile.exists()) {
+			logger.debug("Not creating thumbnails for missing video {}", videoFile.getPath());
+			return Optional.empty();
+		}
+
+		final BufferedImage sprite = new BufferedImage(THUMBNAIL_WIDTH * FRAMES_PER_CLIP, THUMBNAIL_HEIGHT,
+				BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g2 = sprite.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		try {
+			final IMediaReader reader = ToolFactory.makeReader(videoFile.getPath());
+			final SpriteBuilder builder;
+
+			try {
+				reader.setBufferedImageTypeToGenerate(BufferedImage.TYPE_3BYTE_BGR);
+				reader.open();
+				final long duration = reader.getContainer().getDuration() / 1000; // ms
+
+				// Take frames from the middle of evenly sized slices of the
+				// video so the shot itself, which is in the middle, is included
+				builder = new SpriteBuilder(g2, duration);
+				reader.addListener(builder);
+
+				while (!builder.isComplete() && reader.readPacket() == null)
+					;
+			} finally {
+				// Otherwise a failed read leaks the native container
+				if (reader.isOpen()) reader.close();
+			}
+
+			if (builder.getFramesDrawn() == 0) return Optional.empty();
+
+			File spriteFile = getSpriteFile(videoFile);
+			File tempFile = new File(spriteFile.getPath() + ".tmp");
+			ImageIO.write(sprite, "png", tempFile);
+			if (!tempFile.renameTo(spriteFile)) {
+				logger.warn("Failed to move thumbnail sprite into place: {}", spriteFile.getPath());
+				if (!tempFile.delete()) tempFile.deleteOnExit();
+			}
+
+			return Optional.of(sprite);
+		} catch (IOException | RuntimeException e) {
+			logger.error("Failed to create thumbnails for " + videoFile.getPath(), e);
+			return Optional.empty();
+		} finally {
+			g2.dispose();
+		}
+	}
+
+	private static class SpriteBuilder extends MediaListenerAdapter {
+		private final Graphics2D g2;
+		private final long duration;
+		private int framesDrawn = 0;
+
+		public SpriteBuilder(Graphics2D g2, long duration) {
+			this.g2 = g2;
+			this.duration = duration;
+		}
+
+		@Override
+		public void onVideoPicture(IVideoPictureEvent event) {
+			if (isComplete()) return;
+
+			long nextTimestamp = (duration * (2 * framesDrawn + 1)) / (2 * FRAMES_PER_CLIP);
+			if (event.getTimeStamp(TimeUnit.MILLISECONDS) < nextTimestamp) return;
+
+			g2.drawImage(event.getImage(), framesDrawn * THUMBNAIL_WIDTH, 0, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT, null);
+			framesDrawn++;
+		}
+
+		public boolean isComplete() {
+			return framesDrawn == FRAMES_PER_CLIP;
+		}
+
+		public int getFramesDrawn() {
+			return framesDrawn;
+		}
+	}
+}
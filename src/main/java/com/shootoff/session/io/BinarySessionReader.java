@@ -0,0 +1,206 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.Event;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetMovedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+import com.shootoff.session.TargetResizedEvent;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Reads sessions written by {@link BinarySessionWriter}.
+ * 
+ * @author phrack
+ */
+public class BinarySessionReader {
+	private final Logger logger = LoggerFactory.getLogger(BinarySessionReader.class);
+
+	private final File sessionFile;
+	private final List<String> strings = new ArrayList<String>();
+
+	private ByteBuffer in;
+	private long lastTimestamp;
+	private long lastShotTimestamp;
+
+	public BinarySessionReader(File sessionFile) {
+		this.sessionFile = sessionFile;
+	}
+
+	/**
+	 * @return the session's events, or <tt>null</tt> if the session can't be
+	 *         read, e.g. because it was written by a newer version of
+	 *         ShootOFF. Part of a session is never returned.
+	 */
+	public Map<String, List<Event>> load() {
+		try {
+			in = ByteBuffer.wrap(Files.readAllBytes(sessionFile.toPath()));
+			return readSession();
+		} catch (IOException | BufferUnderflowException e) {
+			logger.error("Error reading binary session", e);
+		}
+
+		return null;
+	}
+
+	private Map<String, List<Event>> readSession() throws IOException {
+		Map<String, List<Event>> events = new HashMap<String, List<Event>>();
+
+		for (byte b : BinarySessionWriter.MAGIC) {
+			if (in.get() != b) throw new IOException("Not a binary session: " + sessionFile.getPath());
+		}
+
+		int version = in.get();
+		if (version > BinarySessionWriter.VERSION) {
+			throw new IOException(
+					String.format("Binary session %s is version %d, this version of ShootOFF can only read up to %d",
+							sessionFile.getPath(), version, BinarySessionWriter.VERSION));
+		}
+
+		byte block;
+		while ((block = in.get()) != BinarySessionWriter.END) {
+			if (block != BinarySessionWriter.CAMERA) throw new IOException("Unknown block type " + block);
+
+			String cameraName = readString();
+			List<Event> cameraEvents = new ArrayList<Event>();
+			events.put(cameraName, cameraEvents);
+
+			lastTimestamp = 0;
+			lastShotTimestamp = 0;
+
+			byte type;
+			while ((type = in.get()) != BinarySessionWriter.CAMERA_END)
+				cameraEvents.add(readEvent(cameraName, type));
+		}
+
+		return events;
+	}
+
+	private Event readEvent(String cameraName, byte type) throws IOException {
+		lastTimestamp += readSignedVarLong();
+		long timestamp = lastTimestamp;
+
+		switch (type) {
+		case BinarySessionWriter.SHOT:
+			Color c;
+
+			if (readString().equals("0xff0000ff")) {
+				c = Color.RED;
+			} else {
+				c = Color.GREEN;
+			}
+
+			double x = in.getDouble();
+			double y = in.getDouble();
+			lastShotTimestamp += readSignedVarLong();
+			Shot shot = new Shot(c, x, y, lastShotTimestamp, (int) readVarLong());
+
+			int flags = in.get();
+
+			Optional<Integer> targetIndex = Optional.empty();
+			if ((flags & BinarySessionWriter.SHOT_TARGET) != 0) targetIndex = Optional.of((int) readVarLong());
+
+			Optional<Integer> hitRegionIndex = Optional.empty();
+			if ((flags & BinarySessionWriter.SHOT_HIT_REGION) != 0) hitRegionIndex = Optional.of((int) readVarLong());
+
+			Optional<String> videoString = Optional.empty();
+			if ((flags & BinarySessionWriter.SHOT_VIDEOS) != 0) videoString = Optional.of(readString());
+
+			return new ShotEvent(cameraName, timestamp, shot, (flags & BinarySessionWriter.SHOT_MALFUNCTION) != 0,
+					(flags & BinarySessionWriter.SHOT_RELOAD) != 0, targetIndex, hitRegionIndex, videoString);
+
+		case BinarySessionWriter.TARGET_ADDED:
+			return new TargetAddedEvent(cameraName, timestamp, readString());
+
+		case BinarySessionWriter.TARGET_REMOVED:
+			return new TargetRemovedEvent(cameraName, timestamp, (int) readVarLong());
+
+		case BinarySessionWriter.TARGET_RESIZED:
+			int resizedIndex = (int) readVarLong();
+			double newWidth = in.getDouble();
+			double newHeight = in.getDouble();
+			return new TargetResizedEvent(cameraName, timestamp, resizedIndex, newWidth, newHeight);
+
+		case BinarySessionWriter.TARGET_MOVED:
+			int movedIndex = (int) readVarLong();
+			int newX = (int) readSignedVarLong();
+			int newY = (int) readSignedVarLong();
+			return new TargetMovedEvent(cameraName, timestamp, movedIndex, newX, newY);
+
+		case BinarySessionWriter.EXERCISE_FEED_MESSAGE:
+			return new ExerciseFeedMessageEvent(cameraName, timestamp, readString());
+
+		default:
+			throw new IOException("Unknown event type " + type);
+		}
+	}
+
+	private String readString() throws IOException {
+		int index = (int) readVarLong();
+
+		if (index > 0) {
+			if (index > strings.size()) throw new IOException("Unknown string " + index);
+			return strings.get(index - 1);
+		}
+
+		byte[] bytes = new byte[(int) readVarLong()];
+		in.get(bytes);
+
+		String s = new String(bytes, StandardCharsets.UTF_8);
+		strings.add(s);
+		return s;
+	}
+
+	private long readSignedVarLong() throws IOException {
+		long value = readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private long readVarLong() throws IOException {
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+
+		throw new IOException("Malformed variable length integer");
+	}
+}
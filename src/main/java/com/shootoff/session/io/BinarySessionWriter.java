@@ -0,0 +1,248 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+
+/**
+ * Writes sessions in a compact binary format. The file starts with
+ * {@link #MAGIC} and {@link #VERSION}, followed by a block per camera and an
+ * end of session byte. A camera block is {@link #CAMERA}, the camera's name
+ * and its events, ended by {@link #CAMERA_END}. Each event is its type byte,
+ * the change in timestamp since the camera's previous event and the event's
+ * fields.
+ * 
+ * Integers are written as variable length quantities, zigzag encoded when
+ * they can be negative. Strings are interned: the first use of a string is
+ * written as a zero followed by its UTF-8 bytes, later uses are written as its
+ * index in the table plus one, so colors, target names and video paths are
+ * only stored once.
+ * 
+ * @author phrack
+ */
+public class BinarySessionWriter implements EventVisitor {
+	public static final byte[] MAGIC = { 'S', 'O', 'F', 'S' };
+	public static final int VERSION = 1;
+
+	public static final byte END = 0;
+	public static final byte CAMERA = 1;
+
+	public static final byte CAMERA_END = 0;
+	public static final byte SHOT = 1;
+	public static final byte TARGET_ADDED = 2;
+	public static final byte TARGET_REMOVED = 3;
+	public static final byte TARGET_RESIZED = 4;
+	public static final byte TARGET_MOVED = 5;
+	public static final byte EXERCISE_FEED_MESSAGE = 6;
+
+	public static final int SHOT_MALFUNCTION = 1;
+	public static final int SHOT_RELOAD = 1 << 1;
+	public static final int SHOT_TARGET = 1 << 2;
+	public static final int SHOT_HIT_REGION = 1 << 3;
+	public static final int SHOT_VIDEOS = 1 << 4;
+
+	private final Logger logger = LoggerFactory.getLogger(BinarySessionWriter.class);
+
+	private final File sessionFile;
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+	private final DataOutputStream out = new DataOutputStream(body);
+	private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+	private long lastTimestamp;
+	private long lastShotTimestamp;
+
+	public BinarySessionWriter(File sessionFile) {
+		this.sessionFile = sessionFile;
+	}
+
+	@Override
+	public void visitCamera(String cameraName) {
+		lastTimestamp = 0;
+		lastShotTimestamp = 0;
+
+		try {
+			out.writeByte(CAMERA);
+			writeString(cameraName);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public void visitCameraEnd() {
+		try {
+			out.writeByte(CAMERA_END);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public void visitShot(long timestamp, Shot shot, boolean isMalfunction, boolean isReload,
+			Optional<Integer> targetIndex, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
+
+		int flags = 0;
+		if (isMalfunction) flags |= SHOT_MALFUNCTION;
+		if (isReload) flags |= SHOT_RELOAD;
+		if (targetIndex.isPresent()) flags |= SHOT_TARGET;
+		if (hitRegionIndex.isPresent()) flags |= SHOT_HIT_REGION;
+		if (videoString.isPresent()) flags |= SHOT_VIDEOS;
+
+		try {
+			writeEventStart(SHOT, timestamp);
+			writeString(shot.getColor().toString());
+			out.writeDouble(shot.getX());
+			out.writeDouble(shot.getY());
+			writeSignedVarLong(shot.getTimestamp() - lastShotTimestamp);
+			lastShotTimestamp = shot.getTimestamp();
+			writeVarLong(shot.getMarkerRadius());
+			out.writeByte(flags);
+
+			if (targetIndex.isPresent()) writeVarLong(targetIndex.get());
+			if (hitRegionIndex.isPresent()) writeVarLong(hitRegionIndex.get());
+			if (videoString.isPresent()) writeString(videoString.get());
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public void visitTargetAdd(long timestamp, String targetName) {
+		try {
+			writeEventStart(TARGET_ADDED, timestamp);
+			writeString(targetName);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public void visitTargetRemove(long timestamp, int targetIndex) {
+		try {
+			writeEventStart(TARGET_REMOVED, timestamp);
+			writeVarLong(targetIndex);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public void visitTargetResize(long timestamp, int targetIndex, double newWidth, double newHeight) {
+		try {
+			writeEventStart(TARGET_RESIZED, timestamp);
+			writeVarLong(targetIndex);
+			out.writeDouble(newWidth);
+			out.writeDouble(newHeight);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public void visitTargetMove(long timestamp, int targetIndex, int newX, int newY) {
+		try {
+			writeEventStart(TARGET_MOVED, timestamp);
+			writeVarLong(targetIndex);
+			writeSignedVarLong(newX);
+			writeSignedVarLong(newY);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public void visitExerciseFeedMessage(long timestamp, String message) {
+		try {
+			writeEventStart(EXERCISE_FEED_MESSAGE, timestamp);
+			writeString(message);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+		}
+	}
+
+	@Override
+	public boolean visitEnd() {
+		File sessionsFolder = sessionFile.getAbsoluteFile().getParentFile();
+		if (!sessionsFolder.exists() && !sessionsFolder.mkdirs()) {
+			logger.error("Failed to make directory to store sessions: {}", sessionsFolder.getPath());
+		}
+
+		try (OutputStream file = new FileOutputStream(sessionFile)) {
+			out.writeByte(END);
+
+			file.write(MAGIC);
+			file.write(VERSION);
+			body.writeTo(file);
+		} catch (IOException e) {
+			logger.error("Error writing binary session", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	private void writeEventStart(byte type, long timestamp) throws IOException {
+		out.writeByte(type);
+		writeSignedVarLong(timestamp - lastTimestamp);
+		lastTimestamp = timestamp;
+	}
+
+	private void writeString(String s) throws IOException {
+		Integer index = strings.get(s);
+
+		if (index != null) {
+			writeVarLong(index + 1);
+			return;
+		}
+
+		strings.put(s, strings.size());
+
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(0);
+		writeVarLong(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeSignedVarLong(long value) throws IOException {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	private void writeVarLong(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		out.writeByte((int) value);
+	}
+}
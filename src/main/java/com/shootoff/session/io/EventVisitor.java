@@ -40,5 +40,9 @@ public interface EventVisitor {
 
 	public void visitExerciseFeedMessage(long timestamp, String message);
 
-	public void visitEnd();
+	/**
+	 * @return <tt>true</tt> if everything visited was written, <tt>false</tt>
+	 *         if writing failed
+	 */
+	public boolean visitEnd();
 }
@@ -80,76 +80,8 @@ public class JSONSessionReader {
 				while (itEvents.hasNext()) {
 					JSONObject event = itEvents.next();
 
-					String eventType = (String) event.get("type");
-
-					switch (eventType) {
-					case "shot":
-						Color c;
-
-						if (event.get("color").equals("0xff0000ff")) {
-							c = Color.RED;
-						} else {
-							c = Color.GREEN;
-						}
-
-						Shot shot = new Shot(c, (double) event.get("x"), (double) event.get("y"),
-								(Long) event.get("shotTimestamp"), ((Long) event.get("markerRadius")).intValue());
-
-						boolean isMalfunction = (boolean) event.get("isMalfunction");
-
-						boolean isReload = (boolean) event.get("isReload");
-
-						Optional<Integer> targetIndex;
-						int index = ((Long) event.get("targetIndex")).intValue();
-						if (index == -1) {
-							targetIndex = Optional.empty();
-						} else {
-							targetIndex = Optional.of(index);
-						}
-
-						Optional<Integer> hitRegionIndex;
-						index = ((Long) event.get("hitRegionIndex")).intValue();
-						if (index == -1) {
-							hitRegionIndex = Optional.empty();
-						} else {
-							hitRegionIndex = Optional.of(index);
-						}
-
-						Optional<String> videoString = Optional.ofNullable((String) event.get("videos"));
-
-						events.get(cameraName).add(new ShotEvent(cameraName, (Long) event.get("timestamp"), shot,
-								isMalfunction, isReload, targetIndex, hitRegionIndex, videoString));
-						break;
-
-					case "targetAdded":
-						events.get(cameraName).add(new TargetAddedEvent(cameraName, (Long) event.get("timestamp"),
-								(String) event.get("name")));
-						break;
-
-					case "targetRemoved":
-						events.get(cameraName).add(new TargetRemovedEvent(cameraName, (Long) event.get("timestamp"),
-								((Long) event.get("index")).intValue()));
-						break;
-
-					case "targetResized":
-						events.get(cameraName)
-								.add(new TargetResizedEvent(cameraName, (Long) event.get("timestamp"),
-										((Long) event.get("index")).intValue(), (Double) event.get("newWidth"),
-										(Double) event.get("newHeight")));
-						break;
-
-					case "targetMoved":
-						events.get(cameraName)
-								.add(new TargetMovedEvent(cameraName, (Long) event.get("timestamp"),
-										((Long) event.get("index")).intValue(), ((Long) event.get("newX")).intValue(),
-										((Long) event.get("newY")).intValue()));
-						break;
-
-					case "exerciseFeedMessage":
-						events.get(cameraName).add(new ExerciseFeedMessageEvent(cameraName,
-								(Long) event.get("timestamp"), (String) event.get("message")));
-						break;
-					}
+					Optional<Event> e = readEvent(cameraName, event);
+					if (e.isPresent()) events.get(cameraName).add(e.get());
 				}
 			}
 
@@ -159,4 +91,73 @@ public class JSONSessionReader {
 
 		return events;
 	}
+
+	// Event fields match the ones written by JSONSessionWriter, which is also
+	// how SessionJournal records each event
+	static Optional<Event> readEvent(String cameraName, JSONObject event) {
+		String eventType = (String) event.get("type");
+
+		switch (eventType) {
+		case "shot":
+			Color c;
+
+			if (event.get("color").equals("0xff0000ff")) {
+				c = Color.RED;
+			} else {
+				c = Color.GREEN;
+			}
+
+			Shot shot = new Shot(c, (double) event.get("x"), (double) event.get("y"),
+					(Long) event.get("shotTimestamp"), ((Long) event.get("markerRadius")).intValue());
+
+			boolean isMalfunction = (boolean) event.get("isMalfunction");
+
+			boolean isReload = (boolean) event.get("isReload");
+
+			Optional<Integer> targetIndex;
+			int index = ((Long) event.get("targetIndex")).intValue();
+			if (index == -1) {
+				targetIndex = Optional.empty();
+			} else {
+				targetIndex = Optional.of(index);
+			}
+
+			Optional<Integer> hitRegionIndex;
+			index = ((Long) event.get("hitRegionIndex")).intValue();
+			if (index == -1) {
+				hitRegionIndex = Optional.empty();
+			} else {
+				hitRegionIndex = Optional.of(index);
+			}
+
+			Optional<String> videoString = Optional.ofNullable((String) event.get("videos"));
+
+			return Optional.of(new ShotEvent(cameraName, (Long) event.get("timestamp"), shot, isMalfunction,
+					isReload, targetIndex, hitRegionIndex, videoString));
+
+		case "targetAdded":
+			return Optional.of(new TargetAddedEvent(cameraName, (Long) event.get("timestamp"),
+					(String) event.get("name")));
+
+		case "targetRemoved":
+			return Optional.of(new TargetRemovedEvent(cameraName, (Long) event.get("timestamp"),
+					((Long) event.get("index")).intValue()));
+
+		case "targetResized":
+			return Optional.of(new TargetResizedEvent(cameraName, (Long) event.get("timestamp"),
+					((Long) event.get("index")).intValue(), (Double) event.get("newWidth"),
+					(Double) event.get("newHeight")));
+
+		case "targetMoved":
+			return Optional.of(new TargetMovedEvent(cameraName, (Long) event.get("timestamp"),
+					((Long) event.get("index")).intValue(), ((Long) event.get("newX")).intValue(),
+					((Long) event.get("newY")).intValue()));
+
+		case "exerciseFeedMessage":
+			return Optional.of(new ExerciseFeedMessageEvent(cameraName, (Long) event.get("timestamp"),
+					(String) event.get("message")));
+		}
+
+		return Optional.empty();
+	}
 }
@@ -72,7 +72,7 @@ public class JSONSessionWriter implements EventVisitor {
 		event.put("x", shot.getX());
 		event.put("y", shot.getY());
 		event.put("shotTimestamp", shot.getTimestamp());
-		event.put("markerRadius", (int) shot.getMarker().getRadiusX());
+		event.put("markerRadius", shot.getMarkerRadius());
 		event.put("isMalfunction", isMalfunction);
 		event.put("isReload", isReload);
 
@@ -156,16 +156,18 @@ public class JSONSessionWriter implements EventVisitor {
 
 	@SuppressWarnings("unchecked")
 	@Override
-	public void visitEnd() {
+	public boolean visitEnd() {
 		JSONObject session = new JSONObject();
 		session.put("cameras", cameras);
 
 		Writer file = null;
+		boolean isWritten = false;
 
 		try {
 			file = new OutputStreamWriter(new FileOutputStream(sessionFile), "UTF-8");
 			file.write(session.toJSONString());
 			file.flush();
+			isWritten = true;
 		} catch (IOException e) {
 			logger.error("Error writing JSON session", e);
 		} finally {
@@ -173,8 +175,11 @@ public class JSONSessionWriter implements EventVisitor {
 				if (file != null) file.close();
 			} catch (IOException e) {
 				logger.error("Error closing JSON session", e);
+				isWritten = false;
 			}
 
 		}
+
+		return isWritten;
 	}
 }
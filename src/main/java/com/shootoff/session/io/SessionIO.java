@@ -19,10 +19,16 @@
 package com.shootoff.session.io;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.shootoff.session.Event;
 import com.shootoff.session.ExerciseFeedMessageEvent;
 import com.shootoff.session.SessionRecorder;
@@ -33,61 +39,81 @@ import com.shootoff.session.TargetRemovedEvent;
 import com.shootoff.session.TargetResizedEvent;
 
 public class SessionIO {
-	public static void saveSession(SessionRecorder sessionRecorder, File sessionFile) {
+	private static final Logger logger = LoggerFactory.getLogger(SessionIO.class);
+
+	/**
+	 * @return <tt>true</tt> if the session was written to
+	 *         <code>sessionFile</code>
+	 */
+	public static boolean saveSession(SessionRecorder sessionRecorder, File sessionFile) {
+		return saveSession(sessionRecorder.getEvents(), sessionFile);
+	}
+
+	/**
+	 * @return <tt>true</tt> if the session was written to
+	 *         <code>sessionFile</code>
+	 */
+	public static boolean saveSession(Map<String, List<Event>> events, File sessionFile) {
 		EventVisitor visitor;
 
 		if (sessionFile.getName().endsWith("xml")) {
 			visitor = new XMLSessionWriter(sessionFile);
 		} else if (sessionFile.getName().endsWith("json")) {
 			visitor = new JSONSessionWriter(sessionFile);
+		} else if (sessionFile.getName().endsWith("bin")) {
+			visitor = new BinarySessionWriter(sessionFile);
 		} else {
 			System.err.println("Unknown session file type.");
-			return;
+			return false;
 		}
 
-		for (String cameraName : sessionRecorder.getEvents().keySet()) {
-			visitor.visitCamera(cameraName);
-
-			for (Event e : sessionRecorder.getCameraEvents(cameraName)) {
-				switch (e.getType()) {
-				case SHOT:
-					ShotEvent se = (ShotEvent) e;
-					visitor.visitShot(se.getTimestamp(), se.getShot(), se.isMalfunction(), se.isReload(),
-							se.getTargetIndex(), se.getHitRegionIndex(), se.getVideoString());
-					break;
-
-				case TARGET_ADDED:
-					TargetAddedEvent tae = (TargetAddedEvent) e;
-					visitor.visitTargetAdd(tae.getTimestamp(), tae.getTargetName());
-					break;
-
-				case TARGET_REMOVED:
-					TargetRemovedEvent tre = (TargetRemovedEvent) e;
-					visitor.visitTargetRemove(tre.getTimestamp(), tre.getTargetIndex());
-					break;
-
-				case TARGET_RESIZED:
-					TargetResizedEvent trre = (TargetResizedEvent) e;
-					visitor.visitTargetResize(trre.getTimestamp(), trre.getTargetIndex(), trre.getNewWidth(),
-							trre.getNewHeight());
-					break;
-
-				case TARGET_MOVED:
-					TargetMovedEvent tme = (TargetMovedEvent) e;
-					visitor.visitTargetMove(tme.getTimestamp(), tme.getTargetIndex(), tme.getNewX(), tme.getNewY());
-					break;
-
-				case EXERCISE_FEED_MESSAGE:
-					ExerciseFeedMessageEvent pfme = (ExerciseFeedMessageEvent) e;
-					visitor.visitExerciseFeedMessage(pfme.getTimestamp(), pfme.getMessage());
-					break;
-				}
+		for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+			visitor.visitCamera(cameraEvents.getKey());
+
+			for (Event e : cameraEvents.getValue()) {
+				visitEvent(visitor, e);
 			}
 
 			visitor.visitCameraEnd();
 		}
 
-		visitor.visitEnd();
+		return visitor.visitEnd();
+	}
+
+	static void visitEvent(EventVisitor visitor, Event e) {
+		switch (e.getType()) {
+		case SHOT:
+			ShotEvent se = (ShotEvent) e;
+			visitor.visitShot(se.getTimestamp(), se.getShot(), se.isMalfunction(), se.isReload(),
+					se.getTargetIndex(), se.getHitRegionIndex(), se.getVideoString());
+			break;
+
+		case TARGET_ADDED:
+			TargetAddedEvent tae = (TargetAddedEvent) e;
+			visitor.visitTargetAdd(tae.getTimestamp(), tae.getTargetName());
+			break;
+
+		case TARGET_REMOVED:
+			TargetRemovedEvent tre = (TargetRemovedEvent) e;
+			visitor.visitTargetRemove(tre.getTimestamp(), tre.getTargetIndex());
+			break;
+
+		case TARGET_RESIZED:
+			TargetResizedEvent trre = (TargetResizedEvent) e;
+			visitor.visitTargetResize(trre.getTimestamp(), trre.getTargetIndex(), trre.getNewWidth(),
+					trre.getNewHeight());
+			break;
+
+		case TARGET_MOVED:
+			TargetMovedEvent tme = (TargetMovedEvent) e;
+			visitor.visitTargetMove(tme.getTimestamp(), tme.getTargetIndex(), tme.getNewX(), tme.getNewY());
+			break;
+
+		case EXERCISE_FEED_MESSAGE:
+			ExerciseFeedMessageEvent pfme = (ExerciseFeedMessageEvent) e;
+			visitor.visitExerciseFeedMessage(pfme.getTimestamp(), pfme.getMessage());
+			break;
+		}
 	}
 
 	public static Optional<SessionRecorder> loadSession(File sessionFile) {
@@ -97,6 +123,8 @@ public class SessionIO {
 			events = new XMLSessionReader(sessionFile).load();
 		} else if (sessionFile.getName().endsWith("json")) {
 			events = new JSONSessionReader(sessionFile).load();
+		} else if (sessionFile.getName().endsWith("bin")) {
+			events = new BinarySessionReader(sessionFile).load();
 		} else {
 			System.err.println("Unknown session file type.");
 			return Optional.empty();
@@ -110,4 +138,54 @@ public class SessionIO {
 			return Optional.of(sessionRecorder);
 		}
 	}
+
+	/**
+	 * @return the session journals in <code>sessionsFolder</code>
+	 */
+	public static List<File> findJournals(File sessionsFolder) {
+		File[] journalFiles = sessionsFolder.listFiles(
+				(dir, name) -> name.endsWith("." + SessionJournal.FILE_EXTENSION));
+
+		if (journalFiles == null) return Collections.emptyList();
+
+		return Arrays.asList(journalFiles);
+	}
+
+	public static void recoverJournals(File sessionsFolder) {
+		recoverJournals(sessionsFolder, findJournals(sessionsFolder));
+	}
+
+	/**
+	 * Save the sessions left in journals by a previous run that didn't stop
+	 * recording cleanly, for example because it crashed. Each is saved as an
+	 * XML session with the journal's name and the journal is deleted once the
+	 * session was written. Journals that can't be saved are kept so that they
+	 * can be recovered later.
+	 * 
+	 * This reads and writes whole sessions, so it should not be called on the
+	 * JavaFX thread. Only pass journals that no recorder is still writing to.
+	 */
+	public static void recoverJournals(File sessionsFolder, List<File> journalFiles) {
+		for (File journalFile : journalFiles) {
+			String journalName = journalFile.getName();
+			String sessionName = journalName.substring(0,
+					journalName.length() - SessionJournal.FILE_EXTENSION.length() - 1);
+
+			try {
+				SessionRecorder sessionRecorder = new SessionRecorder();
+				sessionRecorder.addEvents(SessionJournal.replay(journalFile));
+				if (!saveSession(sessionRecorder, new File(sessionsFolder, sessionName + ".xml"))) {
+					logger.error("Failed to save recovered session {}, keeping its journal", sessionName);
+					continue;
+				}
+
+				logger.info("Recovered session {} from its journal", sessionName);
+			} catch (IOException e) {
+				logger.error("Error recovering session journal " + journalFile.getPath(), e);
+				continue;
+			}
+
+			if (!journalFile.delete()) logger.warn("Failed to delete session journal: {}", journalFile.getPath());
+		}
+	}
 }
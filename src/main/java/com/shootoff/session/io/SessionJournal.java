@@ -0,0 +1,315 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.Event;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.util.NamedThreadFactory;
+
+/**
+ * An append-only log of the events recorded during a session. Each event is
+ * written as one line of JSON using the same fields as the JSON session
+ * format. Appending only copies the line into a buffer, the buffer is written
+ * and synced to disk on a background thread every commit interval so that
+ * recording never waits on the disk. After an unclean shutdown
+ * {@link #replay(File)} recovers every event up to the last complete line.
+ * 
+ * @author phrack
+ */
+public class SessionJournal implements Closeable {
+	public static final String FILE_EXTENSION = "journal";
+	public static final long DEFAULT_COMMIT_INTERVAL = 250; // ms
+
+	private static final Logger logger = LoggerFactory.getLogger(SessionJournal.class);
+
+	private final File journalFile;
+	private final FileChannel channel;
+	private final OutputStream channelStream;
+	private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = new NamedThreadFactory("SessionJournal").newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final Object pendingLock = new Object();
+	private final Object commitLock = new Object();
+	// Events are appended to pending while spare is being written, the two
+	// are swapped on each commit so their buffers are reused
+	private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private ByteArrayOutputStream spare = new ByteArrayOutputStream();
+	private volatile boolean closed = false;
+
+	public SessionJournal(File journalFile) throws IOException {
+		this(journalFile, DEFAULT_COMMIT_INTERVAL);
+	}
+
+	public SessionJournal(File journalFile, long commitInterval /* ms */) throws IOException {
+		this.journalFile = journalFile;
+
+		File journalFolder = journalFile.getAbsoluteFile().getParentFile();
+		if (!journalFolder.exists() && !journalFolder.mkdirs()) {
+			throw new IOException("Failed to make directory to store session journal: " + journalFolder.getPath());
+		}
+
+		channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		channelStream = Channels.newOutputStream(channel);
+
+		committer.scheduleWithFixedDelay(this::commit, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+	}
+
+	public File getJournalFile() {
+		return journalFile;
+	}
+
+	public void append(Event event) {
+		if (closed) {
+			logger.warn("Dropped {} event recorded after the session journal was closed", event.getType());
+			return;
+		}
+
+		byte[] line = (encode(event).toJSONString() + "\n").getBytes(StandardCharsets.UTF_8);
+
+		synchronized (pendingLock) {
+			pending.write(line, 0, line.length);
+		}
+	}
+
+	/**
+	 * Write every event appended so far and wait for them to reach the disk.
+	 */
+	public void commit() {
+		synchronized (commitLock) {
+			if (!channel.isOpen()) return;
+
+			ByteArrayOutputStream committing;
+
+			synchronized (pendingLock) {
+				if (pending.size() == 0) return;
+
+				committing = pending;
+				pending = spare;
+				spare = committing;
+			}
+
+			try {
+				committing.writeTo(channelStream);
+				channel.force(false);
+			} catch (IOException e) {
+				logger.error("Error writing session journal", e);
+			} finally {
+				committing.reset();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+
+		committer.shutdown();
+
+		synchronized (commitLock) {
+			commit();
+
+			try {
+				channel.close();
+			} catch (IOException e) {
+				logger.error("Error closing session journal", e);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject encode(Event event) {
+		JSONObject record = new JSONObject();
+		record.put("camera", event.getCameraName());
+
+		SessionIO.visitEvent(new RecordEncoder(record), event);
+
+		return record;
+	}
+
+	/**
+	 * Read back every complete event in a journal. A journal left behind by a
+	 * crash can end in a partially written line, it and anything after it are
+	 * ignored.
+	 */
+	public static Map<String, List<Event>> replay(File journalFile) throws IOException {
+		Map<String, List<Event>> events = new HashMap<String, List<Event>>();
+		JSONParser parser = new JSONParser();
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int lineCount = 0;
+
+		try (InputStream in = new BufferedInputStream(new FileInputStream(journalFile))) {
+			int b;
+
+			while ((b = in.read()) != -1) {
+				if (b != '\n') {
+					line.write(b);
+					continue;
+				}
+
+				lineCount++;
+				Optional<Event> event = decode(parser, new String(line.toByteArray(), StandardCharsets.UTF_8));
+				line.reset();
+
+				if (!event.isPresent()) {
+					logger.warn("Session journal {} is corrupt at line {}, ignoring the rest of it",
+							journalFile.getPath(), lineCount);
+					return events;
+				}
+
+				List<Event> cameraEvents = events.get(event.get().getCameraName());
+				if (cameraEvents == null) {
+					cameraEvents = new ArrayList<Event>();
+					events.put(event.get().getCameraName(), cameraEvents);
+				}
+
+				// Collapse moves and resizes the same way the recorder did
+				SessionRecorder.appendEvent(cameraEvents, event.get());
+			}
+		}
+
+		if (line.size() > 0) {
+			logger.warn("Session journal {} ends with an incomplete event, it was ignored", journalFile.getPath());
+		}
+
+		return events;
+	}
+
+	private static Optional<Event> decode(JSONParser parser, String line) {
+		try {
+			JSONObject record = (JSONObject) parser.parse(line);
+			return JSONSessionReader.readEvent((String) record.get("camera"), record);
+		} catch (ParseException | ClassCastException | NullPointerException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static class RecordEncoder implements EventVisitor {
+		private final JSONObject record;
+
+		public RecordEncoder(JSONObject record) {
+			this.record = record;
+		}
+
+		@Override
+		public void visitCamera(String cameraName) {}
+
+		@Override
+		public void visitCameraEnd() {}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void visitShot(long timestamp, Shot shot, boolean isMalfunction, boolean isReload,
+				Optional<Integer> targetIndex, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
+			record.put("type", "shot");
+			record.put("timestamp", timestamp);
+			record.put("color", shot.getColor().toString());
+			record.put("x", shot.getX());
+			record.put("y", shot.getY());
+			record.put("shotTimestamp", shot.getTimestamp());
+			record.put("markerRadius", shot.getMarkerRadius());
+			record.put("isMalfunction", isMalfunction);
+			record.put("isReload", isReload);
+			record.put("targetIndex", targetIndex.orElse(-1));
+			record.put("hitRegionIndex", hitRegionIndex.orElse(-1));
+			if (videoString.isPresent()) record.put("videos", videoString.get());
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void visitTargetAdd(long timestamp, String targetName) {
+			record.put("type", "targetAdded");
+			record.put("timestamp", timestamp);
+			record.put("name", targetName);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void visitTargetRemove(long timestamp, int targetIndex) {
+			record.put("type", "targetRemoved");
+			record.put("timestamp", timestamp);
+			record.put("index", targetIndex);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void visitTargetResize(long timestamp, int targetIndex, double newWidth, double newHeight) {
+			record.put("type", "targetResized");
+			record.put("timestamp", timestamp);
+			record.put("index", targetIndex);
+			record.put("newWidth", newWidth);
+			record.put("newHeight", newHeight);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void visitTargetMove(long timestamp, int targetIndex, int newX, int newY) {
+			record.put("type", "targetMoved");
+			record.put("timestamp", timestamp);
+			record.put("index", targetIndex);
+			record.put("newX", newX);
+			record.put("newY", newY);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void visitExerciseFeedMessage(long timestamp, String message) {
+			record.put("type", "exerciseFeedMessage");
+			record.put("timestamp", timestamp);
+			record.put("message", message);
+		}
+
+		@Override
+		public boolean visitEnd() {
+			return true;
+		}
+	}
+}
@@ -72,7 +72,7 @@ public class XMLSessionWriter implements EventVisitor {
 							+ " x=\"%f\" y=\"%f\" shotTimestamp=\"%d\" markerRadius=\"%d\" isMalfunction=\"%b\""
 							+ " isReload=\"%b\" targetIndex=\"%d\" hitRegionIndex=\"%d\" videos=\"%s\" />%n",
 					timestamp, shot.getColor().toString(), shot.getX(), shot.getY(), shot.getTimestamp(),
-					(int) shot.getMarker().getRadiusX(), isMalfunction, isReload, targIndex, hitRegIndex,
+					shot.getMarkerRadius(), isMalfunction, isReload, targIndex, hitRegIndex,
 					videoString.get()));
 
 		} else {
@@ -81,7 +81,7 @@ public class XMLSessionWriter implements EventVisitor {
 							+ " x=\"%f\" y=\"%f\" shotTimestamp=\"%d\" markerRadius=\"%d\" isMalfunction=\"%b\""
 							+ " isReload=\"%b\" targetIndex=\"%d\" hitRegionIndex=\"%d\" />%n",
 					timestamp, shot.getColor().toString(), shot.getX(), shot.getY(), shot.getTimestamp(),
-					(int) shot.getMarker().getRadiusX(), isMalfunction, isReload, targIndex, hitRegIndex));
+					shot.getMarkerRadius(), isMalfunction, isReload, targIndex, hitRegIndex));
 		}
 	}
 
@@ -115,7 +115,7 @@ public class XMLSessionWriter implements EventVisitor {
 	}
 
 	@Override
-	public void visitEnd() {
+	public boolean visitEnd() {
 		try {
 			File sessionsFolder = new File(System.getProperty("shootoff.sessions"));
 			if (!sessionsFolder.exists()) {
@@ -133,8 +133,16 @@ public class XMLSessionWriter implements EventVisitor {
 
 			out.close();
 
+			// PrintWriter doesn't throw when a write fails
+			if (out.checkError()) {
+				logger.error("Error writing XML session: {}", sessionFile.getPath());
+				return false;
+			}
+
+			return true;
 		} catch (IOException e) {
 			logger.error("Error writing XML session", e);
+			return false;
 		}
 	}
 }
@@ -20,11 +20,15 @@ package com.shootoff.targets;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+
+import com.shootoff.gui.CommandTag;
 
 import javafx.scene.shape.Ellipse;
 
 public class EllipseRegion extends Ellipse implements TargetRegion {
 	private final Map<String, String> tags = new HashMap<String, String>();
+	private CommandTag commandTag = null;
 
 	public EllipseRegion(double centerX, double centerY, double radiusX, double radiusY) {
 
@@ -66,4 +70,18 @@ public class EllipseRegion extends Ellipse implements TargetRegion {
 		tags.clear();
 		tags.putAll(newTags);
 	}
+
+	@Override
+	public Optional<CommandTag> getCommandTag() {
+		if (!tags.containsKey("command")) return Optional.empty();
+
+		commandTag = CommandTag.parseIfChanged(commandTag, tags.get("command"));
+
+		return Optional.of(commandTag);
+	}
+
+	@Override
+	public void setCommandTag(CommandTag commandTag) {
+		this.commandTag = commandTag;
+	}
 }
@@ -0,0 +1,590 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.targets;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.util.NamedThreadFactory;
+
+import javafx.collections.ObservableList;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Transform;
+
+/**
+ * A compiled map from the pixels covered by a target to the index of the
+ * topmost region drawn at each pixel. The raster is built at the target's
+ * current display size, so a hit test is a single array lookup no matter how
+ * many regions the target has or how large its images are.
+ * 
+ * Rasters are immutable. A {@link Source} captures the geometry of a target
+ * group on the caller's thread and is compiled into a raster on a background
+ * thread. Until the raster is ready the source can answer hit tests itself.
+ * Moving a target does not invalidate its raster, only resizing it or
+ * changing what its regions look like does.
+ * 
+ * @author phrack
+ */
+public final class HitRaster {
+	public static final int NO_REGION = -1;
+
+	// Larger targets are hit tested using their source
+	private static final int MAX_PIXELS = 2048 * 2048;
+
+	private static final Logger logger = LoggerFactory.getLogger(HitRaster.class);
+
+	private static final ExecutorService compilerExecutor = Executors.newSingleThreadExecutor((r) -> {
+		Thread t = new NamedThreadFactory("HitRasterCompiler").newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+
+	private static final Map<Image, int[]> imagePixels = Collections.synchronizedMap(new WeakHashMap<Image, int[]>());
+
+	private final long version;
+	private final double originX, originY;
+	private final double minX, minY;
+	private final int width, height;
+	private final short[] regions;
+
+	private HitRaster(Source source, short[] regions) {
+		this.version = source.version;
+		this.originX = source.originX;
+		this.originY = source.originY;
+		this.minX = source.minX;
+		this.minY = source.minY;
+		this.width = source.width;
+		this.height = source.height;
+		this.regions = regions;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Find the region hit at a point in the target's parent.
+	 * 
+	 * @param x
+	 *            the x coordinate in the target group's parent
+	 * @param y
+	 *            the y coordinate in the target group's parent
+	 * @param currentOriginX
+	 *            the target group's current layoutX + translateX, used to
+	 *            account for moves since the raster was compiled
+	 * @param currentOriginY
+	 *            the target group's current layoutY + translateY
+	 * @return the index of the hit region in the target group's children or
+	 *         {@link #NO_REGION}
+	 */
+	public int getRegionIndex(double x, double y, double currentOriginX, double currentOriginY) {
+		int rasterX = (int) Math.floor(x - getMinX(currentOriginX));
+		int rasterY = (int) Math.floor(y - getMinY(currentOriginY));
+
+		if (rasterX < 0 || rasterY < 0 || rasterX >= width || rasterY >= height) return NO_REGION;
+
+		return regions[rasterY * width + rasterX] - 1;
+	}
+
+	public double getMinX(double currentOriginX) {
+		return minX + (currentOriginX - originX);
+	}
+
+	public double getMinY(double currentOriginY) {
+		return minY + (currentOriginY - originY);
+	}
+
+	/**
+	 * Compile a raster on the shared background compiler thread. Compilation
+	 * is skipped if <code>currentVersion</code> shows the source is already
+	 * stale when its turn comes, and <code>onCompiled</code> is not called if
+	 * the raster could not be built.
+	 */
+	public static void compileAsync(Source source, LongSupplier currentVersion, Consumer<HitRaster> onCompiled) {
+		compilerExecutor.execute(() -> {
+			if (source.version != currentVersion.getAsLong()) return;
+
+			try {
+				HitRaster raster = source.compile();
+				if (raster != null) onCompiled.accept(raster);
+			} catch (RuntimeException e) {
+				logger.error("Failed to compile hit raster", e);
+			}
+		});
+	}
+
+	/**
+	 * Capture everything needed to compile a raster for a target group. This
+	 * reads scene graph state and should be called from the thread that
+	 * modifies the group.
+	 */
+	public static Source capture(Group targetGroup, long version) {
+		return new Source(targetGroup, version);
+	}
+
+	private static int[] getPixels(Image image) {
+		int[] pixels = imagePixels.get(image);
+		if (pixels != null) return pixels;
+
+		PixelReader reader = image.getPixelReader();
+		if (reader == null) return null;
+
+		int w = (int) image.getWidth();
+		int h = (int) image.getHeight();
+		pixels = new int[w * h];
+		reader.getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), pixels, 0, w);
+		imagePixels.put(image, pixels);
+
+		return pixels;
+	}
+
+	private static class CapturedRegion {
+		private final AffineTransform localToRaster;
+		private final AffineTransform rasterToLocal;
+		private final Shape shape;
+		private final java.awt.Color fill;
+		private final int[] pixels;
+		private final int imageWidth, imageHeight;
+		private final Rectangle2D sourceRect;
+		private final Bounds localBounds;
+		private BufferedImage image = null;
+
+		public CapturedRegion(AffineTransform localToRaster, Shape shape, java.awt.Color fill) {
+			this.localToRaster = localToRaster;
+			this.rasterToLocal = invert(localToRaster);
+			this.shape = shape;
+			this.fill = fill;
+			this.pixels = null;
+			this.imageWidth = 0;
+			this.imageHeight = 0;
+			this.sourceRect = null;
+			this.localBounds = null;
+		}
+
+		public CapturedRegion(AffineTransform localToRaster, Image image, Rectangle2D sourceRect,
+				Bounds localBounds) {
+			this.localToRaster = localToRaster;
+			this.rasterToLocal = invert(localToRaster);
+			this.shape = null;
+			this.fill = null;
+			this.pixels = getPixels(image);
+			this.imageWidth = (int) image.getWidth();
+			this.imageHeight = (int) image.getHeight();
+			this.sourceRect = sourceRect;
+			this.localBounds = localBounds;
+		}
+
+		private static AffineTransform invert(AffineTransform transform) {
+			try {
+				return transform.createInverse();
+			} catch (NoninvertibleTransformException e) {
+				return null;
+			}
+		}
+
+		public boolean isImage() {
+			return shape == null;
+		}
+
+		/**
+		 * @return the region's image wrapped around its captured pixels, or
+		 *         <code>null</code> if they couldn't be read
+		 */
+		public synchronized BufferedImage getImage() {
+			if (image != null || pixels == null) return image;
+
+			DirectColorModel colorModel = (DirectColorModel) ColorModel.getRGBdefault();
+			WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length), imageWidth,
+					imageHeight, imageWidth, colorModel.getMasks(), null);
+			image = new BufferedImage(colorModel, raster, false, null);
+
+			return image;
+		}
+
+		/**
+		 * @return <code>true</code> if the region covers a point given in
+		 *         raster coordinates
+		 */
+		public boolean contains(Point2D.Double point) {
+			if (rasterToLocal == null) return false;
+
+			rasterToLocal.transform(point, point);
+
+			if (!isImage()) return shape.contains(point);
+
+			return containsImagePixel(point.x, point.y);
+		}
+
+		private boolean containsImagePixel(double localX, double localY) {
+			Bounds lb = localBounds;
+			Rectangle2D src = sourceRect;
+			if (lb.getWidth() <= 0 || lb.getHeight() <= 0) return false;
+
+			int imageX = (int) Math.floor(src.getMinX() + (localX - lb.getMinX()) * (src.getWidth() / lb.getWidth()));
+			int imageY = (int) Math
+					.floor(src.getMinY() + (localY - lb.getMinY()) * (src.getHeight() / lb.getHeight()));
+
+			if (imageX < src.getMinX() || imageY < src.getMinY() || imageX >= src.getMaxX() || imageY >= src.getMaxY()
+					|| imageX < 0 || imageY < 0 || imageX >= imageWidth || imageY >= imageHeight)
+				return false;
+
+			// Images that couldn't be read are treated as opaque
+			if (pixels == null) return true;
+
+			return (pixels[imageY * imageWidth + imageX] >>> 24) != 0;
+		}
+	}
+
+	/**
+	 * An immutable copy of the geometry of a target group: its bounds and the
+	 * shape, fill, transform and current animation frame of each of its
+	 * regions.
+	 * Once captured a source can be used from any thread, either to compile a
+	 * raster or to find hits directly.
+	 */
+	public static final class Source {
+		private final long version;
+		private final double originX, originY;
+		private final double minX, minY;
+		private final int width, height;
+		private final double[] regionMinX, regionMinY;
+		private final List<CapturedRegion> regions = new ArrayList<CapturedRegion>();
+		private final List<TargetRegion> targetRegions = new ArrayList<TargetRegion>();
+		private final boolean visible;
+
+		private Source(Group targetGroup, long version) {
+			this.version = version;
+			this.visible = targetGroup.isVisible();
+
+			Bounds targetBounds = targetGroup.getBoundsInParent();
+			originX = targetGroup.getLayoutX() + targetGroup.getTranslateX();
+			originY = targetGroup.getLayoutY() + targetGroup.getTranslateY();
+			minX = targetBounds.getMinX();
+			minY = targetBounds.getMinY();
+			width = (int) Math.ceil(targetBounds.getWidth());
+			height = (int) Math.ceil(targetBounds.getHeight());
+
+			ObservableList<Node> children = targetGroup.getChildren();
+			regionMinX = new double[children.size()];
+			regionMinY = new double[children.size()];
+
+			Transform groupTransform = targetGroup.getLocalToParentTransform();
+
+			for (int i = 0; i < children.size(); i++) {
+				Node node = children.get(i);
+
+				targetRegions.add(node instanceof TargetRegion ? (TargetRegion) node : null);
+
+				Bounds nodeBounds = groupTransform.transform(node.getBoundsInParent());
+				regionMinX[i] = nodeBounds.getMinX();
+				regionMinY[i] = nodeBounds.getMinY();
+
+				Transform t = groupTransform.createConcatenation(node.getLocalToParentTransform());
+				AffineTransform localToRaster = AffineTransform.getTranslateInstance(-minX, -minY);
+				localToRaster.concatenate(new AffineTransform(t.getMxx(), t.getMyx(), t.getMxy(), t.getMyy(),
+						t.getTx(), t.getTy()));
+
+				if (node instanceof ImageRegion) {
+					ImageRegion imageRegion = (ImageRegion) node;
+					Image image = imageRegion.getImage();
+
+					if (image == null) {
+						regions.add(null);
+						continue;
+					}
+
+					Rectangle2D sourceRect = imageRegion.getViewport();
+					if (sourceRect == null) sourceRect = new Rectangle2D(0, 0, image.getWidth(), image.getHeight());
+
+					regions.add(new CapturedRegion(localToRaster, image, sourceRect, node.getLayoutBounds()));
+				} else {
+					regions.add(new CapturedRegion(localToRaster, toShape(node), toFill(node)));
+				}
+			}
+		}
+
+		private static Shape toShape(Node node) {
+			if (node instanceof Ellipse) {
+				Ellipse e = (Ellipse) node;
+				return new Ellipse2D.Double(e.getCenterX() - e.getRadiusX(), e.getCenterY() - e.getRadiusY(),
+						e.getRadiusX() * 2, e.getRadiusY() * 2);
+			} else if (node instanceof Rectangle) {
+				Rectangle r = (Rectangle) node;
+
+				if (r.getArcWidth() > 0 || r.getArcHeight() > 0) {
+					return new RoundRectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight(),
+							r.getArcWidth(), r.getArcHeight());
+				}
+
+				return new java.awt.geom.Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+			} else if (node instanceof Polygon) {
+				List<Double> points = ((Polygon) node).getPoints();
+				Path2D.Double path = new Path2D.Double();
+
+				for (int i = 0; i + 1 < points.size(); i += 2) {
+					if (i == 0) {
+						path.moveTo(points.get(i), points.get(i + 1));
+					} else {
+						path.lineTo(points.get(i), points.get(i + 1));
+					}
+				}
+
+				path.closePath();
+				return path;
+			}
+
+			Bounds b = node.getLayoutBounds();
+			return new java.awt.geom.Rectangle2D.Double(b.getMinX(), b.getMinY(), b.getWidth(), b.getHeight());
+		}
+
+		private static java.awt.Color toFill(Node node) {
+			if (!(node instanceof javafx.scene.shape.Shape)) return null;
+
+			Paint paint = ((javafx.scene.shape.Shape) node).getFill();
+			if (!(paint instanceof Color)) return null;
+
+			Color color = (Color) paint;
+			return new java.awt.Color((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue(),
+					(float) (color.getOpacity() * node.getOpacity()));
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public boolean isVisible() {
+			return visible;
+		}
+
+		public double getOriginX() {
+			return originX;
+		}
+
+		public double getOriginY() {
+			return originY;
+		}
+
+		public double getMinX(double currentOriginX) {
+			return minX + (currentOriginX - originX);
+		}
+
+		public double getMinY(double currentOriginY) {
+			return minY + (currentOriginY - originY);
+		}
+
+		public double getMaxX(double currentOriginX) {
+			return getMinX(currentOriginX) + width;
+		}
+
+		public double getMaxY(double currentOriginY) {
+			return getMinY(currentOriginY) + height;
+		}
+
+		public int getRegionCount() {
+			return targetRegions.size();
+		}
+
+		/**
+		 * @return the region at an index in the target group's children as
+		 *         of when this source was captured
+		 */
+		public TargetRegion getRegion(int regionIndex) {
+			return targetRegions.get(regionIndex);
+		}
+
+		public double getRegionMinX(int regionIndex, double currentOriginX) {
+			return regionMinX[regionIndex] + (currentOriginX - originX);
+		}
+
+		public double getRegionMinY(int regionIndex, double currentOriginY) {
+			return regionMinY[regionIndex] + (currentOriginY - originY);
+		}
+
+		/**
+		 * Find the region hit at a point by testing each captured region
+		 * directly. This is slower than using a compiled raster but gives the
+		 * same answer and works for targets that are too large to rasterize.
+		 * 
+		 * @see HitRaster#getRegionIndex(double, double, double, double)
+		 */
+		public int getRegionIndex(double x, double y, double currentOriginX, double currentOriginY) {
+			double rasterX = x - getMinX(currentOriginX);
+			double rasterY = y - getMinY(currentOriginY);
+
+			if (rasterX < 0 || rasterY < 0 || rasterX >= width || rasterY >= height) return NO_REGION;
+
+			Point2D.Double point = new Point2D.Double();
+			for (int i = regions.size() - 1; i >= 0; i--) {
+				CapturedRegion region = regions.get(i);
+				if (region == null) continue;
+
+				point.setLocation(rasterX, rasterY);
+				if (region.contains(point)) return i;
+			}
+
+			return NO_REGION;
+		}
+
+		/**
+		 * Draw what the target looks like. Shapes are filled with their
+		 * captured color and images are drawn with their captured frame, so
+		 * this can be called from any thread.
+		 * 
+		 * @param g
+		 *            graphics in the coordinate space of the target's parent
+		 */
+		public void paint(Graphics2D g, double currentOriginX, double currentOriginY) {
+			if (!visible) return;
+
+			AffineTransform parentTransform = g.getTransform();
+
+			try {
+				for (CapturedRegion region : regions) {
+					if (region == null) continue;
+
+					g.setTransform(parentTransform);
+					g.translate(getMinX(currentOriginX), getMinY(currentOriginY));
+					g.transform(region.localToRaster);
+
+					if (!region.isImage()) {
+						if (region.fill == null) continue;
+
+						g.setColor(region.fill);
+						g.fill(region.shape);
+					} else {
+						BufferedImage image = region.getImage();
+						if (image == null) continue;
+
+						Bounds lb = region.localBounds;
+						Rectangle2D src = region.sourceRect;
+						g.drawImage(image, (int) lb.getMinX(), (int) lb.getMinY(), (int) lb.getMaxX(),
+								(int) lb.getMaxY(), (int) src.getMinX(), (int) src.getMinY(), (int) src.getMaxX(),
+								(int) src.getMaxY(), null);
+					}
+				}
+			} finally {
+				g.setTransform(parentTransform);
+			}
+		}
+
+		/**
+		 * @return the compiled raster or <code>null</code> if this target
+		 *         can't be represented by a raster
+		 */
+		public HitRaster compile() {
+			if (width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS) return null;
+
+			BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			int[] indices = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+
+			Graphics2D g2 = canvas.createGraphics();
+			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+
+			try {
+				// Regions are drawn in z-order so the topmost one wins
+				for (int i = 0; i < regions.size(); i++) {
+					CapturedRegion region = regions.get(i);
+					if (region == null) continue;
+
+					if (!region.isImage()) {
+						g2.setTransform(region.localToRaster);
+						g2.setColor(new java.awt.Color(i + 1));
+						g2.fill(region.shape);
+					} else {
+						drawImage(region, indices, i + 1);
+					}
+				}
+			} finally {
+				g2.dispose();
+			}
+
+			short[] compiled = new short[indices.length];
+			for (int i = 0; i < indices.length; i++)
+				compiled[i] = (short) (indices[i] & 0xFFFFFF);
+
+			return new HitRaster(this, compiled);
+		}
+
+		private void drawImage(CapturedRegion region, int[] indices, int regionId) {
+			if (region.rasterToLocal == null) return;
+
+			Bounds lb = region.localBounds;
+			java.awt.geom.Rectangle2D area = region.localToRaster.createTransformedShape(
+					new java.awt.geom.Rectangle2D.Double(lb.getMinX(), lb.getMinY(), lb.getWidth(), lb.getHeight()))
+					.getBounds2D();
+
+			int startX = Math.max(0, (int) Math.floor(area.getMinX()));
+			int startY = Math.max(0, (int) Math.floor(area.getMinY()));
+			int endX = Math.min(width, (int) Math.ceil(area.getMaxX()));
+			int endY = Math.min(height, (int) Math.ceil(area.getMaxY()));
+
+			Point2D.Double point = new Point2D.Double();
+			for (int y = startY; y < endY; y++) {
+				for (int x = startX; x < endX; x++) {
+					point.setLocation(x + .5, y + .5);
+					if (region.contains(point)) indices[y * width + x] = regionId;
+				}
+			}
+		}
+	}
+}
@@ -19,7 +19,6 @@
 package com.shootoff.targets;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,15 +27,17 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shootoff.gui.CommandTag;
+import com.shootoff.gui.ImageCache;
 import com.shootoff.targets.animation.SpriteAnimation;
 
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
 public class ImageRegion extends ImageView implements TargetRegion {
 	private static final Logger logger = LoggerFactory.getLogger(ImageRegion.class);
 
 	private final Map<String, String> tags = new HashMap<String, String>();
+	private CommandTag commandTag = null;
 	private final File imageFile;
 
 	private Optional<SpriteAnimation> animation = Optional.empty();
@@ -49,7 +50,7 @@ public class ImageRegion extends ImageView implements TargetRegion {
 		this.imageFile = imageFile;
 
 		try {
-			this.setImage(new Image(new FileInputStream(imageFile)));
+			this.setImage(ImageCache.getImage(imageFile));
 		} catch (IOException e) {
 			logger.error("Error reading image file to set image target region's picture", e);
 		}
@@ -59,7 +60,7 @@ public class ImageRegion extends ImageView implements TargetRegion {
 		if (!animation.isPresent()) {
 			return true;
 		} else {
-			return this.getImage().equals(animation.get().getFirstFrame());
+			return animation.get().onFirstFrame();
 		}
 	}
 
@@ -110,4 +111,18 @@ public class ImageRegion extends ImageView implements TargetRegion {
 		tags.clear();
 		tags.putAll(newTags);
 	}
+
+	@Override
+	public Optional<CommandTag> getCommandTag() {
+		if (!tags.containsKey("command")) return Optional.empty();
+
+		commandTag = CommandTag.parseIfChanged(commandTag, tags.get("command"));
+
+		return Optional.of(commandTag);
+	}
+
+	@Override
+	public void setCommandTag(CommandTag commandTag) {
+		this.commandTag = commandTag;
+	}
 }
@@ -23,12 +23,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+
+import com.shootoff.gui.CommandTag;
 
 import javafx.collections.ObservableList;
 import javafx.scene.shape.Polygon;
 
 public class PolygonRegion extends Polygon implements TargetRegion {
 	private final Map<String, String> tags = new HashMap<String, String>();
+	private CommandTag commandTag = null;
 
 	public PolygonRegion(double... points) {
 		super(points);
@@ -89,4 +93,18 @@ public class PolygonRegion extends Polygon implements TargetRegion {
 		tags.clear();
 		tags.putAll(newTags);
 	}
+
+	@Override
+	public Optional<CommandTag> getCommandTag() {
+		if (!tags.containsKey("command")) return Optional.empty();
+
+		commandTag = CommandTag.parseIfChanged(commandTag, tags.get("command"));
+
+		return Optional.of(commandTag);
+	}
+
+	@Override
+	public void setCommandTag(CommandTag commandTag) {
+		this.commandTag = commandTag;
+	}
 }
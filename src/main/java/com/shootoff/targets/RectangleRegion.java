@@ -20,11 +20,15 @@ package com.shootoff.targets;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+
+import com.shootoff.gui.CommandTag;
 
 import javafx.scene.shape.Rectangle;
 
 public class RectangleRegion extends Rectangle implements TargetRegion {
 	private final Map<String, String> tags = new HashMap<String, String>();
+	private CommandTag commandTag = null;
 
 	public RectangleRegion(double x, double y, double width, double height) {
 		super(x, y, width, height);
@@ -65,4 +69,18 @@ public class RectangleRegion extends Rectangle implements TargetRegion {
 		tags.clear();
 		tags.putAll(newTags);
 	}
+
+	@Override
+	public Optional<CommandTag> getCommandTag() {
+		if (!tags.containsKey("command")) return Optional.empty();
+
+		commandTag = CommandTag.parseIfChanged(commandTag, tags.get("command"));
+
+		return Optional.of(commandTag);
+	}
+
+	@Override
+	public void setCommandTag(CommandTag commandTag) {
+		this.commandTag = commandTag;
+	}
 }
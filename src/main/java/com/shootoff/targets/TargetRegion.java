@@ -19,6 +19,9 @@
 package com.shootoff.targets;
 
 import java.util.Map;
+import java.util.Optional;
+
+import com.shootoff.gui.CommandTag;
 
 import javafx.scene.paint.Color;
 
@@ -39,4 +42,16 @@ public interface TargetRegion {
 	public Map<String, String> getAllTags();
 
 	public void setTags(Map<String, String> newTags);
+
+	/**
+	 * @return this region's parsed <tt>command</tt> tag, which is parsed again
+	 *         if the tag changed since it was last parsed
+	 */
+	public Optional<CommandTag> getCommandTag();
+
+	/**
+	 * Use an already parsed <tt>command</tt> tag, e.g. one shared by every
+	 * copy of a target, instead of parsing the tag again.
+	 */
+	public void setCommandTag(CommandTag commandTag);
 }
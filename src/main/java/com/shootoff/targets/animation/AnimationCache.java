@@ -0,0 +1,186 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.targets.animation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Decoded animation frames shared by every region that shows the same file,
+ * so a course with a dozen copies of an animated plate only decodes the plate
+ * and packs its atlas once, on the thread that first loads it. Entries are
+ * keyed by the file's path and modification time so an edited file is decoded
+ * again, and the least recently used entries are dropped once the decoded
+ * frames and atlases use more than the memory cap.
+ * 
+ * @author phrack
+ */
+public final class AnimationCache {
+	public interface FrameDecoder {
+		ImageFrame[] decode(InputStream stream) throws IOException;
+	}
+
+	private static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+	private static final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private static long maxBytes = DEFAULT_MAX_BYTES;
+	private static long usedBytes = 0;
+
+	private AnimationCache() {}
+
+	/**
+	 * Get the frames for <code>file</code>, decoding them with
+	 * <code>decoder</code> and packing them if they aren't cached. If another
+	 * thread is already decoding the same file this waits for and shares its
+	 * result.
+	 */
+	public static AnimationFrames getFrames(File file, FrameDecoder decoder) throws IOException {
+		final Key key = new Key(file);
+		final Entry entry;
+		final boolean isOwner;
+
+		synchronized (entries) {
+			final Entry cached = entries.get(key);
+
+			if (cached != null) {
+				entry = cached;
+				isOwner = false;
+			} else {
+				entry = new Entry(new FutureTask<AnimationFrames>(() -> {
+					try (InputStream stream = new FileInputStream(file)) {
+						return AnimationFrames.pack(decoder.decode(stream));
+					}
+				}));
+				entries.put(key, entry);
+				isOwner = true;
+			}
+		}
+
+		// Decode outside of the lock so that different files can load at the
+		// same time
+		if (isOwner) entry.frames.run();
+
+		try {
+			final AnimationFrames frames = entry.frames.get();
+
+			if (isOwner) {
+				synchronized (entries) {
+					if (entries.get(key) == entry) {
+						entry.bytes = frames.getBytes();
+						usedBytes += entry.bytes;
+						evict();
+					}
+				}
+			}
+
+			return frames;
+		} catch (ExecutionException e) {
+			synchronized (entries) {
+				if (entries.get(key) == entry) entries.remove(key);
+			}
+
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			throw new IOException("Failed to decode " + file.getPath(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while decoding " + file.getPath(), e);
+		}
+	}
+
+	// Must hold the lock on entries
+	private static void evict() {
+		final Iterator<Entry> it = entries.values().iterator();
+
+		// Never evict the most recently used entry, even if it alone is over
+		// the cap
+		while (usedBytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+			final Entry entry = it.next();
+
+			// Still decoding, it is accounted for once it's done
+			if (entry.bytes == 0) continue;
+
+			usedBytes -= entry.bytes;
+			it.remove();
+		}
+	}
+
+	public static void setMaxBytes(long maxBytes) {
+		synchronized (entries) {
+			AnimationCache.maxBytes = maxBytes;
+			evict();
+		}
+	}
+
+	public static long getUsedBytes() {
+		synchronized (entries) {
+			return usedBytes;
+		}
+	}
+
+	public static int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public static void clear() {
+		synchronized (entries) {
+			entries.clear();
+			usedBytes = 0;
+		}
+	}
+
+	private static final class Entry {
+		private final FutureTask<AnimationFrames> frames;
+		private long bytes = 0;
+
+		private Entry(FutureTask<AnimationFrames> frames) {
+			this.frames = frames;
+		}
+	}
+
+	private static final class Key {
+		private final String path;
+		private final long lastModified;
+
+		private Key(File file) {
+			this.path = file.getAbsolutePath();
+			this.lastModified = file.lastModified();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+
+			final Key other = (Key) o;
+			return path.equals(other.path) && lastModified == other.lastModified;
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode() * 31 + Long.hashCode(lastModified);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.targets.animation;
+
+import java.util.Optional;
+
+import javafx.scene.image.Image;
+
+/**
+ * The decoded frames of one animation as they are kept in the
+ * {@link AnimationCache}. If the frames fit in a {@link SpriteAtlas} the atlas
+ * is packed when the frames are decoded and only the first and last frames are
+ * kept next to it, which are needed to show an animation that isn't playing.
+ * Otherwise every frame is kept and shown on its own.
+ * 
+ * @author phrack
+ */
+public final class AnimationFrames {
+	private final ImageFrame[] frames;
+	private final int frameCount;
+	private final int delay;
+	private final Optional<SpriteAtlas> atlas;
+
+	private AnimationFrames(ImageFrame[] frames, int frameCount, int delay, Optional<SpriteAtlas> atlas) {
+		this.frames = frames;
+		this.frameCount = frameCount;
+		this.delay = delay;
+		this.atlas = atlas;
+	}
+
+	/**
+	 * Pack <code>frames</code> into an atlas if they fit in one.
+	 */
+	public static AnimationFrames pack(ImageFrame[] frames) {
+		return pack(frames, SpriteAtlas.MAX_SIZE);
+	}
+
+	protected static AnimationFrames pack(ImageFrame[] frames, int maxAtlasSize) {
+		if (frames.length == 0) throw new IllegalArgumentException("An animation needs at least one frame");
+
+		final Optional<SpriteAtlas> atlas = SpriteAtlas.pack(frames, maxAtlasSize);
+
+		if (!atlas.isPresent()) return withoutAtlas(frames);
+
+		final ImageFrame[] kept;
+		if (frames.length == 1) {
+			kept = new ImageFrame[] { frames[0] };
+		} else {
+			kept = new ImageFrame[] { frames[0], frames[frames.length - 1] };
+		}
+
+		return new AnimationFrames(kept, frames.length, frames[0].getDelay(), atlas);
+	}
+
+	/**
+	 * Keep every frame in <code>frames</code> without packing them.
+	 */
+	public static AnimationFrames withoutAtlas(ImageFrame[] frames) {
+		if (frames.length == 0) throw new IllegalArgumentException("An animation needs at least one frame");
+
+		final ImageFrame[] kept = new ImageFrame[frames.length];
+		System.arraycopy(frames, 0, kept, 0, frames.length);
+
+		return new AnimationFrames(kept, frames.length, frames[0].getDelay(), Optional.empty());
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * @return the delay of the first frame in milliseconds, less than one if
+	 *         the animation didn't set one
+	 */
+	public int getDelay() {
+		return delay;
+	}
+
+	public Optional<SpriteAtlas> getAtlas() {
+		return atlas;
+	}
+
+	public Image getFirstImage() {
+		return frames[0].getImage();
+	}
+
+	public Image getLastImage() {
+		return frames[frames.length - 1].getImage();
+	}
+
+	/**
+	 * @return the image for the frame at <code>index</code>
+	 * @throws IllegalStateException
+	 *             if the frames were packed into an atlas, in which case the
+	 *             frame is shown through the atlas's viewport
+	 */
+	public Image getImage(int index) {
+		if (atlas.isPresent()) throw new IllegalStateException("Frames packed into an atlas aren't kept");
+
+		return frames[index].getImage();
+	}
+
+	/**
+	 * @return roughly how much memory the kept frames and atlas use
+	 */
+	public long getBytes() {
+		long bytes = 0;
+
+		for (ImageFrame frame : frames)
+			bytes += sizeOf(frame.getImage());
+
+		if (atlas.isPresent()) bytes += sizeOf(atlas.get().getImage());
+
+		return bytes;
+	}
+
+	private static long sizeOf(Image image) {
+		return (long) image.getWidth() * (long) image.getHeight() * 4;
+	}
+}
@@ -22,7 +22,6 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -41,12 +40,14 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 public class GifAnimation extends SpriteAnimation {
-	private static ImageFrame[] frames;
-
 	public GifAnimation(ImageView imageView, File gifFile) throws FileNotFoundException, IOException {
-		super(imageView, readGif(new FileInputStream(gifFile)));
+		this(imageView, AnimationCache.getFrames(gifFile, GifAnimation::readGif));
+	}
+
+	private GifAnimation(ImageView imageView, AnimationFrames frames) {
+		super(imageView, frames);
 
-		int delay = frames[0].getDelay();
+		int delay = frames.getDelay();
 		if (delay < 1) delay = SpriteAnimation.DEFAULT_DELAY;
 
 		this.setCycleDuration(Duration.millis(delay));
@@ -79,6 +80,7 @@ public class GifAnimation extends SpriteAnimation {
 
 		BufferedImage master = null;
 		Graphics2D masterGraphics = null;
+		BufferedImage previous = null;
 
 		for (int frameIndex = 0;; frameIndex++) {
 			BufferedImage image;
@@ -117,23 +119,22 @@ public class GifAnimation extends SpriteAnimation {
 					}
 				}
 			}
+
+			// Only frames that are undone after they are shown need a copy of
+			// what was there before them
+			if (disposal.equals("restoreToPrevious")) {
+				previous = new BufferedImage(master.getColorModel(), master.copyData(null),
+						master.isAlphaPremultiplied(), null);
+			}
+
 			masterGraphics.drawImage(image, x, y, null);
 
-			BufferedImage copy = new BufferedImage(master.getColorModel(), master.copyData(null),
-					master.isAlphaPremultiplied(), null);
-			frames.add(new ImageFrame(copy, delay, disposal));
+			// The frame copies the pixels into its own FX image, so master can
+			// be reused for the next frame
+			frames.add(new ImageFrame(master, delay, disposal));
 
 			if (disposal.equals("restoreToPrevious")) {
-				BufferedImage from = null;
-				for (int i = frameIndex - 1; i >= 0; i--) {
-					if (!frames.get(i).getDisposal().equals("restoreToPrevious") || frameIndex == 0) {
-						from = frames.get(i).getBufferedImage();
-						break;
-					}
-				}
-
-				master = new BufferedImage(from.getColorModel(), from.copyData(null), from.isAlphaPremultiplied(),
-						null);
+				master = previous;
 				masterGraphics = master.createGraphics();
 				masterGraphics.setBackground(new Color(0, 0, 0, 0));
 			} else if (disposal.equals("restoreToBackgroundColor")) {
@@ -142,7 +143,6 @@ public class GifAnimation extends SpriteAnimation {
 		}
 		reader.dispose();
 
-		GifAnimation.frames = frames.toArray(new ImageFrame[frames.size()]);
-		return GifAnimation.frames;
+		return frames.toArray(new ImageFrame[frames.size()]);
 	}
 }
@@ -27,30 +27,47 @@ public class SpriteAnimation extends Transition {
 	public static final int DEFAULT_DELAY = 100;
 
 	private final ImageView imageView;
-	private final ImageFrame[] frames;
+	private final AnimationFrames frames;
 	private final int count;
 
 	private int lastIndex;
 	private boolean isReversed = false;
 
 	public SpriteAnimation(ImageView imageView, ImageFrame[] frames) {
+		this(imageView, AnimationFrames.withoutAtlas(frames));
+	}
+
+	/**
+	 * @param frames
+	 *            if they were packed into an atlas, frames are shown by moving
+	 *            <code>imageView</code>'s viewport over the atlas instead of
+	 *            swapping its image
+	 */
+	public SpriteAnimation(ImageView imageView, AnimationFrames frames) {
 		this.imageView = imageView;
-		this.frames = new ImageFrame[frames.length];
-		System.arraycopy(frames, 0, this.frames, 0, frames.length);
-		this.count = frames.length;
+		this.frames = frames;
+		this.count = frames.getFrameCount();
 		setInterpolator(Interpolator.LINEAR);
 	}
 
 	public Image getFirstFrame() {
 		if (!isReversed) {
-			return frames[0].getImage();
+			return frames.getFirstImage();
 		} else {
-			return frames[frames.length - 1].getImage();
+			return frames.getLastImage();
 		}
 	}
 
 	public int getFrameCount() {
-		return frames.length;
+		return count;
+	}
+
+	public boolean isUsingAtlas() {
+		return frames.getAtlas().isPresent();
+	}
+
+	public boolean onFirstFrame() {
+		return lastIndex == (isReversed ? count - 1 : 0);
 	}
 
 	public void reset() {
@@ -59,17 +76,28 @@ public class SpriteAnimation extends Transition {
 		isReversed = false;
 		lastIndex = 0;
 		setRate(Math.abs(getRate()));
-		imageView.setImage(getFirstFrame());
+		showFrame(0);
 	}
 
 	protected void interpolate(double k) {
 		final int index = Math.min((int) Math.floor(k * count), count - 1);
 		if (index != lastIndex) {
-			imageView.setImage(frames[index].getImage());
+			showFrame(index);
 			lastIndex = index;
 		}
 	}
 
+	private void showFrame(int index) {
+		if (frames.getAtlas().isPresent()) {
+			final SpriteAtlas atlas = frames.getAtlas().get();
+
+			imageView.setViewport(atlas.getViewport(index));
+			if (imageView.getImage() != atlas.getImage()) imageView.setImage(atlas.getImage());
+		} else {
+			imageView.setImage(frames.getImage(index));
+		}
+	}
+
 	public void reverse() {
 		isReversed = !isReversed;
 		setRate(getRate() * -1);
@@ -0,0 +1,103 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.targets.animation;
+
+import java.util.Optional;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+/**
+ * All of an animation's frames packed into one image in a grid. Animations
+ * that use an atlas step through their frames by moving their image view's
+ * viewport, so the graphics card gets one texture per animation instead of a
+ * new texture every time the frame changes.
+ * 
+ * Atlases are packed by {@link AnimationFrames} when an animation is decoded,
+ * so they are built off the JavaFX thread once per file and shared through the
+ * {@link AnimationCache} by every animation showing that file.
+ * 
+ * @author phrack
+ */
+public final class SpriteAtlas {
+	// Larger textures aren't supported by every graphics card
+	public static final int MAX_SIZE = 4096;
+
+	private final Image image;
+	private final Rectangle2D[] viewports;
+
+	private SpriteAtlas(Image image, Rectangle2D[] viewports) {
+		this.image = image;
+		this.viewports = viewports;
+	}
+
+	/**
+	 * @return the atlas or <tt>Optional.empty()</tt> if the frames don't fit
+	 *         in <code>maxSize</code> by <code>maxSize</code> pixels
+	 */
+	protected static Optional<SpriteAtlas> pack(ImageFrame[] frames, int maxSize) {
+		if (frames.length == 0) return Optional.empty();
+
+		int cellWidth = 0;
+		int cellHeight = 0;
+
+		for (ImageFrame frame : frames) {
+			cellWidth = Math.max(cellWidth, (int) frame.getImage().getWidth());
+			cellHeight = Math.max(cellHeight, (int) frame.getImage().getHeight());
+		}
+
+		if (cellWidth == 0 || cellHeight == 0 || cellWidth > maxSize || cellHeight > maxSize) return Optional.empty();
+
+		// As square as possible to stay under the size limit in both directions
+		final int columns = Math.min((int) Math.ceil(Math.sqrt(frames.length)), maxSize / cellWidth);
+		final int rows = (frames.length + columns - 1) / columns;
+
+		if (rows * cellHeight > maxSize) return Optional.empty();
+
+		final WritableImage atlas = new WritableImage(columns * cellWidth, rows * cellHeight);
+		final PixelWriter writer = atlas.getPixelWriter();
+		final Rectangle2D[] viewports = new Rectangle2D[frames.length];
+
+		for (int i = 0; i < frames.length; i++) {
+			final Image frame = frames[i].getImage();
+			final int x = (i % columns) * cellWidth;
+			final int y = (i / columns) * cellHeight;
+			final int width = (int) frame.getWidth();
+			final int height = (int) frame.getHeight();
+
+			writer.setPixels(x, y, width, height, frame.getPixelReader(), 0, 0);
+			viewports[i] = new Rectangle2D(x, y, width, height);
+		}
+
+		return Optional.of(new SpriteAtlas(atlas, viewports));
+	}
+
+	public Image getImage() {
+		return image;
+	}
+
+	public Rectangle2D getViewport(int frameIndex) {
+		return viewports[frameIndex];
+	}
+
+	public int getFrameCount() {
+		return viewports.length;
+	}
+}
@@ -21,7 +21,13 @@ package com.shootoff.targets.io;
 import java.io.File;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,8 +37,9 @@ import com.shootoff.targets.EllipseRegion;
 import com.shootoff.targets.ImageRegion;
 import com.shootoff.targets.PolygonRegion;
 import com.shootoff.targets.RectangleRegion;
-import com.shootoff.targets.RegionType;
 import com.shootoff.targets.TargetRegion;
+import com.shootoff.targets.animation.SpriteAnimation;
+import com.shootoff.util.NamedThreadFactory;
 
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
@@ -44,6 +51,16 @@ public class TargetIO {
 
 	public static final double DEFAULT_OPACITY = 0.5;
 
+	private static final Map<String, TargetTemplate> templates = new ConcurrentHashMap<String, TargetTemplate>();
+
+	private static final int LOADER_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final NamedThreadFactory loaderThreadFactory = new NamedThreadFactory("TargetLoader");
+	private static final ExecutorService loaderExecutor = Executors.newFixedThreadPool(LOADER_POOL_SIZE, (r) -> {
+		final Thread t = loaderThreadFactory.newThread(r);
+		t.setDaemon(true);
+		return t;
+	});
+
 	public static void saveTarget(List<Node> regions, File targetFile) {
 		RegionVisitor visitor;
 
@@ -107,36 +124,113 @@ public class TargetIO {
 		}
 
 		visitor.visitEnd();
+
+		invalidateTemplate(targetFile);
 	}
 
+	/**
+	 * Load a target and start the animations its image regions play when the
+	 * target appears. Animations can only be started on the JavaFX thread,
+	 * background loads use {@link #loadTargetAsync(File)} and start them with
+	 * {@link #playAnimations(Group)} once the target is back on that thread.
+	 */
 	public static Optional<Group> loadTarget(final File targetFile) {
-		List<Node> regions;
+		final Optional<Group> targetGroup = loadTargetNodes(targetFile);
 
-		if (targetFile.getName().endsWith("target")) {
-			regions = new XMLTargetReader(targetFile).load();
-		} else {
+		if (targetGroup.isPresent()) playAnimations(targetGroup.get());
+
+		return targetGroup;
+	}
+
+	/**
+	 * Play each animated image region in a loaded target once, then return it
+	 * to its first frame. Must be called on the JavaFX thread.
+	 */
+	public static void playAnimations(final Group targetGroup) {
+		for (final Node node : targetGroup.getChildren()) {
+			if (!(node instanceof ImageRegion)) continue;
+
+			final Optional<SpriteAnimation> animation = ((ImageRegion) node).getAnimation();
+			if (!animation.isPresent()) continue;
+
+			final SpriteAnimation a = animation.get();
+			a.setCycleCount(1);
+
+			a.setOnFinished((e) -> {
+				a.reset();
+				a.setOnFinished(null);
+			});
+
+			a.play();
+		}
+	}
+
+	private static Optional<Group> loadTargetNodes(final File targetFile) {
+		if (!targetFile.getName().endsWith("target")) {
 			logger.error("Unknown target file type.");
 			return Optional.empty();
 		}
 
-		final Group targetGroup = new Group();
-		for (final Node node : regions) {
-			final TargetRegion region = (TargetRegion) node;
+		final Optional<TargetTemplate> template = getTemplate(targetFile);
 
-			if (region.tagExists("visible") && region.getTag("visible").equalsIgnoreCase("false")) {
-				node.setVisible(false);
-			}
+		// Unreadable targets load as an empty group
+		if (!template.isPresent()) return Optional.of(new Group());
 
-			if (region.getType() != RegionType.IMAGE) {
-				if (region.tagExists("opacity")) {
-					node.setOpacity(Double.parseDouble(region.getTag("opacity")));
-				} else {
-					node.setOpacity(DEFAULT_OPACITY);
-				}
-			}
-			targetGroup.getChildren().add(node);
+		return Optional.of(template.get().instantiate());
+	}
+
+	/**
+	 * Get the parsed form of a target file. Files are only parsed again when
+	 * they change.
+	 */
+	public static Optional<TargetTemplate> getTemplate(final File targetFile) {
+		final String key = targetFile.getAbsolutePath();
+		final TargetTemplate cached = templates.get(key);
+
+		if (cached != null && cached.getLastModified() == targetFile.lastModified()) return Optional.of(cached);
+
+		final Optional<TargetTemplate> template = new XMLTargetReader(targetFile).compile();
+
+		if (template.isPresent()) {
+			templates.put(key, template.get());
+		} else {
+			templates.remove(key);
 		}
 
-		return Optional.of(targetGroup);
+		return template;
+	}
+
+	public static void invalidateTemplate(final File targetFile) {
+		templates.remove(targetFile.getAbsolutePath());
+	}
+
+	/**
+	 * Load a target on a background thread. The returned group isn't part of
+	 * a scene yet, so it's safe to hand to the JavaFX thread from there. Its
+	 * animations aren't started, see {@link #playAnimations(Group)}.
+	 */
+	public static Future<Optional<Group>> loadTargetAsync(final File targetFile) {
+		return loadTargetAsync(targetFile, (targetGroup) -> {});
+	}
+
+	/**
+	 * @param loaded
+	 *            called on the loading thread once the target is loaded
+	 */
+	public static Future<Optional<Group>> loadTargetAsync(final File targetFile,
+			final Consumer<Optional<Group>> loaded) {
+		return loaderExecutor.submit(() -> {
+			Optional<Group> targetGroup = Optional.empty();
+
+			try {
+				targetGroup = loadTargetNodes(targetFile);
+			} catch (Exception e) {
+				logger.error("Error loading target {}", targetFile.getPath(), e);
+			}
+
+			loaded.accept(targetGroup);
+
+			return targetGroup;
+		});
 	}
 }
@@ -0,0 +1,209 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.targets.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.gui.CommandTag;
+import com.shootoff.targets.EllipseRegion;
+import com.shootoff.targets.ImageRegion;
+import com.shootoff.targets.PolygonRegion;
+import com.shootoff.targets.RectangleRegion;
+import com.shootoff.targets.RegionType;
+import com.shootoff.targets.TargetRegion;
+import com.shootoff.targets.animation.GifAnimation;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Shape;
+
+/**
+ * A parsed target file. Templates are immutable, so one template is shared by
+ * every copy of a target and creating a copy only builds its region nodes.
+ * Images and animation frames come from the shared image caches and each
+ * region's command tag is parsed when the template is compiled and handed to
+ * every copy of the region.
+ */
+public final class TargetTemplate {
+	private static final Logger logger = LoggerFactory.getLogger(TargetTemplate.class);
+
+	private final File targetFile;
+	private final long lastModified;
+	private final List<RegionTemplate> regions;
+
+	public TargetTemplate(File targetFile, long lastModified, List<RegionTemplate> regions) {
+		this.targetFile = targetFile;
+		this.lastModified = lastModified;
+		this.regions = Collections.unmodifiableList(new ArrayList<RegionTemplate>(regions));
+	}
+
+	public File getTargetFile() {
+		return targetFile;
+	}
+
+	/**
+	 * @return the modification time of the target file when it was compiled
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public List<RegionTemplate> getRegions() {
+		return regions;
+	}
+
+	/**
+	 * @return new region nodes for one copy of this target
+	 */
+	public List<Node> createRegions() {
+		final List<Node> nodes = new ArrayList<Node>(regions.size());
+
+		for (RegionTemplate region : regions)
+			nodes.add(region.create());
+
+		return nodes;
+	}
+
+	/**
+	 * @return a new group holding one copy of this target
+	 */
+	public Group instantiate() {
+		final Group targetGroup = new Group();
+
+		for (final Node node : createRegions()) {
+			final TargetRegion region = (TargetRegion) node;
+
+			if (region.tagExists("visible") && region.getTag("visible").equalsIgnoreCase("false")) {
+				node.setVisible(false);
+			}
+
+			if (region.getType() != RegionType.IMAGE) {
+				if (region.tagExists("opacity")) {
+					node.setOpacity(Double.parseDouble(region.getTag("opacity")));
+				} else {
+					node.setOpacity(TargetIO.DEFAULT_OPACITY);
+				}
+			}
+			targetGroup.getChildren().add(node);
+		}
+
+		return targetGroup;
+	}
+
+	public static final class RegionTemplate {
+		private final RegionType type;
+		private final double[] geometry;
+		private final Color fill;
+		private final File imageFile;
+		private final Map<String, String> tags;
+		private final CommandTag commandTag;
+
+		private RegionTemplate(RegionType type, double[] geometry, Color fill, File imageFile,
+				Map<String, String> tags) {
+			this.type = type;
+			this.geometry = geometry;
+			this.fill = fill;
+			this.imageFile = imageFile;
+			this.tags = Collections.unmodifiableMap(new HashMap<String, String>(tags));
+			this.commandTag = tags.containsKey("command") ? CommandTag.parse(tags.get("command")) : null;
+		}
+
+		public static RegionTemplate image(double x, double y, File imageFile, Map<String, String> tags) {
+			return new RegionTemplate(RegionType.IMAGE, new double[] { x, y }, null, imageFile, tags);
+		}
+
+		public static RegionTemplate rectangle(double x, double y, double width, double height, Color fill,
+				Map<String, String> tags) {
+			return new RegionTemplate(RegionType.RECTANGLE, new double[] { x, y, width, height }, fill, null, tags);
+		}
+
+		public static RegionTemplate ellipse(double centerX, double centerY, double radiusX, double radiusY,
+				Color fill, Map<String, String> tags) {
+			return new RegionTemplate(RegionType.ELLIPSE, new double[] { centerX, centerY, radiusX, radiusY }, fill,
+					null, tags);
+		}
+
+		public static RegionTemplate polygon(double[] points, Color fill, Map<String, String> tags) {
+			return new RegionTemplate(RegionType.POLYGON, points.clone(), fill, null, tags);
+		}
+
+		public RegionType getType() {
+			return type;
+		}
+
+		public Map<String, String> getTags() {
+			return tags;
+		}
+
+		private Node create() {
+			final TargetRegion region;
+
+			switch (type) {
+			case IMAGE:
+				region = createImageRegion();
+				break;
+			case RECTANGLE:
+				region = new RectangleRegion(geometry[0], geometry[1], geometry[2], geometry[3]);
+				((Shape) region).setFill(fill);
+				break;
+			case ELLIPSE:
+				region = new EllipseRegion(geometry[0], geometry[1], geometry[2], geometry[3]);
+				((Shape) region).setFill(fill);
+				break;
+			default:
+				region = new PolygonRegion(geometry.clone());
+				((Shape) region).setFill(fill);
+				break;
+			}
+
+			region.setTags(tags);
+			if (commandTag != null) region.setCommandTag(commandTag);
+
+			return (Node) region;
+		}
+
+		private ImageRegion createImageRegion() {
+			final ImageRegion imageRegion = new ImageRegion(geometry[0], geometry[1], imageFile);
+
+			try {
+				int firstDot = imageFile.getName().indexOf('.') + 1;
+				String extension = imageFile.getName().substring(firstDot);
+
+				if (extension.endsWith("gif")) {
+					GifAnimation gif = new GifAnimation(imageRegion, imageRegion.getImageFile());
+					imageRegion.setImage(gif.getFirstFrame());
+					if (gif.getFrameCount() > 1) imageRegion.setAnimation(gif);
+				}
+			} catch (IOException e) {
+				logger.error("Error reading animation from XML target", e);
+			}
+
+			return imageRegion;
+		}
+	}
+}
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -35,20 +36,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 
 import com.shootoff.gui.controller.TargetEditorController;
-import com.shootoff.targets.EllipseRegion;
-import com.shootoff.targets.ImageRegion;
-import com.shootoff.targets.PolygonRegion;
-import com.shootoff.targets.RectangleRegion;
-import com.shootoff.targets.TargetRegion;
-import com.shootoff.targets.animation.GifAnimation;
-import com.shootoff.targets.animation.SpriteAnimation;
+import com.shootoff.targets.io.TargetTemplate.RegionTemplate;
 
 import javafx.scene.Node;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Shape;
 
 public class XMLTargetReader {
 	private static final Logger logger = LoggerFactory.getLogger(XMLTargetReader.class);
@@ -60,6 +55,24 @@ public class XMLTargetReader {
 	}
 
 	public List<Node> load() {
+		final Optional<TargetTemplate> template = compile();
+
+		if (template.isPresent()) return template.get().createRegions();
+
+		return new ArrayList<Node>();
+	}
+
+	/**
+	 * Parse the target file without creating any region nodes.
+	 * 
+	 * @return the parsed target or <tt>Optional.empty()</tt> if the file
+	 *         couldn't be read
+	 */
+	public Optional<TargetTemplate> compile() {
+		// Read before parsing so that an edit during the parse is picked up
+		// next time
+		final long lastModified = targetFile.lastModified();
+
 		InputStream xmlInput = null;
 		try {
 			xmlInput = new FileInputStream(targetFile);
@@ -67,7 +80,7 @@ public class XMLTargetReader {
 			TargetXMLHandler handler = new TargetXMLHandler();
 			saxParser.parse(xmlInput, handler);
 
-			return handler.getRegions();
+			return Optional.of(new TargetTemplate(targetFile, lastModified, handler.getRegions()));
 		} catch (IOException | ParserConfigurationException | SAXException e) {
 			logger.error("Error reading XML target", e);
 		} finally {
@@ -80,17 +93,17 @@ public class XMLTargetReader {
 			}
 		}
 
-		return new ArrayList<Node>();
+		return Optional.empty();
 	}
 
 	private static class TargetXMLHandler extends DefaultHandler {
-		List<Node> regions = new ArrayList<Node>();
-		TargetRegion currentRegion;
+		List<RegionTemplate> regions = new ArrayList<RegionTemplate>();
+		Attributes currentAttributes;
 		List<Double> polygonPoints = null;
 		Color polygonFill = null;
 		Map<String, String> currentTags;
 
-		public List<Node> getRegions() {
+		public List<RegionTemplate> getRegions() {
 			return regions;
 		}
 
@@ -99,62 +112,11 @@ public class XMLTargetReader {
 
 			switch (qName) {
 			case "image":
-				currentTags = new HashMap<String, String>();
-
-				File savedFile = new File(attributes.getValue("file"));
-
-				File imageFile;
-				if (savedFile.isAbsolute()) {
-					imageFile = savedFile;
-				} else {
-					imageFile = new File(
-							System.getProperty("shootoff.home") + File.separator + attributes.getValue("file"));
-				}
-
-				ImageRegion imageRegion = new ImageRegion(Double.parseDouble(attributes.getValue("x")),
-						Double.parseDouble(attributes.getValue("y")), imageFile);
-				try {
-					int firstDot = imageFile.getName().indexOf('.') + 1;
-					String extension = imageFile.getName().substring(firstDot);
-
-					if (extension.endsWith("gif")) {
-						GifAnimation gif = new GifAnimation(imageRegion, imageRegion.getImageFile());
-						imageRegion.setImage(gif.getFirstFrame());
-						if (gif.getFrameCount() > 1) imageRegion.setAnimation(gif);
-					}
-
-					if (imageRegion.getAnimation().isPresent()) {
-						SpriteAnimation animation = imageRegion.getAnimation().get();
-						animation.setCycleCount(1);
-
-						animation.setOnFinished((e) -> {
-							animation.reset();
-							animation.setOnFinished(null);
-						});
-
-						animation.play();
-					}
-				} catch (IOException e) {
-					logger.error("Error reading animation from XML target", e);
-				}
-
-				currentRegion = imageRegion;
-
-				break;
 			case "rectangle":
-				currentTags = new HashMap<String, String>();
-				currentRegion = new RectangleRegion(Double.parseDouble(attributes.getValue("x")),
-						Double.parseDouble(attributes.getValue("y")), Double.parseDouble(attributes.getValue("width")),
-						Double.parseDouble(attributes.getValue("height")));
-				((Shape) currentRegion).setFill(TargetEditorController.createColor(attributes.getValue("fill")));
-				break;
 			case "ellipse":
 				currentTags = new HashMap<String, String>();
-				currentRegion = new EllipseRegion(Double.parseDouble(attributes.getValue("centerX")),
-						Double.parseDouble(attributes.getValue("centerY")),
-						Double.parseDouble(attributes.getValue("radiusX")),
-						Double.parseDouble(attributes.getValue("radiusY")));
-				((Shape) currentRegion).setFill(TargetEditorController.createColor(attributes.getValue("fill")));
+				// The parser reuses its attributes object
+				currentAttributes = new AttributesImpl(attributes);
 				break;
 			case "polygon":
 				currentTags = new HashMap<String, String>();
@@ -172,6 +134,8 @@ public class XMLTargetReader {
 		}
 
 		public void endElement(String uri, String localName, String qName) throws SAXException {
+			final Attributes attributes = currentAttributes;
+
 			switch (qName) {
 			case "polygon":
 				double[] points = new double[polygonPoints.size()];
@@ -179,13 +143,34 @@ public class XMLTargetReader {
 				for (int i = 0; i < polygonPoints.size(); i++)
 					points[i] = polygonPoints.get(i);
 
-				currentRegion = new PolygonRegion(points);
-				((Shape) currentRegion).setFill(polygonFill);
+				regions.add(RegionTemplate.polygon(points, polygonFill, currentTags));
+				break;
 			case "image":
+				File savedFile = new File(attributes.getValue("file"));
+
+				File imageFile;
+				if (savedFile.isAbsolute()) {
+					imageFile = savedFile;
+				} else {
+					imageFile = new File(
+							System.getProperty("shootoff.home") + File.separator + attributes.getValue("file"));
+				}
+
+				regions.add(RegionTemplate.image(Double.parseDouble(attributes.getValue("x")),
+						Double.parseDouble(attributes.getValue("y")), imageFile, currentTags));
+				break;
 			case "rectangle":
+				regions.add(RegionTemplate.rectangle(Double.parseDouble(attributes.getValue("x")),
+						Double.parseDouble(attributes.getValue("y")), Double.parseDouble(attributes.getValue("width")),
+						Double.parseDouble(attributes.getValue("height")),
+						TargetEditorController.createColor(attributes.getValue("fill")), currentTags));
+				break;
 			case "ellipse":
-				currentRegion.setTags(currentTags);
-				regions.add((Node) currentRegion);
+				regions.add(RegionTemplate.ellipse(Double.parseDouble(attributes.getValue("centerX")),
+						Double.parseDouble(attributes.getValue("centerY")),
+						Double.parseDouble(attributes.getValue("radiusX")),
+						Double.parseDouble(attributes.getValue("radiusY")),
+						TargetEditorController.createColor(attributes.getValue("fill")), currentTags));
 				break;
 			}
 		}
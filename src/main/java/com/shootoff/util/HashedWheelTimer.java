@@ -0,0 +1,316 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.shootoff.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A timer for short, frequently cancelled timeouts, e.g. hiding a warning if
+ * the condition it warns about hasn't happened again for a while. Timeouts are
+ * kept in a ring of buckets that one thread advances every tick, so
+ * scheduling and cancelling a timeout takes constant time and cancelled
+ * timeouts are unlinked right away instead of sitting in a delay queue until
+ * they would have run. Timeouts fire on the tick after they are due, so they
+ * are only accurate to within a tick.
+ * 
+ * Tasks run on the timer's thread and must be short, anything slow should be
+ * handed off to another thread.
+ * 
+ * @author phrack
+ */
+public class HashedWheelTimer {
+	private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+	private static final int STATE_WAITING = 0;
+	private static final int STATE_CANCELLED = 1;
+	private static final int STATE_EXPIRED = 2;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+
+	// Schedules and cancels are handed to the timer thread through these so
+	// that the wheel itself is only ever touched by that thread
+	private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<Timeout>();
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<Timeout>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	private final Thread workerThread;
+	private final long startTime;
+	private volatile boolean running = true;
+	private final List<Runnable> unprocessed = new ArrayList<Runnable>();
+
+	// Only used by the timer thread
+	private long tick = 0;
+
+	/**
+	 * @param tickDuration
+	 *            how often the timer checks for timeouts that are due
+	 * @param unit
+	 *            the unit of <code>tickDuration</code>
+	 * @param wheelSize
+	 *            the number of buckets, which is rounded up to a power of two.
+	 *            Timeouts further out than <code>wheelSize</code> ticks share
+	 *            buckets with nearer timeouts.
+	 * @param threadName
+	 *            the name of the timer's thread
+	 */
+	public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize, String threadName) {
+		if (tickDuration <= 0) throw new IllegalArgumentException("tickDuration must be greater than 0");
+		if (wheelSize <= 0) throw new IllegalArgumentException("wheelSize must be greater than 0");
+
+		tickNanos = unit.toNanos(tickDuration);
+
+		int size = Integer.highestOneBit(wheelSize);
+		if (size < wheelSize) size <<= 1;
+		wheel = new Bucket[size];
+		for (int i = 0; i < size; i++)
+			wheel[i] = new Bucket();
+		mask = size - 1;
+
+		startTime = System.nanoTime();
+		workerThread = new NamedThreadFactory(threadName).newThread(this::run);
+		workerThread.setDaemon(true);
+		workerThread.start();
+	}
+
+	/**
+	 * Run <code>task</code> on the timer's thread once <code>delay</code> has
+	 * passed.
+	 * 
+	 * @return a handle to cancel the task with
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		if (!running) throw new IllegalStateException("Cannot schedule a task on a stopped timer");
+
+		final Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(delay));
+		pendingCount.incrementAndGet();
+		scheduled.add(timeout);
+
+		return timeout;
+	}
+
+	/**
+	 * @return the number of tasks that are scheduled and haven't run or been
+	 *         cancelled yet
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	/**
+	 * Stop the timer's thread.
+	 * 
+	 * @return the tasks that were still waiting to run
+	 */
+	public List<Runnable> stop() {
+		running = false;
+		workerThread.interrupt();
+
+		try {
+			workerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		synchronized (unprocessed) {
+			return new ArrayList<Runnable>(unprocessed);
+		}
+	}
+
+	private void run() {
+		while (running) {
+			final long deadline = tickNanos * (tick + 1);
+			final long sleepNanos = deadline - (System.nanoTime() - startTime);
+
+			if (sleepNanos > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				} catch (InterruptedException e) {
+					if (!running) break;
+				}
+
+				continue;
+			}
+
+			removeCancelled();
+			addScheduled();
+			wheel[(int) (tick & mask)].expire(deadline);
+			tick++;
+		}
+
+		// Hand back everything that never ran
+		synchronized (unprocessed) {
+			removeCancelled();
+			addScheduled();
+
+			for (Bucket bucket : wheel)
+				bucket.drain(unprocessed);
+		}
+	}
+
+	private void addScheduled() {
+		Timeout timeout;
+		while ((timeout = scheduled.poll()) != null) {
+			if (timeout.state.get() != STATE_WAITING) continue;
+
+			// Timeouts that are already due go in the current bucket
+			final long dueTick = Math.max(tick, timeout.deadline / tickNanos);
+			timeout.remainingRounds = (dueTick - tick) / wheel.length;
+			wheel[(int) (dueTick & mask)].add(timeout);
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket != null) timeout.bucket.remove(timeout);
+		}
+	}
+
+	private final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		public void add(Timeout timeout) {
+			timeout.bucket = this;
+
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.previous = tail;
+				tail = timeout;
+			}
+		}
+
+		public void remove(Timeout timeout) {
+			final Timeout next = timeout.next;
+
+			if (timeout.previous != null) timeout.previous.next = next;
+			if (next != null) next.previous = timeout.previous;
+			if (timeout == head) head = next;
+			if (timeout == tail) tail = timeout.previous;
+
+			timeout.previous = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		public void expire(long deadline) {
+			Timeout timeout = head;
+
+			while (timeout != null) {
+				final Timeout next = timeout.next;
+
+				if (timeout.remainingRounds <= 0) {
+					remove(timeout);
+					if (timeout.deadline <= deadline) {
+						timeout.expire();
+					} else {
+						// Can't happen unless the clock misbehaves, try again
+						// when the bucket comes around next
+						add(timeout);
+					}
+				} else {
+					timeout.remainingRounds--;
+				}
+
+				timeout = next;
+			}
+		}
+
+		public void drain(List<Runnable> tasks) {
+			for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+				if (timeout.state.compareAndSet(STATE_WAITING, STATE_CANCELLED)) {
+					pendingCount.decrementAndGet();
+					tasks.add(timeout.task);
+				}
+			}
+
+			head = tail = null;
+		}
+	}
+
+	/**
+	 * A handle to a scheduled task.
+	 */
+	public final class Timeout {
+		private final Runnable task;
+		private final long deadline; // ns since the timer started
+		private final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+
+		// Only used by the timer thread
+		private long remainingRounds;
+		private Bucket bucket;
+		private Timeout previous;
+		private Timeout next;
+
+		private Timeout(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * @return <tt>true</tt> if the task hasn't run and hasn't been
+		 *         cancelled
+		 */
+		public boolean isWaiting() {
+			return state.get() == STATE_WAITING;
+		}
+
+		public boolean isCancelled() {
+			return state.get() == STATE_CANCELLED;
+		}
+
+		/**
+		 * Stop the task from running if it hasn't already run.
+		 * 
+		 * @return <tt>true</tt> if the task was cancelled, <tt>false</tt> if
+		 *         it already ran or was already cancelled
+		 */
+		public boolean cancel() {
+			if (!state.compareAndSet(STATE_WAITING, STATE_CANCELLED)) return false;
+
+			pendingCount.decrementAndGet();
+			cancelled.add(this);
+
+			return true;
+		}
+
+		private void expire() {
+			if (!state.compareAndSet(STATE_WAITING, STATE_EXPIRED)) return;
+
+			pendingCount.decrementAndGet();
+
+			try {
+				task.run();
+			} catch (Exception e) {
+				logger.error("Error running timer task", e);
+			}
+		}
+	}
+}
@@ -1,31 +1,39 @@
 package com.shootoff.util;
 
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import com.shootoff.util.HashedWheelTimer.Timeout;
+
 public class TimerPool {
-	private static final int CORE_POOL_SIZE = 20;
-	private static final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("ShootOFFTimerPool"));
+	private static final long TICK_DURATION = 10; // ms
+	private static final int WHEEL_SIZE = 512;
+	private static final HashedWheelTimer timer = new HashedWheelTimer(TICK_DURATION, TimeUnit.MILLISECONDS,
+			WHEEL_SIZE, "ShootOFFTimerPool");
 
-	public static ScheduledFuture<?> schedule(Runnable task, long msDelay) {
-		return executorService.schedule(task, msDelay, TimeUnit.MILLISECONDS);
+	/**
+	 * Run <code>task</code> after <code>msDelay</code> milliseconds. Tasks all
+	 * run on one thread, so long running work should be handed off.
+	 */
+	public static Timeout schedule(Runnable task, long msDelay) {
+		return timer.schedule(task, msDelay, TimeUnit.MILLISECONDS);
 	}
 
-	public static boolean isWaiting(ScheduledFuture<?> future) {
-		return future != null && !future.isCancelled() && !future.isDone();
+	public static boolean isWaiting(Timeout timeout) {
+		return timeout != null && timeout.isWaiting();
 	}
 
-	public static boolean cancelTimer(ScheduledFuture<?> future) {
-		if (isWaiting(future)) return future.cancel(false);
+	public static boolean cancelTimer(Timeout timeout) {
+		if (isWaiting(timeout)) return timeout.cancel();
 
 		return false;
 	}
 
+	public static int getPendingCount() {
+		return timer.getPendingCount();
+	}
+
 	public static List<Runnable> close() {
-		return executorService.shutdownNow();
+		return timer.stop();
 	}
 }
@@ -18,6 +18,9 @@ import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ErrorCollector;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
 
 import com.shootoff.camera.arenamask.ArenaMaskManager;
 import com.shootoff.camera.arenamask.Mask;
@@ -125,7 +128,7 @@ public class TestArenaMasking extends ShotDetectionTestor {
 
 			currentFrameTimestamp = (event.getTimeStamp() / 1000) + initialSystemTimeAtVideoStart;
 			
-			arenaMaskManager.handleMask(new Mask(currentFrame,
+			arenaMaskManager.insert(new Mask(currentFrame,
 					currentFrameTimestamp));
 			
 		}
@@ -155,4 +158,133 @@ public class TestArenaMasking extends ShotDetectionTestor {
 		
 		assertEquals(true, shots.isEmpty());
 	}
-}
\ No newline at end of file
+
+	private BufferedImage createArenaFrame(int width, int height, int seed) {
+		BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				frame.setRGB(x, y, ((x * 3 + seed) & 0xFF) << 16 | ((y * 5 + seed) & 0xFF) << 8 | ((x + y) & 0xFF));
+			}
+		}
+
+		return frame;
+	}
+
+	private ArenaMaskManager createMaskManager(int width, int height) {
+		ArenaMaskManager maskManager = new ArenaMaskManager();
+		maskManager.start(width, height);
+
+		int[][] lumsMovingAverage = new int[width][height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				lumsMovingAverage[x][y] = (x * y) % (255 * 255);
+			}
+		}
+		maskManager.setLumsMovingAverage(lumsMovingAverage);
+
+		Mat hsvFrame = Camera.bufferedImageToMat(createArenaFrame(width, height, 17));
+		Imgproc.cvtColor(hsvFrame, hsvFrame, Imgproc.COLOR_BGR2HSV);
+		maskManager.updateAvgLums(hsvFrame);
+
+		return maskManager;
+	}
+
+	@Test
+	public void testMaskMatchesPerPixelCalculation() {
+		final int width = 64;
+		final int height = 48;
+
+		ArenaMaskManager maskManager = createMaskManager(width, height);
+
+		Mat hsvFrame = Camera.bufferedImageToMat(createArenaFrame(width, height, 17));
+		Imgproc.cvtColor(hsvFrame, hsvFrame, Imgproc.COLOR_BGR2HSV);
+
+		int minLums = 255 * 255;
+		int maxLums = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				double[] px = hsvFrame.get(y, x);
+				int lum = (255 - (int) px[1]) * (int) px[2];
+				minLums = Math.min(minLums, lum);
+				maxLums = Math.max(maxLums, lum);
+			}
+		}
+
+		BufferedImage arenaFrame = createArenaFrame(width, height, 101);
+		Mask mask = new Mask(arenaFrame, System.currentTimeMillis());
+		maskManager.handleMask(mask);
+
+		Mat arenaHSV = Camera.bufferedImageToMat(arenaFrame);
+		Imgproc.cvtColor(arenaHSV, arenaHSV, Imgproc.COLOR_BGR2HSV);
+
+		long totalLum = 0;
+		int[][] arenaLums = new int[width][height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				double[] px = arenaHSV.get(y, x);
+				arenaLums[x][y] = (255 - (int) px[1]) * (int) px[2];
+				totalLum += arenaLums[x][y];
+			}
+		}
+
+		assertEquals((int) (totalLum / (width * height)), mask.getAvgMaskLum());
+
+		double scaledMaskAvgLum = ((double) mask.getAvgMaskLum() / (double) (255 * 255)) * (maxLums - minLums)
+				+ minLums;
+
+		Mat result = maskManager.getMask();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				double scaler = (double) ((x * y) % (255 * 255)) / scaledMaskAvgLum;
+				int expected = (int) (((double) arenaLums[x][y] / (double) (255 * 255)) * (maxLums - minLums)
+						+ minLums);
+				expected *= scaler;
+
+				// Allow for rounding differences in how the scaling is done
+				assertEquals(String.format("mask pixel (%d, %d)", x, y), expected, result.get(y, x)[0], 1);
+			}
+		}
+	}
+
+	@Test
+	public void testMaskMatchesFrameTime() {
+		final int width = 64;
+		final int height = 48;
+
+		ArenaMaskManager maskManager = createMaskManager(width, height);
+		maskManager.setDelay(100);
+
+		ArenaMaskManager expectedManager = createMaskManager(width, height);
+		expectedManager.handleMask(new Mask(createArenaFrame(width, height, 101), 0));
+		Mat firstExpected = expectedManager.getMask().clone();
+		expectedManager.handleMask(new Mask(createArenaFrame(width, height, 53), 0));
+		Mat secondExpected = expectedManager.getMask().clone();
+
+		Mask first = new Mask(createArenaFrame(width, height, 101), 1000);
+		maskManager.insert(first);
+		maskManager.insert(new Mask(createArenaFrame(width, height, 53), 1050));
+
+		// Only the luminance of masks waiting for frames is kept
+		assertNull(first.getMaskImage());
+		assertEquals(height, first.getLumRows().length);
+		assertEquals(width, first.getLumRows()[0].length);
+
+		// Frames are compared to what was projected the delay before they
+		// were captured
+		assertEquals(0, Core.countNonZero(maskManager.getMask(1050).reshape(1)));
+		assertMatEquals(firstExpected, maskManager.getMask(1100));
+		assertMatEquals(firstExpected, maskManager.getMask(1149));
+		assertMatEquals(secondExpected, maskManager.getMask(1150));
+		assertMatEquals(secondExpected, maskManager.getMask(2000));
+	}
+
+	private void assertMatEquals(Mat expected, Mat actual) {
+		int[] expectedPixels = new int[(int) expected.total()];
+		expected.get(0, 0, expectedPixels);
+		int[] actualPixels = new int[(int) actual.total()];
+		actual.get(0, 0, actualPixels);
+
+		assertArrayEquals(expectedPixels, actualPixels);
+	}
+}
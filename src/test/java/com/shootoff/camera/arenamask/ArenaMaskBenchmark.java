@@ -0,0 +1,100 @@
+package com.shootoff.camera.arenamask;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import com.shootoff.camera.Camera;
+
+/**
+ * Times arena mask updates at common camera resolutions. This isn't part of
+ * the unit tests because timings depend on the machine and whatever else it
+ * is doing, run it by hand with <tt>main</tt> to compare changes.
+ *
+ * An update is split between two threads: the luminance of a rendered mask is
+ * calculated when the arena inserts it, and the mask a camera frame is
+ * compared to is built from that luminance on the shot detection thread.
+ */
+public class ArenaMaskBenchmark {
+	private static final int[][] RESOLUTIONS = { { 640, 480 }, { 1280, 720 }, { 1920, 1080 } };
+	private static final int WARMUP_UPDATES = 20;
+	private static final int TIMED_UPDATES = 60;
+
+	public static void main(String[] args) {
+		nu.pattern.OpenCV.loadShared();
+
+		for (int[] resolution : RESOLUTIONS)
+			benchmark(resolution[0], resolution[1]);
+	}
+
+	private static void benchmark(int width, int height) {
+		final ArenaMaskManager maskManager = createMaskManager(width, height);
+
+		// The arena is usually rendered larger than the camera feed
+		final List<BufferedImage> arenaFrames = new ArrayList<BufferedImage>();
+		for (int i = 0; i < 8; i++)
+			arenaFrames.add(createArenaFrame(width * 3 / 2, height * 3 / 2, i * 31));
+
+		for (int i = 0; i < WARMUP_UPDATES; i++)
+			update(maskManager, arenaFrames.get(i % arenaFrames.size()));
+
+		long lumNanos = 0;
+		long maskNanos = 0;
+
+		for (int i = 0; i < TIMED_UPDATES; i++) {
+			final Mask mask = new Mask(arenaFrames.get(i % arenaFrames.size()), i);
+
+			final long start = System.nanoTime();
+			maskManager.insert(mask);
+			final long inserted = System.nanoTime();
+			maskManager.handleMask(mask);
+			final long handled = System.nanoTime();
+
+			lumNanos += inserted - start;
+			maskNanos += handled - inserted;
+		}
+
+		System.out.println(String.format("%dx%d: luminance %.2f ms, mask %.2f ms per update", width, height,
+				lumNanos / 1000000.0 / TIMED_UPDATES, maskNanos / 1000000.0 / TIMED_UPDATES));
+	}
+
+	private static void update(ArenaMaskManager maskManager, BufferedImage arenaFrame) {
+		final Mask mask = new Mask(arenaFrame, 0);
+		maskManager.insert(mask);
+		maskManager.handleMask(mask);
+	}
+
+	private static BufferedImage createArenaFrame(int width, int height, int seed) {
+		final BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				frame.setRGB(x, y, ((x * 3 + seed) & 0xFF) << 16 | ((y * 5 + seed) & 0xFF) << 8 | ((x + y) & 0xFF));
+			}
+		}
+
+		return frame;
+	}
+
+	private static ArenaMaskManager createMaskManager(int width, int height) {
+		final ArenaMaskManager maskManager = new ArenaMaskManager();
+		maskManager.start(width, height);
+
+		final int[][] lumsMovingAverage = new int[width][height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				lumsMovingAverage[x][y] = (x * y) % (255 * 255);
+			}
+		}
+		maskManager.setLumsMovingAverage(lumsMovingAverage);
+
+		final Mat hsvFrame = Camera.bufferedImageToMat(createArenaFrame(width, height, 17));
+		Imgproc.cvtColor(hsvFrame, hsvFrame, Imgproc.COLOR_BGR2HSV);
+		maskManager.updateAvgLums(hsvFrame);
+
+		return maskManager;
+	}
+}
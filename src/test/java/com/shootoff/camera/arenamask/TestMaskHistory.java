@@ -0,0 +1,96 @@
+package com.shootoff.camera.arenamask;
+
+import static org.junit.Assert.*;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMaskHistory {
+	private MaskHistory history;
+
+	@Before
+	public void setUp() {
+		nu.pattern.OpenCV.loadShared();
+
+		history = new MaskHistory();
+	}
+
+	private Mask insert(long timestamp) {
+		Mask mask = new Mask(null, timestamp);
+		history.insert(mask);
+
+		return mask;
+	}
+
+	@Test
+	public void testEmptyHistory() {
+		assertFalse(history.get(1000).isPresent());
+	}
+
+	@Test
+	public void testFindsNewestMaskBeforeTime() {
+		Mask first = insert(100);
+		Mask second = insert(150);
+		Mask third = insert(200);
+
+		assertFalse(history.get(99).isPresent());
+		assertSame(first, history.get(100).get());
+		assertSame(first, history.get(149).get());
+		assertSame(second, history.get(150).get());
+		assertSame(second, history.get(199).get());
+		assertSame(third, history.get(200).get());
+		assertSame(third, history.get(10000).get());
+	}
+
+	@Test
+	public void testOldestMasksOverwritten() {
+		for (int i = 0; i < 1000; i++)
+			insert(i * 10);
+
+		// Only the newest masks are kept
+		assertFalse(history.get(100).isPresent());
+		assertEquals(9500, history.get(9505).get().getTimestamp());
+		assertEquals(9990, history.get(Long.MAX_VALUE).get().getTimestamp());
+	}
+
+	@Test
+	public void testCapacityBoundedByMaskSize() {
+		assertEquals(64, MaskHistory.forMaskSize(64, 48).getCapacity());
+		assertEquals(54, MaskHistory.forMaskSize(640, 480).getCapacity());
+		assertEquals(8, MaskHistory.forMaskSize(1920, 1080).getCapacity());
+	}
+
+	@Test
+	public void testClockSteppingBackwards() {
+		insert(100);
+		Mask stepped = insert(50);
+		Mask after = insert(120);
+
+		// A mask with an older timestamp is treated as being rendered when
+		// the mask before it was so that lookups stay sorted
+		assertSame(stepped, history.get(110).get());
+		assertSame(after, history.get(120).get());
+	}
+
+	@Test
+	public void testConcurrentProducer() throws InterruptedException {
+		final int maskCount = 200000;
+		Thread producer = new Thread(() -> {
+			for (int i = 1; i <= maskCount; i++)
+				insert(i);
+		});
+		producer.start();
+
+		while (producer.isAlive()) {
+			final long time = (long) (Math.random() * maskCount);
+			final Optional<Mask> mask = history.get(time);
+
+			if (mask.isPresent()) assertTrue(mask.get().getTimestamp() <= time);
+		}
+
+		producer.join();
+		assertEquals(maskCount, history.get(maskCount).get().getTimestamp());
+	}
+}
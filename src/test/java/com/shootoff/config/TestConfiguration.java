@@ -229,7 +229,7 @@ public class TestConfiguration {
 	@Test
 	public void testReadCmdLineShort() throws IOException, ConfigurationException {
 		Configuration config = new Configuration(
-				new String[] { "-d", "-m", "4", "-c", "green", "-u", "25", "-f", "43.15" });
+				new String[] { "-d", "-m", "4", "-c", "green", "-u", "25", "-f", "43.15", "-r" });
 
 		assertFalse(config.isFirstRun());
 		assertEquals(4, config.getMarkerRadius());
@@ -240,12 +240,14 @@ public class TestConfiguration {
 		assertEquals(true, config.useMalfunctions());
 		assertEquals(43.15f, config.getMalfunctionsProbability(), 0.5);
 		assertEquals(true, config.inDebugMode());
+		assertEquals(true, config.isLimitingFeedToRefreshRate());
 	}
 
 	@Test
 	public void testReadCmdLineLong() throws IOException, ConfigurationException {
 		Configuration config = new Configuration(new String[] { "--debug", "--marker-radius", "4",
-				"--ignore-laser-color", "green", "--use-virtual-magazine", "25", "--use-malfunctions", "43.15" });
+				"--ignore-laser-color", "green", "--use-virtual-magazine", "25", "--use-malfunctions", "43.15",
+				"--limit-feed-rate" });
 
 		assertFalse(config.isFirstRun());
 		assertEquals(4, config.getMarkerRadius());
@@ -256,6 +258,7 @@ public class TestConfiguration {
 		assertEquals(true, config.useMalfunctions());
 		assertEquals(43.15f, config.getMalfunctionsProbability(), 0.5);
 		assertEquals(true, config.inDebugMode());
+		assertEquals(true, config.isLimitingFeedToRefreshRate());
 	}
 
 	@Test
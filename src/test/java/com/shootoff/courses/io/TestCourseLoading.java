@@ -0,0 +1,172 @@
+package com.shootoff.courses.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+import com.shootoff.courses.Course;
+import com.shootoff.gui.MockCanvasManager;
+import com.shootoff.gui.Target;
+import com.shootoff.gui.controller.MockProjectorArenaController;
+
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+
+// Loading in the background hands targets to the JavaFX thread, so unlike the
+// other IO tests these can't run on that thread
+public class TestCourseLoading {
+	private static final String[] TARGETS = { "targets/IPSC.target", "targets/Reset.target",
+			"targets/ISSF.target", "targets/IPSC.target", "targets/USPSA.target" };
+
+	private MockProjectorArenaController arenaController;
+	private File courseFile;
+
+	@BeforeClass
+	public static void setUpJavaFX() throws Exception {
+		SwingUtilities.invokeAndWait(() -> new JFXPanel());
+	}
+
+	private void runOnFXThread(Runnable r) throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(1);
+
+		Platform.runLater(() -> {
+			try {
+				r.run();
+			} finally {
+				done.countDown();
+			}
+		});
+
+		assertTrue(done.await(30, TimeUnit.SECONDS));
+	}
+
+	@Before
+	public void setUp() throws ConfigurationException, IOException, InterruptedException {
+		System.setProperty("shootoff.home", System.getProperty("user.dir"));
+		System.setProperty("shootoff.sessions", System.getProperty("shootoff.home") + File.separator + "sessions");
+
+		final Configuration config = new Configuration(new String[0]);
+		arenaController = new MockProjectorArenaController();
+		runOnFXThread(() -> arenaController.init(config, new MockCanvasManager(config)));
+
+		courseFile = File.createTempFile("loading", ".course");
+
+		try (PrintWriter out = new PrintWriter(courseFile, "UTF-8")) {
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<course>");
+			out.println("\t<background url=\"/arena/backgrounds/indoor_range.gif\" isResource=\"true\" />");
+			for (int i = 0; i < TARGETS.length; i++) {
+				out.println(String.format("\t<target file=\"%s\" x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\" />",
+						TARGETS[i], i * 10, i * 20, 100 + i, 200 + i));
+			}
+			out.println("\t<resolution width=\"640\" height=\"480\" />");
+			out.println("</course>");
+		}
+	}
+
+	@After
+	public void tearDown() {
+		if (!courseFile.delete()) System.err.println("Failed to delete " + courseFile.getPath());
+	}
+
+	private void checkTargets(Course course) {
+		List<Target> targets = course.getTargets();
+		assertEquals(TARGETS.length, targets.size());
+
+		// Targets keep the course's order even though they load in parallel
+		for (int i = 0; i < TARGETS.length; i++) {
+			Target t = targets.get(i);
+
+			assertEquals(new File(TARGETS[i]), t.getTargetFile());
+			assertEquals(i * 10, t.getPosition().getX(), 1);
+			assertEquals(i * 20, t.getPosition().getY(), 1);
+			assertEquals(100 + i, t.getDimension().getWidth(), 1);
+			assertEquals(200 + i, t.getDimension().getHeight(), 1);
+		}
+
+		assertTrue(course.getBackground().isPresent());
+		assertEquals(640, course.getResolution().get().getWidth(), 1);
+	}
+
+	@Test
+	public void testLoadAsync() throws InterruptedException {
+		final CountDownLatch loaded = new CountDownLatch(1);
+		final List<Integer> progress = new ArrayList<Integer>();
+		final AtomicReference<Optional<Course>> result = new AtomicReference<Optional<Course>>();
+		final AtomicReference<Boolean> onFXThread = new AtomicReference<Boolean>(true);
+
+		CourseIO.loadCourseAsync(arenaController, courseFile, new CourseLoadListener() {
+			@Override
+			public void targetLoaded(int loadedCount, int targetCount) {
+				if (!Platform.isFxApplicationThread()) onFXThread.set(false);
+				assertEquals(TARGETS.length, targetCount);
+				progress.add(loadedCount);
+			}
+
+			@Override
+			public void courseLoaded(Optional<Course> course) {
+				if (!Platform.isFxApplicationThread()) onFXThread.set(false);
+				result.set(course);
+				loaded.countDown();
+			}
+		});
+
+		assertTrue(loaded.await(30, TimeUnit.SECONDS));
+		assertTrue(onFXThread.get());
+
+		assertEquals(TARGETS.length, progress.size());
+		for (int i = 0; i < TARGETS.length; i++)
+			assertEquals(i + 1, (int) progress.get(i));
+
+		assertTrue(result.get().isPresent());
+		checkTargets(result.get().get());
+	}
+
+	@Test
+	public void testLoadAsyncMissingCourse() throws InterruptedException {
+		final CountDownLatch loaded = new CountDownLatch(1);
+		final AtomicReference<Optional<Course>> result = new AtomicReference<Optional<Course>>();
+
+		CourseIO.loadCourseAsync(arenaController, new File("does_not_exist.course"), new CourseLoadListener() {
+			@Override
+			public void targetLoaded(int loadedCount, int targetCount) {
+				fail("No targets should load for a missing course");
+			}
+
+			@Override
+			public void courseLoaded(Optional<Course> course) {
+				result.set(course);
+				loaded.countDown();
+			}
+		});
+
+		assertTrue(loaded.await(30, TimeUnit.SECONDS));
+		assertFalse(result.get().isPresent());
+	}
+
+	@Test
+	public void testLoadWaitsForParallelTargets() throws InterruptedException {
+		final AtomicReference<Optional<Course>> course = new AtomicReference<Optional<Course>>();
+		runOnFXThread(() -> course.set(CourseIO.loadCourse(arenaController, courseFile)));
+
+		assertTrue(course.get().isPresent());
+		checkTargets(course.get().get());
+	}
+}
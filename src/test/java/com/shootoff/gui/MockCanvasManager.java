@@ -11,7 +11,6 @@ import com.shootoff.camera.Shot;
 import com.shootoff.camera.ShotProcessor;
 import com.shootoff.config.Configuration;
 
-import javafx.collections.FXCollections;
 import javafx.embed.swing.JFXPanel;
 import javafx.scene.Group;
 import javafx.scene.paint.Color;
@@ -27,7 +26,7 @@ public class MockCanvasManager extends CanvasManager {
 
 	public MockCanvasManager(Configuration config) {
 		super(new Group(), config, new CamerasSupervisor(config), String.format("%d", System.nanoTime()),
-				FXCollections.observableArrayList());
+				new ShotTimerLog());
 		new JFXPanel(); // Initialize the JFX toolkit
 		this.config = config;
 		this.cameraName = "Default";
@@ -36,7 +35,7 @@ public class MockCanvasManager extends CanvasManager {
 
 	public MockCanvasManager(Configuration config, boolean useShotProcessors) {
 		super(new Group(), config, new CamerasSupervisor(config), String.format("%d", System.nanoTime()),
-				FXCollections.observableArrayList());
+				new ShotTimerLog());
 		new JFXPanel(); // Initialize the JFX toolkit
 		this.config = config;
 		this.cameraName = "Default";
@@ -49,9 +48,15 @@ public class MockCanvasManager extends CanvasManager {
 
 	@Override
 	public void addShot(Color color, double x, double y) {
+		addShot(new Shot(color, x, y, 0, this.cameraManager.getFrameCount(), config.getMarkerRadius()));
+	}
+
+	@Override
+	public void addShot(Shot detectedShot) {
 		if (startTime == 0) startTime = System.currentTimeMillis();
-		Shot shot = new Shot(color, x, y, System.currentTimeMillis(), this.cameraManager.getFrameCount(),
-				config.getMarkerRadius());
+		Shot shot = new Shot(detectedShot.getColor(), detectedShot.getX(), detectedShot.getY(),
+				System.currentTimeMillis(), detectedShot.getFrame(), config.getMarkerRadius(),
+				detectedShot.getCaptureTime());
 
 		if (useShotProcessors) {
 
@@ -74,7 +79,7 @@ public class MockCanvasManager extends CanvasManager {
 	@Override
 	public Target addTarget(Target newTarget) {
 		super.getCanvasGroup().getChildren().add(newTarget.getTargetGroup());
-		super.getTargets().add(newTarget);
+		registerTarget(newTarget);
 
 		return newTarget;
 	}
@@ -0,0 +1,102 @@
+package com.shootoff.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Optional;
+import java.util.Random;
+
+import com.shootoff.targets.RectangleRegion;
+
+import javafx.scene.Group;
+
+/**
+ * Compares how long it takes to find the target a shot hit using the
+ * {@link TargetIndex} and by checking every target. This isn't part of the
+ * unit tests because timings depend on the machine and whatever else it is
+ * doing, run it by hand with <tt>main</tt> to compare changes.
+ */
+public class TargetIndexBenchmark {
+	private static final int WIDTH = 1920;
+	private static final int HEIGHT = 1080;
+	private static final int SHOT_COUNT = 10000;
+	private static final int RUNS = 5;
+
+	private final TargetIndex index = new TargetIndex();
+	private final List<Target> targets = new ArrayList<Target>();
+
+	public static void main(String[] args) {
+		final Random random = new Random(42);
+
+		for (int targetCount : new int[] { 10, 100, 1000 })
+			new TargetIndexBenchmark().run(random, targetCount);
+	}
+
+	private void run(Random random, int targetCount) {
+		for (int i = 0; i < targetCount; i++)
+			createTarget(random.nextInt(WIDTH), random.nextInt(HEIGHT), 20 + random.nextInt(80),
+					20 + random.nextInt(80));
+
+		final double[] shotX = new double[SHOT_COUNT];
+		final double[] shotY = new double[SHOT_COUNT];
+		for (int i = 0; i < SHOT_COUNT; i++) {
+			shotX[i] = random.nextInt(WIDTH);
+			shotY[i] = random.nextInt(HEIGHT);
+		}
+
+		// Warm up both approaches before timing them
+		timeHits(false, shotX, shotY);
+		timeHits(true, shotX, shotY);
+
+		final long linearNanos = timeHits(false, shotX, shotY);
+		final long indexedNanos = timeHits(true, shotX, shotY);
+
+		System.out.println(String.format("%d targets: linear scan %d ns, index %d ns per shot (%.1fx)", targetCount,
+				linearNanos / SHOT_COUNT, indexedNanos / SHOT_COUNT, (double) linearNanos / indexedNanos));
+	}
+
+	private void createTarget(double x, double y, double width, double height) {
+		final Group group = new Group(new RectangleRegion(0, 0, width, height));
+		final Target target = new Target(group, targets);
+		target.setPosition(x, y);
+
+		targets.add(target);
+		index.add(target);
+	}
+
+	private Optional<Target> linearHit(double x, double y) {
+		for (ListIterator<Target> li = targets.listIterator(targets.size()); li.hasPrevious();) {
+			final Target target = li.previous();
+			if (target.getTargetGroup().getBoundsInParent().contains(x, y)) return Optional.of(target);
+		}
+
+		return Optional.empty();
+	}
+
+	private Optional<Target> indexedHit(double x, double y) {
+		for (Target target : index.getCandidates(x, y)) {
+			if (target.getTargetGroup().getBoundsInParent().contains(x, y)) return Optional.of(target);
+		}
+
+		return Optional.empty();
+	}
+
+	private long timeHits(boolean indexed, double[] shotX, double[] shotY) {
+		long best = Long.MAX_VALUE;
+
+		// The fastest of a few runs so a GC pause doesn't decide the result
+		for (int run = 0; run < RUNS; run++) {
+			final long start = System.nanoTime();
+			for (int i = 0; i < shotX.length; i++) {
+				if (indexed) {
+					indexedHit(shotX[i], shotY[i]);
+				} else {
+					linearHit(shotX[i], shotY[i]);
+				}
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return best;
+	}
+}
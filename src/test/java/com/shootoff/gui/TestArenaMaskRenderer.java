@@ -0,0 +1,304 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.opencv.core.Size;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.camera.arenamask.Mask;
+import com.shootoff.targets.RectangleRegion;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+public class TestArenaMaskRenderer {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private static final int ARENA = 0xFF333333;
+	private static final int WHITE = 0xFFFFFFFF;
+	private static final int BLUE = 0xFF0000FF;
+	private static final int RED = 0xFFFF0000;
+	private static final int GREEN = 0xFF00FF00;
+	private static final int GOLD = 0xFFFFD700;
+
+	private final List<Mask> masks = new ArrayList<Mask>();
+	private ArenaMaskRenderer renderer;
+
+	@Before
+	public void setUp() {
+		nu.pattern.OpenCV.loadShared();
+
+		renderer = new ArenaMaskRenderer(100, 80, (mask) -> {
+			synchronized (masks) {
+				masks.add(mask);
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		renderer.close();
+	}
+
+	private Target createTarget(double x, double y) {
+		return createTarget(x, y, Color.WHITE);
+	}
+
+	private Target createTarget(double x, double y, Color fill) {
+		RectangleRegion region = new RectangleRegion(0, 0, 20, 10);
+		region.setFill(fill);
+
+		Group group = new Group(region);
+		Target target = new Target(group, new ArrayList<Target>());
+		target.setPosition(x, y);
+
+		return target;
+	}
+
+	private BufferedImage render() throws InterruptedException {
+		renderer.awaitRender();
+		return renderer.getCanvas();
+	}
+
+	@Test
+	public void testEmptyArena() throws InterruptedException {
+		BufferedImage canvas = render();
+
+		assertEquals(100, canvas.getWidth());
+		assertEquals(80, canvas.getHeight());
+		assertEquals(ARENA, canvas.getRGB(0, 0));
+		assertEquals(ARENA, canvas.getRGB(99, 79));
+		assertEquals(1, masks.size());
+	}
+
+	@Test
+	public void testTargetRendered() throws InterruptedException {
+		renderer.addTarget(createTarget(10, 20));
+		BufferedImage canvas = render();
+
+		assertEquals(WHITE, canvas.getRGB(10, 20));
+		assertEquals(WHITE, canvas.getRGB(29, 29));
+		assertEquals(ARENA, canvas.getRGB(9, 20));
+		assertEquals(ARENA, canvas.getRGB(30, 29));
+		assertEquals(ARENA, canvas.getRGB(10, 30));
+	}
+
+	@Test
+	public void testMovedTargetRedrawn() throws InterruptedException {
+		Target target = createTarget(10, 20);
+		renderer.addTarget(target);
+		render();
+
+		target.setPosition(50, 50);
+		BufferedImage canvas = render();
+
+		assertEquals(ARENA, canvas.getRGB(15, 25));
+		assertEquals(WHITE, canvas.getRGB(55, 55));
+
+		renderer.removeTarget(target);
+		canvas = render();
+
+		assertEquals(ARENA, canvas.getRGB(55, 55));
+
+		// Nothing is rendered or published when nothing changed
+		int published = masks.size();
+		renderer.removeTarget(target);
+		render();
+		assertEquals(published, masks.size());
+	}
+
+	@Test
+	public void testHiddenTargetNotRendered() throws InterruptedException {
+		Target target = createTarget(10, 20);
+		renderer.addTarget(target);
+		render();
+
+		target.getTargetGroup().setVisible(false);
+		assertEquals(ARENA, render().getRGB(15, 25));
+
+		target.getTargetGroup().setVisible(true);
+		assertEquals(WHITE, render().getRGB(15, 25));
+	}
+
+	@Test
+	public void testBackgroundRendered() throws InterruptedException {
+		WritableImage background = new WritableImage(10, 8);
+		PixelWriter writer = background.getPixelWriter();
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 10; x++) {
+				writer.setColor(x, y, Color.BLUE);
+			}
+		}
+
+		renderer.addTarget(createTarget(10, 20));
+		renderer.setBackground(Optional.of(background));
+		BufferedImage canvas = render();
+
+		// The background is stretched to fill the arena under the targets
+		assertEquals(0xFF0000FF, canvas.getRGB(0, 0));
+		assertEquals(0xFF0000FF, canvas.getRGB(99, 79));
+		assertEquals(WHITE, canvas.getRGB(15, 25));
+
+		renderer.setBackground(Optional.empty());
+		assertEquals(ARENA, render().getRGB(0, 0));
+	}
+
+	@Test
+	public void testResize() throws InterruptedException {
+		renderer.addTarget(createTarget(10, 20));
+		renderer.setSize(200, 150);
+		BufferedImage canvas = render();
+
+		assertEquals(200, canvas.getWidth());
+		assertEquals(150, canvas.getHeight());
+		assertEquals(WHITE, canvas.getRGB(15, 25));
+		assertEquals(ARENA, canvas.getRGB(150, 120));
+	}
+
+	@Test
+	public void testStackingOrder() throws InterruptedException {
+		Target bottom = createTarget(10, 20, Color.WHITE);
+		Target top = createTarget(15, 25, Color.BLUE);
+		renderer.addTarget(bottom);
+		renderer.addTarget(top);
+
+		renderer.setArenaChildren(Arrays.<Node> asList(bottom.getTargetGroup(), top.getTargetGroup()), null);
+		BufferedImage canvas = render();
+
+		assertEquals(WHITE, canvas.getRGB(12, 22));
+		assertEquals(BLUE, canvas.getRGB(20, 28));
+
+		// Bringing a target to the front on the arena brings it to the front
+		// in the mask
+		renderer.setArenaChildren(Arrays.<Node> asList(top.getTargetGroup(), bottom.getTargetGroup()), null);
+		canvas = render();
+
+		assertEquals(WHITE, canvas.getRGB(20, 28));
+		assertEquals(BLUE, canvas.getRGB(34, 34));
+	}
+
+	@Test
+	public void testShotsRendered() throws InterruptedException {
+		Target target = createTarget(10, 20);
+		renderer.addTarget(target);
+
+		Node shotMarkers = new Group();
+		renderer.setArenaChildren(Arrays.<Node> asList(shotMarkers, target.getTargetGroup()), shotMarkers);
+
+		Shot shot = new Shot(Color.RED, 50, 50, 0, 3);
+		Shot underTarget = new Shot(Color.RED, 15, 25, 0, 3);
+		renderer.addShot(shot);
+		renderer.addShot(underTarget);
+		BufferedImage canvas = render();
+
+		assertEquals(RED, canvas.getRGB(50, 50));
+		assertEquals(ARENA, canvas.getRGB(55, 55));
+		// Shot markers are stacked under the target
+		assertEquals(WHITE, canvas.getRGB(15, 25));
+
+		renderer.setShotSelected(shot, true);
+		assertEquals(GOLD, render().getRGB(50, 50));
+
+		renderer.setShowShots(false);
+		assertEquals(ARENA, render().getRGB(50, 50));
+
+		renderer.setShowShots(true);
+		assertEquals(GOLD, render().getRGB(50, 50));
+
+		renderer.clearShots();
+		assertEquals(ARENA, render().getRGB(50, 50));
+	}
+
+	@Test
+	public void testOverlayRendered() throws InterruptedException {
+		Target target = createTarget(10, 20);
+		renderer.addTarget(target);
+
+		Rectangle label = new Rectangle(10, 10, Color.LIME);
+		label.relocate(60, 40);
+		renderer.setArenaChildren(Arrays.<Node> asList(target.getTargetGroup(), label), null);
+		BufferedImage canvas = render();
+
+		assertEquals(GREEN, canvas.getRGB(60, 40));
+		assertEquals(GREEN, canvas.getRGB(69, 49));
+		assertEquals(ARENA, canvas.getRGB(70, 50));
+		assertEquals(WHITE, canvas.getRGB(15, 25));
+
+		// Overlays are snapshotted again when they change
+		label.relocate(10, 20);
+		UpdateCoalescer.drain(Long.MAX_VALUE);
+		canvas = render();
+
+		assertEquals(ARENA, canvas.getRGB(65, 45));
+		assertEquals(GREEN, canvas.getRGB(15, 25));
+
+		renderer.setArenaChildren(Arrays.<Node> asList(target.getTargetGroup()), null);
+		assertEquals(WHITE, render().getRGB(15, 25));
+	}
+
+	@Test
+	public void testMaskSize() throws InterruptedException {
+		renderer.addTarget(createTarget(10, 20));
+		renderer.setMaskSize(50, 40);
+		BufferedImage canvas = render();
+
+		// The arena is scaled down to the size masks are compared at
+		assertEquals(50, canvas.getWidth());
+		assertEquals(40, canvas.getHeight());
+		assertEquals(WHITE, canvas.getRGB(5, 10));
+		assertEquals(WHITE, canvas.getRGB(14, 14));
+		assertEquals(ARENA, canvas.getRGB(15, 15));
+		assertEquals(ARENA, canvas.getRGB(4, 10));
+
+		Mask mask = lastMask();
+		assertEquals(40, mask.getLumRows().length);
+		assertEquals(50, mask.getLumRows()[0].length);
+	}
+
+	@Test
+	public void testIncrementalLumMatchesFull() throws InterruptedException {
+		Target target = createTarget(10, 20, Color.BLUE);
+		renderer.addTarget(target);
+		render();
+		Mask previous = lastMask();
+
+		target.setPosition(50, 50);
+		BufferedImage canvas = render();
+		Mask incremental = lastMask();
+
+		BufferedImage copy = new BufferedImage(canvas.getWidth(), canvas.getHeight(), canvas.getType());
+		copy.setData(canvas.getData());
+		Mask full = new Mask(copy, 0);
+		full.calculateLum(new Size(100, 80), false);
+
+		assertEquals(full.getAvgMaskLum(), incremental.getAvgMaskLum());
+		for (int y = 0; y < 80; y++)
+			assertArrayEquals(full.getLumRows()[y], incremental.getLumRows()[y]);
+
+		// Rows that didn't change are shared, rows that did aren't
+		assertSame(previous.getLumRows()[0], incremental.getLumRows()[0]);
+		assertNotSame(previous.getLumRows()[25], incremental.getLumRows()[25]);
+		assertFalse(Arrays.equals(previous.getLumRows()[25], incremental.getLumRows()[25]));
+	}
+
+	private Mask lastMask() {
+		synchronized (masks) {
+			return masks.get(masks.size() - 1);
+		}
+	}
+}
@@ -17,8 +17,6 @@ import com.shootoff.config.Configuration;
 import com.shootoff.config.ConfigurationException;
 import com.shootoff.targets.TargetRegion;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.scene.Group;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Shape;
@@ -28,7 +26,7 @@ public class TestCanvasManager {
 	
 	private CanvasManager cm;
 	private Target ipscTarget;
-	private ObservableList<ShotEntry> shotEntries = FXCollections.observableArrayList();
+	private ShotTimerLog shotEntries = new ShotTimerLog();
 	
 	private Configuration config;
 	
@@ -99,6 +97,21 @@ public class TestCanvasManager {
 		assertEquals(0, cm.getTargets().size());
 	}
 	
+	@Test
+	public void testGeometryTracksTargetIndex() {
+		Target second = cm.addTarget(new File("targets/IPSC.target")).get();
+		
+		assertEquals(0, ipscTarget.getGeometry().getTargetIndex());
+		assertEquals(1, second.getGeometry().getTargetIndex());
+		
+		// Shot detection threads read the index from the geometry, so it has
+		// to follow the targets list
+		cm.removeTarget(ipscTarget);
+		
+		assertEquals(0, second.getGeometry().getTargetIndex());
+		assertEquals(second.getTargetIndex(), second.getGeometry().getTargetIndex());
+	}
+	
 	@Test
 	public void testGetTargetGroups() {
 		assertEquals(1, cm.getTargetGroups().size());
@@ -129,6 +142,17 @@ public class TestCanvasManager {
 		assertEquals(1, cm.getShots().size());
 	}
 	
+	@Test
+	public void testDetectedShotKeepsCaptureTime() {
+		final long captureTime = System.currentTimeMillis() - 1000;
+		
+		cm.addShot(new Shot(Color.RED, 0, 0, 0, 3, 2, captureTime));
+		
+		assertEquals(1, cm.getShots().size());
+		assertEquals(captureTime, cm.getShots().get(0).getCaptureTime());
+		assertEquals(3, cm.getShots().get(0).getFrame());
+	}
+	
 	@Test
 	public void testDisplayResolutionTranslationLarger() {
 		config.setDisplayResolution(800, 600);
@@ -170,4 +194,36 @@ public class TestCanvasManager {
 		assertEquals(320, cm.getShots().get(0).getX(), 1.0);
 		assertEquals(240, cm.getShots().get(0).getY(), 1.0);
 	}
+	
+	@Test
+	public void testCheckHitAtEarlierTime() throws InterruptedException {
+		long beforeMove = System.currentTimeMillis();
+		Thread.sleep(5);
+		
+		ipscTarget.setPosition(1000, 1000);
+		
+		// The shot was fired while the target was still at its old position
+		Optional<Hit> h = cm.checkHit(new Shot(Color.RED, 150, 150, 0, 2), Optional.empty(), beforeMove);
+		
+		assertTrue(h.isPresent());
+		assertEquals(ipscTarget, h.get().getTarget());
+		
+		h = cm.checkHit(new Shot(Color.RED, 150, 150, 0, 2), Optional.empty());
+		
+		assertFalse(h.isPresent());
+	}
+	
+	@Test
+	public void testCheckHitBeforeTargetAdded() throws InterruptedException {
+		cm.removeTarget(ipscTarget);
+		
+		long beforeAdd = System.currentTimeMillis();
+		Thread.sleep(5);
+		
+		Target target = cm.addTarget(new File("targets/IPSC.target")).get();
+		target.setPosition(0, 0);
+		
+		assertFalse(cm.checkHit(new Shot(Color.RED, 150, 150, 0, 2), Optional.empty(), beforeAdd).isPresent());
+		assertTrue(cm.checkHit(new Shot(Color.RED, 150, 150, 0, 2), Optional.empty()).isPresent());
+	}
 }
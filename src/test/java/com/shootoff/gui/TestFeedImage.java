@@ -0,0 +1,97 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+
+public class TestFeedImage {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private FeedImage feedImage;
+
+	@Before
+	public void setUp() {
+		feedImage = new FeedImage();
+	}
+
+	private BufferedImage createFrame(int type, int width, int height) {
+		BufferedImage frame = new BufferedImage(width, height, type);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				frame.setRGB(x, y, 0xFF000000 | (x * 7 & 0xFF) << 16 | (y * 13 & 0xFF) << 8 | ((x + y) & 0xFF));
+			}
+		}
+
+		return frame;
+	}
+
+	private void assertSamePixels(BufferedImage expected, Image actual) {
+		assertEquals(expected.getWidth(), (int) actual.getWidth());
+		assertEquals(expected.getHeight(), (int) actual.getHeight());
+
+		PixelReader reader = actual.getPixelReader();
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(String.format("pixel (%d, %d)", x, y), expected.getRGB(x, y) | 0xFF000000,
+						reader.getArgb(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testBgrFrame() {
+		BufferedImage frame = createFrame(BufferedImage.TYPE_3BYTE_BGR, 40, 30);
+
+		assertSamePixels(frame, feedImage.update(frame));
+	}
+
+	@Test
+	public void testIntFrames() {
+		BufferedImage rgbFrame = createFrame(BufferedImage.TYPE_INT_RGB, 40, 30);
+		assertSamePixels(rgbFrame, feedImage.update(rgbFrame));
+
+		BufferedImage argbFrame = createFrame(BufferedImage.TYPE_INT_ARGB, 40, 30);
+		assertSamePixels(argbFrame, feedImage.update(argbFrame));
+	}
+
+	@Test
+	public void testOtherFrameType() {
+		BufferedImage frame = createFrame(BufferedImage.TYPE_USHORT_565_RGB, 40, 30);
+
+		assertSamePixels(frame, feedImage.update(frame));
+	}
+
+	@Test
+	public void testSubimageFrames() {
+		BufferedImage bgrFrame = createFrame(BufferedImage.TYPE_3BYTE_BGR, 80, 60).getSubimage(10, 20, 40, 30);
+		assertSamePixels(bgrFrame, feedImage.update(bgrFrame));
+
+		BufferedImage intFrame = createFrame(BufferedImage.TYPE_INT_RGB, 80, 60).getSubimage(15, 5, 40, 30);
+		assertSamePixels(intFrame, feedImage.update(intFrame));
+	}
+
+	@Test
+	public void testImageReused() {
+		Image first = feedImage.update(createFrame(BufferedImage.TYPE_3BYTE_BGR, 40, 30));
+		BufferedImage secondFrame = createFrame(BufferedImage.TYPE_3BYTE_BGR, 40, 30);
+		secondFrame.setRGB(5, 5, 0xFFFFFFFF);
+		Image second = feedImage.update(secondFrame);
+
+		assertSame(first, second);
+		assertEquals(0xFFFFFFFF, second.getPixelReader().getArgb(5, 5));
+
+		Image resized = feedImage.update(createFrame(BufferedImage.TYPE_3BYTE_BGR, 20, 10));
+
+		assertNotSame(first, resized);
+		assertEquals(20, (int) resized.getWidth());
+		assertEquals(10, (int) resized.getHeight());
+	}
+}
@@ -0,0 +1,80 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javafx.scene.image.Image;
+
+public class TestImageCache {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private File imageFile;
+
+	@Before
+	public void setUp() throws IOException {
+		ImageCache.clear();
+
+		imageFile = File.createTempFile("image", ".png");
+		Files.copy(new File("targets/IPSC.png").toPath(), imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@After
+	public void tearDown() {
+		ImageCache.clear();
+
+		if (!imageFile.delete()) System.err.println("Failed to delete " + imageFile.getPath());
+	}
+
+	@Test
+	public void testImageShared() throws IOException {
+		Image first = ImageCache.getImage(imageFile);
+		Image second = ImageCache.getImage(new File(imageFile.getPath()));
+
+		assertFalse(first.isError());
+		assertSame(first, second);
+		assertEquals(1, ImageCache.size());
+	}
+
+	@Test
+	public void testModifiedImageLoadedAgain() throws IOException {
+		Image first = ImageCache.getImage(imageFile);
+		assertTrue(imageFile.setLastModified(imageFile.lastModified() - 10000));
+		Image second = ImageCache.getImage(imageFile);
+
+		assertNotSame(first, second);
+		assertEquals(first.getWidth(), second.getWidth(), 0.1);
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testMissingImage() throws IOException {
+		ImageCache.getImage(new File("does_not_exist.png"));
+	}
+
+	@Test
+	public void testLocatedImageShared() {
+		String url = "/arena/backgrounds/indoor_range.gif";
+		LocatedImage first = ImageCache.getLocatedImage(url, true);
+		LocatedImage second = ImageCache.getLocatedImage(url, true);
+
+		assertSame(first, second);
+		assertEquals(url, first.getURL());
+		assertTrue(first.isResource());
+		assertFalse(first.isError());
+
+		// The same name as a URL is a different image
+		LocatedImage fileImage = ImageCache.getLocatedImage(imageFile.toURI().toString(), false);
+		assertNotSame(first, fileImage);
+		assertFalse(fileImage.isResource());
+		assertSame(fileImage, ImageCache.getLocatedImage(imageFile.toURI().toString(), false));
+	}
+}
@@ -0,0 +1,108 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.targets.TargetRegion;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+public class TestShotMarkerLayer {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private ShotMarkerLayer layer;
+
+	@Before
+	public void setUp() {
+		layer = new ShotMarkerLayer();
+	}
+
+	private Color colorAt(int x, int y) {
+		SnapshotParameters params = new SnapshotParameters();
+		params.setFill(Color.TRANSPARENT);
+		WritableImage image = layer.getCanvas().snapshot(params, null);
+
+		return image.getPixelReader().getColor(x, y);
+	}
+
+	@Test
+	public void testAddShot() {
+		Shot shot = new Shot(Color.RED, 100, 50, 0, 3);
+		layer.addShot(shot);
+
+		assertEquals(1, layer.getShots().size());
+		assertTrue(layer.getCanvas().getWidth() >= 103);
+		assertTrue(layer.getCanvas().getHeight() >= 53);
+		assertEquals(Color.RED, colorAt(100, 50));
+		assertEquals(Color.TRANSPARENT, colorAt(10, 10));
+	}
+
+	@Test
+	public void testCanvasGrows() {
+		layer.addShot(new Shot(Color.RED, 10, 10, 0, 3));
+		double oldWidth = layer.getCanvas().getWidth();
+
+		layer.addShot(new Shot(Color.GREEN, oldWidth + 100, 10, 0, 3));
+
+		assertTrue(layer.getCanvas().getWidth() > oldWidth + 100);
+
+		// Growing redraws the earlier shots as well
+		assertEquals(Color.RED, colorAt(10, 10));
+		assertEquals(Color.GREEN, colorAt((int) oldWidth + 100, 10));
+	}
+
+	@Test
+	public void testClear() {
+		layer.addShot(new Shot(Color.RED, 10, 10, 0, 3));
+		layer.clear();
+
+		assertTrue(layer.getShots().isEmpty());
+		assertEquals(Color.TRANSPARENT, colorAt(10, 10));
+	}
+
+	@Test
+	public void testShowShots() {
+		layer.addShot(new Shot(Color.RED, 10, 10, 0, 3));
+		layer.setShowShots(false);
+
+		assertEquals(Color.TRANSPARENT, colorAt(10, 10));
+
+		// Shots added while hidden are still shown later
+		layer.addShot(new Shot(Color.GREEN, 30, 10, 0, 3));
+		layer.setShowShots(true);
+
+		assertEquals(Color.RED, colorAt(10, 10));
+		assertEquals(Color.GREEN, colorAt(30, 10));
+	}
+
+	@Test
+	public void testSelectedShotDrawnOnTop() {
+		Shot bottom = new Shot(Color.RED, 10, 10, 0, 3);
+		Shot top = new Shot(Color.GREEN, 10, 10, 0, 3);
+		layer.addShot(bottom);
+		layer.addShot(top);
+
+		layer.setSelected(bottom, true);
+
+		assertTrue(layer.isSelected(bottom));
+		assertEquals(TargetRegion.SELECTED_STROKE_COLOR, colorAt(10, 10));
+
+		layer.setSelected(bottom, false);
+
+		assertEquals(Color.GREEN, colorAt(10, 10));
+	}
+
+	@Test
+	public void testSelectUnknownShot() {
+		Shot shot = new Shot(Color.RED, 10, 10, 0, 3);
+		layer.setSelected(shot, true);
+
+		assertFalse(layer.isSelected(shot));
+	}
+}
@@ -0,0 +1,179 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.shootoff.camera.Shot;
+
+import javafx.scene.paint.Color;
+
+public class TestShotTimerLog {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private ShotTimerLog log;
+
+	@Before
+	public void setUp() {
+		UpdateCoalescer.drain(Long.MAX_VALUE);
+		log = new ShotTimerLog(10, 4);
+	}
+
+	@After
+	public void tearDown() {
+		log.close();
+	}
+
+	private ShotEntry addShot(long timestamp) {
+		Shot shot = new Shot(timestamp % 2 == 0 ? Color.RED : Color.GREEN, timestamp, timestamp * 2, timestamp,
+				(int) timestamp, 3);
+		ShotEntry entry = new ShotEntry(shot, log.getLastShot(), Optional.empty(), false, false);
+		log.add(entry);
+
+		return entry;
+	}
+
+	private void applyUpdates() {
+		UpdateCoalescer.drain(Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testAddIsApplied() {
+		ShotEntry entry = addShot(1000);
+
+		assertEquals(entry.getShot(), log.getLastShot().get());
+		assertTrue(log.getEntries().isEmpty());
+
+		applyUpdates();
+
+		assertEquals(1, log.getEntries().size());
+		assertEquals(entry, log.getEntries().get(0));
+	}
+
+	@Test
+	public void testSpillsOldestPage() {
+		for (int i = 1; i <= 11; i++)
+			addShot(i * 1000);
+		applyUpdates();
+
+		assertEquals(7, log.getEntries().size());
+		assertEquals(4, log.getSpilledCount());
+		assertTrue(log.hasOlderEntries());
+		assertEquals(5000, log.getEntries().get(0).getShot().getTimestamp());
+		assertEquals(11000, log.getEntries().get(6).getShot().getTimestamp());
+	}
+
+	@Test
+	public void testSplitsAfterSpill() {
+		for (int i = 1; i <= 20; i++)
+			addShot(i * 1000);
+
+		// Splits are calculated before the entries are applied or spilled
+		ShotEntry entry = addShot(21500);
+		assertEquals("1.50", entry.getSplit().getSplit());
+
+		applyUpdates();
+		assertEquals(entry, log.getEntries().get(log.getEntries().size() - 1));
+	}
+
+	@Test
+	public void testLoadOlderEntries() {
+		ShotEntry first = null;
+		for (int i = 1; i <= 11; i++) {
+			ShotEntry entry = addShot(i * 1000);
+			if (first == null) first = entry;
+		}
+		first.setExerciseValue("Score", "10");
+		applyUpdates();
+
+		assertEquals(4, log.loadOlderEntries());
+		assertEquals(11, log.getEntries().size());
+		assertEquals(0, log.getSpilledCount());
+		assertFalse(log.hasOlderEntries());
+		assertEquals(0, log.loadOlderEntries());
+
+		for (int i = 0; i < log.getEntries().size(); i++) {
+			ShotEntry entry = log.getEntries().get(i);
+			long timestamp = (i + 1) * 1000;
+
+			assertEquals(timestamp, entry.getShot().getTimestamp());
+			assertEquals(timestamp % 2 == 0 ? Color.RED : Color.GREEN, entry.getShot().getColor());
+			assertEquals(timestamp, entry.getShot().getX(), 0.01);
+			assertEquals(timestamp * 2, entry.getShot().getY(), 0.01);
+			assertEquals(3, entry.getShot().getMarkerRadius());
+			assertEquals(i == 0 ? "-" : "1.00", entry.getSplit().getSplit());
+		}
+
+		ShotEntry restored = log.getEntries().get(0);
+		assertNotSame(first, restored);
+		// Shot markers are selected by the shot they were drawn for
+		assertSame(first.getShot(), restored.getShot());
+		assertEquals("10", restored.getExerciseValue("Score"));
+		assertEquals(first.getTimestamp(), restored.getTimestamp());
+		assertEquals(first.getColor(), restored.getColor());
+	}
+
+	@Test
+	public void testRowColorRestored() {
+		Shot shot = new Shot(Color.RED, 1, 1, 0, 3);
+		log.add(new ShotEntry(shot, Optional.empty(), Optional.of(Color.LIGHTGREEN), true, false));
+		for (int i = 1; i <= 10; i++)
+			addShot(i * 1000);
+		applyUpdates();
+
+		assertEquals(4, log.loadOlderEntries());
+
+		ShotEntry restored = log.getEntries().get(0);
+		assertEquals(Color.LIGHTGREEN, restored.getRowColor().get());
+		assertEquals(Color.LIGHTGREEN, restored.getSplit().getRowColor().get());
+		assertTrue(restored.getSplit().hadMalfunction());
+		assertFalse(restored.getSplit().hadReload());
+	}
+
+	@Test
+	public void testRespillAfterLoad() {
+		for (int i = 1; i <= 15; i++)
+			addShot(i * 1000);
+		applyUpdates();
+
+		assertEquals(8, log.getSpilledCount());
+		assertEquals(4, log.loadOlderEntries());
+		assertEquals(11, log.getEntries().size());
+
+		addShot(16000);
+		applyUpdates();
+
+		assertEquals(8, log.getEntries().size());
+		assertEquals(8, log.getSpilledCount());
+		assertEquals(9000, log.getEntries().get(0).getShot().getTimestamp());
+
+		assertEquals(4, log.loadOlderEntries());
+		assertEquals(5000, log.getEntries().get(0).getShot().getTimestamp());
+		assertEquals(4, log.loadOlderEntries());
+		assertEquals(1000, log.getEntries().get(0).getShot().getTimestamp());
+		assertEquals(16, log.getEntries().size());
+	}
+
+	@Test
+	public void testClear() {
+		for (int i = 1; i <= 15; i++)
+			addShot(i * 1000);
+
+		log.clear();
+		assertFalse(log.getLastShot().isPresent());
+
+		applyUpdates();
+
+		assertTrue(log.getEntries().isEmpty());
+		assertEquals(0, log.getSpilledCount());
+		assertFalse(log.hasOlderEntries());
+
+		ShotEntry entry = addShot(20000);
+		assertEquals("-", entry.getSplit().getSplit());
+	}
+}
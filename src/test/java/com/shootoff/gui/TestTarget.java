@@ -2,6 +2,8 @@ package com.shootoff.gui;
 
 import static org.junit.Assert.*;
 
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -17,12 +19,21 @@ import com.shootoff.config.Configuration;
 import com.shootoff.config.ConfigurationException;
 import com.shootoff.gui.controller.MockProjectorArenaController;
 import com.shootoff.targets.EllipseRegion;
+import com.shootoff.targets.HitRaster;
 import com.shootoff.targets.ImageRegion;
 import com.shootoff.targets.RegionType;
 import com.shootoff.targets.TargetRegion;
 import com.shootoff.targets.io.TargetIO;
 
+import javafx.embed.swing.SwingFXUtils;
 import javafx.event.Event;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 
@@ -300,4 +311,190 @@ public class TestTarget {
 		assertEquals(oldWidth - Target.SCALE_DELTA, pepperPopper.getDimension().getWidth(), .001);
 		assertEquals(oldHeight - Target.SCALE_DELTA, pepperPopper.getDimension().getHeight(), .001);
 	}
+
+	private HitRaster awaitHitRaster(Target target) throws InterruptedException {
+		for (int i = 0; i < 250; i++) {
+			Optional<HitRaster> raster = target.getHitRaster();
+			if (raster.isPresent()) return raster.get();
+			Thread.sleep(20);
+		}
+
+		fail("Hit raster was never compiled");
+		return null;
+	}
+
+	// The hit test ShootOFF used before geometry was published: walks the live
+	// scene graph and rescales image regions to check for transparent pixels.
+	// Kept as the reference that published geometry is checked against.
+	private Optional<Hit> getSceneGraphHit(Target target, double x, double y) {
+		Group targetGroup = target.getTargetGroup();
+
+		for (int i = targetGroup.getChildren().size() - 1; i >= 0; i--) {
+			Node node = targetGroup.getChildren().get(i);
+
+			Bounds nodeBounds = targetGroup.getLocalToParentTransform().transform(node.getBoundsInParent());
+
+			int adjustedX = (int) (x - nodeBounds.getMinX());
+			int adjustedY = (int) (y - nodeBounds.getMinY());
+
+			if (!nodeBounds.contains(x, y)) continue;
+
+			TargetRegion region = (TargetRegion) node;
+			if (region.getType() == RegionType.IMAGE) {
+				Image currentImage = ((ImageRegion) region).getImage();
+
+				// Animations packed into an atlas only show part of the image
+				Rectangle2D viewport = ((ImageRegion) region).getViewport();
+				if (viewport != null) {
+					currentImage = new WritableImage(currentImage.getPixelReader(), (int) viewport.getMinX(),
+							(int) viewport.getMinY(), (int) viewport.getWidth(), (int) viewport.getHeight());
+				}
+
+				if (adjustedX < 0 || adjustedY < 0) return Optional.empty();
+
+				if (Math.abs(currentImage.getWidth() - nodeBounds.getWidth()) > .0000001
+						|| Math.abs(currentImage.getHeight() - nodeBounds.getHeight()) > .0000001) {
+					BufferedImage bufferedOriginal = SwingFXUtils.fromFXImage(currentImage, null);
+
+					java.awt.Image tmp = bufferedOriginal.getScaledInstance((int) nodeBounds.getWidth(),
+							(int) nodeBounds.getHeight(), java.awt.Image.SCALE_SMOOTH);
+					BufferedImage bufferedResized = new BufferedImage((int) nodeBounds.getWidth(),
+							(int) nodeBounds.getHeight(), BufferedImage.TYPE_INT_ARGB);
+
+					Graphics2D g2d = bufferedResized.createGraphics();
+					g2d.drawImage(tmp, 0, 0, null);
+					g2d.dispose();
+
+					if (adjustedX >= bufferedResized.getWidth() || adjustedY >= bufferedResized.getHeight()
+							|| bufferedResized.getRGB(adjustedX, adjustedY) >> 24 == 0) {
+						continue;
+					}
+				} else {
+					if (adjustedX >= currentImage.getWidth() || adjustedY >= currentImage.getHeight()
+							|| currentImage.getPixelReader().getArgb(adjustedX, adjustedY) >> 24 == 0) {
+						continue;
+					}
+				}
+			} else {
+				Point2D localCoords = targetGroup.parentToLocal(x, y);
+				if (!node.contains(localCoords)) continue;
+			}
+
+			return Optional.of(new Hit(target, region, adjustedX, adjustedY));
+		}
+
+		return Optional.empty();
+	}
+
+	private void assertHitRasterMatchesSceneGraph(Target target) {
+		assertGeometryMatchesSceneGraph(target, target.getGeometry());
+	}
+
+	private void assertGeometryMatchesSceneGraph(Target target, TargetGeometry geometry) {
+		Bounds bounds = target.getTargetGroup().getBoundsInParent();
+
+		int samples = 0;
+		int matches = 0;
+
+		for (double y = Math.floor(bounds.getMinY()) + .5; y < bounds.getMaxY(); y += 2) {
+			for (double x = Math.floor(bounds.getMinX()) + .5; x < bounds.getMaxX(); x += 2) {
+				Optional<Hit> rasterHit = geometry.getHit(x, y);
+				Optional<Hit> sceneGraphHit = getSceneGraphHit(target, x, y);
+
+				samples++;
+
+				if (rasterHit.isPresent() == sceneGraphHit.isPresent() && (!rasterHit.isPresent()
+						|| rasterHit.get().getHitRegion() == sceneGraphHit.get().getHitRegion())) {
+					matches++;
+				}
+			}
+		}
+
+		// Pixels exactly on region edges may be decided differently
+		assertTrue(samples > 0);
+		assertTrue(String.format("Only %d of %d samples matched", matches, samples), matches >= samples * .98);
+	}
+
+	@Test
+	public void testHitRasterShapes() throws InterruptedException {
+		Target ipsc = new Target(TargetIO.loadTarget(new File("targets/IPSC.target")).get(), targets);
+
+		HitRaster raster = awaitHitRaster(ipsc);
+		assertEquals(Math.ceil(ipsc.getDimension().getWidth()), raster.getWidth(), 1);
+		assertEquals(Math.ceil(ipsc.getDimension().getHeight()), raster.getHeight(), 1);
+
+		assertHitRasterMatchesSceneGraph(ipsc);
+	}
+
+	@Test
+	public void testHitRasterImage() throws InterruptedException {
+		awaitHitRaster(pepperPopper);
+
+		assertHitRasterMatchesSceneGraph(pepperPopper);
+	}
+
+	@Test
+	public void testHitRasterMovedAndResized() throws InterruptedException {
+		Target ipsc = new Target(TargetIO.loadTarget(new File("targets/IPSC.target")).get(), targets);
+		HitRaster oldRaster = awaitHitRaster(ipsc);
+
+		// Moving reuses the raster
+		ipsc.setPosition(100, 50);
+		assertSame(oldRaster, ipsc.getHitRaster().get());
+		assertHitRasterMatchesSceneGraph(ipsc);
+
+		// Resizing invalidates it until a new one is compiled
+		ipsc.setDimensions(ipsc.getDimension().getWidth() * 1.5, ipsc.getDimension().getHeight() * .75);
+		assertNotSame(oldRaster, ipsc.getHitRaster().orElse(null));
+
+		HitRaster newRaster = awaitHitRaster(ipsc);
+		assertEquals(Math.ceil(ipsc.getDimension().getWidth()), newRaster.getWidth(), 1);
+		assertHitRasterMatchesSceneGraph(ipsc);
+	}
+
+	@Test
+	public void testGeometryWithoutRaster() {
+		Target ipsc = new Target(TargetIO.loadTarget(new File("targets/IPSC.target")).get(), targets);
+		ipsc.setPosition(30, 40);
+		ipsc.getTargetGroup().setRotate(30);
+
+		// A freshly captured geometry has no raster and tests its regions
+		// directly
+		TargetGeometry ipscGeometry = new TargetGeometry(ipsc, HitRaster.capture(ipsc.getTargetGroup(), 0));
+		assertFalse(ipscGeometry.getRaster().isPresent());
+		assertGeometryMatchesSceneGraph(ipsc, ipscGeometry);
+
+		TargetGeometry popperGeometry = new TargetGeometry(pepperPopper,
+				HitRaster.capture(pepperPopper.getTargetGroup(), 0));
+		assertGeometryMatchesSceneGraph(pepperPopper, popperGeometry);
+	}
+
+	@Test
+	public void testGeometryPublishedOnMove() throws InterruptedException {
+		Target ipsc = new Target(TargetIO.loadTarget(new File("targets/IPSC.target")).get(), targets);
+		TargetGeometry oldGeometry = ipsc.getGeometry();
+
+		ipsc.setPosition(500, 300);
+
+		TargetGeometry newGeometry = ipsc.getGeometry();
+		assertNotSame(oldGeometry, newGeometry);
+		assertEquals(oldGeometry.getVersion(), newGeometry.getVersion());
+		assertEquals(ipsc.getTargetGroup().getBoundsInParent().getMinX(), newGeometry.getMinX(), .001);
+		assertEquals(ipsc.getTargetGroup().getBoundsInParent().getMinY(), newGeometry.getMinY(), .001);
+
+		// The old snapshot is unchanged
+		assertFalse(oldGeometry.contains(newGeometry.getMaxX() - 1, newGeometry.getMaxY() - 1));
+
+		// Hits can be found from a thread other than the one moving the
+		// target
+		double x = newGeometry.getMinX() + (newGeometry.getMaxX() - newGeometry.getMinX()) / 2;
+		double y = newGeometry.getMinY() + (newGeometry.getMaxY() - newGeometry.getMinY()) / 2;
+		List<Optional<Hit>> hits = new ArrayList<Optional<Hit>>();
+		Thread detector = new Thread(() -> hits.add(ipsc.getHit(x, y)));
+		detector.start();
+		detector.join();
+
+		assertTrue(hits.get(0).isPresent());
+		assertEquals(getSceneGraphHit(ipsc, x, y).get().getHitRegion(), hits.get(0).get().getHitRegion());
+	}
 }
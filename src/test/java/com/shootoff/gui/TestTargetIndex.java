@@ -0,0 +1,183 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.shootoff.targets.RectangleRegion;
+
+import javafx.scene.Group;
+
+public class TestTargetIndex {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private TargetIndex index;
+	private List<Target> targets;
+
+	@Before
+	public void setUp() {
+		index = new TargetIndex();
+		targets = new ArrayList<Target>();
+	}
+
+	private Target createTarget(double x, double y, double width, double height) {
+		Group group = new Group(new RectangleRegion(0, 0, width, height));
+		Target target = new Target(group, targets);
+		target.setPosition(x, y);
+
+		targets.add(target);
+		index.add(target);
+
+		return target;
+	}
+
+	@Test
+	public void testOverlappingTargetsTopMostFirst() {
+		Target bottom = createTarget(0, 0, 100, 100);
+		Target middle = createTarget(50, 50, 100, 100);
+		Target top = createTarget(75, 75, 100, 100);
+
+		List<Target> candidates = index.getCandidates(80, 80);
+		assertEquals(3, candidates.size());
+		assertEquals(top, candidates.get(0));
+		assertEquals(middle, candidates.get(1));
+		assertEquals(bottom, candidates.get(2));
+	}
+
+	@Test
+	public void testMovedTarget() {
+		Target target = createTarget(0, 0, 50, 50);
+
+		assertTrue(index.getCandidates(25, 25).contains(target));
+
+		target.setPosition(1000, 500);
+
+		assertFalse(index.getCandidates(25, 25).contains(target));
+		assertTrue(index.getCandidates(1025, 525).contains(target));
+
+		// Dragging moves the group directly instead of using setPosition
+		target.getTargetGroup().setLayoutX(300);
+
+		assertFalse(index.getCandidates(1025, 525).contains(target));
+		assertTrue(index.getCandidates(325, 525).contains(target));
+	}
+
+	@Test
+	public void testRecentlyMovedTarget() throws InterruptedException {
+		Target target = createTarget(0, 0, 50, 50);
+
+		long beforeMove = System.currentTimeMillis();
+		Thread.sleep(5);
+
+		target.setPosition(1000, 500);
+
+		// Shots from before the move may still hit the target where it was
+		assertTrue(index.getCandidates(25, 25, beforeMove).contains(target));
+		assertFalse(index.getCandidates(25, 25).contains(target));
+
+		// but the target isn't a candidate twice where it is now
+		assertEquals(1, index.getCandidates(1025, 525, beforeMove).size());
+
+		assertFalse(index.getCandidates(25, 25, System.currentTimeMillis() + 1).contains(target));
+	}
+
+	@Test
+	public void testResizedTarget() {
+		Target target = createTarget(0, 0, 50, 50);
+
+		assertFalse(index.getCandidates(250, 250).contains(target));
+
+		target.setDimensions(500, 500);
+
+		assertTrue(index.getCandidates(250, 250).contains(target));
+	}
+
+	@Test
+	public void testMovedTargetKeepsZOrder() {
+		Target bottom = createTarget(0, 0, 50, 50);
+		Target top = createTarget(1000, 1000, 50, 50);
+
+		top.setPosition(0, 0);
+		bottom.setPosition(10, 10);
+
+		List<Target> candidates = index.getCandidates(25, 25);
+		assertEquals(top, candidates.get(0));
+		assertEquals(bottom, candidates.get(1));
+	}
+
+	@Test
+	public void testOversizedTarget() {
+		Target bottom = createTarget(0, 0, 50000, 50000);
+		Target top = createTarget(20000, 20000, 50, 50);
+
+		List<Target> candidates = index.getCandidates(20025, 20025);
+		assertEquals(2, candidates.size());
+		assertEquals(top, candidates.get(0));
+		assertEquals(bottom, candidates.get(1));
+
+		assertEquals(1, index.getCandidates(40000, 40000).size());
+	}
+
+	@Test
+	public void testRemoveTarget() {
+		Target target = createTarget(0, 0, 50, 50);
+		index.remove(target);
+
+		assertEquals(0, index.size());
+		assertTrue(index.getCandidates(25, 25).isEmpty());
+
+		// Removed targets are no longer tracked
+		target.setPosition(10, 10);
+		assertTrue(index.getCandidates(25, 25).isEmpty());
+	}
+
+	private Optional<Target> linearHit(double x, double y) {
+		for (ListIterator<Target> li = targets.listIterator(targets.size()); li.hasPrevious();) {
+			Target target = li.previous();
+			if (target.getTargetGroup().getBoundsInParent().contains(x, y)) return Optional.of(target);
+		}
+
+		return Optional.empty();
+	}
+
+	private Optional<Target> indexedHit(double x, double y) {
+		for (Target target : index.getCandidates(x, y)) {
+			if (target.getTargetGroup().getBoundsInParent().contains(x, y)) return Optional.of(target);
+		}
+
+		return Optional.empty();
+	}
+
+	@Test
+	public void testIndexedHitsMatchLinearScan() {
+		final int width = 1920;
+		final int height = 1080;
+		final int shotCount = 10000;
+
+		Random random = new Random(42);
+
+		for (int targetCount : new int[] { 10, 100, 1000 }) {
+			setUp();
+
+			for (int i = 0; i < targetCount; i++)
+				createTarget(random.nextInt(width), random.nextInt(height), 20 + random.nextInt(80),
+						20 + random.nextInt(80));
+
+			for (int i = 0; i < shotCount; i++) {
+				double x = random.nextInt(width);
+				double y = random.nextInt(height);
+
+				assertEquals(String.format("Hit at (%.0f, %.0f) with %d targets", x, y, targetCount),
+						linearHit(x, y), indexedHit(x, y));
+			}
+		}
+	}
+}
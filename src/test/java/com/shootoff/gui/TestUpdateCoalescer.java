@@ -0,0 +1,109 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TestUpdateCoalescer {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private final List<String> applied = new ArrayList<String>();
+
+	@Before
+	public void setUp() {
+		// The drain timer can't run while a test holds the FX thread, so
+		// anything left over from other tests is flushed here
+		UpdateCoalescer.drain(Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testKeyedUpdatesCollapse() {
+		Object key = new Object();
+
+		for (int i = 0; i < 10; i++) {
+			final int value = i;
+			UpdateCoalescer.post(key, () -> applied.add("frame " + value));
+		}
+
+		assertEquals(1, UpdateCoalescer.getQueueDepth());
+		assertEquals(1, UpdateCoalescer.drain(Long.MAX_VALUE));
+		assertEquals(1, applied.size());
+		assertEquals("frame 9", applied.get(0));
+		assertEquals(0, UpdateCoalescer.getQueueDepth());
+	}
+
+	@Test
+	public void testKeyPostedAgainAfterDrain() {
+		Object key = new Object();
+
+		UpdateCoalescer.post(key, () -> applied.add("first"));
+		UpdateCoalescer.drain(Long.MAX_VALUE);
+		UpdateCoalescer.post(key, () -> applied.add("second"));
+		UpdateCoalescer.drain(Long.MAX_VALUE);
+
+		assertEquals(2, applied.size());
+		assertEquals("first", applied.get(0));
+		assertEquals("second", applied.get(1));
+	}
+
+	@Test
+	public void testAppendedUpdatesKeepOrder() {
+		Object key = new Object();
+
+		UpdateCoalescer.append(() -> applied.add("shot 1"));
+		UpdateCoalescer.post(key, () -> applied.add("label a"));
+		UpdateCoalescer.append(() -> applied.add("shot 2"));
+		UpdateCoalescer.post(key, () -> applied.add("label b"));
+		UpdateCoalescer.append(() -> applied.add("shot 3"));
+
+		assertEquals(4, UpdateCoalescer.getQueueDepth());
+		assertEquals(4, UpdateCoalescer.drain(Long.MAX_VALUE));
+
+		// The label keeps its original place in the queue but shows the
+		// latest text
+		assertEquals(4, applied.size());
+		assertEquals("shot 1", applied.get(0));
+		assertEquals("label b", applied.get(1));
+		assertEquals("shot 2", applied.get(2));
+		assertEquals("shot 3", applied.get(3));
+	}
+
+	@Test
+	public void testDrainIsBounded() {
+		for (int i = 0; i < 5; i++) {
+			UpdateCoalescer.append(() -> {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+				applied.add("slow");
+			});
+		}
+
+		// At least one update is applied per pulse even if it alone uses the
+		// whole budget
+		assertEquals(1, UpdateCoalescer.drain(1));
+		assertEquals(4, UpdateCoalescer.getQueueDepth());
+
+		assertEquals(4, UpdateCoalescer.drain(Long.MAX_VALUE));
+		assertEquals(5, applied.size());
+		assertTrue(UpdateCoalescer.getMaxQueueDepth() >= 5);
+	}
+
+	@Test
+	public void testFailedUpdateDoesNotStopDrain() {
+		UpdateCoalescer.append(() -> {
+			throw new IllegalStateException("expected by test");
+		});
+		UpdateCoalescer.append(() -> applied.add("after failure"));
+
+		assertEquals(2, UpdateCoalescer.drain(Long.MAX_VALUE));
+		assertEquals(1, applied.size());
+	}
+}
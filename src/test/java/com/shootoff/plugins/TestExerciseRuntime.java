@@ -0,0 +1,174 @@
+package com.shootoff.plugins;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestExerciseRuntime {
+	private ExerciseRuntime runtime;
+
+	@Before
+	public void setUp() {
+		ExerciseRuntime.setRefreshRate(100);
+		runtime = new ExerciseRuntime();
+	}
+
+	@After
+	public void tearDown() {
+		runtime.cancelAll();
+		ExerciseRuntime.setRefreshRate(60);
+	}
+
+	@Test
+	public void testFrameTimes() {
+		final long period = ExerciseRuntime.getFramePeriodNanos();
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(10), period);
+
+		final long frame = ExerciseRuntime.nextFrameTime(System.nanoTime());
+
+		assertEquals(frame, ExerciseRuntime.nextFrameTime(frame));
+		assertEquals(frame + period, ExerciseRuntime.nextFrameTime(frame + 1));
+		assertEquals(frame + period, ExerciseRuntime.nextFrameTime(frame + period));
+		assertEquals(frame + period * 2, ExerciseRuntime.nextFrameTime(frame + period + period / 2));
+	}
+
+	@Test
+	public void testFramesFollowPulses() {
+		final long period = ExerciseRuntime.getFramePeriodNanos();
+		final long pulse = System.nanoTime() + period / 3;
+
+		ExerciseRuntime.pulse(pulse);
+
+		assertEquals(pulse, ExerciseRuntime.nextFrameTime(pulse - period / 2));
+		assertEquals(pulse + period, ExerciseRuntime.nextFrameTime(pulse + 1));
+
+		// Pulses that come a little early shorten frames
+		long time = pulse;
+		for (int i = 0; i < 100; i++) {
+			time += period * 9 / 10;
+			ExerciseRuntime.pulse(time);
+		}
+
+		assertTrue(ExerciseRuntime.getFramePeriodNanos() < period * 95 / 100);
+		assertEquals(time + ExerciseRuntime.getFramePeriodNanos(), ExerciseRuntime.nextFrameTime(time + 1));
+
+		// A skipped pulse isn't mistaken for a long frame
+		final long shortenedPeriod = ExerciseRuntime.getFramePeriodNanos();
+		ExerciseRuntime.pulse(time + period * 5);
+		assertEquals(shortenedPeriod, ExerciseRuntime.getFramePeriodNanos());
+	}
+
+	@Test
+	public void testDelayRunsOnFrame() throws InterruptedException {
+		final CountDownLatch ran = new CountDownLatch(1);
+		final long[] runTime = new long[1];
+		final long start = System.nanoTime();
+
+		runtime.schedule(() -> {
+			runTime[0] = System.nanoTime();
+			ran.countDown();
+		}, 50, TimeUnit.MILLISECONDS);
+
+		assertTrue(ran.await(2, TimeUnit.SECONDS));
+		assertTrue(runTime[0] - start >= TimeUnit.MILLISECONDS.toNanos(50));
+		assertTrue(ExerciseRuntime.getMaxJitterNanos() >= 0);
+	}
+
+	@Test
+	public void testParTimer() throws InterruptedException {
+		final CountDownLatch ended = new CountDownLatch(1);
+		final long start = System.nanoTime();
+
+		runtime.startParTimer(0.25, ended::countDown);
+
+		assertTrue(ended.await(2, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+	}
+
+	@Test
+	public void testTicksCountUp() throws InterruptedException {
+		final List<Long> ticks = new CopyOnWriteArrayList<Long>();
+		final CountDownLatch fiveTicks = new CountDownLatch(5);
+
+		final ExerciseRuntime.Ticks running = runtime.scheduleTicks((frame) -> {
+			ticks.add(frame);
+			fiveTicks.countDown();
+		});
+
+		assertTrue(fiveTicks.await(2, TimeUnit.SECONDS));
+		assertTrue(running.cancel());
+
+		for (int i = 0; i < 5; i++)
+			assertEquals(i, ticks.get(i).longValue());
+	}
+
+	@Test
+	public void testFailingTickKeepsTicking() throws InterruptedException {
+		final CountDownLatch ticks = new CountDownLatch(3);
+
+		final ExerciseRuntime.Ticks running = runtime.scheduleTicks((frame) -> {
+			ticks.countDown();
+			throw new IllegalStateException("expected by test");
+		});
+
+		assertTrue(ticks.await(2, TimeUnit.SECONDS));
+		assertTrue(running.cancel());
+	}
+
+	@Test
+	public void testCancelledTicksStop() throws InterruptedException {
+		final List<Long> ticks = new CopyOnWriteArrayList<Long>();
+		final CountDownLatch firstTick = new CountDownLatch(1);
+
+		final ExerciseRuntime.Ticks running = runtime.scheduleTicks((frame) -> {
+			ticks.add(frame);
+			firstTick.countDown();
+		});
+
+		assertEquals(1, runtime.getPendingCount());
+		assertTrue(firstTick.await(2, TimeUnit.SECONDS));
+
+		assertTrue(running.cancel());
+		assertTrue(running.isCancelled());
+		assertFalse(running.cancel());
+		assertEquals(0, runtime.getPendingCount());
+
+		// Let a tick that was already running finish
+		Thread.sleep(50);
+		final int tickCount = ticks.size();
+		Thread.sleep(100);
+		assertEquals(tickCount, ticks.size());
+	}
+
+	@Test
+	public void testCancelAll() throws InterruptedException {
+		final List<String> ran = new CopyOnWriteArrayList<String>();
+
+		runtime.schedule(() -> ran.add("delay"), 100, TimeUnit.MILLISECONDS);
+		runtime.startParTimer(0.1, () -> ran.add("par"));
+		runtime.scheduleTicks((frame) -> ran.add("tick"));
+
+		assertEquals(3, runtime.getPendingCount());
+
+		// Other exercises' work is unaffected
+		final ExerciseRuntime otherRuntime = new ExerciseRuntime();
+		final CountDownLatch otherRan = new CountDownLatch(1);
+		otherRuntime.schedule(otherRan::countDown, 150, TimeUnit.MILLISECONDS);
+
+		runtime.cancelAll();
+		final int ranBeforeCancel = ran.size();
+
+		assertEquals(0, runtime.getPendingCount());
+		assertTrue(otherRan.await(2, TimeUnit.SECONDS));
+		assertEquals(ranBeforeCancel, ran.size());
+		assertFalse(ran.contains("delay"));
+		assertFalse(ran.contains("par"));
+	}
+}
@@ -0,0 +1,199 @@
+package com.shootoff.plugins.physics;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.shootoff.gui.JavaFXThreadingRule;
+import com.shootoff.gui.Target;
+import com.shootoff.targets.RectangleRegion;
+
+import javafx.scene.Group;
+
+public class TestPhysicsWorld {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private static final int STEPS_PER_SECOND = 100;
+
+	private PhysicsWorld world;
+
+	@Before
+	public void setUp() {
+		world = new PhysicsWorld(() -> 400, () -> 300, STEPS_PER_SECOND);
+	}
+
+	private Body addBody(double x, double y, Object group, double velocityX, double velocityY) {
+		Group targetGroup = new Group(new RectangleRegion(0, 0, 20, 20));
+		Target target = new Target(targetGroup, new ArrayList<Target>());
+		target.setPosition(x, y);
+
+		Body body = new Body(target, group, velocityX, velocityY);
+		world.addBody(body);
+
+		return body;
+	}
+
+	private void step(int count) {
+		for (int i = 0; i < count; i++)
+			world.step();
+	}
+
+	@Test
+	public void testBodyMovesByVelocity() {
+		Body body = addBody(100, 100, null, 100, -50);
+
+		step(STEPS_PER_SECOND);
+
+		assertEquals(200, body.getX(), 0.001);
+		assertEquals(50, body.getY(), 0.001);
+
+		// Targets aren't moved until the next render
+		assertEquals(100, body.getTarget().getPosition().getX(), 0.001);
+
+		body.render(1);
+		assertEquals(200, body.getTarget().getPosition().getX(), 0.001);
+		assertEquals(50, body.getTarget().getPosition().getY(), 0.001);
+	}
+
+	@Test
+	public void testRenderInterpolates() {
+		Body body = addBody(100, 100, null, 1000, 0);
+
+		step(1);
+
+		body.render(0);
+		assertEquals(100, body.getTarget().getPosition().getX(), 0.001);
+		body.render(0.5);
+		assertEquals(105, body.getTarget().getPosition().getX(), 0.001);
+		body.render(1);
+		assertEquals(110, body.getTarget().getPosition().getX(), 0.001);
+	}
+
+	@Test
+	public void testBounceOffArenaEdges() {
+		Body body = addBody(370, 5, null, 500, -500);
+
+		step(2);
+
+		assertEquals(0, body.getY(), 0.001);
+		assertEquals(500, body.getVelocityY(), 0.001);
+
+		step(1);
+
+		assertEquals(380, body.getX(), 0.001);
+		assertEquals(-500, body.getVelocityX(), 0.001);
+		assertEquals(5, body.getY(), 0.001);
+
+		step(1);
+
+		assertEquals(375, body.getX(), 0.001);
+		assertEquals(10, body.getY(), 0.001);
+	}
+
+	@Test
+	public void testArenaSizeSampledOnRender() {
+		double[] arenaWidth = { 400 };
+		world = new PhysicsWorld(() -> arenaWidth[0], () -> 300, STEPS_PER_SECOND);
+		Body body = addBody(370, 100, null, 500, 0);
+
+		// Steps only see the new size once it is rendered
+		arenaWidth[0] = 1000;
+		step(2);
+		assertEquals(380, body.getX(), 0.001);
+
+		world.render(System.nanoTime());
+		body.setVelocity(500, 0);
+		step(2);
+		assertEquals(390, body.getX(), 0.001);
+	}
+
+	@Test
+	public void testSameGroupCollides() {
+		Body left = addBody(100, 100, "shoot", 500, 0);
+		Body right = addBody(125, 100, "shoot", -500, 0);
+		List<Body> collided = new ArrayList<Body>();
+		world.addCollisionListener((first, second) -> {
+			collided.add(first);
+			collided.add(second);
+		});
+
+		step(1);
+
+		assertEquals(2, collided.size());
+		assertTrue(collided.contains(left));
+		assertTrue(collided.contains(right));
+		assertFalse(left.intersects(right));
+		assertEquals(-500, left.getVelocityX(), 0.001);
+		assertEquals(500, right.getVelocityX(), 0.001);
+	}
+
+	@Test
+	public void testOtherGroupsPassThrough() {
+		Body shoot = addBody(100, 100, "shoot", 500, 0);
+		Body dontShoot = addBody(125, 100, "dont_shoot", -500, 0);
+		Body ghost = addBody(110, 100, null, 0, 0);
+
+		step(1);
+
+		assertTrue(shoot.intersects(dontShoot));
+		assertTrue(shoot.intersects(ghost));
+		assertEquals(500, shoot.getVelocityX(), 0.001);
+		assertEquals(-500, dontShoot.getVelocityX(), 0.001);
+	}
+
+	@Test
+	public void testPairsFoundOnceAcrossCells() {
+		BroadphaseGrid grid = new BroadphaseGrid(10);
+
+		// Both bodies cover several of the same cells
+		Body first = addBody(0, 0, "shoot", 0, 0);
+		Body second = addBody(5, 5, "shoot", 0, 0);
+		Body far = addBody(200, 200, "shoot", 0, 0);
+
+		List<Body> pairs = new ArrayList<Body>();
+		grid.forEachCollidingPair(world.getBodies(), (a, b) -> {
+			pairs.add(a);
+			pairs.add(b);
+		});
+
+		assertEquals(2, pairs.size());
+		assertTrue(pairs.contains(first));
+		assertTrue(pairs.contains(second));
+		assertFalse(pairs.contains(far));
+	}
+
+	@Test
+	public void testMoversRunEveryStep() {
+		Body body = addBody(100, 100, null, 0, 0);
+		List<Double> steps = new ArrayList<Double>();
+
+		// Accelerate down at 1000 px/s^2
+		world.addMover((dt) -> {
+			steps.add(dt);
+			body.setVelocity(body.getVelocityX(), body.getVelocityY() + 1000 * dt);
+		});
+
+		step(10);
+
+		assertEquals(10, steps.size());
+		assertEquals(1.0 / STEPS_PER_SECOND, steps.get(0), 0.000001);
+		assertEquals(100, body.getVelocityY(), 0.001);
+		assertTrue(body.getY() > 100);
+	}
+
+	@Test
+	public void testRunsOnItsOwn() throws InterruptedException {
+		Body body = addBody(100, 100, null, 1000, 0);
+
+		world.start();
+		Thread.sleep(100);
+		world.stop();
+
+		assertTrue(body.getX() > 100);
+	}
+}
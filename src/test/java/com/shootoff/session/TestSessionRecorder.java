@@ -3,6 +3,7 @@ package com.shootoff.session;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,12 +57,12 @@ public class TestSessionRecorder {
 	@Test
 	public void testOneOfEach() {
 		sessionRecorder.recordTargetAdded(cameraName, target1);
-		sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1), Optional.of(hitRegionIndex),
-				Optional.empty());
-		sessionRecorder.recordShot(cameraName, shot, true, false, Optional.of(target1), Optional.of(hitRegionIndex),
-				Optional.empty());
-		sessionRecorder.recordShot(cameraName, shot, false, true, Optional.of(target1), Optional.of(hitRegionIndex),
-				Optional.empty());
+		sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1.getGeometry()),
+				Optional.of(hitRegionIndex), Optional.empty());
+		sessionRecorder.recordShot(cameraName, shot, true, false, Optional.of(target1.getGeometry()),
+				Optional.of(hitRegionIndex), Optional.empty());
+		sessionRecorder.recordShot(cameraName, shot, false, true, Optional.of(target1.getGeometry()),
+				Optional.of(hitRegionIndex), Optional.empty());
 		sessionRecorder.recordTargetResized(cameraName, target1, 10, 20);
 		sessionRecorder.recordTargetMoved(cameraName, target1, 4, 3);
 		sessionRecorder.recordTargetRemoved(cameraName, target1);
@@ -213,8 +214,8 @@ public class TestSessionRecorder {
 		sessionRecorder.recordTargetResized(cameraName, target1, 11, 20);
 		sessionRecorder.recordTargetResized(cameraName, target1, 12, 20);
 		String videoString = "c:test/x.vid";
-		sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1), Optional.of(hitRegionIndex),
-				Optional.of(videoString));
+		sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1.getGeometry()),
+				Optional.of(hitRegionIndex), Optional.of(videoString));
 		sessionRecorder.recordTargetResized(cameraName, target1, 13, 20);
 		sessionRecorder.recordTargetResized(cameraName, target1, 12, 45);
 
@@ -291,8 +292,8 @@ public class TestSessionRecorder {
 	public void testCollapseMovesShotInMiddle() {
 		sessionRecorder.recordTargetMoved(cameraName, target1, 11, 20);
 		sessionRecorder.recordTargetMoved(cameraName, target1, 12, 20);
-		sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1), Optional.of(hitRegionIndex),
-				Optional.empty());
+		sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1.getGeometry()),
+				Optional.of(hitRegionIndex), Optional.empty());
 		sessionRecorder.recordTargetMoved(cameraName, target1, 13, 20);
 		sessionRecorder.recordTargetMoved(cameraName, target1, 12, 45);
 
@@ -376,4 +377,99 @@ public class TestSessionRecorder {
 		assertEquals(12, ((TargetResizedEvent) events.get(TARGET_RESIZED_INDEX)).getNewWidth(), 1);
 		assertEquals(45, ((TargetResizedEvent) events.get(TARGET_RESIZED_INDEX)).getNewHeight(), 1);
 	}
+
+	@Test
+	public void testConcurrentCameras() throws InterruptedException {
+		final int CAMERAS = 4;
+		final int SHOTS = 1000;
+
+		sessionRecorder.recordTargetAdded(cameraName, target1);
+
+		List<Thread> threads = new ArrayList<Thread>();
+
+		// Each camera's detection thread records its own shots while the
+		// JavaFX thread drags a target around
+		for (int c = 0; c < CAMERAS; c++) {
+			final String camera = "Camera " + c;
+
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < SHOTS; i++) {
+					sessionRecorder.recordShot(camera, new Shot(Color.RED, 0, 0, i, 2), false, false,
+							Optional.empty(), Optional.empty(), Optional.empty());
+				}
+			}));
+		}
+
+		threads.add(new Thread(() -> {
+			for (int i = 0; i < SHOTS; i++)
+				sessionRecorder.recordTargetMoved(cameraName, target1, i, i);
+		}));
+
+		for (Thread t : threads)
+			t.start();
+		for (Thread t : threads)
+			t.join();
+
+		for (int c = 0; c < CAMERAS; c++) {
+			List<Event> events = sessionRecorder.getCameraEvents("Camera " + c);
+			assertEquals(SHOTS, events.size());
+
+			// Each camera's shots keep the order they were recorded in
+			for (int i = 0; i < SHOTS; i++)
+				assertEquals(i, ((ShotEvent) events.get(i)).getShot().getTimestamp());
+		}
+
+		// The moves collapsed into the last one
+		List<Event> events = sessionRecorder.getCameraEvents(cameraName);
+		assertEquals(2, events.size());
+		assertEquals(SHOTS - 1, ((TargetMovedEvent) events.get(1)).getNewX());
+	}
+
+	@Test
+	public void testUnseenTargetAddedOnce() throws InterruptedException {
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 100; i++) {
+					sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1.getGeometry()),
+							Optional.of(hitRegionIndex), Optional.empty());
+				}
+			}));
+		}
+
+		for (Thread t : threads)
+			t.start();
+		for (Thread t : threads)
+			t.join();
+
+		List<Event> events = sessionRecorder.getCameraEvents(cameraName);
+
+		// The artificial add, move and resize come before the first shot
+		assertEquals(403, events.size());
+		assertEquals(EventType.TARGET_ADDED, events.get(0).getType());
+		assertEquals(EventType.TARGET_MOVED, events.get(1).getType());
+		assertEquals(EventType.TARGET_RESIZED, events.get(2).getType());
+
+		for (int i = 3; i < events.size(); i++)
+			assertEquals(EventType.SHOT, events.get(i).getType());
+	}
+
+	@Test
+	public void testUnseenTargetPlacedWhereItWasRecorded() {
+		target1.setPosition(30, 40);
+		sessionRecorder.recordShot(cameraName, shot, false, false, Optional.of(target1.getGeometry()),
+				Optional.of(hitRegionIndex), Optional.empty());
+
+		// Moving the target after the shot must not change where the session
+		// says it was
+		target1.setPosition(300, 400);
+
+		List<Event> events = sessionRecorder.getCameraEvents(cameraName);
+
+		assertEquals(EventType.TARGET_MOVED, events.get(1).getType());
+		assertEquals(30, ((TargetMovedEvent) events.get(1)).getNewX());
+		assertEquals(40, ((TargetMovedEvent) events.get(1)).getNewY());
+		assertEquals(EventType.SHOT, events.get(3).getType());
+	}
 }
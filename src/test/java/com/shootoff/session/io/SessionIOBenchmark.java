@@ -0,0 +1,104 @@
+package com.shootoff.session.io;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.Event;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetMovedEvent;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Times saving and loading a large session in each session format and
+ * compares their file sizes. This isn't part of the unit tests because
+ * timings depend on the machine and whatever else it is doing, run it by hand
+ * with <tt>main</tt> to compare changes.
+ */
+public class SessionIOBenchmark {
+	private static final String[] FORMATS = { "xml", "json", "bin" };
+	private static final int SHOTS = 20000;
+	private static final int WARMUP_RUNS = 5;
+	private static final int TIMED_RUNS = 10;
+
+	public static void main(String[] args) {
+		// The XML writer makes sure the sessions folder exists
+		System.setProperty("shootoff.home", System.getProperty("user.dir"));
+		System.setProperty("shootoff.sessions", System.getProperty("shootoff.home") + File.separator + "sessions");
+
+		final Map<String, List<Event>> events = createSession();
+		final Map<String, Double> loadMillis = new HashMap<String, Double>();
+
+		for (String format : FORMATS) {
+			final File sessionFile = new File("benchmark_session." + format);
+
+			try {
+				for (int i = 0; i < WARMUP_RUNS; i++) {
+					SessionIO.saveSession(events, sessionFile);
+					SessionIO.loadSession(sessionFile);
+				}
+
+				long saveNanos = 0;
+				long loadNanos = 0;
+
+				for (int i = 0; i < TIMED_RUNS; i++) {
+					final long start = System.nanoTime();
+					if (!SessionIO.saveSession(events, sessionFile)) throw new IllegalStateException("Save failed");
+					final long saved = System.nanoTime();
+					final Optional<SessionRecorder> loaded = SessionIO.loadSession(sessionFile);
+					final long end = System.nanoTime();
+
+					if (!loaded.isPresent()) throw new IllegalStateException("Load failed");
+
+					saveNanos += saved - start;
+					loadNanos += end - saved;
+				}
+
+				loadMillis.put(format, loadNanos / 1000000.0 / TIMED_RUNS);
+
+				System.out.println(String.format("%s: %d KB, save %.1f ms, load %.1f ms", format,
+						sessionFile.length() / 1024, saveNanos / 1000000.0 / TIMED_RUNS, loadMillis.get(format)));
+			} finally {
+				if (!sessionFile.delete()) System.err.println("Failed to delete " + sessionFile.getPath());
+			}
+		}
+
+		System.out.println(String.format("bin loads %.1fx faster than xml and %.1fx faster than json",
+				loadMillis.get("xml") / loadMillis.get("bin"), loadMillis.get("json") / loadMillis.get("bin")));
+	}
+
+	private static Map<String, List<Event>> createSession() {
+		final Map<String, List<Event>> events = new HashMap<String, List<Event>>();
+		final List<Event> cameraEvents = new ArrayList<Event>();
+		events.put("Default", cameraEvents);
+
+		long timestamp = 0;
+		cameraEvents.add(new TargetAddedEvent("Default", timestamp, "targets/ISSF.target"));
+		cameraEvents.add(new TargetAddedEvent("Default", timestamp, "targets/SimpleBullseye_score.target"));
+
+		for (int i = 0; i < SHOTS; i++) {
+			timestamp += 250 + (i * 37) % 500;
+
+			final Shot shot = new Shot(i % 3 == 0 ? Color.GREEN : Color.RED, (i * 13) % 640 + 0.5,
+					(i * 7) % 480 + 0.25, timestamp, i, 2);
+			final boolean hit = i % 2 == 0;
+
+			cameraEvents.add(new ShotEvent("Default", timestamp, shot, i % 50 == 0, i % 10 == 0,
+					hit ? Optional.of(i % 2) : Optional.empty(), hit ? Optional.of(i % 5) : Optional.empty(),
+					Optional.of("Default:sessions/shot" + (i % 100) + ".mp4")));
+
+			if (i % 100 == 0) cameraEvents.add(new TargetMovedEvent("Default", timestamp, 0, i % 640, i % 480));
+			if (i % 500 == 0) cameraEvents.add(new ExerciseFeedMessageEvent("Default", timestamp, "Round " + i));
+		}
+
+		return events;
+	}
+}
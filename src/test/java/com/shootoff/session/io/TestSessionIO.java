@@ -3,6 +3,10 @@ package com.shootoff.session.io;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -62,9 +66,9 @@ public class TestSessionIO {
 		sessionRecorder.recordTargetAdded(cameraName2, target);
 		sessionRecorder.recordTargetResized(cameraName1, target, 10, 20);
 		sessionRecorder.recordTargetMoved(cameraName1, target, 4, 3);
-		sessionRecorder.recordShot(cameraName1, redShot, false, false, Optional.of(target), Optional.of(hitRegionIndex),
-				Optional.of(videoString));
-		sessionRecorder.recordShot(cameraName1, greenShot, true, false, Optional.of(target),
+		sessionRecorder.recordShot(cameraName1, redShot, false, false, Optional.of(target.getGeometry()),
+				Optional.of(hitRegionIndex), Optional.of(videoString));
+		sessionRecorder.recordShot(cameraName1, greenShot, true, false, Optional.of(target.getGeometry()),
 				Optional.of(hitRegionIndex), Optional.of(videoString));
 		sessionRecorder.recordTargetRemoved(cameraName1, target);
 		sessionRecorder.recordShot(cameraName1, greenShot, false, true, Optional.empty(), Optional.empty(),
@@ -97,8 +101,8 @@ public class TestSessionIO {
 		assertEquals(redShot.getX(), ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getX(), 1);
 		assertEquals(redShot.getY(), ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getY(), 1);
 		assertEquals(redShot.getTimestamp(), ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getTimestamp());
-		assertEquals(redShot.getMarker().getRadiusX(),
-				((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getMarker().getRadiusX(), 1);
+		assertEquals(redShot.getMarkerRadius(),
+				((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getMarkerRadius(), 1);
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).isMalfunction());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).isReload());
 		assertEquals(0, ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getTargetIndex().get().intValue());
@@ -117,8 +121,8 @@ public class TestSessionIO {
 		assertEquals(greenShot.getY(), ((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getY(), 1);
 		assertEquals(greenShot.getTimestamp(),
 				((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getTimestamp());
-		assertEquals(greenShot.getMarker().getRadiusX(),
-				((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getMarker().getRadiusX(), 1);
+		assertEquals(greenShot.getMarkerRadius(),
+				((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getMarkerRadius(), 1);
 		assertTrue(((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).isMalfunction());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).isReload());
 		assertEquals(0, ((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getTargetIndex().get().intValue());
@@ -140,8 +144,8 @@ public class TestSessionIO {
 		assertEquals(greenShot.getY(), ((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getY(), 1);
 		assertEquals(greenShot.getTimestamp(),
 				((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getTimestamp());
-		assertEquals(greenShot.getMarker().getRadiusX(),
-				((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getMarker().getRadiusX(), 1);
+		assertEquals(greenShot.getMarkerRadius(),
+				((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getMarkerRadius(), 1);
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).isMalfunction());
 		assertTrue(((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).isReload());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getTargetIndex().isPresent());
@@ -167,7 +171,7 @@ public class TestSessionIO {
 	@Test
 	public void testXMLSerialization() {
 		File tempXMLSession = new File("temp_session.xml");
-		SessionIO.saveSession(sessionRecorder, tempXMLSession);
+		assertTrue(SessionIO.saveSession(sessionRecorder, tempXMLSession));
 
 		Optional<SessionRecorder> sessionRecorder = SessionIO.loadSession(tempXMLSession);
 		checkSession(sessionRecorder);
@@ -178,11 +182,66 @@ public class TestSessionIO {
 	@Test
 	public void testJSONSerialization() {
 		File tempJSONSession = new File("temp_session.json");
-		SessionIO.saveSession(sessionRecorder, tempJSONSession);
+		assertTrue(SessionIO.saveSession(sessionRecorder, tempJSONSession));
 
 		Optional<SessionRecorder> sessionRecorder = SessionIO.loadSession(tempJSONSession);
 		checkSession(sessionRecorder);
 
 		if (!tempJSONSession.delete()) System.err.println("Failed to delete " + tempJSONSession.getPath());
 	}
+
+	@Test
+	public void testFailedSaveReported() {
+		// Sessions can't be written over a folder
+		for (String name : new String[] { "temp_session.xml", "temp_session.json", "temp_session.bin" }) {
+			File sessionFile = new File(name);
+			assertTrue(sessionFile.mkdir());
+
+			assertFalse(SessionIO.saveSession(sessionRecorder, sessionFile));
+
+			if (!sessionFile.delete()) System.err.println("Failed to delete " + sessionFile.getPath());
+		}
+	}
+
+	@Test
+	public void testBinarySerialization() {
+		File tempBinarySession = new File("temp_session.bin");
+		assertTrue(SessionIO.saveSession(sessionRecorder, tempBinarySession));
+
+		Optional<SessionRecorder> sessionRecorder = SessionIO.loadSession(tempBinarySession);
+		checkSession(sessionRecorder);
+
+		if (!tempBinarySession.delete()) System.err.println("Failed to delete " + tempBinarySession.getPath());
+	}
+
+	@Test
+	public void testBinaryNewerVersion() throws IOException {
+		File tempBinarySession = new File("temp_session.bin");
+
+		try (FileOutputStream out = new FileOutputStream(tempBinarySession)) {
+			out.write(BinarySessionWriter.MAGIC);
+			out.write(BinarySessionWriter.VERSION + 1);
+			out.write(BinarySessionWriter.END);
+		}
+
+		// A session that can't be read must not be mistaken for an empty one
+		Optional<SessionRecorder> sessionRecorder = SessionIO.loadSession(tempBinarySession);
+		assertFalse(sessionRecorder.isPresent());
+
+		if (!tempBinarySession.delete()) System.err.println("Failed to delete " + tempBinarySession.getPath());
+	}
+
+	@Test
+	public void testBinaryTruncated() throws IOException {
+		File tempBinarySession = new File("temp_session.bin");
+		assertTrue(SessionIO.saveSession(sessionRecorder, tempBinarySession));
+
+		byte[] session = Files.readAllBytes(tempBinarySession.toPath());
+		Files.write(tempBinarySession.toPath(), Arrays.copyOf(session, session.length / 2));
+
+		Optional<SessionRecorder> sessionRecorder = SessionIO.loadSession(tempBinarySession);
+		assertFalse(sessionRecorder.isPresent());
+
+		if (!tempBinarySession.delete()) System.err.println("Failed to delete " + tempBinarySession.getPath());
+	}
 }
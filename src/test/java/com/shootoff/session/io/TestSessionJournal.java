@@ -0,0 +1,236 @@
+package com.shootoff.session.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+import com.shootoff.gui.MockCanvasManager;
+import com.shootoff.gui.Target;
+import com.shootoff.session.Event;
+import com.shootoff.session.EventType;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetMovedEvent;
+import com.shootoff.session.TargetResizedEvent;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+
+public class TestSessionJournal {
+	private File sessionsFolder;
+	private Target target;
+	private Shot shot;
+
+	@Before
+	public void setUp() throws ConfigurationException, IOException {
+		sessionsFolder = Files.createTempDirectory("sessions").toFile();
+		System.setProperty("shootoff.home", System.getProperty("user.dir"));
+		System.setProperty("shootoff.sessions", sessionsFolder.getPath());
+
+		Configuration config = new Configuration(new String[0]);
+		MockCanvasManager canvasManager = new MockCanvasManager(config);
+		target = new Target(new File("bullseye.target"), new Group(), config, canvasManager, false);
+		canvasManager.addTarget(target);
+
+		shot = new Shot(Color.RED, 10, 11, 3, 2);
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = sessionsFolder.listFiles();
+		if (files != null) {
+			for (File f : files)
+				if (!f.delete()) System.err.println("Failed to delete " + f.getPath());
+		}
+
+		if (!sessionsFolder.delete()) System.err.println("Failed to delete " + sessionsFolder.getPath());
+	}
+
+	private void recordSession(SessionRecorder sessionRecorder) {
+		sessionRecorder.recordTargetAdded("Default", target);
+		sessionRecorder.recordTargetMoved("Default", target, 1, 2);
+		sessionRecorder.recordTargetResized("Default", target, 10, 20);
+		sessionRecorder.recordTargetMoved("Default", target, 3, 4);
+		sessionRecorder.recordShot("Default", shot, false, true, Optional.of(target.getGeometry()), Optional.of(0),
+				Optional.of("Default:test/file.mp4"));
+		sessionRecorder.recordTargetMoved("Default", target, 5, 6);
+		sessionRecorder.recordShot("Another Camera", shot, true, false, Optional.empty(), Optional.empty(),
+				Optional.empty());
+		sessionRecorder.recordExerciseFeedMessage("This is a\n\t test");
+	}
+
+	@Test
+	public void testJournalMatchesMemory() throws IOException {
+		SessionRecorder memoryRecorder = new SessionRecorder();
+		SessionRecorder journalRecorder = new SessionRecorder(sessionsFolder);
+
+		recordSession(memoryRecorder);
+		recordSession(journalRecorder);
+
+		assertTrue(journalRecorder.getJournalFile().get().exists());
+
+		Map<String, List<Event>> memoryEvents = memoryRecorder.getEvents();
+		Map<String, List<Event>> journalEvents = journalRecorder.getEvents();
+		assertEquals(memoryEvents.keySet(), journalEvents.keySet());
+
+		for (String cameraName : memoryEvents.keySet()) {
+			List<Event> expected = memoryEvents.get(cameraName);
+			List<Event> actual = journalEvents.get(cameraName);
+
+			assertEquals(expected.size(), actual.size());
+
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getType(), actual.get(i).getType());
+				assertEquals(cameraName, actual.get(i).getCameraName());
+			}
+		}
+
+		// The first move was replaced by the second, the third follows a shot
+		List<Event> events = journalRecorder.getCameraEvents("Default");
+		assertEquals(6, events.size());
+		assertEquals(EventType.TARGET_RESIZED, events.get(1).getType());
+		assertEquals(10, ((TargetResizedEvent) events.get(1)).getNewWidth(), 0.1);
+		assertEquals(3, ((TargetMovedEvent) events.get(2)).getNewX());
+		assertEquals(5, ((TargetMovedEvent) events.get(4)).getNewX());
+
+		ShotEvent shotEvent = (ShotEvent) events.get(3);
+		assertEquals(Color.RED, shotEvent.getShot().getColor());
+		assertEquals(10, shotEvent.getShot().getX(), 0.1);
+		assertTrue(shotEvent.isReload());
+		assertEquals(target.getTargetIndex(), shotEvent.getTargetIndex().get().intValue());
+		assertEquals("Default:test/file.mp4", shotEvent.getVideoString().get());
+
+		assertEquals("This is a\n\t test", ((ExerciseFeedMessageEvent) events.get(5)).getMessage());
+
+		ShotEvent otherShot = (ShotEvent) journalRecorder.getCameraEvents("Another Camera").get(0);
+		assertTrue(otherShot.isMalfunction());
+		assertFalse(otherShot.getTargetIndex().isPresent());
+
+		journalRecorder.deleteJournal();
+		assertFalse(journalRecorder.getJournalFile().get().exists());
+	}
+
+	@Test
+	public void testClosedJournalReplayedOnce() throws IOException {
+		SessionRecorder sessionRecorder = new SessionRecorder(sessionsFolder);
+		recordSession(sessionRecorder);
+		sessionRecorder.close();
+
+		assertEquals(6, sessionRecorder.getCameraEvents("Default").size());
+
+		// The closed session's events are kept, so the journal isn't read again
+		sessionRecorder.deleteJournal();
+		assertFalse(sessionRecorder.getJournalFile().get().exists());
+		assertEquals(6, sessionRecorder.getCameraEvents("Default").size());
+		assertEquals(1, sessionRecorder.getCameraEvents("Another Camera").size());
+	}
+
+	@Test
+	public void testGroupCommit() throws IOException, InterruptedException {
+		File journalFile = new File(sessionsFolder, "commit.journal");
+		SessionJournal journal = new SessionJournal(journalFile, 20);
+
+		SessionRecorder sessionRecorder = new SessionRecorder();
+		recordSession(sessionRecorder);
+		for (List<Event> cameraEvents : sessionRecorder.getEvents().values()) {
+			for (Event e : cameraEvents)
+				journal.append(e);
+		}
+
+		// Appending only buffers, the background thread writes the events
+		long deadline = System.currentTimeMillis() + 5000;
+		while (journalFile.length() == 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+
+		assertTrue(journalFile.length() > 0);
+		assertEquals(7, SessionJournal.replay(journalFile).values().stream().mapToInt(List::size).sum());
+
+		journal.close();
+		long length = journalFile.length();
+
+		// Events recorded after closing are dropped
+		journal.append(sessionRecorder.getCameraEvents("Default").get(0));
+		journal.commit();
+		assertEquals(length, journalFile.length());
+	}
+
+	@Test
+	public void testReplayAfterCrash() throws IOException {
+		SessionRecorder sessionRecorder = new SessionRecorder(sessionsFolder);
+		recordSession(sessionRecorder);
+		sessionRecorder.getEvents();
+		File journalFile = sessionRecorder.getJournalFile().get();
+
+		// Simulate a crash in the middle of writing an event
+		try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+			out.write("{\"camera\":\"Default\",\"type\":\"sh".getBytes(StandardCharsets.UTF_8));
+		}
+
+		Map<String, List<Event>> events = SessionJournal.replay(journalFile);
+		assertEquals(6, events.get("Default").size());
+		assertEquals(1, events.get("Another Camera").size());
+
+		// Garbage left by a torn write ends the journal too
+		try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+			out.write(new byte[] { 0, 0, 0, '\n' });
+		}
+
+		events = SessionJournal.replay(journalFile);
+		assertEquals(6, events.get("Default").size());
+
+		sessionRecorder.close();
+	}
+
+	@Test
+	public void testRecoverJournals() throws IOException {
+		SessionRecorder sessionRecorder = new SessionRecorder(sessionsFolder);
+		recordSession(sessionRecorder);
+		sessionRecorder.close();
+
+		// The recorder is never saved, as if ShootOFF crashed
+		File journalFile = sessionRecorder.getJournalFile().get();
+		SessionIO.recoverJournals(sessionsFolder);
+
+		assertFalse(journalFile.exists());
+
+		File sessionFile = new File(sessionsFolder, sessionRecorder.getSessionName() + ".xml");
+		assertTrue(sessionFile.exists());
+
+		Optional<SessionRecorder> recovered = SessionIO.loadSession(sessionFile);
+		assertTrue(recovered.isPresent());
+		assertEquals(6, recovered.get().getCameraEvents("Default").size());
+		assertEquals(1, recovered.get().getCameraEvents("Another Camera").size());
+	}
+
+	@Test
+	public void testJournalKeptWhenRecoveryFails() throws IOException {
+		SessionRecorder sessionRecorder = new SessionRecorder(sessionsFolder);
+		recordSession(sessionRecorder);
+		sessionRecorder.close();
+
+		// A folder where the session should go makes writing it fail
+		File sessionFile = new File(sessionsFolder, sessionRecorder.getSessionName() + ".xml");
+		assertTrue(sessionFile.mkdir());
+
+		File journalFile = sessionRecorder.getJournalFile().get();
+		SessionIO.recoverJournals(sessionsFolder);
+
+		assertTrue(journalFile.exists());
+		assertTrue(sessionFile.delete());
+	}
+}
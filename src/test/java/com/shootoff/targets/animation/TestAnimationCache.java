@@ -0,0 +1,128 @@
+package com.shootoff.targets.animation;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.shootoff.gui.JavaFXThreadingRule;
+
+import javafx.scene.image.ImageView;
+
+public class TestAnimationCache {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private final AtomicInteger decodes = new AtomicInteger();
+	private File first;
+	private File second;
+
+	@Before
+	public void setUp() throws IOException {
+		AnimationCache.clear();
+		AnimationCache.setMaxBytes(64 * 1024 * 1024);
+
+		first = File.createTempFile("animation", ".gif");
+		second = File.createTempFile("animation", ".gif");
+	}
+
+	@After
+	public void tearDown() {
+		AnimationCache.clear();
+		AnimationCache.setMaxBytes(64 * 1024 * 1024);
+
+		first.delete();
+		second.delete();
+	}
+
+	// Two 10x10 frames and their 20x10 atlas, 1600 bytes decoded
+	private ImageFrame[] decode() {
+		decodes.incrementAndGet();
+
+		return new ImageFrame[] { new ImageFrame(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB), 50, "none"),
+				new ImageFrame(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB), 50, "none") };
+	}
+
+	@Test
+	public void testFramesShared() throws IOException {
+		AnimationFrames a = AnimationCache.getFrames(first, (stream) -> decode());
+		AnimationFrames b = AnimationCache.getFrames(first, (stream) -> decode());
+
+		assertEquals(1, decodes.get());
+		assertSame(a, b);
+		assertTrue(a.getAtlas().isPresent());
+		assertEquals(1, AnimationCache.size());
+		assertEquals(1600, AnimationCache.getUsedBytes());
+	}
+
+	@Test
+	public void testModifiedFileDecodedAgain() throws IOException {
+		AnimationFrames a = AnimationCache.getFrames(first, (stream) -> decode());
+		assertTrue(first.setLastModified(first.lastModified() - 10000));
+		AnimationFrames b = AnimationCache.getFrames(first, (stream) -> decode());
+
+		assertEquals(2, decodes.get());
+		assertNotSame(a, b);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() throws IOException {
+		AnimationCache.setMaxBytes(2000);
+
+		AnimationCache.getFrames(first, (stream) -> decode());
+		AnimationCache.getFrames(second, (stream) -> decode());
+
+		// Only one set of frames fits, so the first is dropped
+		assertEquals(1, AnimationCache.size());
+		assertEquals(1600, AnimationCache.getUsedBytes());
+
+		AnimationCache.getFrames(second, (stream) -> decode());
+		assertEquals(2, decodes.get());
+
+		AnimationCache.getFrames(first, (stream) -> decode());
+		assertEquals(3, decodes.get());
+	}
+
+	@Test
+	public void testFailureNotCached() throws IOException {
+		try {
+			AnimationCache.getFrames(first, (stream) -> {
+				throw new IOException("expected by test");
+			});
+			fail("Decoder exception should be thrown");
+		} catch (IOException e) {
+			assertEquals("expected by test", e.getMessage());
+		}
+
+		assertEquals(0, AnimationCache.size());
+
+		AnimationCache.getFrames(first, (stream) -> decode());
+		assertEquals(1, decodes.get());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testMissingFile() throws IOException {
+		AnimationCache.getFrames(new File("does_not_exist.gif"), (stream) -> decode());
+	}
+
+	@Test
+	public void testGifAnimationsShareFrames() throws IOException {
+		File gif = new File("targets/ram.gif");
+
+		GifAnimation a = new GifAnimation(new ImageView(), gif);
+		GifAnimation b = new GifAnimation(new ImageView(), gif);
+
+		assertTrue(a.getFrameCount() > 1);
+		assertEquals(a.getFrameCount(), b.getFrameCount());
+		assertSame(a.getFirstFrame(), b.getFirstFrame());
+		assertEquals(1, AnimationCache.size());
+	}
+}
@@ -0,0 +1,137 @@
+package com.shootoff.targets.animation;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.shootoff.gui.JavaFXThreadingRule;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+
+public class TestSpriteAtlas {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	// Each frame is filled with a color that identifies it
+	private ImageFrame[] createFrames(int count, int width, int height) {
+		ImageFrame[] frames = new ImageFrame[count];
+
+		for (int i = 0; i < count; i++) {
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			for (int y = 0; y < height; y++)
+				for (int x = 0; x < width; x++)
+					image.setRGB(x, y, 0xFF000000 | (i + 1) * 20);
+
+			frames[i] = new ImageFrame(image, 10, "none");
+		}
+
+		return frames;
+	}
+
+	@Test
+	public void testFramesPacked() {
+		ImageFrame[] frames = createFrames(5, 20, 10);
+		SpriteAtlas atlas = SpriteAtlas.pack(frames, SpriteAtlas.MAX_SIZE).get();
+
+		// 5 frames fit in a 3x2 grid
+		assertEquals(60, (int) atlas.getImage().getWidth());
+		assertEquals(20, (int) atlas.getImage().getHeight());
+		assertEquals(5, atlas.getFrameCount());
+		assertEquals(new Rectangle2D(40, 0, 20, 10), atlas.getViewport(2));
+		assertEquals(new Rectangle2D(20, 10, 20, 10), atlas.getViewport(4));
+
+		PixelReader reader = atlas.getImage().getPixelReader();
+		for (int i = 0; i < frames.length; i++) {
+			Rectangle2D viewport = atlas.getViewport(i);
+
+			for (int y = 0; y < viewport.getHeight(); y++) {
+				for (int x = 0; x < viewport.getWidth(); x++) {
+					assertEquals(frames[i].getImage().getPixelReader().getArgb(x, y),
+							reader.getArgb((int) viewport.getMinX() + x, (int) viewport.getMinY() + y));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testColumnsLimitedBySize() {
+		SpriteAtlas atlas = SpriteAtlas.pack(createFrames(9, 20, 10), 50).get();
+
+		assertEquals(40, (int) atlas.getImage().getWidth());
+		assertEquals(50, (int) atlas.getImage().getHeight());
+		assertEquals(new Rectangle2D(0, 40, 20, 10), atlas.getViewport(8));
+	}
+
+	@Test
+	public void testTooLarge() {
+		assertFalse(SpriteAtlas.pack(createFrames(9, 20, 10), 30).isPresent());
+		assertFalse(SpriteAtlas.pack(createFrames(1, 50, 10), 40).isPresent());
+	}
+
+	@Test
+	public void testOnlyEndFramesKeptWithAtlas() {
+		ImageFrame[] frames = createFrames(4, 10, 10);
+		AnimationFrames packed = AnimationFrames.pack(frames);
+
+		assertTrue(packed.getAtlas().isPresent());
+		assertEquals(4, packed.getFrameCount());
+		assertSame(frames[0].getImage(), packed.getFirstImage());
+		assertSame(frames[3].getImage(), packed.getLastImage());
+
+		// Two kept frames and a 20x20 atlas
+		assertEquals((2 * 100 + 400) * 4, packed.getBytes());
+
+		AnimationFrames unpacked = AnimationFrames.pack(frames, 15);
+
+		assertFalse(unpacked.getAtlas().isPresent());
+		assertSame(frames[2].getImage(), unpacked.getImage(2));
+		assertEquals(4 * 100 * 4, unpacked.getBytes());
+	}
+
+	@Test
+	public void testAnimationMovesViewport() {
+		ImageFrame[] frames = createFrames(4, 10, 10);
+		AnimationFrames packed = AnimationFrames.pack(frames);
+		SpriteAtlas atlas = packed.getAtlas().get();
+		ImageView view = new ImageView(frames[0].getImage());
+		SpriteAnimation animation = new SpriteAnimation(view, packed);
+
+		assertTrue(animation.isUsingAtlas());
+		assertTrue(animation.onFirstFrame());
+
+		animation.interpolate(0.6);
+		assertSame(atlas.getImage(), view.getImage());
+		assertEquals(atlas.getViewport(2), view.getViewport());
+		assertFalse(animation.onFirstFrame());
+
+		animation.interpolate(1.0);
+		assertEquals(atlas.getViewport(3), view.getViewport());
+
+		// Reversing makes the current last frame the first frame
+		animation.reverse();
+		assertTrue(animation.onFirstFrame());
+
+		animation.reset();
+		assertSame(atlas.getImage(), view.getImage());
+		assertEquals(atlas.getViewport(0), view.getViewport());
+		assertTrue(animation.onFirstFrame());
+	}
+
+	@Test
+	public void testAnimationWithoutAtlas() {
+		ImageFrame[] frames = createFrames(4, 10, 10);
+		ImageView view = new ImageView(frames[0].getImage());
+		SpriteAnimation animation = new SpriteAnimation(view, frames);
+
+		assertFalse(animation.isUsingAtlas());
+
+		animation.interpolate(0.6);
+		assertSame(frames[2].getImage(), view.getImage());
+		assertNull(view.getViewport());
+		assertFalse(animation.onFirstFrame());
+	}
+}
@@ -0,0 +1,175 @@
+package com.shootoff.targets.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.shootoff.gui.CommandTag;
+import com.shootoff.gui.JavaFXThreadingRule;
+import com.shootoff.targets.EllipseRegion;
+import com.shootoff.targets.PolygonRegion;
+import com.shootoff.targets.RectangleRegion;
+import com.shootoff.targets.RegionType;
+import com.shootoff.targets.TargetRegion;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+
+public class TestTargetTemplate {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private File targetFile;
+
+	@Before
+	public void setUp() throws IOException {
+		targetFile = File.createTempFile("template", ".target");
+		writeTarget("10.0");
+	}
+
+	@After
+	public void tearDown() {
+		TargetIO.invalidateTemplate(targetFile);
+		if (!targetFile.delete()) System.err.println("Failed to delete " + targetFile.getPath());
+	}
+
+	private void writeTarget(String rectangleX) throws IOException {
+		try (PrintWriter out = new PrintWriter(targetFile, "UTF-8")) {
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<target>");
+			out.println("\t<rectangle x=\"" + rectangleX
+					+ "\" y=\"20.0\" width=\"30.0\" height=\"40.0\" fill=\"red\">");
+			out.println("\t\t<tag name=\"points\" value=\"5\" />");
+			out.println("\t\t<tag name=\"command\" value=\"play_sound(sounds/beep.wav);reset\" />");
+			out.println("\t</rectangle>");
+			out.println("\t<ellipse centerX=\"50.0\" centerY=\"60.0\" radiusX=\"5.0\" radiusY=\"6.0\" fill=\"blue\">");
+			out.println("\t\t<tag name=\"visible\" value=\"false\" />");
+			out.println("\t</ellipse>");
+			out.println("\t<polygon fill=\"black\">");
+			out.println("\t\t<point x=\"0.0\" y=\"0.0\" />");
+			out.println("\t\t<point x=\"10.0\" y=\"0.0\" />");
+			out.println("\t\t<point x=\"5.0\" y=\"8.0\" />");
+			out.println("\t\t<tag name=\"opacity\" value=\"0.25\" />");
+			out.println("\t</polygon>");
+			out.println("</target>");
+		}
+	}
+
+	@Test
+	public void testTemplateCompiled() {
+		TargetTemplate template = TargetIO.getTemplate(targetFile).get();
+		List<TargetTemplate.RegionTemplate> regions = template.getRegions();
+
+		assertEquals(3, regions.size());
+		assertEquals(RegionType.RECTANGLE, regions.get(0).getType());
+		assertEquals(RegionType.ELLIPSE, regions.get(1).getType());
+		assertEquals(RegionType.POLYGON, regions.get(2).getType());
+		assertEquals("5", regions.get(0).getTags().get("points"));
+
+		try {
+			regions.get(0).getTags().put("points", "10");
+			fail("Template tags should not be modifiable");
+		} catch (UnsupportedOperationException e) {}
+	}
+
+	@Test
+	public void testTemplateShared() {
+		assertSame(TargetIO.getTemplate(targetFile).get(), TargetIO.getTemplate(targetFile).get());
+	}
+
+	@Test
+	public void testInstancesIndependent() {
+		Group first = TargetIO.loadTarget(targetFile).get();
+		Group second = TargetIO.loadTarget(targetFile).get();
+
+		assertEquals(3, first.getChildren().size());
+		assertEquals(3, second.getChildren().size());
+
+		for (int i = 0; i < first.getChildren().size(); i++)
+			assertNotSame(first.getChildren().get(i), second.getChildren().get(i));
+
+		RectangleRegion rect = (RectangleRegion) first.getChildren().get(0);
+		assertEquals(10, rect.getX(), 0.01);
+		assertEquals(30, rect.getWidth(), 0.01);
+		assertEquals(Color.RED, rect.getFill());
+		assertEquals(TargetIO.DEFAULT_OPACITY, rect.getOpacity(), 0.01);
+
+		EllipseRegion ellipse = (EllipseRegion) first.getChildren().get(1);
+		assertEquals(50, ellipse.getCenterX(), 0.01);
+		assertFalse(ellipse.isVisible());
+
+		PolygonRegion polygon = (PolygonRegion) first.getChildren().get(2);
+		assertEquals(6, polygon.getPoints().size());
+		assertEquals(0.25, polygon.getOpacity(), 0.01);
+
+		// Editing one copy doesn't change the other or the template
+		rect.getAllTags().put("points", "10");
+		rect.setWidth(100);
+		polygon.getPoints().set(0, 99.0);
+
+		assertEquals("5", ((TargetRegion) second.getChildren().get(0)).getTag("points"));
+		assertEquals(30, ((RectangleRegion) second.getChildren().get(0)).getWidth(), 0.01);
+		assertEquals(0, ((PolygonRegion) second.getChildren().get(2)).getPoints().get(0), 0.01);
+
+		Group third = TargetIO.loadTarget(targetFile).get();
+		assertEquals("5", ((TargetRegion) third.getChildren().get(0)).getTag("points"));
+		assertEquals(0, ((PolygonRegion) third.getChildren().get(2)).getPoints().get(0), 0.01);
+	}
+
+	@Test
+	public void testModifiedFileCompiledAgain() throws IOException {
+		TargetTemplate first = TargetIO.getTemplate(targetFile).get();
+
+		writeTarget("15.0");
+		assertTrue(targetFile.setLastModified(first.getLastModified() + 10000));
+
+		TargetTemplate second = TargetIO.getTemplate(targetFile).get();
+		assertNotSame(first, second);
+
+		Node rect = TargetIO.loadTarget(targetFile).get().getChildren().get(0);
+		assertEquals(15, ((RectangleRegion) rect).getX(), 0.01);
+	}
+
+	@Test
+	public void testCommandsParsedOnce() {
+		TargetRegion rect = (TargetRegion) TargetIO.loadTarget(targetFile).get().getChildren().get(0);
+		TargetRegion otherRect = (TargetRegion) TargetIO.loadTarget(targetFile).get().getChildren().get(0);
+		CommandTag commands = rect.getCommandTag().get();
+
+		// Every copy of a target shares the tags parsed by its template
+		assertSame(commands, otherRect.getCommandTag().get());
+		assertSame(commands, rect.getCommandTag().get());
+		assertEquals(2, commands.getCommands().size());
+
+		StringBuilder processed = new StringBuilder();
+		commands.process((all, commandName, args) -> {
+			processed.append(commandName).append(args).append(';');
+		});
+
+		assertEquals("play_sound[sounds/beep.wav];reset[];", processed.toString());
+	}
+
+	@Test
+	public void testChangedCommandTagParsedAgain() {
+		TargetRegion rect = (TargetRegion) TargetIO.loadTarget(targetFile).get().getChildren().get(0);
+		CommandTag commands = rect.getCommandTag().get();
+
+		// Tags are edited in place by the tag editor
+		rect.getAllTags().put("command", "reset");
+
+		assertNotSame(commands, rect.getCommandTag().get());
+		assertEquals(Arrays.asList("reset"), rect.getCommandTag().get().getCommands());
+
+		rect.getAllTags().remove("command");
+		assertFalse(rect.getCommandTag().isPresent());
+	}
+}
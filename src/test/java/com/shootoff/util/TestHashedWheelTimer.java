@@ -0,0 +1,139 @@
+package com.shootoff.util;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.util.HashedWheelTimer.Timeout;
+
+public class TestHashedWheelTimer {
+	private HashedWheelTimer timer;
+
+	@Before
+	public void setUp() {
+		timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8, "TestHashedWheelTimer");
+	}
+
+	@After
+	public void tearDown() {
+		timer.stop();
+	}
+
+	@Test
+	public void testRunsAfterDelay() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final long start = System.nanoTime();
+
+		Timeout timeout = timer.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+		assertTrue(timeout.isWaiting());
+		assertEquals(1, timer.getPendingCount());
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+		assertFalse(timeout.isWaiting());
+		assertFalse(timeout.isCancelled());
+		assertEquals(0, timer.getPendingCount());
+	}
+
+	@Test
+	public void testDelayLongerThanWheel() throws InterruptedException {
+		// 8 buckets of 5 ms each means this has to go around the wheel
+		// several times before it runs
+		final CountDownLatch latch = new CountDownLatch(1);
+		final long start = System.nanoTime();
+
+		timer.schedule(latch::countDown, 150, TimeUnit.MILLISECONDS);
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		final AtomicInteger runs = new AtomicInteger();
+
+		Timeout timeout = timer.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+		assertTrue(timeout.isCancelled());
+		assertEquals(0, timer.getPendingCount());
+
+		Thread.sleep(100);
+		assertEquals(0, runs.get());
+	}
+
+	@Test
+	public void testRescheduleDoesNotGrowPending() throws InterruptedException {
+		final AtomicInteger runs = new AtomicInteger();
+		Timeout timeout = null;
+
+		// This is what the camera warnings do every frame
+		for (int i = 0; i < 10000; i++) {
+			if (timeout != null) timeout.cancel();
+			timeout = timer.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+		}
+
+		assertEquals(1, timer.getPendingCount());
+
+		Thread.sleep(200);
+		assertEquals(1, runs.get());
+		assertEquals(0, timer.getPendingCount());
+	}
+
+	@Test
+	public void testOrder() throws InterruptedException {
+		final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+		final CountDownLatch latch = new CountDownLatch(3);
+
+		timer.schedule(() -> {
+			order.add(3);
+			latch.countDown();
+		}, 90, TimeUnit.MILLISECONDS);
+		timer.schedule(() -> {
+			order.add(1);
+			latch.countDown();
+		}, 10, TimeUnit.MILLISECONDS);
+		timer.schedule(() -> {
+			order.add(2);
+			latch.countDown();
+		}, 50, TimeUnit.MILLISECONDS);
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		assertEquals(1, (int) order.get(0));
+		assertEquals(2, (int) order.get(1));
+		assertEquals(3, (int) order.get(2));
+	}
+
+	@Test
+	public void testFailedTaskDoesNotStopTimer() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		timer.schedule(() -> {
+			throw new IllegalStateException("expected by test");
+		}, 10, TimeUnit.MILLISECONDS);
+		timer.schedule(latch::countDown, 30, TimeUnit.MILLISECONDS);
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testStopReturnsWaitingTasks() {
+		final Runnable waiting = () -> {};
+
+		timer.schedule(waiting, 10, TimeUnit.SECONDS);
+		timer.schedule(() -> {}, 10, TimeUnit.SECONDS).cancel();
+
+		List<Runnable> unprocessed = timer.stop();
+		assertEquals(1, unprocessed.size());
+		assertSame(waiting, unprocessed.get(0));
+		assertEquals(0, timer.getPendingCount());
+	}
+}